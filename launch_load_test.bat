@@ -0,0 +1,4 @@
+@echo off
+echo Starting BlueprintHell load test...
+java -cp "build/libs/*" client.LoadGenerator %*
+pause
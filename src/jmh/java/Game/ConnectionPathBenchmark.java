@@ -0,0 +1,57 @@
+package Game;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.*;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Connection#getDetailedPath()} with the cached geometry and with the
+ * geometry rebuilt on every call, for up to the maximum of three bend points.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ConnectionPathBenchmark {
+    @Param({"0", "1", "3"})
+    public int bendPoints;
+
+    private Connection connection;
+
+    @Setup
+    public void setUp() {
+        connection = (Connection) SyntheticStates.tileConnections().get(0);
+        INode from = connection.getFromNode();
+        INode to = connection.getToNode();
+        for (int i = 1; i <= bendPoints; i++) {
+            int x = from.getX() + (to.getX() - from.getX()) * i / (bendPoints + 1);
+            int y = from.getY() + (to.getY() - from.getY()) * i / (bendPoints + 1) + (i % 2 == 0 ? 40 : -40);
+            connection.addBendPoint(x, y);
+        }
+    }
+
+    @Benchmark
+    public List<Point> cached() {
+        return connection.getDetailedPath();
+    }
+
+    @Benchmark
+    public List<Point> rebuilt() {
+        connection.invalidatePath();
+        return connection.getDetailedPath();
+    }
+}
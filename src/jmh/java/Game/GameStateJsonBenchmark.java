@@ -0,0 +1,50 @@
+package Game;
+
+import network.GameStateConverter;
+import network.GameStateData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Converting a game state to its network form and serializing it to JSON.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GameStateJsonBenchmark {
+    @Param({"10", "100", "1000", "10000"})
+    public int packets;
+
+    private GameState state;
+    private GameStateData data;
+
+    @Setup
+    public void setUp() {
+        state = SyntheticStates.build(packets);
+        data = GameStateConverter.toNetworkData(state);
+    }
+
+    @Benchmark
+    public GameStateData toNetworkData() {
+        return GameStateConverter.toNetworkData(state);
+    }
+
+    @Benchmark
+    public String toJson() {
+        return data.toJson();
+    }
+}
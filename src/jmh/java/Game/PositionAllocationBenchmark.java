@@ -0,0 +1,93 @@
+package Game;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.*;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the allocating position and displacement calls with their
+ * allocation-free counterparts. Run with {@code gradlew jmh -Pjmh.profilers=gc}
+ * to see bytes allocated per call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PositionAllocationBenchmark {
+    private static final int PACKETS = 10_000;
+
+    private List<Packet> packets;
+    private final Point holder = new Point();
+
+    @Setup
+    public void setUp() {
+        packets = SyntheticStates.build(PACKETS).getPackets();
+        for (int i = 0; i < packets.size(); i++) {
+            packets.get(i).setProgress((i % 100) / 100.0);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PACKETS)
+    public long allocatingPosition() {
+        long sink = 0;
+        for (Packet packet : packets) {
+            Point pos = packet.getPosition();
+            sink += pos.x + pos.y;
+        }
+        return sink;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PACKETS)
+    public long holderPosition() {
+        long sink = 0;
+        for (Packet packet : packets) {
+            packet.getPosition(holder);
+            sink += holder.x + holder.y;
+        }
+        return sink;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PACKETS)
+    public long primitivePosition() {
+        long sink = 0;
+        for (Packet packet : packets) {
+            sink += packet.getX() + packet.getY();
+        }
+        return sink;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PACKETS)
+    public void allocatingDisplacement() {
+        for (Packet packet : packets) {
+            packet.applyDisplacement(new Point(1, -1));
+            packet.resetDisplacement();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PACKETS)
+    public void primitiveDisplacement() {
+        for (Packet packet : packets) {
+            packet.applyDisplacement(1, -1);
+            packet.resetDisplacement();
+        }
+    }
+}
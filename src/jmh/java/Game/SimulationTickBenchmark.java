@@ -0,0 +1,110 @@
+package Game;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one simulation tick and of its main phases as the number of packets
+ * grows. Ticks and routing move, collide and deliver packets, so each call
+ * runs a fixed batch of them on a freshly built {@link SyntheticStates}
+ * state, and scores are per tick; the read-only collision phase reuses one
+ * state per iteration.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SimulationTickBenchmark {
+    static final int TICKS_PER_INVOCATION = 20; // Keeps per-call JMH overhead small next to the work
+
+    @Param({"10", "100", "1000", "10000"})
+    public int packets;
+
+    private GameState state;
+    private PacketManager packetManager;
+    private final SpatialHashGrid collisionGrid = new SpatialHashGrid(GameConfig.PACKET_LOSS_DISTANCE);
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        state = SyntheticStates.build(packets);
+        packetManager = new PacketManager(state);
+    }
+
+    /**
+     * A state rebuilt before every call, so each measured batch starts with
+     * exactly {@link #packets} packets rather than what earlier calls left.
+     */
+    @State(Scope.Thread)
+    public static class FreshState {
+        GameState state;
+        PacketManager packetManager;
+
+        @Setup(Level.Invocation)
+        public void setUp(SimulationTickBenchmark benchmark) {
+            state = SyntheticStates.build(benchmark.packets);
+            packetManager = new PacketManager(state);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TICKS_PER_INVOCATION)
+    public int tick(FreshState fresh) {
+        for (int i = 0; i < TICKS_PER_INVOCATION; i++) {
+            fresh.packetManager.stepForward();
+        }
+        return fresh.state.getPackets().size();
+    }
+
+    /**
+     * The broad and narrow phase of collision detection as run by
+     * {@link PacketManager}, without removing anything.
+     */
+    @Benchmark
+    public int collisionPhase() {
+        List<Packet> list = state.getPackets();
+        collisionGrid.rebuild(list);
+        int pairs = 0;
+        for (int i = 0; i < list.size(); i++) {
+            int x = collisionGrid.getX(i);
+            int y = collisionGrid.getY(i);
+            int candidates = collisionGrid.queryRadius(x, y, GameConfig.PACKET_LOSS_DISTANCE, i);
+            for (int k = 0; k < candidates; k++) {
+                if (list.get(i).getCurrentConnection() != list.get(collisionGrid.getResult(k)).getCurrentConnection()) {
+                    pairs++;
+                }
+            }
+        }
+        return pairs;
+    }
+
+    /**
+     * Movement and routing only: every packet's {@link Packet#updateForward}.
+     */
+    @Benchmark
+    @OperationsPerInvocation(TICKS_PER_INVOCATION)
+    public int routing(FreshState fresh) {
+        List<Packet> list = fresh.state.getPackets();
+        for (int tick = 0; tick < TICKS_PER_INVOCATION; tick++) {
+            for (int i = list.size() - 1; i >= 0; i--) {
+                list.get(i).updateForward(fresh.state, list);
+            }
+        }
+        return list.size();
+    }
+}
@@ -0,0 +1,79 @@
+package Game;
+
+import controller.User;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Builds benchmark game states by tiling the level 1 layout. Each tile's nodes
+ * are connected port to port in a cycle and every other connection of each
+ * cycle carries a packet, so packets keep circulating instead of draining.
+ * Node ids are suffixed with the tile index, so there is no source "A" and no
+ * new packets are spawned.
+ */
+final class SyntheticStates {
+    static final int TILE_SIZE = 600;
+    private static final int TILES_PER_ROW = 50;
+
+    private SyntheticStates() {
+    }
+
+    static GameState build(int packetCount) {
+        LevelConfig.LevelData level = LevelConfig.getLevel(1);
+        List<LevelConfig.NodeConfig> layout = cycleOrder(level.getNodes());
+        GameState state = new GameState(1, new User("benchmark"));
+        int tile = 0;
+        while (state.getPackets().size() < packetCount) {
+            addTile(state, layout, tile++, packetCount);
+        }
+        return state;
+    }
+
+    /**
+     * Connections from a single tile, for benchmarks that only need wiring.
+     */
+    static List<IConnection> tileConnections() {
+        GameState state = build(0);
+        addTile(state, cycleOrder(LevelConfig.getLevel(1).getNodes()), 0, 0);
+        return new ArrayList<>(state.getConnections());
+    }
+
+    private static void addTile(GameState state, List<LevelConfig.NodeConfig> layout, int tile, int packetCount) {
+        int dx = (tile % TILES_PER_ROW) * TILE_SIZE;
+        int dy = (tile / TILES_PER_ROW) * TILE_SIZE;
+        List<INode> nodes = new ArrayList<>();
+        for (LevelConfig.NodeConfig config : layout) {
+            INode node = NodeFactory.createNodeWithShapes(config.getId() + "_" + tile,
+                    config.getX() + dx, config.getY() + dy,
+                    config.getOutputShapes(), config.getInputShapes(), config.getSystemType());
+            state.addNode(node);
+            nodes.add(node);
+        }
+        for (int i = 0; i < nodes.size(); i++) {
+            INode from = nodes.get(i);
+            INode to = nodes.get((i + 1) % nodes.size());
+            int ports = Math.min(from.getOutputShapes().length, to.getInputShapes().length);
+            for (int port = 0; port < ports; port++) {
+                Connection connection = new Connection(from, port, to, port);
+                state.addConnection(connection);
+                to.getConnectedInputs().add(port);
+                // Alternate per port so the two lanes never share an edge.
+                boolean loaded = (i + port) % 2 == 0;
+                PacketKind kind = PacketKind.fromTypeName(from.getOutputShapes()[port]);
+                if (loaded && kind != null && state.getPackets().size() < packetCount) {
+                    state.getPackets().add(new Packet(connection, kind));
+                }
+            }
+        }
+    }
+
+    private static List<LevelConfig.NodeConfig> cycleOrder(List<LevelConfig.NodeConfig> nodes) {
+        double cx = nodes.stream().mapToInt(LevelConfig.NodeConfig::getX).average().orElse(0);
+        double cy = nodes.stream().mapToInt(LevelConfig.NodeConfig::getY).average().orElse(0);
+        List<LevelConfig.NodeConfig> ordered = new ArrayList<>(nodes);
+        ordered.sort(Comparator.comparingDouble(n -> Math.atan2(n.getY() - cy, n.getX() - cx)));
+        return ordered;
+    }
+}
@@ -0,0 +1,110 @@
+package server;
+
+import com.google.gson.Gson;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.string.StringEncoder;
+import io.netty.util.CharsetUtil;
+import io.netty.util.ReferenceCountUtil;
+import network.BinaryMessageCodec;
+import network.LeaderboardEntry;
+import network.NetworkMessage;
+import network.NetworkMessageCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Broadcasting a leaderboard to a growing number of clients, encoded once
+ * per recipient as before and once per broadcast through
+ * {@link ServerMain#broadcastMessage}. Clients sit on embedded channels with
+ * the server's codecs, and every invocation writes all queued messages out.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BroadcastFanOutBenchmark {
+    private static final int LEADERBOARD_ENTRIES = 100;
+
+    @Param({"2", "10", "100", "1000"})
+    public int recipients;
+
+    @Param({"json", "binary"})
+    public String protocol;
+
+    private ServerMain server;
+    private final List<EmbeddedChannel> channels = new ArrayList<>();
+    private final List<ClientHandler> clients = new ArrayList<>();
+    private NetworkMessage message;
+
+    @Setup
+    public void setUp() {
+        server = new ServerMain();
+        for (int i = 0; i < recipients; i++) {
+            EmbeddedChannel channel = new EmbeddedChannel();
+            if ("binary".equals(protocol)) {
+                channel.pipeline().addLast(ProtocolNegotiator.BINARY_CODEC, new BinaryMessageCodec());
+            } else {
+                channel.pipeline().addLast(ProtocolNegotiator.STRING_ENCODER, new StringEncoder(CharsetUtil.UTF_8));
+                channel.pipeline().addLast(ProtocolNegotiator.MESSAGE_CODEC, new NetworkMessageCodec());
+            }
+            channels.add(channel);
+            clients.add(server.registerClient(channel));
+        }
+
+        List<LeaderboardEntry> leaderboard = new ArrayList<>();
+        for (int i = 0; i < LEADERBOARD_ENTRIES; i++) {
+            leaderboard.add(new LeaderboardEntry("player_" + i, 1 + i % 5, 60000L + i * 731, i * 13, i * 7));
+        }
+        message = new NetworkMessage(NetworkMessage.MessageType.LEADERBOARD, new Gson().toJson(leaderboard), "server");
+    }
+
+    @TearDown
+    public void tearDown() {
+        for (EmbeddedChannel channel : channels) {
+            channel.finishAndReleaseAll();
+        }
+    }
+
+    @Benchmark
+    public int encodePerRecipient() {
+        for (ClientHandler client : clients) {
+            client.sendMessage(message);
+        }
+        return writeAll();
+    }
+
+    @Benchmark
+    public int encodeOnce() {
+        server.broadcastMessage(message);
+        return writeAll();
+    }
+
+    private int writeAll() {
+        int frames = 0;
+        for (EmbeddedChannel channel : channels) {
+            channel.runPendingTasks();
+            Object frame;
+            while ((frame = channel.readOutbound()) != null) {
+                ReferenceCountUtil.release(frame);
+                frames++;
+            }
+        }
+        return frames;
+    }
+}
@@ -4,29 +4,33 @@ import java.awt.Color;
 
 
 public enum AmmunitionType {
-    SQUARE("square", "Square Packet", Color.BLUE, 2),
-    TRIANGLE("triangle", "Triangle Packet", Color.RED, 3),
-    CIRCLE("circle", "Circle Packet", Color.GREEN, 1),
-    PROTECTED("protected", "Protected Packet", Color.YELLOW, 5),
-    CONFIDENTIAL_4("confidential_4", "Confidential 4", Color.MAGENTA, 3),
-    CONFIDENTIAL_6("confidential_6", "Confidential 6", Color.CYAN, 4),
-    BULKY_8("bulky_8", "Bulky 8", Color.ORANGE, 8),
-    BULKY_10("bulky_10", "Bulky 10", Color.PINK, 10);
-
-    private final String packetType;
+    SQUARE(PacketKind.SQUARE, "Square Packet", Color.BLUE, 2),
+    TRIANGLE(PacketKind.TRIANGLE, "Triangle Packet", Color.RED, 3),
+    CIRCLE(PacketKind.CIRCLE, "Circle Packet", Color.GREEN, 1),
+    PROTECTED(PacketKind.PROTECTED, "Protected Packet", Color.YELLOW, 5),
+    CONFIDENTIAL_4(PacketKind.CONFIDENTIAL_4, "Confidential 4", Color.MAGENTA, 3),
+    CONFIDENTIAL_6(PacketKind.CONFIDENTIAL_6, "Confidential 6", Color.CYAN, 4),
+    BULKY_8(PacketKind.BULKY_8, "Bulky 8", Color.ORANGE, 8),
+    BULKY_10(PacketKind.BULKY_10, "Bulky 10", Color.PINK, 10);
+
+    private final PacketKind kind;
     private final String displayName;
     private final Color color;
     private final int coinReward;
 
-    AmmunitionType(String packetType, String displayName, Color color, int coinReward) {
-        this.packetType = packetType;
+    AmmunitionType(PacketKind kind, String displayName, Color color, int coinReward) {
+        this.kind = kind;
         this.displayName = displayName;
         this.color = color;
         this.coinReward = coinReward;
     }
 
     public String getPacketType() {
-        return packetType;
+        return kind.getTypeName();
+    }
+
+    public PacketKind getKind() {
+        return kind;
     }
 
     public String getDisplayName() {
@@ -42,8 +46,12 @@ public enum AmmunitionType {
     }
 
     public static AmmunitionType fromPacketType(String packetType) {
+        return fromKind(PacketKind.fromTypeName(packetType));
+    }
+
+    public static AmmunitionType fromKind(PacketKind kind) {
         for (AmmunitionType type : values()) {
-            if (type.packetType.equals(packetType)) {
+            if (type.kind == kind) {
                 return type;
             }
         }
@@ -0,0 +1,191 @@
+package Game;
+
+import org.slf4j.Logger;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded lock-free ring of pending log records for one logger. Callers only
+ * claim a slot and store the format and arguments; {@link AsyncLogWriter}
+ * formats and writes them in batches on its own thread.
+ *
+ * <p>Arguments are formatted later, so they should be immutable values.
+ */
+final class AsyncLogChannel {
+    enum Level {
+        DEBUG,
+        INFO,
+        WARN,
+        ERROR
+    }
+
+    enum OverflowPolicy {
+        /** Discard the record and count it as dropped. */
+        DROP,
+        /** Wait for the writer to free a slot. */
+        BLOCK
+    }
+
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private static final class Entry {
+        Level level;
+        String format;
+        Object[] args;
+    }
+
+    private final Logger logger;
+    private final Entry[] entries;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+    private volatile OverflowPolicy policy;
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder written = new LongAdder();
+
+    AsyncLogChannel(Logger logger, int capacity, OverflowPolicy policy) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        this.logger = logger;
+        this.entries = new Entry[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            entries[i] = new Entry();
+            sequences.set(i, i);
+        }
+        this.mask = capacity - 1;
+        this.policy = policy;
+        AsyncLogWriter.register(this);
+    }
+
+    Logger getLogger() {
+        return logger;
+    }
+
+    void debug(String format, Object... args) {
+        if (logger.isDebugEnabled()) {
+            publish(Level.DEBUG, format, args);
+        }
+    }
+
+    void info(String format, Object... args) {
+        if (logger.isInfoEnabled()) {
+            publish(Level.INFO, format, args);
+        }
+    }
+
+    void warn(String format, Object... args) {
+        if (logger.isWarnEnabled()) {
+            publish(Level.WARN, format, args);
+        }
+    }
+
+    void error(String format, Object... args) {
+        if (logger.isErrorEnabled()) {
+            publish(Level.ERROR, format, args);
+        }
+    }
+
+    /**
+     * @return false if the record was dropped because the ring was full
+     */
+    boolean publish(Level level, String format, Object[] args) {
+        while (true) {
+            long position = tail.get();
+            int index = (int) (position & mask);
+            long available = sequences.get(index) - position;
+            if (available == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    Entry entry = entries[index];
+                    entry.level = level;
+                    entry.format = format;
+                    entry.args = args;
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+            } else if (available < 0) {
+                if (policy == OverflowPolicy.DROP) {
+                    dropped.increment();
+                    return false;
+                }
+                AsyncLogWriter.wake();
+                LockSupport.parkNanos(this, BLOCK_PARK_NANOS);
+            }
+        }
+    }
+
+    /**
+     * Writes up to {@code max} records. Only the writer thread may call this.
+     *
+     * @return the number of records written
+     */
+    int drain(int max) {
+        long position = head;
+        int count = 0;
+        while (count < max) {
+            int index = (int) (position & mask);
+            if (sequences.get(index) != position + 1) {
+                break;
+            }
+            Entry entry = entries[index];
+            try {
+                write(entry);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+            entry.format = null;
+            entry.args = null;
+            sequences.set(index, position + mask + 1);
+            position++;
+            count++;
+        }
+        if (count > 0) {
+            head = position;
+            written.add(count);
+        }
+        return count;
+    }
+
+    boolean isEmpty() {
+        return head == tail.get();
+    }
+
+    void setPolicy(OverflowPolicy policy) {
+        this.policy = policy;
+    }
+
+    OverflowPolicy getPolicy() {
+        return policy;
+    }
+
+    long getDropped() {
+        return dropped.sum();
+    }
+
+    long getWritten() {
+        return written.sum();
+    }
+
+    private void write(Entry entry) {
+        switch (entry.level) {
+            case DEBUG:
+                logger.debug(entry.format, entry.args);
+                break;
+            case INFO:
+                logger.info(entry.format, entry.args);
+                break;
+            case WARN:
+                logger.warn(entry.format, entry.args);
+                break;
+            default:
+                logger.error(entry.format, entry.args);
+                break;
+        }
+    }
+}
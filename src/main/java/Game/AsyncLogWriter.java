@@ -0,0 +1,79 @@
+package Game;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The single thread that empties every {@link AsyncLogChannel}. It takes up to
+ * {@link GameConfig#LOG_BATCH_SIZE} records from each channel in turn and
+ * sleeps for {@link GameConfig#LOG_IDLE_PARK_MS} once all of them are empty.
+ */
+final class AsyncLogWriter {
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(GameConfig.LOG_IDLE_PARK_MS);
+    private static final List<AsyncLogChannel> channels = new CopyOnWriteArrayList<>();
+    private static volatile Thread thread;
+
+    private AsyncLogWriter() {
+    }
+
+    static synchronized void register(AsyncLogChannel channel) {
+        channels.add(channel);
+        if (thread == null) {
+            Thread writer = new Thread(AsyncLogWriter::run, "game-logger");
+            writer.setDaemon(true);
+            writer.start();
+            thread = writer;
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> flush(1000), "game-logger-flush"));
+        }
+    }
+
+    static void wake() {
+        Thread writer = thread;
+        if (writer != null) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    /**
+     * Waits until every channel is empty or the timeout passes.
+     *
+     * @return true if everything was written
+     */
+    static boolean flush(long timeoutMs) {
+        if (Thread.currentThread() == thread) {
+            return false;
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        while (true) {
+            boolean empty = true;
+            for (AsyncLogChannel channel : channels) {
+                if (!channel.isEmpty()) {
+                    empty = false;
+                    break;
+                }
+            }
+            if (empty) {
+                return true;
+            }
+            if (System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+            wake();
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+    }
+
+    private static void run() {
+        while (true) {
+            int written = 0;
+            for (AsyncLogChannel channel : channels) {
+                written += channel.drain(GameConfig.LOG_BATCH_SIZE);
+            }
+            if (written == 0) {
+                LockSupport.parkNanos(AsyncLogWriter.class, IDLE_PARK_NANOS);
+            }
+        }
+    }
+}
@@ -7,6 +7,7 @@ public class BendPoint {
     private final int maxRadius;
     private boolean isDragging;
     private Point dragOffset;
+    private int layoutVersion; // Bumped on every move, see Connection#geometry
     
     public BendPoint(int x, int y, int maxRadius) {
         this.position = new Point(x, y);
@@ -29,10 +30,16 @@ public class BendPoint {
     
     public void setPosition(Point newPosition) {
         this.position = new Point(newPosition);
+        layoutVersion++;
     }
     
     public void setPosition(int x, int y) {
         this.position = new Point(x, y);
+        layoutVersion++;
+    }
+
+    public int getLayoutVersion() {
+        return layoutVersion;
     }
     
     public int getMaxRadius() {
@@ -16,6 +16,7 @@ class Connection implements IConnection {
     private static final int BEND_POINT_RADIUS = 50;
     private int bulkyPacketPasses = 0;
     private boolean isDestroyed = false;
+    private volatile PathGeometry pathGeometry;
 
     public Connection(INode fromNode, int fromPort, INode toNode, int toPort) {
         this.fromNode = fromNode;
@@ -42,14 +43,8 @@ class Connection implements IConnection {
 
     @Override
     public double getLength() {
-        java.util.List<Point> path = getDetailedPath();
-        double length = 0.0;
-        for (int i = 0; i < path.size() - 1; i++) {
-            Point p1 = path.get(i);
-            Point p2 = path.get(i + 1);
-            length += Math.hypot(p2.x - p1.x, p2.y - p1.y);
-        }
-        return length;
+        PathGeometry geometry = geometry();
+        return geometry.cumulativeLength[geometry.cumulativeLength.length - 1];
     }
 
     @Override
@@ -105,6 +100,7 @@ class Connection implements IConnection {
             return false;
         }
         bendPoints.add(newBendPoint);
+        invalidatePath();
         return true;
     }
     
@@ -120,16 +116,18 @@ class Connection implements IConnection {
     
     @Override
     public boolean removeBendPoint(BendPoint bendPoint) {
-        return bendPoints.remove(bendPoint);
+        boolean removed = bendPoints.remove(bendPoint);
+        if (removed) {
+            invalidatePath();
+        }
+        return removed;
     }
     
     @Override
     public boolean intersectsWithNode(INode node) {
-        List<Point> path = getDetailedPath();
-        for (int i = 0; i < path.size() - 1; i++) {
-            Point p1 = path.get(i);
-            Point p2 = path.get(i + 1);
-            if (lineIntersectsNode(p1, p2, node)) {
+        PathGeometry geometry = geometry();
+        for (int i = 0; i < geometry.x.length - 1; i++) {
+            if (lineIntersectsNode(geometry.x[i], geometry.y[i], geometry.x[i + 1], geometry.y[i + 1], node)) {
                 return true;
             }
         }
@@ -138,6 +136,122 @@ class Connection implements IConnection {
     
     @Override
     public List<Point> getDetailedPath() {
+        return geometry().path;
+    }
+
+    @Override
+    public int getPathPointCount() {
+        return geometry().x.length;
+    }
+
+    @Override
+    public int getPathX(int index) {
+        return geometry().x[index];
+    }
+
+    @Override
+    public int getPathY(int index) {
+        return geometry().y[index];
+    }
+
+    @Override
+    public void getPointOnPath(int segmentIndex, double progress, Point out) {
+        PathGeometry geometry = geometry();
+        out.x = interpolate(geometry.x, segmentIndex, progress);
+        out.y = interpolate(geometry.y, segmentIndex, progress);
+    }
+
+    @Override
+    public int getPathXAt(int segmentIndex, double progress) {
+        return interpolate(geometry().x, segmentIndex, progress);
+    }
+
+    @Override
+    public int getPathYAt(int segmentIndex, double progress) {
+        return interpolate(geometry().y, segmentIndex, progress);
+    }
+
+    private static int interpolate(int[] coordinates, int segmentIndex, double progress) {
+        int last = coordinates.length - 1;
+        if (segmentIndex >= last) {
+            return coordinates[last];
+        }
+        int start = coordinates[segmentIndex];
+        return (int) (start + (coordinates[segmentIndex + 1] - start) * progress);
+    }
+
+    @Override
+    public double getDistanceAt(int segmentIndex, double progress) {
+        double[] cumulative = geometry().cumulativeLength;
+        int last = cumulative.length - 1;
+        if (segmentIndex >= last) {
+            return cumulative[last];
+        }
+        double start = cumulative[segmentIndex];
+        return start + (cumulative[segmentIndex + 1] - start) * progress;
+    }
+
+    @Override
+    public void getPointAtDistance(double distance, Point out) {
+        PathGeometry geometry = geometry();
+        double[] cumulative = geometry.cumulativeLength;
+        int last = cumulative.length - 1;
+        if (distance <= 0 || last == 0) {
+            out.setLocation(geometry.x[0], geometry.y[0]);
+            return;
+        }
+        if (distance >= cumulative[last]) {
+            out.setLocation(geometry.x[last], geometry.y[last]);
+            return;
+        }
+        int low = 0;
+        int high = last;
+        while (high - low > 1) {
+            int mid = (low + high) >>> 1;
+            if (cumulative[mid] <= distance) {
+                low = mid;
+            } else {
+                high = mid;
+            }
+        }
+        double segmentLength = cumulative[high] - cumulative[low];
+        double progress = segmentLength > 0 ? (distance - cumulative[low]) / segmentLength : 0;
+        out.x = interpolate(geometry.x, low, progress);
+        out.y = interpolate(geometry.y, low, progress);
+    }
+
+    /**
+     * Drops the cached path. Bend point edits and waypoint moves call this;
+     * endpoint and bend point moves are caught by their layout versions.
+     */
+    @Override
+    public void invalidatePath() {
+        pathGeometry = null;
+    }
+
+    private PathGeometry geometry() {
+        PathGeometry geometry = pathGeometry;
+        if (geometry == null
+                || geometry.fromVersion != fromNode.getLayoutVersion()
+                || geometry.toVersion != toNode.getLayoutVersion()
+                || geometry.bendPointVersion != bendPointVersion()) {
+            geometry = new PathGeometry(buildDetailedPath(), fromNode.getLayoutVersion(),
+                    toNode.getLayoutVersion(), bendPointVersion());
+            pathGeometry = geometry;
+        }
+        return geometry;
+    }
+
+    // Versions only grow and adding or removing a bend point invalidates, so the sum changes on any move
+    private int bendPointVersion() {
+        int version = 0;
+        for (int i = 0; i < bendPoints.size(); i++) {
+            version += bendPoints.get(i).getLayoutVersion();
+        }
+        return version;
+    }
+
+    private List<Point> buildDetailedPath() {
         List<Point> detailedPath = new ArrayList<>();
         Point start = fromNode.getPortPosition("output", fromPort);
         Point end = toNode.getPortPosition("input", toPort);
@@ -168,8 +282,10 @@ class Connection implements IConnection {
     
     private boolean wouldCauseIntersection(BendPoint newBendPoint) {
         bendPoints.add(newBendPoint);
+        invalidatePath();
         boolean intersects = intersectsWithAnyNode();
         bendPoints.remove(bendPoints.size() - 1);
+        invalidatePath();
         return intersects;
     }
     
@@ -189,14 +305,14 @@ class Connection implements IConnection {
         return false;
     }
     
-    private boolean lineIntersectsNode(Point p1, Point p2, INode node) {
+    private boolean lineIntersectsNode(int x1, int y1, int x2, int y2, INode node) {
         int nodeX = node.getX();
         int nodeY = node.getY();
         int nodeSize = 40;
-        int minX = Math.min(p1.x, p2.x);
-        int maxX = Math.max(p1.x, p2.x);
-        int minY = Math.min(p1.y, p2.y);
-        int maxY = Math.max(p1.y, p2.y);
+        int minX = Math.min(x1, x2);
+        int maxX = Math.max(x1, x2);
+        int minY = Math.min(y1, y2);
+        int maxY = Math.max(y1, y2);
         
         return !(maxX < nodeX || minX > nodeX + nodeSize || 
                 maxY < nodeY || minY > nodeY + nodeSize);
@@ -216,7 +332,7 @@ class Connection implements IConnection {
         bulkyPacketPasses++;
         if (bulkyPacketPasses >= GameConfig.MAX_BULKY_PASSES_PER_WIRE) {
             isDestroyed = true;
-            System.out.println("Wire from " + fromNode.getId() + " to " + toNode.getId() + " destroyed by bulky packets");
+            SimulationEvents.wire(SimulationEvent.Type.WIRE_DESTROYED, fromNode.getId(), toNode.getId(), bulkyPacketPasses);
         }
     }
 
@@ -270,4 +386,37 @@ class Connection implements IConnection {
     public void setBulkyPacketPasses(int bulkyPacketPasses) {
         this.bulkyPacketPasses = bulkyPacketPasses;
     }
+
+    /**
+     * Immutable path snapshot, replaced as a whole so readers on the
+     * simulation and render threads always see consistent arrays.
+     */
+    private static final class PathGeometry {
+        private final List<Point> path;
+        private final int[] x;
+        private final int[] y;
+        private final double[] cumulativeLength;
+        private final int fromVersion;
+        private final int toVersion;
+        private final int bendPointVersion;
+
+        private PathGeometry(List<Point> path, int fromVersion, int toVersion, int bendPointVersion) {
+            int count = path.size();
+            this.path = java.util.Collections.unmodifiableList(path);
+            this.x = new int[count];
+            this.y = new int[count];
+            this.cumulativeLength = new double[count];
+            this.fromVersion = fromVersion;
+            this.toVersion = toVersion;
+            this.bendPointVersion = bendPointVersion;
+            for (int i = 0; i < count; i++) {
+                Point p = path.get(i);
+                x[i] = p.x;
+                y[i] = p.y;
+                if (i > 0) {
+                    cumulativeLength[i] = cumulativeLength[i - 1] + Math.hypot(x[i] - x[i - 1], y[i] - y[i - 1]);
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,91 @@
+package Game;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outgoing and incoming adjacency lists keyed by node ID, plus outgoing
+ * connections bucketed by the shape of their source port. Buckets keep the
+ * insertion order of {@link GameState#getConnections()}, so the first match in
+ * a bucket is the same connection a scan over the full list would find.
+ */
+class ConnectionIndex {
+    private final Map<String, List<IConnection>> outgoing = new HashMap<>();
+    private final Map<String, List<IConnection>> incoming = new HashMap<>();
+    private final Map<String, Map<String, List<IConnection>>> outgoingByShape = new HashMap<>();
+
+    void add(IConnection connection) {
+        String fromId = connection.getFromNode().getId();
+        outgoing.computeIfAbsent(fromId, k -> new ArrayList<>()).add(connection);
+        incoming.computeIfAbsent(connection.getToNode().getId(), k -> new ArrayList<>()).add(connection);
+        rebuildShapeBuckets(fromId);
+    }
+
+    void remove(IConnection connection) {
+        String fromId = connection.getFromNode().getId();
+        removeFrom(outgoing, fromId, connection);
+        removeFrom(incoming, connection.getToNode().getId(), connection);
+        rebuildShapeBuckets(fromId);
+    }
+
+    void clear() {
+        outgoing.clear();
+        incoming.clear();
+        outgoingByShape.clear();
+    }
+
+    /**
+     * Re-buckets the outgoing connections of a node whose output shapes were
+     * changed in place.
+     */
+    void refreshPortShapes(INode node) {
+        rebuildShapeBuckets(node.getId());
+    }
+
+    List<IConnection> getOutgoing(String nodeId) {
+        return outgoing.getOrDefault(nodeId, Collections.emptyList());
+    }
+
+    List<IConnection> getIncoming(String nodeId) {
+        return incoming.getOrDefault(nodeId, Collections.emptyList());
+    }
+
+    List<IConnection> getOutgoing(String nodeId, String portShape) {
+        Map<String, List<IConnection>> byShape = outgoingByShape.get(nodeId);
+        if (byShape == null) {
+            return Collections.emptyList();
+        }
+        return byShape.getOrDefault(portShape, Collections.emptyList());
+    }
+
+    private void rebuildShapeBuckets(String nodeId) {
+        List<IConnection> connections = outgoing.get(nodeId);
+        if (connections == null) {
+            outgoingByShape.remove(nodeId);
+            return;
+        }
+        Map<String, List<IConnection>> byShape = new HashMap<>();
+        for (IConnection conn : connections) {
+            String[] outShapes = conn.getFromNode().getOutputShapes();
+            int portIndex = conn.getFromPort();
+            if (portIndex >= 0 && portIndex < outShapes.length) {
+                byShape.computeIfAbsent(outShapes[portIndex], k -> new ArrayList<>()).add(conn);
+            }
+        }
+        outgoingByShape.put(nodeId, byShape);
+    }
+
+    private static void removeFrom(Map<String, List<IConnection>> adjacency, String nodeId, IConnection connection) {
+        List<IConnection> connections = adjacency.get(nodeId);
+        if (connections == null) {
+            return;
+        }
+        connections.remove(connection);
+        if (connections.isEmpty()) {
+            adjacency.remove(nodeId);
+        }
+    }
+}
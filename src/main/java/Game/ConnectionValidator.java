@@ -7,22 +7,22 @@ public class ConnectionValidator implements IConnectionValidator {
     @Override
     public boolean isValid(IConnection connection) {
         if (connection.getFromNode().getId().equals(connection.getToNode().getId())) {
-            System.out.println("It is not possible to establish a connection between the input and output ports of a Node . at Node :" +
-                    connection.getFromNode().getId());
+            SimulationEvents.system(SimulationEvent.Type.CONNECTION_REJECTED, connection.getFromNode().getId(),
+                    "input and output ports of the same node");
             return false;
         }
         if ("A".equals(connection.getToNode().getId())) {
-            System.out.println("Invalid connection: Node A cannot have input ports.");
+            SimulationEvents.system(SimulationEvent.Type.CONNECTION_REJECTED, "A", "node A cannot have input ports");
             return false;
         }
         if ("C".equals(connection.getFromNode().getId())) {
-            System.out.println("Invalid connection: Node C cannot have output ports.");
+            SimulationEvents.system(SimulationEvent.Type.CONNECTION_REJECTED, "C", "node C cannot have output ports");
             return false;
         }
         String fromShape = connection.getFromNode().getOutputShapes()[connection.getFromPort()];
         String toShape = connection.getToNode().getInputShapes()[connection.getToPort()];
         if ("confidential_6".equalsIgnoreCase(toShape)) {
-            System.out.println("Invalid connection: Target input port is blocked.");
+            SimulationEvents.system(SimulationEvent.Type.CONNECTION_REJECTED, connection.getToNode().getId(), "target input port is blocked");
             return false;
         }
         return fromShape.equals(toShape);
@@ -42,8 +42,7 @@ public class ConnectionValidator implements IConnectionValidator {
             int connectedCount = node.getConnectedInputs().size();
             if (requiredInputs > 0 && connectedCount <= requiredInputs) {
                 unconnectedNodes.add(node.getId());
-                System.out.println("Validation failed: Node " + node.getId() + " has unconnected inputs (" +
-                        connectedCount + "/" + requiredInputs + ")");
+                SimulationEvents.system(SimulationEvent.Type.VALIDATION_FAILED, node.getId(), "unconnected inputs", requiredInputs, connectedCount);
             }
         }
         if (!unconnectedNodes.isEmpty()) {
@@ -51,7 +50,7 @@ public class ConnectionValidator implements IConnectionValidator {
                     .append(String.join(", ", unconnectedNodes));
             return false;
         }
-        System.out.println("Validation succeeded");
+        SimulationEvents.system(SimulationEvent.Type.VALIDATION_SUCCEEDED, null, null);
         errorMessage.append("Success: Valid path ");
         return true;
     }
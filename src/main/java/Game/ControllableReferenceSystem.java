@@ -68,7 +68,7 @@ public class ControllableReferenceSystem implements INode {
             return false;
         }
 
-        Packet packet = new Packet(targetConnection, type.getPacketType(), ownerPlayerId, getPlayerColor());
+        Packet packet = new Packet(targetConnection, type.getKind(), ownerPlayerId, getPlayerColor());
         targetGameState.getPackets().add(packet);
         
         ammunitionManager.firePacket(type, id);
@@ -86,7 +86,7 @@ public class ControllableReferenceSystem implements INode {
                 int portIndex = conn.getFromPort();
                 if (portIndex >= 0 && portIndex < outShapes.length) {
                     String portShape = outShapes[portIndex];
-                    if (type.getPacketType().equals(portShape)) {
+                    if (type.getKind().matchesShape(portShape)) {
                         return conn;
                     }
                 }
@@ -179,6 +179,11 @@ public class ControllableReferenceSystem implements INode {
     public void setPosition(int x, int y) {
     }
 
+    @Override
+    public int getLayoutVersion() {
+        return 0; // Never moves
+    }
+
     @Override
     public boolean isDamaged() { return !isActive; }
 
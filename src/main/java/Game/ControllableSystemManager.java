@@ -86,7 +86,7 @@ public class ControllableSystemManager {
         IConnection targetConnection = findSuitableConnection(system, gameState);
         if (targetConnection == null) return;
 
-        String packetType = getAlternatingPacketType(playerId);
+        PacketKind packetType = getAlternatingPacketKind(playerId);
         
         Color playerColor = "player1".equals(playerId) ? Color.BLUE : Color.RED;
         Packet packet = new Packet(targetConnection, packetType, playerId, playerColor);
@@ -96,18 +96,17 @@ public class ControllableSystemManager {
     }
 
     private IConnection findSuitableConnection(INode system, GameState gameState) {
-        for (IConnection conn : gameState.getConnections()) {
-            if (conn.getFromNode().getId().equals(system.getId()) && 
-                conn.getPacket() == null && !conn.isDestroyed()) {
+        for (IConnection conn : gameState.getOutgoingConnections(system.getId())) {
+            if (conn.getPacket() == null && !conn.isDestroyed()) {
                 return conn;
             }
         }
         return null;
     }
 
-    private String getAlternatingPacketType(String playerId) {
-        String[] type1Packets = {"square", "triangle"};
-        String[] type2Packets = {"confidential_4", "confidential_6"};
+    private PacketKind getAlternatingPacketKind(String playerId) {
+        PacketKind[] type1Packets = {PacketKind.SQUARE, PacketKind.TRIANGLE};
+        PacketKind[] type2Packets = {PacketKind.CONFIDENTIAL_4, PacketKind.CONFIDENTIAL_6};
         
         if ("player1".equals(playerId)) {
             return type1Packets[random.nextInt(type1Packets.length)];
@@ -10,6 +10,10 @@ public class GameConfig {
     static final int WIRE_BAR_Y = 15;
     public static final int NODE_SIZE = 50;
     static final double PACKET_SPEED = 0.02;
+    static final boolean PACKED_PACKET_STORAGE = true; // Keep per-tick packet fields in PacketStore arrays
+    static final int LOG_RING_CAPACITY = 4096; // Pending log records per GameLogger category
+    static final int LOG_BATCH_SIZE = 256; // Records the log writer handles per category before moving on
+    static final long LOG_IDLE_PARK_MS = 5; // How long the log writer sleeps when every category is empty
     static final int ANIMATION_TICK_MS = 16;
     static final int BUTTON_WIDTH = 80;
     static final int BUTTON_HEIGHT = 30;
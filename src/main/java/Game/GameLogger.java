@@ -1,26 +1,39 @@
 package Game;
 
-import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import controller.User;
 import java.util.Map;
-import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * Game logging by category. Records are handed to a per-category
+ * {@link AsyncLogChannel} and written on the log writer thread, so callers
+ * never wait on file I/O. High-volume categories drop records when their
+ * ring is full; the rest wait for space.
+ */
 public class GameLogger {
     
-    private static final Logger logger = LoggerFactory.getLogger(GameLogger.class);
-    private static final Logger packetLogger = LoggerFactory.getLogger("packet");
-    private static final Logger collisionLogger = LoggerFactory.getLogger("collision");
-    private static final Logger shopLogger = LoggerFactory.getLogger("shop");
-    private static final Logger systemLogger = LoggerFactory.getLogger("system");
-    private static final Logger levelLogger = LoggerFactory.getLogger("level");
-    private static final Logger userLogger = LoggerFactory.getLogger("user");
-    private static String currentSessionId;
-    private static long sessionStartTime;
-    private static int currentLevel;
-    private static User currentUser;
-    private static Map<String, Integer> eventCounts = new HashMap<>();
-    private static Map<String, Long> eventTimestamps = new HashMap<>();
+    private static final AsyncLogChannel logger = channel(LoggerFactory.getLogger(GameLogger.class), AsyncLogChannel.OverflowPolicy.BLOCK);
+    private static final AsyncLogChannel packetLogger = channel(LoggerFactory.getLogger("packet"), AsyncLogChannel.OverflowPolicy.DROP);
+    private static final AsyncLogChannel collisionLogger = channel(LoggerFactory.getLogger("collision"), AsyncLogChannel.OverflowPolicy.DROP);
+    private static final AsyncLogChannel shopLogger = channel(LoggerFactory.getLogger("shop"), AsyncLogChannel.OverflowPolicy.BLOCK);
+    private static final AsyncLogChannel systemLogger = channel(LoggerFactory.getLogger("system"), AsyncLogChannel.OverflowPolicy.BLOCK);
+    private static final AsyncLogChannel levelLogger = channel(LoggerFactory.getLogger("level"), AsyncLogChannel.OverflowPolicy.BLOCK);
+    private static final AsyncLogChannel userLogger = channel(LoggerFactory.getLogger("user"), AsyncLogChannel.OverflowPolicy.BLOCK);
+    private static final AsyncLogChannel[] channels = {
+        logger, packetLogger, collisionLogger, shopLogger, systemLogger, levelLogger, userLogger
+    };
+    private static volatile String currentSessionId;
+    private static volatile long sessionStartTime;
+    private static volatile int currentLevel;
+    private static volatile User currentUser;
+    private static final Map<String, LongAdder> eventCounts = new ConcurrentHashMap<>();
+    private static final Map<String, Long> eventTimestamps = new ConcurrentHashMap<>();
+
+    private static AsyncLogChannel channel(org.slf4j.Logger target, AsyncLogChannel.OverflowPolicy policy) {
+        return new AsyncLogChannel(target, GameConfig.LOG_RING_CAPACITY, policy);
+    }
     
     public static void initializeSession(String sessionId, User user, int level) {
         currentSessionId = sessionId;
@@ -40,11 +53,14 @@ public class GameLogger {
         incrementEventCount("packet_spawn_" + packetType);
     }
     
-    public static void logPacketMovement(String packetId, String packetType, double x, double y, 
+    // Takes strings, not the packet and its connection: records are formatted later on the writer thread.
+    public static void logPacketMovement(String packetId, String packetType, double x, double y,
                                        double speed, String connectionId) {
+        if (!packetLogger.getLogger().isDebugEnabled()) {
+            return;
+        }
         packetLogger.debug("Packet movement - ID: {}, Type: {}, Position: ({}, {}), Speed: {}, Connection: {}", 
-                          packetId, packetType, String.format("%.2f", x), String.format("%.2f", y), 
-                          String.format("%.4f", speed), connectionId);
+                          packetId, packetType, x, y, speed, connectionId);
     }
     
     public static void logPacketArrival(String packetId, String packetType, String nodeId, 
@@ -157,19 +173,47 @@ public class GameLogger {
     }
     
     public static void logDebug(String component, String message, Object... args) {
-        logger.debug("Debug [{}] - {}", component, String.format(message, args));
+        if (logger.getLogger().isDebugEnabled()) {
+            logger.debug("Debug [{}] - {}", component, String.format(message, args));
+        }
     }
     
     private static void incrementEventCount(String eventType) {
-        eventCounts.put(eventType, eventCounts.getOrDefault(eventType, 0) + 1);
+        eventCounts.computeIfAbsent(eventType, key -> new LongAdder()).increment();
         eventTimestamps.put(eventType, System.currentTimeMillis());
     }
 
+    public static long getEventCount(String eventType) {
+        LongAdder count = eventCounts.get(eventType);
+        return count == null ? 0 : count.sum();
+    }
+
+    /**
+     * @return records discarded by full categories since startup
+     */
+    public static long getDroppedRecords() {
+        long dropped = 0;
+        for (AsyncLogChannel channel : channels) {
+            dropped += channel.getDropped();
+        }
+        return dropped;
+    }
+
+    /**
+     * Waits up to {@code timeoutMs} for pending records to be written.
+     */
+    public static boolean flush(long timeoutMs) {
+        return AsyncLogWriter.flush(timeoutMs);
+    }
+
     public static void logSessionStatistics() {
         long sessionDuration = System.currentTimeMillis() - sessionStartTime;
-        logger.info("Session statistics - Duration: {}ms, Events: {}", sessionDuration, eventCounts);
-        eventCounts.entrySet().stream()
-            .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+        Map<String, Long> counts = new java.util.TreeMap<>();
+        eventCounts.forEach((key, value) -> counts.put(key, value.sum()));
+        logger.info("Session statistics - Duration: {}ms, Events: {}, DroppedLogRecords: {}",
+                   sessionDuration, counts, getDroppedRecords());
+        counts.entrySet().stream()
+            .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
             .limit(10)
             .forEach(entry -> logger.info("Top event - {}: {}", entry.getKey(), entry.getValue()));
     }
@@ -177,6 +221,7 @@ public class GameLogger {
     public static void endSession() {
         logSessionStatistics();
         logger.info("Game session ended - SessionID: {}", currentSessionId);
+        flush(1000);
     }
 
 }
@@ -11,6 +11,7 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
 import java.util.ArrayList;
+import java.util.concurrent.Callable;
 
 public class GamePanel extends JPanel {
     private ClientMain client;
@@ -36,7 +37,7 @@ public class GamePanel extends JPanel {
     private Point lastValidNodePosition;
     private Point lastValidWaypointPosition;
     private Point lastValidBendPointPosition;
-    private Timer animationTimer = null;
+    private final SimulationEngine simulationEngine;
     private boolean isCPressed;
     private boolean isZPressed;
     private boolean isNPressed;
@@ -71,29 +72,33 @@ public class GamePanel extends JPanel {
         this.isAPressed = false;
         this.saveManager = new SaveManager();
         initializeUI();
-        animationTimer = new Timer(GameConfig.ANIMATION_TICK_MS, e -> {
-            if (!state.isGameOver() && !state.isSuccessfully()) {
-                    packetManager.stepForward();
-                    saveManager.autoSave(state);
-                    repaint();
-            }else{
-                ((Timer)e.getSource()).stop();
-                if (state.isGameOver()) {
-                    sendGameResult();
-                    GameOverPanel gameOverPanel = new GameOverPanel(client , onlineMod , state.getUser(), state.getPacketLoss(), state.getPackets().size());
-                    Window.getMainFrame().setContentPane(gameOverPanel);
-                    return;
-                } else if (state.isSuccessfully()) {
-                    sendGameResult();
-                    SuccessfullyPanel successfullyPanel = new SuccessfullyPanel(client , onlineMod , state.getUser(), state.getPacketLoss(), state.getPackets().size() , state.getLevel());
-                    Window.getMainFrame().setContentPane(successfullyPanel);
-                    return;
-                }
+        simulationEngine = new SimulationEngine(state, packetManager);
+        simulationEngine.addListener(new SimulationEngine.Listener() {
+            @Override
+            public void onTick(SimulationEngine engine) {
+                saveManager.autoSave(state);
+                repaint();
             }
 
+            @Override
+            public void onFinished(SimulationEngine engine) {
+                SwingUtilities.invokeLater(() -> showResult());
+            }
         });
     }
 
+    private void showResult() {
+        if (state.isGameOver()) {
+            sendGameResult();
+            GameOverPanel gameOverPanel = new GameOverPanel(client , onlineMod , state.getUser(), state.getPacketLoss(), state.getPackets().size());
+            Window.getMainFrame().setContentPane(gameOverPanel);
+        } else if (state.isSuccessfully()) {
+            sendGameResult();
+            SuccessfullyPanel successfullyPanel = new SuccessfullyPanel(client , onlineMod , state.getUser(), state.getPacketLoss(), state.getPackets().size() , state.getLevel());
+            Window.getMainFrame().setContentPane(successfullyPanel);
+        }
+    }
+
     private void initializeUI() {
         setBackground(Color.WHITE);
         setLayout(null);
@@ -154,7 +159,7 @@ public class GamePanel extends JPanel {
             @Override
             public void actionPerformed(ActionEvent e) {
                 if (!isNPressed) {
-                    animationTimer.stop();
+                    simulationEngine.stop();
                 }
                 isNPressed = true;
                 ShopPanel shopPanel = new ShopPanel(client , onlineMod , state.getUser() , GamePanel.this);
@@ -166,9 +171,21 @@ public class GamePanel extends JPanel {
         actionMap.put("save", new AbstractAction() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                saveManager.saveGame(state);
-                JOptionPane.showMessageDialog(GamePanel.this, "Game saved successfully!", 
-                    "Save", JOptionPane.INFORMATION_MESSAGE);
+                // Captured between ticks, then waited for so a failed write is reported.
+                boolean saved;
+                try {
+                    saved = simulationEngine.call(() -> saveManager.saveGame(state)).get();
+                } catch (Exception ex) {
+                    System.err.println("Failed to save game: " + ex.getMessage());
+                    saved = false;
+                }
+                if (saved) {
+                    JOptionPane.showMessageDialog(GamePanel.this, "Game saved successfully!", 
+                        "Save", JOptionPane.INFORMATION_MESSAGE);
+                } else {
+                    JOptionPane.showMessageDialog(GamePanel.this, "Failed to save game!", 
+                        "Save Error", JOptionPane.ERROR_MESSAGE);
+                }
             }
         });
 
@@ -177,6 +194,7 @@ public class GamePanel extends JPanel {
             @Override
             public void actionPerformed(ActionEvent e) {
                 if (saveManager.hasSaveFile()) {
+                    simulationEngine.stop();
                     if (saveManager.loadGame(state)) {
                         JOptionPane.showMessageDialog(GamePanel.this, "Game loaded successfully!", 
                             "Load", JOptionPane.INFORMATION_MESSAGE);
@@ -195,14 +213,14 @@ public class GamePanel extends JPanel {
     }
 
     private void handleTimeStep() {
-        if (isCPressed && isZPressed) {
+        if ((isCPressed && isZPressed) || !isSimulatedLocally()) {
             return;
         }
-        animationTimer.stop();
+        simulationEngine.stop();
         if (isCPressed) {
-            packetManager.stepForward();
+            simulationEngine.stepForward();
         } else if (isZPressed) {
-            packetManager.stepBackward();
+            simulationEngine.stepBackward();
         }
         repaint();
     }
@@ -333,16 +351,16 @@ public class GamePanel extends JPanel {
 
     private void removeConnection(INode node, int port) {
         IConnection toRemove = null;
-        for (IConnection conn : state.getConnections()) {
+        for (IConnection conn : state.getIncomingConnections(node.getId())) {
             if (conn.getToNode() == node && conn.getToPort() == port) {
                 toRemove = conn;
                 break;
             }
         }
         if (toRemove != null) {
+            simulationEngine.stop();
             state.removeConnection(toRemove);
             node.getConnectedInputs().remove(port);
-            animationTimer.stop();
             packetManager.resetPackets();
             System.out.println("Connection removed from " + toRemove.getFromNode().getId() + " to " + node.getId() + ", port " + port);
             JOptionPane.showMessageDialog(this, "Connection removed.", "Connection Updated", JOptionPane.INFORMATION_MESSAGE);
@@ -369,7 +387,8 @@ public class GamePanel extends JPanel {
             return;
         }
         
-        if (conn.addBendPoint(x, y)) {
+        if (editBetweenTicks(() -> conn.addBendPoint(x, y))) {
+            state.markDirty(GameState.DIRTY_CONNECTIONS);
             state.getUser().setCoin(state.getUser().getCoin() - 1);
             System.out.println("Bend point added to connection from " + conn.getFromNode().getId() + " to " + conn.getToNode().getId());
             repaint();
@@ -380,12 +399,23 @@ public class GamePanel extends JPanel {
     }
     
     private void removeBendPoint(BendPoint bendPoint, IConnection conn) {
-        if (conn.removeBendPoint(bendPoint)) {
+        if (editBetweenTicks(() -> conn.removeBendPoint(bendPoint))) {
+            state.markDirty(GameState.DIRTY_CONNECTIONS);
             System.out.println("Bend point removed from connection from " + conn.getFromNode().getId() + " to " + conn.getToNode().getId());
             repaint();
         }
     }
 
+    // Wires and nodes feed the engine's path geometry, so edits to them run between its ticks.
+    private boolean editBetweenTicks(Callable<Boolean> edit) {
+        try {
+            return simulationEngine.call(edit);
+        } catch (Exception e) {
+            System.err.println("Error editing the network: " + e.getMessage());
+            return false;
+        }
+    }
+
     private void handleConnectionRelease(MouseEvent e) {
         boolean connectionMade = false;
         for (INode node : state.getNodes()) {
@@ -446,6 +476,7 @@ public class GamePanel extends JPanel {
             newTotalLength += conn.getLength();
         }
         if (wireLengthManager.canAddWireLength(newConn.getLength(), toRemove)) {
+            simulationEngine.stop();
             if (toRemove != null) {
                 state.removeConnection(toRemove);
                 toNode.getConnectedInputs().remove(toPort);
@@ -453,7 +484,6 @@ public class GamePanel extends JPanel {
             }
             state.addConnection(newConn);
             toNode.getConnectedInputs().add(toPort);
-            animationTimer.stop();
             packetManager.resetPackets();
             System.out.println("Connection added from " + newConn.getFromNode().getId() + " to " + toNode.getId() + ", port " + toPort);
             if (toRemove != null) {
@@ -492,69 +522,91 @@ public class GamePanel extends JPanel {
         }
     }
 
+    // The drag is applied between engine ticks; the last valid position is only touched there.
     private void restrictNodeMovement(MouseEvent e) {
+        INode node = draggingNode;
+        Point lastValid = lastValidNodePosition;
         int newX = e.getX() - dragOffset.x;
         int newY = e.getY() - dragOffset.y;
-        int oldX = draggingNode.getX();
-        int oldY = draggingNode.getY();
-        
-        if (scrollSisyphusMode || isScrollSisyphusMovement()) {
-            if (isWithinSisyphusRadius(newX, newY)) {
-                draggingNode.setPosition(newX, newY);
-                lastValidNodePosition.setLocation(newX, newY);
-            } else {
-                Point originalPos = lastValidNodePosition;
-                double angle = Math.atan2(newY - originalPos.y, newX - originalPos.x);
-                int constrainedX = (int) (originalPos.x + Math.cos(angle) * GameConfig.SCROLL_SISYPHUS_RADIUS);
-                int constrainedY = (int) (originalPos.y + Math.sin(angle) * GameConfig.SCROLL_SISYPHUS_RADIUS);
-                draggingNode.setPosition(constrainedX, constrainedY);
-            }
-        } else {
-            draggingNode.setPosition(newX, newY);
-            if (wireLengthManager.canAddWireLength(0, null)) {
-                lastValidNodePosition.setLocation(newX, newY);
+        boolean sisyphus = scrollSisyphusMode || isScrollSisyphusMovement();
+        simulationEngine.execute(() -> {
+            int oldX = node.getX();
+            int oldY = node.getY();
+
+            if (sisyphus) {
+                if (isWithinSisyphusRadius(lastValid, newX, newY)) {
+                    node.setPosition(newX, newY);
+                    lastValid.setLocation(newX, newY);
+                } else {
+                    double angle = Math.atan2(newY - lastValid.y, newX - lastValid.x);
+                    int constrainedX = (int) (lastValid.x + Math.cos(angle) * GameConfig.SCROLL_SISYPHUS_RADIUS);
+                    int constrainedY = (int) (lastValid.y + Math.sin(angle) * GameConfig.SCROLL_SISYPHUS_RADIUS);
+                    node.setPosition(constrainedX, constrainedY);
+                }
             } else {
-                draggingNode.setPosition(oldX, oldY);
+                node.setPosition(newX, newY);
+                if (wireLengthManager.canAddWireLength(0, null)) {
+                    lastValid.setLocation(newX, newY);
+                } else {
+                    node.setPosition(oldX, oldY);
+                }
             }
-        }
+        });
     }
     
     private boolean isScrollSisyphusMovement() {
         return draggingNode != null && !draggingNode.getId().equals("A") && !draggingNode.getId().equals("C");
     }
     
-    private boolean isWithinSisyphusRadius(int newX, int newY) {
-        if (lastValidNodePosition == null) return true;
-        double distance = Math.hypot(newX - lastValidNodePosition.x, newY - lastValidNodePosition.y);
+    private static boolean isWithinSisyphusRadius(Point lastValid, int newX, int newY) {
+        if (lastValid == null) return true;
+        double distance = Math.hypot(newX - lastValid.x, newY - lastValid.y);
         return distance <= GameConfig.SCROLL_SISYPHUS_RADIUS;
     }
 
     private void restrictWaypointMovement(MouseEvent e) {
-        int oldX = draggingWaypoint.x;
-        int oldY = draggingWaypoint.y;
-        draggingWaypoint.setLocation(e.getX(), e.getY());
-        if (wireLengthManager.canAddWireLength(0, null)) {
-            lastValidWaypointPosition.setLocation(e.getX(), e.getY());
-        } else {
-            draggingWaypoint.setLocation(oldX, oldY);
-        }
+        Point waypoint = draggingWaypoint;
+        IConnection connection = draggingWaypointConnection;
+        Point lastValid = lastValidWaypointPosition;
+        int newX = e.getX();
+        int newY = e.getY();
+        simulationEngine.execute(() -> {
+            int oldX = waypoint.x;
+            int oldY = waypoint.y;
+            waypoint.setLocation(newX, newY);
+            connection.invalidatePath();
+            if (wireLengthManager.canAddWireLength(0, null)) {
+                lastValid.setLocation(newX, newY);
+            } else {
+                waypoint.setLocation(oldX, oldY);
+                connection.invalidatePath();
+            }
+        });
     }
     
     private void restrictBendPointMovement(MouseEvent e) {
+        BendPoint bendPoint = draggingBendPoint;
         Point newPosition = new Point(e.getX(), e.getY());
         Point originalPosition = lastValidBendPointPosition;
-        
-        if (draggingBendPoint.isWithinRadius(originalPosition, newPosition)) {
-            draggingBendPoint.setPosition(newPosition);
-        } else {
-            double angle = Math.atan2(newPosition.y - originalPosition.y, newPosition.x - originalPosition.x);
-            int constrainedX = (int) (originalPosition.x + Math.cos(angle) * draggingBendPoint.getMaxRadius());
-            int constrainedY = (int) (originalPosition.y + Math.sin(angle) * draggingBendPoint.getMaxRadius());
-            draggingBendPoint.setPosition(constrainedX, constrainedY);
-        }
+        simulationEngine.execute(() -> {
+            if (bendPoint.isWithinRadius(originalPosition, newPosition)) {
+                bendPoint.setPosition(newPosition);
+            } else {
+                double angle = Math.atan2(newPosition.y - originalPosition.y, newPosition.x - originalPosition.x);
+                int constrainedX = (int) (originalPosition.x + Math.cos(angle) * bendPoint.getMaxRadius());
+                int constrainedY = (int) (originalPosition.y + Math.sin(angle) * bendPoint.getMaxRadius());
+                bendPoint.setPosition(constrainedX, constrainedY);
+            }
+        });
     }
 
     private void resetDraggingState() {
+        if (draggingNode != null) {
+            state.markDirty(GameState.DIRTY_NODES);
+        }
+        if (draggingWaypoint != null || draggingBendPoint != null) {
+            state.markDirty(GameState.DIRTY_CONNECTIONS);
+        }
         draggingNode = null;
         draggingFromNode = null;
         draggingFromPort = -1;
@@ -583,12 +635,7 @@ public class GamePanel extends JPanel {
             g.setColor(new Color(0, 0, 0, 100));
             g.drawLine(start.x, start.y, dragEnd.x, dragEnd.y);
         }
-        for (Shockwave shockwave : state.getShockwaves()) {
-            shockwaveRenderer.render(g, shockwave);
-        }
-        for (Packet packet : state.getPackets()) {
-            packetRenderer.render(g, packet);
-        }
+        drawPackets(g);
         for (INode node : state.getNodes()) {
             nodeRenderer.render(g, node, state.getConnections());
         }
@@ -625,19 +672,40 @@ public class GamePanel extends JPanel {
         g.drawString("Ctrl+S: Save Game | Ctrl+L: Load Game", 10, getHeight() - 80);
     }
 
+    protected void drawPackets(Graphics g) {
+        SimulationSnapshot snapshot = simulationEngine.getSnapshot();
+        for (SimulationSnapshot.ShockwaveState shockwave : snapshot.getShockwaves()) {
+            shockwaveRenderer.render(g, shockwave);
+        }
+        for (SimulationSnapshot.PacketState packet : snapshot.getPackets()) {
+            packetRenderer.render(g, packet);
+        }
+    }
+
+    /**
+     * Whether this panel's own engine advances the board. An online match is
+     * simulated by the server instead, see {@link view.MultiplayerGamePanel}.
+     */
+    protected boolean isSimulatedLocally() {
+        return true;
+    }
+
     public void checkSolution(boolean showError) {
+        if (!isSimulatedLocally()) {
+            return;
+        }
         StringBuilder errorMessage = new StringBuilder();
         if (validator.isCorrectPath(state, errorMessage)) {
-            if (!animationTimer.isRunning()) {
-                animationTimer.start();
+            if (!simulationEngine.isRunning()) {
+                simulationEngine.start();
 //                JOptionPane.showMessageDialog(this, errorMessage.toString() + ". Packets are moving.",
 //                        "Result", JOptionPane.INFORMATION_MESSAGE);
             } else {
-                animationTimer.stop();
+                simulationEngine.stop();
                 packetManager.resetPackets();
             }
         } else {
-            animationTimer.stop();
+            simulationEngine.stop();
             packetManager.resetPackets();
             if (showError) {
                 JOptionPane.showMessageDialog(this, "Error: " + errorMessage.toString(),
@@ -654,8 +722,8 @@ public class GamePanel extends JPanel {
         isNPressed = NPressed;
     }
 
-    public Timer getAnimationTimer() {
-        return animationTimer;
+    public SimulationEngine getSimulationEngine() {
+        return simulationEngine;
     }
 
     public GameState getState() {
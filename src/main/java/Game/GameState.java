@@ -3,11 +3,20 @@ package Game;
 import controller.User;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class GameState {
+    // Parts of the state changed since the last save, see markDirty.
+    public static final int DIRTY_NODES = 1;
+    public static final int DIRTY_CONNECTIONS = 2;
+    public static final int DIRTY_PACKETS = 4;
+    public static final int DIRTY_ALL = DIRTY_NODES | DIRTY_CONNECTIONS | DIRTY_PACKETS;
     private final List<INode> nodes;
     private final List<IConnection> connections;
+    private final List<IConnection> connectionsView;
+    private final ConnectionIndex connectionIndex = new ConnectionIndex();
     private final List<Packet> packets;
     private final List<Shockwave> shockwaves;
     private int numberPacketsSquare = 0;
@@ -55,6 +64,7 @@ public class GameState {
     private long lastScrollAergiaUse = 0; // For cooldown tracking
     private java.util.Map<String, Long> scrollAergiaEffects = new java.util.HashMap<>(); // Track active Aergia effects on connections
     private java.util.Map<String, Long> scrollEliphasEffects = new java.util.HashMap<>(); // Track active Eliphas effects on connections
+    private final AtomicInteger dirty = new AtomicInteger(DIRTY_ALL);
     
     public GameState(int level, User user) {
         this.level = level;
@@ -62,7 +72,8 @@ public class GameState {
         this.levelStartTime = System.currentTimeMillis();
         nodes = new ArrayList<>();
         connections = new ArrayList<>();
-        packets = new ArrayList<>();
+        connectionsView = Collections.unmodifiableList(connections);
+        packets = GameConfig.PACKED_PACKET_STORAGE ? new PacketStore() : new ArrayList<>();
         shockwaves = new ArrayList<>();
     }
     public int getNumberPacketTriangle() {
@@ -91,18 +102,66 @@ public class GameState {
 
     public void addNode(INode node) {
         nodes.add(node);
+        markDirty(DIRTY_NODES);
     }
 
     public void addConnection(IConnection connection) {
         connections.add(connection);
+        connectionIndex.add(connection);
+        markDirty(DIRTY_CONNECTIONS);
     }
 
     public void removeConnection(IConnection connection) {
-        connections.remove(connection);
+        if (connections.remove(connection)) {
+            connectionIndex.remove(connection);
+            markDirty(DIRTY_CONNECTIONS);
+        }
+    }
+
+    public void clearConnections() {
+        connections.clear();
+        connectionIndex.clear();
+        markDirty(DIRTY_CONNECTIONS);
+    }
+
+    /**
+     * Records that nodes, connections or packets changed, so the next
+     * autosave writes them. Code that changes them in place, rather than
+     * through this class, calls this itself. May be called from any thread.
+     */
+    public void markDirty(int parts) {
+        int current = dirty.get();
+        if ((current & parts) != parts) {
+            dirty.getAndUpdate(bits -> bits | parts);
+        }
+    }
+
+    /**
+     * Returns the parts changed since the last call and clears them.
+     */
+    public int takeDirty() {
+        return dirty.getAndSet(0);
+    }
+
+    public List<IConnection> getOutgoingConnections(String nodeId) {
+        return connectionIndex.getOutgoing(nodeId);
+    }
+
+    public List<IConnection> getOutgoingConnections(String nodeId, String portShape) {
+        return connectionIndex.getOutgoing(nodeId, portShape);
+    }
+
+    public List<IConnection> getIncomingConnections(String nodeId) {
+        return connectionIndex.getIncoming(nodeId);
+    }
+
+    public void refreshPortShapes(INode node) {
+        connectionIndex.refreshPortShapes(node);
     }
 
     public void clearPackets() {
         packets.clear();
+        markDirty(DIRTY_PACKETS);
     }
 
     public void addShockwave(Shockwave shockwave) {
@@ -124,7 +183,7 @@ public class GameState {
     }
 
     public List<IConnection> getConnections() {
-        return connections;
+        return connectionsView;
     }
 
     public List<Packet> getPackets() {
@@ -43,6 +43,27 @@ public interface IConnection {
     boolean intersectsWithAnyNode(java.util.List<INode> allNodes);
     
     List<Point> getDetailedPath();
+
+    int getPathPointCount();
+
+    int getPathX(int index);
+
+    int getPathY(int index);
+
+    void getPointOnPath(int segmentIndex, double progress, Point out);
+
+    int getPathXAt(int segmentIndex, double progress);
+
+    int getPathYAt(int segmentIndex, double progress);
+
+    /** Distance along the path to the given point, for interpolating in arc length. */
+    double getDistanceAt(int segmentIndex, double progress);
+
+    /** Writes the point at the given distance along the path into {@code out}. */
+    void getPointAtDistance(double distance, Point out);
+
+    /** Drops the cached path after its waypoints were moved in place. */
+    void invalidatePath();
     
     void incrementBulkyPacketPasses();
     int getBulkyPacketPasses();
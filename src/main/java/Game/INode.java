@@ -23,6 +23,9 @@ public interface INode {
     boolean isOverNode(int mx, int my);
 
     void setPosition(int x, int y);
+
+    /** Changes whenever the node moves, so wires know their cached path is stale. */
+    int getLayoutVersion();
     
     boolean isDamaged();
     
@@ -6,6 +6,7 @@ import java.util.Set;
 
 public class Node implements INode {
     private int x, y;
+    private int layoutVersion; // Bumped on every move, see Connection#geometry
     private final String id;
     private final String[] inputShapes;
     private final String[] outputShapes;
@@ -93,6 +94,12 @@ public class Node implements INode {
     public void setPosition(int x, int y) {
         this.x = x;
         this.y = y;
+        layoutVersion++;
+    }
+
+    @Override
+    public int getLayoutVersion() {
+        return layoutVersion;
     }
 
     public String getSystemType() {
@@ -49,4 +49,8 @@ public class NodeFactory {
         String[] inShapes = (inputShapes == null) ? new String[]{} : inputShapes;
         return new Node(x, y, id, inShapes, outShapes, sys);
     }
+
+    public static IConnection createConnection(INode fromNode, int fromPort, INode toNode, int toPort) {
+        return new Connection(fromNode, fromPort, toNode, toPort);
+    }
 }
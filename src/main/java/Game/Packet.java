@@ -8,11 +8,12 @@ public class Packet {
     private IConnection currentConnection;
     private int segmentIndex;
     private double progress;
-    private Point displacement;
-    private String packetType;
+    private int displacementX;
+    private int displacementY;
+    private PacketKind kind;
     private double noise = 0;
     private double currentSpeed = GameConfig.PACKET_SPEED;
-    private String originalPacketType;
+    private PacketKind originalKind;
     private boolean isProtected = false;
     
     private int packetSize;
@@ -29,42 +30,54 @@ public class Packet {
     private String vpnSourceNodeId;
     private String playerId;
     private Color playerColor;
+    private PacketStore store;
+    private int slot = -1;
 
     public Packet(IConnection startConnection, String packetType) {
+        this(startConnection, PacketKind.of(packetType));
+    }
+
+    public Packet(IConnection startConnection, PacketKind kind) {
         this.currentConnection = startConnection;
-        this.packetType = packetType;
-        this.originalPacketType = packetType;
+        this.kind = kind;
+        this.originalKind = kind;
         this.segmentIndex = 0;
         this.progress = 0.0;
-        this.displacement = new Point(0, 0);
         this.creationTime = System.currentTimeMillis();
         this.lastMovementTime = this.creationTime;
         this.currentConnection.setPacket(this);
         this.playerId = "default";
         this.playerColor = Color.BLUE;
         initializePacketSize();
-        if ("protected".equals(packetType)) {
+        if (kind == PacketKind.PROTECTED) {
             initializeProtectedPacketBehavior();
         }
         if (isBulkyPacket()) {
             initializeBulkyPacketProperties();
         }
-        System.out.println("Packet created on connection from " + startConnection.getFromNode().getId() + " to " + startConnection.getToNode().getId() + 
-                          ", type: " + packetType + ", size: " + packetSize);
+        SimulationEvents.packet(SimulationEvent.Type.PACKET_CREATED, this, startConnection.getFromNode().getId(),
+                startConnection.getToNode().getId(), 0, packetSize);
     }
     
     public Packet(IConnection startConnection, String packetType, String playerId, Color playerColor) {
-        this(startConnection, packetType);
+        this(startConnection, PacketKind.of(packetType), playerId, playerColor);
+    }
+
+    public Packet(IConnection startConnection, PacketKind kind, String playerId, Color playerColor) {
+        this(startConnection, kind);
         this.playerId = playerId;
         this.playerColor = playerColor;
     }
 
     public void updateForward(GameState state, List<Packet> packets) {
-        double oldProgress = progress;
-        if (System.currentTimeMillis() - lastMovementTime > 1000) { // Log every second
-            GameLogger.logPacketMovement(toString(), packetType, getPosition().x, getPosition().y, 
-                                       currentSpeed, currentConnection.toString());
-            lastMovementTime = System.currentTimeMillis();
+        double oldProgress = getProgress();
+        if (SimulationEvents.isEnabled()) {
+            long now = System.currentTimeMillis();
+            if (now - lastMovementTime > 1000) { // Sample every second
+                SimulationEvents.packet(SimulationEvent.Type.PACKET_MOVED, this, currentConnection.getFromNode().getId(),
+                        currentConnection.getToNode().getId(), getCurrentSpeed(), 0);
+                lastMovementTime = now;
+            }
         }
         if (isReturning) {
             updateBackward(state, packets);
@@ -72,20 +85,20 @@ public class Packet {
         }
         updateSpeed();
         
-        progress += currentSpeed;
+        double progress = getProgress() + getCurrentSpeed();
         if (progress > 1.0) progress = 1.0;
+        setProgress(progress);
 
         if (progress >= 1.0) {
-            progress = 0.0;
-            segmentIndex++;
-            java.util.List<Point> path = currentConnection.getDetailedPath();
-            if (segmentIndex >= path.size() - 1) {
+            setProgress(0.0);
+            setSegmentIndex(getSegmentIndex() + 1);
+            if (getSegmentIndex() >= currentConnection.getPathPointCount() - 1) {
                 String fromNodeId = currentConnection.getFromNode().getId();
                 String toNodeId = currentConnection.getToNode().getId();
                 long travelTime = System.currentTimeMillis() - creationTime;
                 
-                GameLogger.logPacketArrival(toString(), packetType, toNodeId, true, travelTime);
-                System.out.println("Packet reached node " + toNodeId + " from " + fromNodeId);
+                GameLogger.logPacketArrival(toString(), kind.getTypeName(), toNodeId, true, travelTime);
+                SimulationEvents.packet(SimulationEvent.Type.PACKET_ARRIVED, this, toNodeId, fromNodeId);
                 
                 if (toNodeId.equals("C")) {
                     state.getUser().setCoin(state.getUser().getCoin() + getCoinReward());
@@ -94,7 +107,7 @@ public class Packet {
                     
                     currentConnection.setPacket(null);
                     packets.remove(this);
-                    System.out.println("Packet removed at C");
+                    SimulationEvents.packet(SimulationEvent.Type.PACKET_DELIVERED, this, toNodeId);
                     return;
                 }
                 
@@ -107,35 +120,36 @@ public class Packet {
                 }
                 
                 IConnection nextConnection = null;
-                for (IConnection conn : state.getConnections()) {
-                    if (conn.getFromNode().getId().equals(toNodeId)) {
-                        if (conn.getPacket() == null && !conn.isDestroyed()) {
-                            if (conn.getToNode().isDamaged()) {
-                                continue;
-                            }
+                List<IConnection> candidates = destinationNode.isSabotageSystem()
+                        ? state.getOutgoingConnections(toNodeId)
+                        : state.getOutgoingConnections(toNodeId, kind.getTypeName());
+                for (IConnection conn : candidates) {
+                    if (conn.getPacket() == null && !conn.isDestroyed()) {
+                        if (conn.getToNode().isDamaged()) {
+                            continue;
+                        }
 
-                            if (isConfidentialPacket() && !conn.getFromNode().isUncontrollableSystem()) {
-                                continue;
-                            }
+                        if (isConfidentialPacket() && !conn.getFromNode().isUncontrollableSystem()) {
+                            continue;
+                        }
 
-                            String[] outShapes = conn.getFromNode().getOutputShapes();
-                            int portIndex = conn.getFromPort();
-                            if (portIndex >= 0 && portIndex < outShapes.length) {
-                                String portShape = outShapes[portIndex];
-                                boolean isSabotage = conn.getFromNode().isSabotageSystem();
-                                boolean isCompatible = this.packetType.equals(portShape);
-                                if ((!isSabotage && isCompatible) || (isSabotage && !isCompatible)) {
-                                    nextConnection = conn;
-                                    break;
-                                }
+                        String[] outShapes = conn.getFromNode().getOutputShapes();
+                        int portIndex = conn.getFromPort();
+                        if (portIndex >= 0 && portIndex < outShapes.length) {
+                            String portShape = outShapes[portIndex];
+                            boolean isSabotage = conn.getFromNode().isSabotageSystem();
+                            boolean isCompatible = kind.matchesShape(portShape);
+                            if ((!isSabotage && isCompatible) || (isSabotage && !isCompatible)) {
+                                nextConnection = conn;
+                                break;
                             }
                         }
                     }
                 }
 
                 if (nextConnection == null) {
-                    for (IConnection conn : state.getConnections()) {
-                        if (conn.getFromNode().getId().equals(toNodeId) && conn.getPacket() == null && !conn.getToNode().isDamaged() && !conn.isDestroyed()) {
+                    for (IConnection conn : state.getOutgoingConnections(toNodeId)) {
+                        if (conn.getPacket() == null && !conn.getToNode().isDamaged() && !conn.isDestroyed()) {
                             nextConnection = conn;
                             break;
                         }
@@ -144,16 +158,16 @@ public class Packet {
 
                 if (nextConnection != null) {
                     currentConnection.setPacket(null);
-                    currentConnection = nextConnection;
-                    segmentIndex = 0;
+                    setCurrentConnection(nextConnection);
+                    setSegmentIndex(0);
                     currentConnection.setPacket(this);
-                    System.out.println("Packet transitioned to connection from " + currentConnection.getFromNode().getId() + " to " + currentConnection.getToNode().getId() +
-                            ", speed remains: " + String.format("%.4f", GameConfig.PACKET_SPEED));
+                    SimulationEvents.packet(SimulationEvent.Type.PACKET_TRANSITIONED, this, currentConnection.getFromNode().getId(),
+                            currentConnection.getToNode().getId(), GameConfig.PACKET_SPEED, 0);
                     return;
                 } else {
                     packets.remove(this);
                     currentConnection.setPacket(null);
-                    System.out.println("Packet removed at " + toNodeId + ": no valid next connection");
+                    SimulationEvents.packet(SimulationEvent.Type.PACKET_DROPPED, this, toNodeId);
                 }
 
             }
@@ -161,94 +175,100 @@ public class Packet {
     }
 
     public void updateBackward(GameState state, java.util.List<Packet> packets) {
-        double oldProgress = progress;
+        double oldProgress = getProgress();
         updateSpeed();
         
-        progress -= currentSpeed;
+        double progress = getProgress() - getCurrentSpeed();
         if (progress < 0.0) progress = 0.0;
+        setProgress(progress);
 
-        if (progress <= 0.0 && segmentIndex <= 0) {
+        if (progress <= 0.0 && getSegmentIndex() <= 0) {
             String fromNodeId = currentConnection.getFromNode().getId();
             String toNodeId = currentConnection.getToNode().getId();
-            System.out.println("Packet at start of connection from " + fromNodeId + " to " + toNodeId);
             if (fromNodeId.equals("A")) {
                 packets.remove(this);
                 currentConnection.setPacket(null);
-                System.out.println("Packet removed at A");
+                SimulationEvents.packet(SimulationEvent.Type.PACKET_REMOVED, this, fromNodeId);
                 return;
             }
             IConnection prevConnection = null;
-            for (IConnection conn : state.getConnections()) {
-                if (conn.getToNode().getId().equals(fromNodeId)) {
-                    if (conn.getPacket() == null) {
+            for (IConnection conn : state.getIncomingConnections(fromNodeId)) {
+                if (conn.getPacket() == null) {
+                    prevConnection = conn;
+                    if ((kind == PacketKind.TRIANGLE && conn.getToPort() == 0) ||
+                            (kind == PacketKind.SQUARE && conn.getToPort() == 1)) {
                         prevConnection = conn;
-                        if ((this.packetType.equals("triangle") && conn.getToPort() == 0) ||
-                                (this.packetType.equals("square") && conn.getToPort() == 1)) {
-                            prevConnection = conn;
-                            break;
-                        }
+                        break;
                     }
                 }
             }
 
             if (prevConnection != null) {
                 currentConnection.setPacket(null);
-                currentConnection = prevConnection;
+                setCurrentConnection(prevConnection);
                 currentConnection.setPacket(this);
-                java.util.List<Point> path = prevConnection.getDetailedPath();
-                segmentIndex = path.size() - 2;
-                progress = 1.0 - GameConfig.PACKET_SPEED;
-                System.out.println("Packet transitioned backward to connection from " + currentConnection.getFromNode().getId() + " to " + currentConnection.getToNode().getId() +
-                        ", speed remains: " + String.format("%.4f", GameConfig.PACKET_SPEED));
+                setSegmentIndex(prevConnection.getPathPointCount() - 2);
+                setProgress(1.0 - GameConfig.PACKET_SPEED);
+                SimulationEvents.packet(SimulationEvent.Type.PACKET_TRANSITIONED, this, currentConnection.getToNode().getId(),
+                        currentConnection.getFromNode().getId(), GameConfig.PACKET_SPEED, 0);
                 return;
             }
 
             packets.remove(this);
             currentConnection.setPacket(null);
-            System.out.println("Packet removed at " + fromNodeId + ": no valid previous connection");
+            SimulationEvents.packet(SimulationEvent.Type.PACKET_DROPPED, this, fromNodeId);
         } else if (progress <= 0.0) {
-            segmentIndex--;
-            progress = 1.0 - GameConfig.PACKET_SPEED;
+            setSegmentIndex(getSegmentIndex() - 1);
+            setProgress(1.0 - GameConfig.PACKET_SPEED);
         }
 
 
     }
 
     public Point getPosition() {
-        List<Point> path = currentConnection.getDetailedPath();
-
-        if (segmentIndex >= path.size() - 1) {
-            Point base = path.get(path.size() - 1);
-            return new Point(base.x + displacement.x, base.y + displacement.y);
-        }
-        Point start = path.get(segmentIndex);
-        Point end = path.get(segmentIndex + 1);
-
-        double x = start.x + (end.x - start.x) * progress;
-        double y = start.y + (end.y - start.y) * progress;
-        Point pos = new Point((int) x, (int) y);
+        Point pos = new Point();
+        getPosition(pos);
+        return pos;
+    }
 
-        return new Point(pos.x + displacement.x, pos.y + displacement.y);
+    /**
+     * Writes the current position into {@code out} without allocating.
+     */
+    public void getPosition(Point out) {
+        currentConnection.getPointOnPath(getSegmentIndex(), getProgress(), out);
+        out.translate(getDisplacementX(), getDisplacementY());
     }
 
     public void applyDisplacement(Point disp) {
-        this.displacement = new Point(this.displacement.x + disp.x, this.displacement.y + disp.y);
+        applyDisplacement(disp.x, disp.y);
+    }
+
+    public void applyDisplacement(int dx, int dy) {
+        setDisplacement(getDisplacementX() + dx, getDisplacementY() + dy);
     }
 
     public void resetDisplacement() {
-        this.displacement = new Point(0, 0);
+        setDisplacement(0, 0);
     }
 
     public double getNoise() {
-        return noise;
+        return store != null ? store.getNoise(slot) : noise;
     }
 
     public void setNoise(double noise) {
-        this.noise = noise;
+        if (store != null) {
+            store.setNoise(slot, noise);
+        } else {
+            this.noise = noise;
+        }
     }
 
     public String getPacketType() {
-        return packetType;
+        return kind.getTypeName();
+    }
+
+    public PacketKind getKind() {
+        return kind;
     }
 
     public IConnection getCurrentConnection() {
@@ -256,27 +276,38 @@ public class Packet {
     }
 
     public int getSegmentIndex() {
-        return segmentIndex;
+        return store != null ? store.getSegmentIndex(slot) : segmentIndex;
     }
 
     public double getProgress() {
-        return progress;
+        return store != null ? store.getProgress(slot) : progress;
     }
 
     public double getCurrentSpeed() {
-        return currentSpeed;
+        return store != null ? store.getSpeed(slot) : currentSpeed;
     }
 
     public void setCurrentSpeed(double speed) {
-        this.currentSpeed = speed;
+        if (store != null) {
+            store.setSpeed(slot, speed);
+        } else {
+            this.currentSpeed = speed;
+        }
     }
 
     public String getOriginalPacketType() {
-        return originalPacketType;
+        return originalKind.getTypeName();
+    }
+
+    public PacketKind getOriginalKind() {
+        return originalKind;
     }
 
     public void setOriginalPacketType(String originalPacketType) {
-        this.originalPacketType = originalPacketType;
+        PacketKind originalKind = PacketKind.fromTypeName(originalPacketType);
+        if (originalKind != null) {
+            this.originalKind = originalKind;
+        }
     }
 
     public boolean isProtected() {
@@ -294,21 +325,21 @@ public class Packet {
         updateLastMovementTime();
         
         if (isTimedOut()) {
-            System.out.println("Packet timed out on wire, removing from network");
+            SimulationEvents.packet(SimulationEvent.Type.PACKET_TIMED_OUT, this, currentConnection != null ? currentConnection.getToNode().getId() : null);
             return;
         }
         
 
         if (isConfidentialPacket()) {
-            currentSpeed = baseSpeed;
+            setCurrentSpeed(baseSpeed);
             return;
         }
 
         if (wireLength > GameConfig.LONG_WIRE_THRESHOLD) {
             double accelerationFactor = 1.0 + (wireLength - GameConfig.LONG_WIRE_THRESHOLD) / GameConfig.LONG_WIRE_THRESHOLD * GameConfig.WIRE_ACCELERATION_FACTOR;
-            currentSpeed = baseSpeed * accelerationFactor;
+            setCurrentSpeed(baseSpeed * accelerationFactor);
         } else {
-            currentSpeed = baseSpeed;
+            setCurrentSpeed(baseSpeed);
         }
     }
     
@@ -321,49 +352,49 @@ public class Packet {
     
     private void applySquarePacketBehavior(boolean isCompatiblePort) {
         if (isCompatiblePort) {
-            currentSpeed *= GameConfig.COMPATIBLE_PORT_SPEED_FACTOR;
+            setCurrentSpeed(getCurrentSpeed() * GameConfig.COMPATIBLE_PORT_SPEED_FACTOR);
         }
     }
     
     private void applyTrianglePacketBehavior(boolean isCompatiblePort) {
         if (!isCompatiblePort) {
-            currentSpeed *= GameConfig.INCOMPATIBLE_PORT_SPEED_FACTOR;
+            setCurrentSpeed(getCurrentSpeed() * GameConfig.INCOMPATIBLE_PORT_SPEED_FACTOR);
         }
     }
     
     private void applyCirclePacketBehavior(boolean isCompatiblePort) {
         if (isCompatiblePort) {
             acceleration += 0.001;
-            currentSpeed += acceleration * GameConfig.CIRCLE_ACCELERATION_FACTOR;
+            setCurrentSpeed(getCurrentSpeed() + acceleration * GameConfig.CIRCLE_ACCELERATION_FACTOR);
         } else {
             acceleration -= 0.001;
-            currentSpeed *= GameConfig.CIRCLE_DECELERATION_FACTOR;
+            setCurrentSpeed(getCurrentSpeed() * GameConfig.CIRCLE_DECELERATION_FACTOR);
         }
-        if (currentSpeed < GameConfig.PACKET_SPEED * 0.1) {
-            currentSpeed = GameConfig.PACKET_SPEED * 0.1;
+        if (getCurrentSpeed() < GameConfig.PACKET_SPEED * 0.1) {
+            setCurrentSpeed(GameConfig.PACKET_SPEED * 0.1);
         }
     }
     
 
     public void applyShopItemEffects(GameState state) {
         if (state.isSpeedBoosterActive()) {
-            currentSpeed *= GameConfig.SPEED_BOOSTER_FACTOR;
+            setCurrentSpeed(getCurrentSpeed() * GameConfig.SPEED_BOOSTER_FACTOR);
         }
         if (state.isSpeedLimiterActive()) {
-            currentSpeed *= GameConfig.SPEED_LIMITER_FACTOR;
+            setCurrentSpeed(getCurrentSpeed() * GameConfig.SPEED_LIMITER_FACTOR);
         }
         if (state.isWireOptimizerActive()) {
             double wireLength = currentConnection.getLength();
             double optimizedLength = wireLength * GameConfig.WIRE_OPTIMIZER_FACTOR;
             if (optimizedLength > GameConfig.LONG_WIRE_THRESHOLD) {
                 double accelerationFactor = 1.0 + (optimizedLength - GameConfig.LONG_WIRE_THRESHOLD) / GameConfig.LONG_WIRE_THRESHOLD * GameConfig.WIRE_ACCELERATION_FACTOR;
-                currentSpeed = GameConfig.PACKET_SPEED * accelerationFactor;
+                setCurrentSpeed(GameConfig.PACKET_SPEED * accelerationFactor);
             } else {
-                currentSpeed = GameConfig.PACKET_SPEED;
+                setCurrentSpeed(GameConfig.PACKET_SPEED);
             }
         }
         if (isScrollAergiaActive(state)) {
-            currentSpeed = GameConfig.SCROLL_AERGIA_SPEED_FACTOR;
+            setCurrentSpeed(GameConfig.SCROLL_AERGIA_SPEED_FACTOR);
         }
         if (isScrollEliphasActive(state)) {
             restoreCenterOfMassToWire();
@@ -389,151 +420,82 @@ public class Packet {
     }
     
     private void restoreCenterOfMassToWire() {
-        if (displacement.x != 0 || displacement.y != 0) {
+        int dx = getDisplacementX();
+        int dy = getDisplacementY();
+        if (dx != 0 || dy != 0) {
             double restorationSpeed = GameConfig.SCROLL_ELIPHAS_RESTORATION_SPEED;
-            double distance = Math.hypot(displacement.x, displacement.y);
+            double distance = Math.hypot(dx, dy);
             if (distance > 0) {
-                double directionX = -displacement.x / distance;
-                double directionY = -displacement.y / distance;
+                double directionX = -dx / distance;
+                double directionY = -dy / distance;
                 double moveDistance = Math.min(restorationSpeed, distance);
-                displacement.x += directionX * moveDistance;
-                displacement.y += directionY * moveDistance;
-                if (Math.abs(displacement.x) < 0.1) displacement.x = 0;
-                if (Math.abs(displacement.y) < 0.1) displacement.y = 0;
+                dx += directionX * moveDistance;
+                dy += directionY * moveDistance;
+                if (Math.abs(dx) < 0.1) dx = 0;
+                if (Math.abs(dy) < 0.1) dy = 0;
+                setDisplacement(dx, dy);
             }
         }
     }
 
     public boolean isConfidential() {
-        return "confidential".equals(packetType);
+        return kind == PacketKind.CONFIDENTIAL;
     }
 
     public boolean isProtectedPacket() {
-        return "protected".equals(packetType);
+        return kind == PacketKind.PROTECTED;
     }
 
     public boolean isTrojan() {
-        return "trojan".equals(packetType);
+        return kind == PacketKind.TROJAN;
     }
 
     public boolean isMessenger() {
-        return "messenger".equals(packetType);
+        return kind == PacketKind.MESSENGER;
     }
 
     public void convertToTrojan() {
-        if (isType1Packet()) {
-            // Convert type 1 to type 2
-            this.packetType = getType2Equivalent();
-        } else if (isType2Packet()) {
-            // Convert type 2 to type 1
-            this.packetType = getType1Equivalent();
+        if (originalKind.isType1() || originalKind.isType2()) {
+            // Swap to the counterpart on the other player's side
+            setKind(originalKind.getCounterpart());
         } else {
             // For other packet types, just mark as trojan
-            this.packetType = "trojan";
+            setKind(PacketKind.TROJAN);
         }
     }
 
     public void convertToMessenger() {
-        this.packetType = "messenger";
-    }
-    
-    private boolean isType1Packet() {
-        return "square".equals(originalPacketType) || "triangle".equals(originalPacketType) || 
-               "circle".equals(originalPacketType) || "protected".equals(originalPacketType);
-    }
-    
-    private boolean isType2Packet() {
-        return "confidential_4".equals(originalPacketType) || "confidential_6".equals(originalPacketType) ||
-               "bulky_8".equals(originalPacketType) || "bulky_10".equals(originalPacketType);
-    }
-    
-    private String getType2Equivalent() {
-        switch (originalPacketType) {
-            case "square":
-                return "confidential_4";
-            case "triangle":
-                return "confidential_6";
-            case "circle":
-                return "bulky_8";
-            case "protected":
-                return "bulky_10";
-            default:
-                return "confidential_4";
-        }
+        setKind(PacketKind.MESSENGER);
     }
     
-    private String getType1Equivalent() {
-        switch (originalPacketType) {
-            case "confidential_4":
-                return "square";
-            case "confidential_6":
-                return "triangle";
-            case "bulky_8":
-                return "circle";
-            case "bulky_10":
-                return "protected";
-            default:
-                return "square";
-        }
-    }
-
     public void convertToProtected() {
-        this.packetType = "protected";
+        setKind(PacketKind.PROTECTED);
         this.isProtected = true;
     }
 
     public void convertToConfidential() {
-        this.packetType = "confidential";
+        setKind(PacketKind.CONFIDENTIAL);
     }
 
     public void revertToOriginal() {
-        this.packetType = this.originalPacketType;
+        setKind(this.originalKind);
         this.isProtected = false;
     }
     private void initializePacketSize() {
-        switch (packetType) {
-            case "square":
-                this.packetSize = GameConfig.SQUARE_PACKET_SIZE;
-                break;
-            case "triangle":
-                this.packetSize = GameConfig.TRIANGLE_PACKET_SIZE;
-                break;
-            case "circle":
-                this.packetSize = GameConfig.CIRCLE_PACKET_SIZE;
-                break;
-            case "protected":
-                    this.packetSize = getOriginalPacketSize() * GameConfig.PROTECTED_PACKET_SIZE_MULTIPLIER;
-                break;
-            case "confidential_4":
-                this.packetSize = GameConfig.CONFIDENTIAL_PACKET_SIZE_4;
-                break;
-            case "confidential_6":
-                this.packetSize = GameConfig.CONFIDENTIAL_PACKET_SIZE_6;
-                break;
-            case "bulky_8":
-                this.packetSize = GameConfig.BULKY_PACKET_SIZE_8;
-                break;
-            case "bulky_10":
-                this.packetSize = GameConfig.BULKY_PACKET_SIZE_10;
-                break;
-            case "bit":
-                this.packetSize = 1; // Bit packets are always size 1
-                break;
-            default:
-                this.packetSize = 1; // Default size
-                break;
+        if (kind == PacketKind.PROTECTED) {
+            this.packetSize = getOriginalPacketSize() * GameConfig.PROTECTED_PACKET_SIZE_MULTIPLIER;
+        } else {
+            this.packetSize = kind.getSize();
         }
         this.isLargePacket = (packetSize >= GameConfig.LARGE_PACKET_THRESHOLD);
     }
     
     private int getOriginalPacketSize() {
-        switch (originalPacketType) {
-            case "square":
-                return GameConfig.SQUARE_PACKET_SIZE;
-            case "triangle":
-                return GameConfig.TRIANGLE_PACKET_SIZE;
-            case "circle":
-                return GameConfig.CIRCLE_PACKET_SIZE;
+        switch (originalKind) {
+            case SQUARE:
+            case TRIANGLE:
+            case CIRCLE:
+                return originalKind.getSize();
             default:
                 return 1;
         }
@@ -542,7 +504,7 @@ public class Packet {
     private void initializeProtectedPacketBehavior() {
         String[] behaviors = {"square", "triangle", "circle"};
         this.movementBehavior = behaviors[(int) (Math.random() * behaviors.length)];
-        System.out.println("Protected packet initialized with movement behavior: " + movementBehavior);
+        SimulationEvents.system(SimulationEvent.Type.PROTECTED_BEHAVIOR_CHOSEN, null, movementBehavior);
     }
     
     public int getPacketSize() {
@@ -598,34 +560,13 @@ public class Packet {
     }
     
     public int getCoinReward() {
-        switch (packetType) {
-            case "square":
-                return GameConfig.SQUARE_PACKET_COINS;
-            case "triangle":
-                return GameConfig.TRIANGLE_PACKET_COINS;
-            case "circle":
-                return GameConfig.CIRCLE_PACKET_COINS;
-            case "protected":
-                return GameConfig.PROTECTED_PACKET_COINS;
-            case "confidential_4":
-                return GameConfig.CONFIDENTIAL_PACKET_4_COINS;
-            case "confidential_6":
-                return GameConfig.CONFIDENTIAL_PACKET_6_COINS;
-            case "bulky_8":
-                return GameConfig.BULKY_PACKET_8_COINS;
-            case "bulky_10":
-                return GameConfig.BULKY_PACKET_10_COINS;
-            case "bit":
-                return 0;
-            default:
-                return 1;
-        }
+        return kind.getCoinReward();
     }
 
     private void processPacketAtNode(INode node, GameState state, List<Packet> packets) {
         if (!node.canOperate()) {
             this.isReturning = true;
-            System.out.println("System " + node.getId() + " is damaged, packet returning");
+            SimulationEvents.packet(SimulationEvent.Type.PACKET_RETURNING, this, node.getId());
             return;
         }
         if ("C".equals(node.getId()) && isBitPacket()) {
@@ -634,7 +575,7 @@ public class Packet {
             if (currentConnection != null) {
                 currentConnection.setPacket(null);
             }
-            System.out.println("Bit packet reached reference system C -> counted as packet loss");
+            SimulationEvents.packet(SimulationEvent.Type.PACKET_LOST, this, node.getId());
             return;
         }
         state.getUser().setCoin(state.getUser().getCoin() + getCoinReward());
@@ -653,19 +594,20 @@ public class Packet {
         }
         if (isBulkyPacket()) {
             currentConnection.incrementBulkyPacketPasses();
+            state.markDirty(GameState.DIRTY_CONNECTIONS);
         }
         if (isBulkyPacket()) {
             clearSystemOfPackets(node, state, packets);
         }
         if (isBulkyPacket()) {
-            randomizeSystemPorts(node);
+            randomizeSystemPorts(node, state);
         }
-        if ("circle".equals(packetType)) {
+        if (kind == PacketKind.CIRCLE) {
             handleCirclePacketCollision(node, state, packets);
         }
         if (isIncompatiblePortEntry(node)) {
-            currentSpeed *= GameConfig.INCOMPATIBLE_PORT_SPEED_FACTOR;
-            System.out.println("Packet entered from incompatible port, speed doubled");
+            setCurrentSpeed(getCurrentSpeed() * GameConfig.INCOMPATIBLE_PORT_SPEED_FACTOR);
+            SimulationEvents.packet(SimulationEvent.Type.PACKET_SPED_UP, this, node.getId(), null, getCurrentSpeed(), 0);
         }
     }
     
@@ -691,7 +633,7 @@ public class Packet {
         if (isLargePacket || isBulkyPacket()) {
             distributeLargePacket(node, state, packets);
         } else {
-            System.out.println("Normal packet passed through distribute system " + node.getId());
+            SimulationEvents.packet(SimulationEvent.Type.PACKET_PASSED_SYSTEM, this, node.getId());
         }
     }
     
@@ -699,7 +641,7 @@ public class Packet {
         if (isBitPacket) {
             mergeBitPackets(node, state, packets);
         } else {
-            System.out.println("Normal packet passed through merge system " + node.getId());
+            SimulationEvents.packet(SimulationEvent.Type.PACKET_PASSED_SYSTEM, this, node.getId());
         }
     }
     
@@ -709,10 +651,10 @@ public class Packet {
     private void handleCirclePacketCollision(INode node, GameState state, java.util.List<Packet> packets) {
         for (Packet otherPacket : packets) {
             if (otherPacket != this && otherPacket.getCurrentConnection() != null) {
-                double distance = getPosition().distance(otherPacket.getPosition());
+                double distance = Point.distance(getX(), getY(), otherPacket.getX(), otherPacket.getY());
                 if (distance <= GameConfig.COLLISION_DISTANCE) {
                     setReturning(true);
-                    System.out.println("Circle packet collided, returning to source");
+                    SimulationEvents.packet(SimulationEvent.Type.PACKET_RETURNING, this, node.getId());
                     break;
                 }
             }
@@ -725,9 +667,9 @@ public class Packet {
         packets.remove(this);
         currentConnection.setPacket(null);
         for (int i = 0; i < numBitPackets; i++) {
-            for (IConnection conn : state.getConnections()) {
-                if (conn.getFromNode().getId().equals(node.getId()) && conn.getPacket() == null) {
-                    Packet bitPacket = new Packet(conn, "bit");
+            for (IConnection conn : state.getOutgoingConnections(node.getId())) {
+                if (conn.getPacket() == null) {
+                    Packet bitPacket = new Packet(conn, PacketKind.BIT);
                     bitPacket.setBitPacket(true);
                     bitPacket.setParentPacketId(parentId);
                     bitPacket.packetSize = 1; // Bit packets are size 1
@@ -735,13 +677,13 @@ public class Packet {
                         bitPacket.setParentBulkyPacketId(parentId);
                     }
                     packets.add(bitPacket);
-                    System.out.println("Created bit packet " + i + " from " + (isBulkyPacket() ? "bulky" : "large") + " packet");
+                    SimulationEvents.packet(SimulationEvent.Type.BIT_PACKET_CREATED, bitPacket, node.getId(), null, 0, i);
                     break;
                 }
             }
         }
         
-        System.out.println((isBulkyPacket() ? "Bulky" : "Large") + " packet distributed into " + numBitPackets + " bit packets");
+        SimulationEvents.packet(SimulationEvent.Type.PACKET_DISTRIBUTED, this, node.getId(), null, 0, numBitPackets);
     }
     
     private void mergeBitPackets(INode node, GameState state, java.util.List<Packet> packets) {
@@ -756,7 +698,7 @@ public class Packet {
         int expected = this.packetSize > 1 ? this.packetSize : getOriginalPacketSize();
         if (expected < 2) expected = 2;
         if (siblingBitPackets.size() >= expected) {
-            Packet mergedPacket = new Packet(currentConnection, originalPacketType);
+            Packet mergedPacket = new Packet(currentConnection, originalKind);
             mergedPacket.packetSize = expected;
             for (Packet bitPacket : siblingBitPackets) {
                 packets.remove(bitPacket);
@@ -765,7 +707,7 @@ public class Packet {
                 }
             }
             packets.add(mergedPacket);
-            System.out.println("Merged " + siblingBitPackets.size() + " bit packets into original packet");
+            SimulationEvents.packet(SimulationEvent.Type.BIT_PACKETS_MERGED, mergedPacket, node.getId(), null, 0, siblingBitPackets.size());
         }
     }
 
@@ -773,9 +715,9 @@ public class Packet {
         if (isConfidential() || isConfidentialPacket()) {
             packets.remove(this);
             currentConnection.setPacket(null);
-            System.out.println("Confidential packet destroyed by spy system " + node.getId());
+            SimulationEvents.packet(SimulationEvent.Type.PACKET_DESTROYED, this, node.getId());
         } else if (isProtectedPacket()) {
-            System.out.println("Protected packet unaffected by spy system " + node.getId());
+            SimulationEvents.packet(SimulationEvent.Type.PACKET_UNAFFECTED, this, node.getId());
         } else if (!isBitPacket()) {
             java.util.List<INode> spySystems = new java.util.ArrayList<>();
             for (INode n : state.getNodes()) {
@@ -786,14 +728,14 @@ public class Packet {
             
             if (!spySystems.isEmpty()) {
                 INode targetSpy = spySystems.get((int) (Math.random() * spySystems.size()));
-                for (IConnection conn : state.getConnections()) {
-                    if (conn.getFromNode().getId().equals(targetSpy.getId()) && conn.getPacket() == null) {
+                for (IConnection conn : state.getOutgoingConnections(targetSpy.getId())) {
+                    if (conn.getPacket() == null) {
                         currentConnection.setPacket(null);
-                        currentConnection = conn;
-                        segmentIndex = 0;
-                        progress = 0.0;
+                        setCurrentConnection(conn);
+                        setSegmentIndex(0);
+                        setProgress(0.0);
                         currentConnection.setPacket(this);
-                        System.out.println("Packet teleported from spy system " + node.getId() + " to " + targetSpy.getId());
+                        SimulationEvents.packet(SimulationEvent.Type.PACKET_TELEPORTED, this, node.getId(), targetSpy.getId());
                         return;
                     }
                 }
@@ -803,13 +745,13 @@ public class Packet {
 
     private void processSabotageSystem(INode node, GameState state, java.util.List<Packet> packets) {
         if (!isProtectedPacket()) {
-            if (noise == 0) {
-                noise = 1.0;
-                System.out.println("Noise added to packet by sabotage system " + node.getId());
+            if (getNoise() == 0) {
+                setNoise(1.0);
+                SimulationEvents.packet(SimulationEvent.Type.PACKET_NOISE_ADDED, this, node.getId());
             }
             if (Math.random() < GameConfig.TROJAN_CONVERSION_PROBABILITY) {
                 convertToTrojan();
-                System.out.println("Packet converted to trojan by sabotage system " + node.getId());
+                SimulationEvents.packet(SimulationEvent.Type.PACKET_CONVERTED_TO_TROJAN, this, node.getId());
             }
         }
     }
@@ -818,7 +760,7 @@ public class Packet {
         if (!isProtectedPacket() && !isBitPacket()) {
             this.vpnSourceNodeId = node.getId();
             convertToProtected();
-            System.out.println("Packet protected by VPN system " + node.getId());
+            SimulationEvents.packet(SimulationEvent.Type.PACKET_PROTECTED, this, node.getId());
         }
     }
     public boolean isAnotherPacketInTargetSystem(GameState state) {
@@ -836,41 +778,41 @@ public class Packet {
         return false;
     }
     public void maintainDistanceFromOtherPackets(GameState state) {
-        Point myPosition = getPosition();
+        int myX = getX();
+        int myY = getY();
         for (Packet otherPacket : state.getPackets()) {
             if (otherPacket != this && otherPacket.getCurrentConnection() != null) {
-                Point otherPosition = otherPacket.getPosition();
-                double distance = myPosition.distance(otherPosition);
+                double distance = Point.distance(myX, myY, otherPacket.getX(), otherPacket.getY());
                 
                 if (distance < GameConfig.CONFIDENTIAL_DISTANCE_MAINTENANCE) {
                     if (distance < GameConfig.CONFIDENTIAL_DISTANCE_MAINTENANCE / 2) {
-                        currentSpeed *= 0.5;
+                        setCurrentSpeed(getCurrentSpeed() * 0.5);
                     } else {
-                        currentSpeed *= 0.8;
+                        setCurrentSpeed(getCurrentSpeed() * 0.8);
                     }
                 }
             }
         }
     }
     private void initializeBulkyPacketProperties() {
-        if ("bulky_10".equals(packetType)) {
+        if (kind == PacketKind.BULKY_10) {
             distanceTraveled = 0;
         }
     }
     public boolean isConfidentialPacket() {
-        return "confidential_4".equals(packetType) || "confidential_6".equals(packetType);
+        return kind.isConfidentialSized();
     }
     
     public boolean isBulkyPacket() {
-        return "bulky_8".equals(packetType) || "bulky_10".equals(packetType);
+        return kind.isBulky();
     }
     
     public boolean isConfidential4() {
-        return "confidential_4".equals(packetType);
+        return kind == PacketKind.CONFIDENTIAL_4;
     }
     
     public boolean isConfidential6() {
-        return "confidential_6".equals(packetType);
+        return kind == PacketKind.CONFIDENTIAL_6;
     }
 
     public String getParentBulkyPacketId() {
@@ -881,16 +823,53 @@ public class Packet {
         this.parentBulkyPacketId = parentBulkyPacketId;
     }
 
+    public String getVpnSourceNodeId() {
+        return vpnSourceNodeId;
+    }
+
+    public void setVpnSourceNodeId(String vpnSourceNodeId) {
+        this.vpnSourceNodeId = vpnSourceNodeId;
+    }
+
     public void setProgress(double progress) {
-        this.progress = progress;
+        if (store != null) {
+            store.setProgress(slot, progress);
+        } else {
+            this.progress = progress;
+        }
     }
     
     public void setSegmentIndex(int segmentIndex) {
-        this.segmentIndex = segmentIndex;
+        if (store != null) {
+            store.setSegmentIndex(slot, segmentIndex);
+        } else {
+            this.segmentIndex = segmentIndex;
+        }
     }
     
     public void setDisplacement(Point displacement) {
-        this.displacement = displacement;
+        if (displacement == null) {
+            setDisplacement(0, 0);
+        } else {
+            setDisplacement(displacement.x, displacement.y);
+        }
+    }
+
+    private void setDisplacement(int dx, int dy) {
+        if (store != null) {
+            store.setDisplacement(slot, dx, dy);
+        } else {
+            this.displacementX = dx;
+            this.displacementY = dy;
+        }
+    }
+
+    private int getDisplacementX() {
+        return store != null ? store.getDisplacementX(slot) : displacementX;
+    }
+
+    private int getDisplacementY() {
+        return store != null ? store.getDisplacementY(slot) : displacementY;
     }
     
     public void setCreationTime(long creationTime) {
@@ -927,7 +906,7 @@ public class Packet {
     
 
     private void generateFeedbackPacket(GameState state, List<Packet> packets) {
-        if (!isType1Packet() && !isType2Packet()) {
+        if (!originalKind.isType1() && !originalKind.isType2()) {
             return;
         }
         
@@ -941,18 +920,15 @@ public class Packet {
             return;
         }
         
-        String counterPacketType = generateCounterPacketType();
-        if (counterPacketType == null) {
-            return;
-        }
+        PacketKind counterKind = originalKind.getCounterpart();
         
         Color opponentColor = "player1".equals(playerId) ? Color.RED : Color.BLUE;
         String opponentId = "player1".equals(playerId) ? "player2" : "player1";
         
-        Packet counterPacket = new Packet(feedbackConnection, counterPacketType, opponentId, opponentColor);
+        Packet counterPacket = new Packet(feedbackConnection, counterKind, opponentId, opponentColor);
         packets.add(counterPacket);
         
-        System.out.println("Feedback loop: Generated " + counterPacketType + " counter-packet for opponent " + opponentId);
+        SimulationEvents.packet(SimulationEvent.Type.FEEDBACK_PACKET_GENERATED, counterPacket, feedbackConnection.getFromNode().getId(), opponentId);
     }
     
     private INode findUncontrollableSystem(GameState state) {
@@ -965,20 +941,14 @@ public class Packet {
     }
     
     private IConnection findFeedbackConnection(INode system, GameState state) {
-        for (IConnection conn : state.getConnections()) {
-            if (conn.getFromNode().getId().equals(system.getId()) && 
-                conn.getPacket() == null && !conn.isDestroyed()) {
+        for (IConnection conn : state.getOutgoingConnections(system.getId())) {
+            if (conn.getPacket() == null && !conn.isDestroyed()) {
                 return conn;
             }
         }
         return null;
     }
     
-    private String generateCounterPacketType() {
-        PacketTypeRegistry registry = new PacketTypeRegistry();
-        return registry.getCounterPacketType(originalPacketType);
-    }
-    
     public void setPlayerId(String playerId) {
         this.playerId = playerId;
     }
@@ -1000,7 +970,7 @@ public class Packet {
     }
     
     public Point getDisplacement() {
-        return displacement;
+        return new Point(getDisplacementX(), getDisplacementY());
     }
     
     public long getSpawnTime() {
@@ -1012,16 +982,76 @@ public class Packet {
     }
     
     public int getX() {
-        return getPosition().x;
+        return currentConnection.getPathXAt(getSegmentIndex(), getProgress()) + getDisplacementX();
     }
     
     public int getY() {
-        return getPosition().y;
+        return currentConnection.getPathYAt(getSegmentIndex(), getProgress()) + getDisplacementY();
     }
     
     public IConnection getConnection() {
         return currentConnection;
     }
+
+    private void setCurrentConnection(IConnection connection) {
+        this.currentConnection = connection;
+        if (store != null) {
+            store.setConnection(slot, connection);
+        }
+    }
+
+    private void setKind(PacketKind kind) {
+        this.kind = kind;
+        if (store != null) {
+            store.setKind(slot, kind);
+        }
+    }
+
+    /**
+     * Moves the per-tick fields into {@code store} at {@code slot}; until
+     * {@link #detach()} the packet reads and writes them there.
+     */
+    void attach(PacketStore store, int slot) {
+        store.setConnection(slot, currentConnection);
+        store.setKind(slot, kind);
+        store.setProgress(slot, progress);
+        store.setSegmentIndex(slot, segmentIndex);
+        store.setSpeed(slot, currentSpeed);
+        store.setNoise(slot, noise);
+        store.setDisplacement(slot, displacementX, displacementY);
+        this.store = store;
+        this.slot = slot;
+    }
+
+    void detach() {
+        if (store == null) {
+            return;
+        }
+        progress = store.getProgress(slot);
+        segmentIndex = store.getSegmentIndex(slot);
+        currentSpeed = store.getSpeed(slot);
+        noise = store.getNoise(slot);
+        displacementX = store.getDisplacementX(slot);
+        displacementY = store.getDisplacementY(slot);
+        store = null;
+        slot = -1;
+    }
+
+    void moveToSlot(int slot) {
+        this.slot = slot;
+    }
+
+    boolean isStoredIn(PacketStore store) {
+        return store != null && this.store == store;
+    }
+
+    PacketStore getStore() {
+        return store;
+    }
+
+    int getSlot() {
+        return slot;
+    }
     
     private void clearSystemOfPackets(INode node, GameState state, java.util.List<Packet> packets) {
         java.util.List<Packet> packetsToRemove = new java.util.ArrayList<>();
@@ -1041,10 +1071,10 @@ public class Packet {
             }
         }
         
-        System.out.println("Bulky packet cleared " + packetsToRemove.size() + " packets from system " + node.getId());
+        SimulationEvents.packet(SimulationEvent.Type.SYSTEM_CLEARED, this, node.getId(), null, 0, packetsToRemove.size());
     }
     
-    private void randomizeSystemPorts(INode node) {
+    private void randomizeSystemPorts(INode node, GameState state) {
         String[] inputShapes = node.getInputShapes();
         String[] outputShapes = node.getOutputShapes();
         
@@ -1058,9 +1088,10 @@ public class Packet {
             int randomIndex = (int) (Math.random() * outputShapes.length);
             String[] shapes = {"square", "triangle", "circle"};
             outputShapes[randomIndex] = shapes[(int) (Math.random() * shapes.length)];
+            state.refreshPortShapes(node);
         }
         
-        System.out.println("Bulky packet randomized ports in system " + node.getId());
+        SimulationEvents.packet(SimulationEvent.Type.SYSTEM_PORTS_RANDOMIZED, this, node.getId());
     }
 
 }
@@ -0,0 +1,137 @@
+package Game;
+
+import java.awt.Color;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Every packet type the simulation knows about, with the per-type size,
+ * coin reward, render colour and player group that used to be spread over
+ * string switches. The type name is what appears on ports, in saves and on
+ * the wire.
+ */
+public enum PacketKind {
+    SQUARE("square", GameConfig.SQUARE_PACKET_SIZE, GameConfig.SQUARE_PACKET_COINS, Color.CYAN, 1),
+    TRIANGLE("triangle", GameConfig.TRIANGLE_PACKET_SIZE, GameConfig.TRIANGLE_PACKET_COINS, Color.ORANGE, 1),
+    CIRCLE("circle", GameConfig.CIRCLE_PACKET_SIZE, GameConfig.CIRCLE_PACKET_COINS, new Color(0, 200, 120), 1),
+    PROTECTED("protected", 1, GameConfig.PROTECTED_PACKET_COINS, Color.BLUE, 1),
+    CONFIDENTIAL("confidential", 1, 1, Color.PINK, 0),
+    CONFIDENTIAL_4("confidential_4", GameConfig.CONFIDENTIAL_PACKET_SIZE_4, GameConfig.CONFIDENTIAL_PACKET_4_COINS, Color.MAGENTA, 2),
+    CONFIDENTIAL_6("confidential_6", GameConfig.CONFIDENTIAL_PACKET_SIZE_6, GameConfig.CONFIDENTIAL_PACKET_6_COINS, Color.PINK, 2),
+    BULKY_8("bulky_8", GameConfig.BULKY_PACKET_SIZE_8, GameConfig.BULKY_PACKET_8_COINS, new Color(139, 69, 19), 2),
+    BULKY_10("bulky_10", GameConfig.BULKY_PACKET_SIZE_10, GameConfig.BULKY_PACKET_10_COINS, new Color(160, 82, 45), 2),
+    TROJAN("trojan", 1, 1, Color.RED, 0),
+    MESSENGER("messenger", 1, 1, Color.GREEN, 0),
+    BIT("bit", 1, 0, new Color(255, 165, 0), 0);
+
+    private static final Map<String, PacketKind> BY_TYPE_NAME = new HashMap<>();
+
+    static {
+        for (PacketKind kind : values()) {
+            BY_TYPE_NAME.put(kind.typeName, kind);
+        }
+    }
+
+    private final String typeName;
+    private final int size;
+    private final int coinReward;
+    private final Color color;
+    private final int playerGroup;
+
+    PacketKind(String typeName, int size, int coinReward, Color color, int playerGroup) {
+        this.typeName = typeName;
+        this.size = size;
+        this.coinReward = coinReward;
+        this.color = color;
+        this.playerGroup = playerGroup;
+    }
+
+    /**
+     * @return the kind with this type name, or null if there is none
+     */
+    public static PacketKind fromTypeName(String typeName) {
+        return typeName == null ? null : BY_TYPE_NAME.get(typeName);
+    }
+
+    /**
+     * Like {@link #fromTypeName(String)} but rejects unknown names.
+     */
+    public static PacketKind of(String typeName) {
+        PacketKind kind = fromTypeName(typeName);
+        if (kind == null) {
+            throw new IllegalArgumentException("Unknown packet type: " + typeName);
+        }
+        return kind;
+    }
+
+    public String getTypeName() {
+        return typeName;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getCoinReward() {
+        return coinReward;
+    }
+
+    public Color getColor() {
+        return color;
+    }
+
+    public boolean matchesShape(String portShape) {
+        return typeName.equals(portShape);
+    }
+
+    /** Square, triangle, circle and protected packets belong to player 1. */
+    public boolean isType1() {
+        return playerGroup == 1;
+    }
+
+    /** Confidential 4/6 and bulky 8/10 packets belong to player 2. */
+    public boolean isType2() {
+        return playerGroup == 2;
+    }
+
+    public boolean isConfidentialSized() {
+        return this == CONFIDENTIAL_4 || this == CONFIDENTIAL_6;
+    }
+
+    public boolean isBulky() {
+        return this == BULKY_8 || this == BULKY_10;
+    }
+
+    /**
+     * The kind on the other player's side: square and confidential 4,
+     * triangle and confidential 6, circle and bulky 8, protected and bulky 10.
+     * Kinds without a counterpart map to themselves.
+     */
+    public PacketKind getCounterpart() {
+        switch (this) {
+            case SQUARE:
+                return CONFIDENTIAL_4;
+            case TRIANGLE:
+                return CONFIDENTIAL_6;
+            case CIRCLE:
+                return BULKY_8;
+            case PROTECTED:
+                return BULKY_10;
+            case CONFIDENTIAL_4:
+                return SQUARE;
+            case CONFIDENTIAL_6:
+                return TRIANGLE;
+            case BULKY_8:
+                return CIRCLE;
+            case BULKY_10:
+                return PROTECTED;
+            default:
+                return this;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return typeName;
+    }
+}
@@ -8,6 +8,8 @@ import java.util.List;
 
 public class PacketManager implements IPacketManager {
     private final GameState state;
+    private final SpatialHashGrid collisionGrid = new SpatialHashGrid(GameConfig.PACKET_LOSS_DISTANCE);
+    private final Point positionHolder = new Point();
     private long lastPacketSpawnTime;
     private long virtualTime;
 
@@ -141,50 +143,35 @@ public class PacketManager implements IPacketManager {
 
             List<Packet> collisionPacketsToRemove = new ArrayList<>();
             List<Point> collisionPoints = new ArrayList<>();
+            collisionGrid.rebuild(packets);
             for (int i = 0; i < packets.size(); i++) {
-                for (int j = i + 1; j < packets.size(); j++) {
-                    Packet p1 = packets.get(i);
+                Packet p1 = packets.get(i);
+                int x1 = collisionGrid.getX(i);
+                int y1 = collisionGrid.getY(i);
+                int candidates = collisionGrid.queryRadius(x1, y1, GameConfig.PACKET_LOSS_DISTANCE, i);
+                for (int k = 0; k < candidates; k++) {
+                    int j = collisionGrid.getResult(k);
                     Packet p2 = packets.get(j);
                     if (p1.getCurrentConnection() != p2.getCurrentConnection()) {
-                        Point pos1 = p1.getPosition();
-                        Point pos2 = p2.getPosition();
-                        double distance = pos1.distance(pos2);
-                        if (distance <= GameConfig.PACKET_LOSS_DISTANCE) {
-                            collisionPacketsToRemove.add(p1);
-                            collisionPacketsToRemove.add(p2);
-                            AudioManager.playSound("collision");
-                            Point collisionPoint = new Point(
-                                    (pos1.x + pos2.x) / 2,
-                                    (pos1.y + pos2.y) / 2
-                            );
-                            
-                            GameLogger.logPacketCollision(p1.toString(), p1.getPacketType(), 
-                                                        p2.toString(), p2.getPacketType(), 
-                                                        collisionPoint.x, collisionPoint.y, distance);
-                            collisionPoints.add(collisionPoint);
+                        int x2 = collisionGrid.getX(j);
+                        int y2 = collisionGrid.getY(j);
+                        double distance = Point.distance(x1, y1, x2, y2);
+                        collisionPacketsToRemove.add(p1);
+                        collisionPacketsToRemove.add(p2);
+                        AudioManager.playSound("collision");
+                        Point collisionPoint = new Point((x1 + x2) / 2, (y1 + y2) / 2);
 
-                            if (!state.isAtar()) {
-                                for (int index = 0; index < packets.size(); index++) {
-                                    Packet packet = packets.get(index);
-                                    double distanceCollision = packet.getPosition().distance(collisionPoint);
-                                    packet.setNoise(packet.getNoise() + 1 / (distanceCollision + 1));
-                                    if (packet.getNoise() >= 1 / (GameConfig.PACKET_LOSS_DISTANCE + 1)) {
-                                        collisionPacketsToRemove.add(packet);
-                                        for (IConnection connection : state.getConnections()) {
-                                            if (connection.getPacket() != null) {
-                                                if (connection.getPacket().equals(packet)) {
-                                                    connection.setPacket(null);
-                                                }
-                                            }
-                                        }
-                                    }
-                                }
-                            }
-
-                        }
+                        GameLogger.logPacketCollision(p1.toString(), p1.getPacketType(),
+                                                    p2.toString(), p2.getPacketType(),
+                                                    collisionPoint.x, collisionPoint.y, distance);
+                        collisionPoints.add(collisionPoint);
                     }
                 }
             }
+
+            if (!state.isAtar() && !collisionPoints.isEmpty()) {
+                applyCollisionNoise(packets, collisionPoints, collisionPacketsToRemove);
+            }
             state.setPacketLoss(state.getPacketLoss() + collisionPacketsToRemove.size());
             packets.removeAll(collisionPacketsToRemove);
             
@@ -207,34 +194,14 @@ public class PacketManager implements IPacketManager {
                 packets.get(i).updateForward(state, packets);
             }
             if (virtualTime >= 0 && state.getNumberPacketsSquare() + state.getNumberPacketTriangle() < GameConfig.NUMBER_PACKET[state.getLevel()]) {
-                for (IConnection conn : state.getConnections()) {
-                    if (conn.getFromNode().getId().equals("A")) {
-                        if (conn.getPacket() == null && !conn.isDestroyed()) {
-                            String shape = conn.getFromNode().getOutputShapes()[conn.getFromPort()];
-                            if (shape.equals("square")) {
-                                state.setNumberPacketsSquare(state.getNumberPacketsSquare() + 1);
-                                packets.add(new Packet(conn, "square"));
-                            } else if (shape.equals("triangle")) {
-                                state.setNumberPacketTriangle(state.getNumberPacketTriangle() + 1);
-                                packets.add(new Packet(conn, "triangle"));
-                            } else if (shape.equals("circle")) {
-                                state.setNumberPacketsCircle(state.getNumberPacketsCircle() + 1);
-                                packets.add(new Packet(conn, "circle"));
-                            } else if (shape.equals("confidential_4")) {
-                                state.setNumberPacketsConfidential4(state.getNumberPacketsConfidential4() + 1);
-                                packets.add(new Packet(conn, "confidential_4"));
-                            } else if (shape.equals("confidential_6")) {
-                                state.setNumberPacketsConfidential6(state.getNumberPacketsConfidential6() + 1);
-                                packets.add(new Packet(conn, "confidential_6"));
-                            } else if (shape.equals("bulky_8")) {
-                                state.setNumberPacketsBulky8(state.getNumberPacketsBulky8() + 1);
-                                packets.add(new Packet(conn, "bulky_8"));
-                            } else if (shape.equals("bulky_10")) {
-                                state.setNumberPacketsBulky10(state.getNumberPacketsBulky10() + 1);
-                                packets.add(new Packet(conn, "bulky_10"));
-                            }
-                            GameLogger.logPacketSpawn(shape, conn.toString(), "A", conn.getToNode().getId());
+                for (IConnection conn : state.getOutgoingConnections("A")) {
+                    if (conn.getPacket() == null && !conn.isDestroyed()) {
+                        String shape = conn.getFromNode().getOutputShapes()[conn.getFromPort()];
+                        PacketKind kind = PacketKind.fromTypeName(shape);
+                        if (kind != null && countSpawn(kind)) {
+                            packets.add(new Packet(conn, kind));
                         }
+                        GameLogger.logPacketSpawn(shape, conn.toString(), "A", conn.getToNode().getId());
                     }
                 }
             } else if (virtualTime >= 0 && state.getNumberPacketsSquare() + state.getNumberPacketTriangle() >= GameConfig.NUMBER_PACKET[state.getLevel()]) {
@@ -251,6 +218,60 @@ public class PacketManager implements IPacketManager {
         }
     }
 
+    private boolean countSpawn(PacketKind kind) {
+        switch (kind) {
+            case SQUARE:
+                state.setNumberPacketsSquare(state.getNumberPacketsSquare() + 1);
+                return true;
+            case TRIANGLE:
+                state.setNumberPacketTriangle(state.getNumberPacketTriangle() + 1);
+                return true;
+            case CIRCLE:
+                state.setNumberPacketsCircle(state.getNumberPacketsCircle() + 1);
+                return true;
+            case CONFIDENTIAL_4:
+                state.setNumberPacketsConfidential4(state.getNumberPacketsConfidential4() + 1);
+                return true;
+            case CONFIDENTIAL_6:
+                state.setNumberPacketsConfidential6(state.getNumberPacketsConfidential6() + 1);
+                return true;
+            case BULKY_8:
+                state.setNumberPacketsBulky8(state.getNumberPacketsBulky8() + 1);
+                return true;
+            case BULKY_10:
+                state.setNumberPacketsBulky10(state.getNumberPacketsBulky10() + 1);
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Every collision adds 1 / (distance + 1) noise to every packet, so the
+     * contributions are replayed per packet in collision order. This yields the
+     * same noise values and the same loss count as applying each collision to
+     * all packets in turn.
+     */
+    private void applyCollisionNoise(List<Packet> packets, List<Point> collisionPoints, List<Packet> collisionPacketsToRemove) {
+        double lossThreshold = 1 / (GameConfig.PACKET_LOSS_DISTANCE + 1);
+        for (int index = 0; index < packets.size(); index++) {
+            Packet packet = packets.get(index);
+            int x = collisionGrid.getX(index);
+            int y = collisionGrid.getY(index);
+            for (Point collisionPoint : collisionPoints) {
+                double distanceCollision = Point.distance(x, y, collisionPoint.x, collisionPoint.y);
+                packet.setNoise(packet.getNoise() + 1 / (distanceCollision + 1));
+                if (packet.getNoise() >= lossThreshold) {
+                    collisionPacketsToRemove.add(packet);
+                    IConnection connection = packet.getCurrentConnection();
+                    if (connection != null && connection.getPacket() == packet) {
+                        connection.setPacket(null);
+                    }
+                }
+            }
+        }
+    }
+
     @Override
     public List<Packet> getPackets() {
         return state.getPackets();
@@ -261,7 +282,7 @@ public class PacketManager implements IPacketManager {
         state.clearPackets();
         state.clearShockwaves();
         lastPacketSpawnTime = virtualTime;
-        System.out.println("Packets and shockwaves reset, lastPacketSpawnTime: " + lastPacketSpawnTime);
+        SimulationEvents.system(SimulationEvent.Type.PACKETS_RESET, null, null, lastPacketSpawnTime, 0);
     }
 
     private void processSystemMechanics(java.util.List<Packet> packets) {
@@ -277,15 +298,17 @@ public class PacketManager implements IPacketManager {
             if (node.isAntitrojanSystem() && node.canAntitrojanOperate()) {
                 for (Packet packet : packets) {
                     if (packet.isTrojan()) {
+                        packet.getPosition(positionHolder);
                         double distance = Math.hypot(
-                            packet.getPosition().x - node.getX(),
-                            packet.getPosition().y - node.getY()
+                            positionHolder.x - node.getX(),
+                            positionHolder.y - node.getY()
                         );
                         
                         if (distance <= GameConfig.ANTITROJAN_DETECTION_RADIUS) {
                             packet.revertToOriginal();
                             node.setLastAntitrojanOperation(System.currentTimeMillis());
-                            System.out.println("Anti-trojan system " + node.getId() + " reverted trojan packet to original type: " + packet.getPacketType());
+                            state.markDirty(GameState.DIRTY_NODES);
+                            SimulationEvents.packet(SimulationEvent.Type.PACKET_REVERTED, packet, node.getId());
                             break;
                         }
                     }
@@ -303,10 +326,10 @@ public class PacketManager implements IPacketManager {
 
                 java.util.List<Packet> toUnprotect = new java.util.ArrayList<>(protectedByThisVpn);
                 for (Packet packet : toUnprotect) {
-                    if (packet != null && packet.getPacketType().equals("protected")) {
+                    if (packet != null && packet.getKind() == PacketKind.PROTECTED) {
                         packet.revertToOriginal();
                         state.removeProtectedPacketForVpn(vpnNodeId, packet);
-                        System.out.println("VPN system " + vpnNodeId + " failed, reverted a packet to original type");
+                        SimulationEvents.packet(SimulationEvent.Type.PACKET_REVERTED, packet, vpnNodeId);
                     } else {
                         state.removeProtectedPacketForVpn(vpnNodeId, packet);
                     }
@@ -331,14 +354,13 @@ public class PacketManager implements IPacketManager {
     }
     
     private void generateConfidential6Packet(INode vpnNode, GameState state) {
-        for (IConnection conn : state.getConnections()) {
-            if (conn.getFromNode().getId().equals(vpnNode.getId()) && 
-                conn.getPacket() == null && !conn.isDestroyed()) {
+        for (IConnection conn : state.getOutgoingConnections(vpnNode.getId())) {
+            if (conn.getPacket() == null && !conn.isDestroyed()) {
                 
-                Packet confidential6Packet = new Packet(conn, "confidential_6");
+                Packet confidential6Packet = new Packet(conn, PacketKind.CONFIDENTIAL_6);
                 state.getPackets().add(confidential6Packet);
                 state.setNumberPacketsConfidential6(state.getNumberPacketsConfidential6() + 1);
-                System.out.println("VPN system " + vpnNode.getId() + " generated confidential_6 packet");
+                SimulationEvents.packet(SimulationEvent.Type.VPN_PACKET_GENERATED, confidential6Packet, vpnNode.getId());
                 break;
             }
         }
@@ -363,8 +385,9 @@ public class PacketManager implements IPacketManager {
                 INode destinationNode = packet.getCurrentConnection().getToNode();
                 if (!destinationNode.isDamaged()) {
                     destinationNode.setDamaged(true);
-                    System.out.println("System " + destinationNode.getId() + " damaged by high-speed packet (speed: " + 
-                        String.format("%.4f", packet.getCurrentSpeed()) + ")");
+                    state.markDirty(GameState.DIRTY_NODES);
+                    SimulationEvents.packet(SimulationEvent.Type.SYSTEM_DAMAGED, packet, destinationNode.getId(), null,
+                            packet.getCurrentSpeed(), 0);
                 }
             }
         }
@@ -0,0 +1,284 @@
+package Game;
+
+import java.awt.*;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * Packet list that keeps the per-tick fields of its packets in parallel
+ * primitive arrays. A packet added here becomes a view over its slot until it
+ * is removed, when the values are copied back into the packet. Slots follow
+ * list order, so a pass over the list is a linear scan of each array.
+ */
+class PacketStore extends AbstractList<Packet> implements RandomAccess {
+    private int size;
+    private Packet[] packets = new Packet[16];
+    private IConnection[] connections = new IConnection[16];
+    private double[] progress = new double[16];
+    private int[] segmentIndex = new int[16];
+    private double[] speed = new double[16];
+    private double[] noise = new double[16];
+    private int[] kindOrdinal = new int[16];
+    private int[] displacementX = new int[16];
+    private int[] displacementY = new int[16];
+    private int[] x = new int[16];
+    private int[] y = new int[16];
+    private final Point scratch = new Point();
+
+    @Override
+    public Packet get(int index) {
+        checkIndex(index, size);
+        return packets[index];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Packet set(int index, Packet packet) {
+        checkIndex(index, size);
+        Packet previous = packets[index];
+        if (previous == packet) {
+            return previous;
+        }
+        if (packet.isStoredIn(this)) {
+            throw new IllegalArgumentException("Packet is already in this list");
+        }
+        detachFromStore(packet);
+        previous.detach();
+        packets[index] = packet;
+        packet.attach(this, index);
+        return previous;
+    }
+
+    @Override
+    public void add(int index, Packet packet) {
+        checkIndex(index, size + 1);
+        if (packet.isStoredIn(this) && packet.getSlot() < index) {
+            index--;
+        }
+        detachFromStore(packet);
+        ensureCapacity(size + 1);
+        if (index < size) {
+            shift(index, index + 1, size - index);
+        }
+        packets[index] = packet;
+        size++;
+        modCount++;
+        packet.attach(this, index);
+        for (int i = index + 1; i < size; i++) {
+            packets[i].moveToSlot(i);
+        }
+    }
+
+    @Override
+    public Packet remove(int index) {
+        checkIndex(index, size);
+        Packet removed = packets[index];
+        removed.detach();
+        shift(index + 1, index, size - index - 1);
+        size--;
+        packets[size] = null;
+        connections[size] = null;
+        modCount++;
+        for (int i = index; i < size; i++) {
+            packets[i].moveToSlot(i);
+        }
+        return removed;
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        if (o instanceof Packet && ((Packet) o).isStoredIn(this)) {
+            return ((Packet) o).getSlot();
+        }
+        return -1;
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        return indexOf(o);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        Map<Packet, Boolean> doomed = new IdentityHashMap<>();
+        for (Object o : c) {
+            if (o instanceof Packet && ((Packet) o).isStoredIn(this)) {
+                doomed.put((Packet) o, Boolean.TRUE);
+            }
+        }
+        if (doomed.isEmpty()) {
+            return false;
+        }
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            Packet packet = packets[i];
+            if (doomed.containsKey(packet)) {
+                packet.detach();
+                continue;
+            }
+            if (kept != i) {
+                shift(i, kept, 1);
+                packet.moveToSlot(kept);
+            }
+            kept++;
+        }
+        Arrays.fill(packets, kept, size, null);
+        Arrays.fill(connections, kept, size, null);
+        size = kept;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            packets[i].detach();
+        }
+        Arrays.fill(packets, 0, size, null);
+        Arrays.fill(connections, 0, size, null);
+        size = 0;
+        modCount++;
+    }
+
+    /**
+     * Recomputes the on-screen position of every packet from its connection,
+     * segment, progress and displacement.
+     */
+    void refreshPositions() {
+        for (int i = 0; i < size; i++) {
+            connections[i].getPointOnPath(segmentIndex[i], progress[i], scratch);
+            x[i] = scratch.x + displacementX[i];
+            y[i] = scratch.y + displacementY[i];
+        }
+    }
+
+    int getX(int slot) {
+        return x[slot];
+    }
+
+    int getY(int slot) {
+        return y[slot];
+    }
+
+    double getProgress(int slot) {
+        return progress[slot];
+    }
+
+    void setProgress(int slot, double value) {
+        progress[slot] = value;
+    }
+
+    int getSegmentIndex(int slot) {
+        return segmentIndex[slot];
+    }
+
+    void setSegmentIndex(int slot, int value) {
+        segmentIndex[slot] = value;
+    }
+
+    double getSpeed(int slot) {
+        return speed[slot];
+    }
+
+    void setSpeed(int slot, double value) {
+        speed[slot] = value;
+    }
+
+    double getNoise(int slot) {
+        return noise[slot];
+    }
+
+    void setNoise(int slot, double value) {
+        noise[slot] = value;
+    }
+
+    int getKindOrdinal(int slot) {
+        return kindOrdinal[slot];
+    }
+
+    void setKind(int slot, PacketKind kind) {
+        kindOrdinal[slot] = kind.ordinal();
+    }
+
+    IConnection getConnection(int slot) {
+        return connections[slot];
+    }
+
+    void setConnection(int slot, IConnection connection) {
+        connections[slot] = connection;
+    }
+
+    int getDisplacementX(int slot) {
+        return displacementX[slot];
+    }
+
+    int getDisplacementY(int slot) {
+        return displacementY[slot];
+    }
+
+    void setDisplacement(int slot, int dx, int dy) {
+        displacementX[slot] = dx;
+        displacementY[slot] = dy;
+    }
+
+    /**
+     * A packet can only occupy one slot, so adding it again moves it.
+     */
+    private void detachFromStore(Packet packet) {
+        PacketStore owner = packet.getStore();
+        if (owner != null) {
+            owner.remove(packet.getSlot());
+        }
+    }
+
+    private void shift(int from, int to, int length) {
+        System.arraycopy(packets, from, packets, to, length);
+        System.arraycopy(connections, from, connections, to, length);
+        System.arraycopy(progress, from, progress, to, length);
+        System.arraycopy(segmentIndex, from, segmentIndex, to, length);
+        System.arraycopy(speed, from, speed, to, length);
+        System.arraycopy(noise, from, noise, to, length);
+        System.arraycopy(kindOrdinal, from, kindOrdinal, to, length);
+        System.arraycopy(displacementX, from, displacementX, to, length);
+        System.arraycopy(displacementY, from, displacementY, to, length);
+        System.arraycopy(x, from, x, to, length);
+        System.arraycopy(y, from, y, to, length);
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= packets.length) {
+            return;
+        }
+        int capacity = Math.max(required, packets.length * 2);
+        packets = Arrays.copyOf(packets, capacity);
+        connections = Arrays.copyOf(connections, capacity);
+        progress = Arrays.copyOf(progress, capacity);
+        segmentIndex = Arrays.copyOf(segmentIndex, capacity);
+        speed = Arrays.copyOf(speed, capacity);
+        noise = Arrays.copyOf(noise, capacity);
+        kindOrdinal = Arrays.copyOf(kindOrdinal, capacity);
+        displacementX = Arrays.copyOf(displacementX, capacity);
+        displacementY = Arrays.copyOf(displacementY, capacity);
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+    }
+
+    private static void checkIndex(int index, int bound) {
+        if (index < 0 || index >= bound) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + bound);
+        }
+    }
+}
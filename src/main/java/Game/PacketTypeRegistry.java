@@ -151,13 +151,13 @@ public class PacketTypeRegistry {
     }
 
     private boolean isType1Packet(String packetType) {
-        return "square".equals(packetType) || "triangle".equals(packetType) || 
-               "circle".equals(packetType) || "protected".equals(packetType);
+        PacketKind kind = PacketKind.fromTypeName(packetType);
+        return kind != null && kind.isType1();
     }
 
     private boolean isType2Packet(String packetType) {
-        return "confidential_4".equals(packetType) || "confidential_6".equals(packetType) ||
-               "bulky_8".equals(packetType) || "bulky_10".equals(packetType);
+        PacketKind kind = PacketKind.fromTypeName(packetType);
+        return kind != null && kind.isType2();
     }
 
     public String getRandomPacketTypeForPlayer(String playerId) {
@@ -171,74 +171,46 @@ public class PacketTypeRegistry {
     }
 
     public String getCounterPacketType(String originalPacketType) {
-        if (isType1Packet(originalPacketType)) {
-            return getType2Equivalent(originalPacketType);
-        } else if (isType2Packet(originalPacketType)) {
-            return getType1Equivalent(originalPacketType);
-        }
-        return originalPacketType;
-    }
-
-    private String getType2Equivalent(String type1Packet) {
-        switch (type1Packet) {
-            case "square":
-                return "confidential_4";
-            case "triangle":
-                return "confidential_6";
-            case "circle":
-                return "bulky_8";
-            case "protected":
-                return "bulky_10";
-            default:
-                return "confidential_4";
-        }
-    }
-
-    private String getType1Equivalent(String type2Packet) {
-        switch (type2Packet) {
-            case "confidential_4":
-                return "square";
-            case "confidential_6":
-                return "triangle";
-            case "bulky_8":
-                return "circle";
-            case "bulky_10":
-                return "protected";
-            default:
-                return "square";
-        }
+        PacketKind kind = PacketKind.fromTypeName(originalPacketType);
+        return kind != null ? kind.getCounterpart().getTypeName() : originalPacketType;
     }
 
     public int getPacketSpawnPriority(String packetType) {
         PacketTypeInfo info = packetTypes.get(packetType);
         if (info == null) return 999;
-        
-        if (packetType.contains("bulky_10")) return 1;
-        if (packetType.contains("bulky_8")) return 2;
-        if (packetType.contains("confidential_6")) return 3;
-        if (packetType.contains("confidential_4")) return 4;
-        if (packetType.contains("protected")) return 5;
-        if (packetType.contains("circle")) return 6;
-        if (packetType.contains("triangle")) return 7;
-        if (packetType.contains("square")) return 8;
-        
-        return 9;
+
+        PacketKind kind = PacketKind.fromTypeName(packetType);
+        if (kind == null) return 9;
+        switch (kind) {
+            case BULKY_10: return 1;
+            case BULKY_8: return 2;
+            case CONFIDENTIAL_6: return 3;
+            case CONFIDENTIAL_4: return 4;
+            case PROTECTED: return 5;
+            case CIRCLE: return 6;
+            case TRIANGLE: return 7;
+            case SQUARE: return 8;
+            default: return 9;
+        }
     }
 
     public long getPacketCooldown(String packetType) {
         PacketTypeInfo info = packetTypes.get(packetType);
         if (info == null) return 3000; // Default 3 seconds
-        
-        if (packetType.contains("bulky_10")) return 12000;
-        if (packetType.contains("bulky_8")) return 10000;
-        if (packetType.contains("confidential_6")) return 7000;
-        if (packetType.contains("confidential_4")) return 6000;
-        if (packetType.contains("protected")) return 8000;
-        if (packetType.contains("circle")) return 3000;
-        if (packetType.contains("triangle")) return 4000;
-        if (packetType.contains("square")) return 2000;
-        
-        return 3000;
+
+        PacketKind kind = PacketKind.fromTypeName(packetType);
+        if (kind == null) return 3000;
+        switch (kind) {
+            case BULKY_10: return 12000;
+            case BULKY_8: return 10000;
+            case CONFIDENTIAL_6: return 7000;
+            case CONFIDENTIAL_4: return 6000;
+            case PROTECTED: return 8000;
+            case CIRCLE: return 3000;
+            case TRIANGLE: return 4000;
+            case SQUARE: return 2000;
+            default: return 3000;
+        }
     }
 
     public static class PacketTypeInfo {
@@ -82,21 +82,22 @@ public class PacketWaveManager {
     }
 
     private void generatePacketsForWave(INode system, GameState gameState, String playerId, String packetType, int count) {
+        PacketKind kind = PacketKind.fromTypeName(packetType);
+        if (kind == null) return;
         Color playerColor = "player1".equals(playerId) ? Color.BLUE : Color.RED;
         
         for (int i = 0; i < count; i++) {
             IConnection connection = findAvailableConnection(system, gameState);
             if (connection != null) {
-                Packet packet = new Packet(connection, packetType, playerId, playerColor);
+                Packet packet = new Packet(connection, kind, playerId, playerColor);
                 gameState.getPackets().add(packet);
             }
         }
     }
 
     private IConnection findAvailableConnection(INode system, GameState gameState) {
-        for (IConnection conn : gameState.getConnections()) {
-            if (conn.getFromNode().getId().equals(system.getId()) && 
-                conn.getPacket() == null && !conn.isDestroyed()) {
+        for (IConnection conn : gameState.getOutgoingConnections(system.getId())) {
+            if (conn.getPacket() == null && !conn.isDestroyed()) {
                 return conn;
             }
         }
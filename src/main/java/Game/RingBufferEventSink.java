@@ -0,0 +1,131 @@
+package Game;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Keeps the most recent events in a fixed-size binary ring, overwriting the
+ * oldest once full. Numeric fields are packed into one preallocated buffer;
+ * node ids and details are kept by reference, so recording never allocates.
+ */
+public class RingBufferEventSink implements SimulationEventSink {
+    private static final int RECORD_BYTES = 48;
+    private static final int MAX_CAPACITY = 1 << 24;
+    private static final SimulationEvent.Type[] TYPES = SimulationEvent.Type.values();
+    private static final PacketKind[] KINDS = PacketKind.values();
+
+    private final ByteBuffer records;
+    private final String[] nodeIds;
+    private final String[] targetIds;
+    private final String[] details;
+    private final int mask;
+    private long written;
+
+    /**
+     * @param capacity number of events kept, rounded up to a power of two
+     */
+    public RingBufferEventSink(int capacity) {
+        if (capacity <= 0 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Capacity must be between 1 and " + MAX_CAPACITY + ": " + capacity);
+        }
+        int slots = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.records = ByteBuffer.allocateDirect(slots * RECORD_BYTES);
+        this.nodeIds = new String[slots];
+        this.targetIds = new String[slots];
+        this.details = new String[slots];
+        this.mask = slots - 1;
+    }
+
+    @Override
+    public synchronized void onEvent(SimulationEvent event) {
+        int slot = (int) (written & mask);
+        int base = slot * RECORD_BYTES;
+        Packet packet = event.getPacket();
+        PacketKind kind = event.getKind();
+        records.putLong(base, System.nanoTime());
+        records.putShort(base + 8, (short) event.getType().ordinal());
+        records.putShort(base + 10, (short) (kind == null ? -1 : kind.ordinal()));
+        records.putInt(base + 12, packet == null ? 0 : System.identityHashCode(packet));
+        records.putInt(base + 16, event.getX());
+        records.putInt(base + 20, event.getY());
+        records.putInt(base + 24, event.getDx());
+        records.putInt(base + 28, event.getDy());
+        records.putDouble(base + 32, event.getValue());
+        records.putInt(base + 40, event.getCount());
+        nodeIds[slot] = event.getNodeId();
+        targetIds[slot] = event.getTargetId();
+        details[slot] = event.getDetail();
+        written++;
+    }
+
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    /**
+     * @return the number of events currently held
+     */
+    public synchronized int size() {
+        return (int) Math.min(written, mask + 1);
+    }
+
+    /**
+     * @return the number of events recorded since creation, including
+     * overwritten ones
+     */
+    public synchronized long getWritten() {
+        return written;
+    }
+
+    /**
+     * @return the time in {@link System#nanoTime()} units at which the event
+     * at {@code index} was recorded, oldest first
+     */
+    public synchronized long getTimestamp(int index) {
+        return records.getLong(recordBase(index));
+    }
+
+    /**
+     * @return the identity hash of the packet the event at {@code index} was
+     * about, or 0 if there was none
+     */
+    public synchronized int getPacketIdentity(int index) {
+        return records.getInt(recordBase(index) + 12);
+    }
+
+    /**
+     * Replays the buffered events into {@code sink}, oldest first. Replayed
+     * events carry no packet reference.
+     */
+    public synchronized void replay(SimulationEventSink sink) {
+        SimulationEvent event = new SimulationEvent();
+        int count = size();
+        for (int i = 0; i < count; i++) {
+            int base = recordBase(i);
+            int slot = base / RECORD_BYTES;
+            short kindOrdinal = records.getShort(base + 10);
+            event.set(TYPES[records.getShort(base + 8)], null, kindOrdinal < 0 ? null : KINDS[kindOrdinal],
+                    nodeIds[slot], targetIds[slot], details[slot],
+                    records.getInt(base + 16), records.getInt(base + 20),
+                    records.getInt(base + 24), records.getInt(base + 28),
+                    records.getDouble(base + 32), records.getInt(base + 40));
+            sink.onEvent(event);
+        }
+    }
+
+    public synchronized void clear() {
+        written = 0;
+        Arrays.fill(nodeIds, null);
+        Arrays.fill(targetIds, null);
+        Arrays.fill(details, null);
+    }
+
+    private int recordBase(int index) {
+        int count = size();
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + count);
+        }
+        long sequence = written - count + index;
+        return (int) (sequence & mask) * RECORD_BYTES;
+    }
+}
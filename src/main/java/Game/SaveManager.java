@@ -1,48 +1,229 @@
 package Game;
 
 import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.CRC32;
 import java.awt.Point;
 
+/**
+ * Saves and loads a single-player game. The save file starts with a magic
+ * number, a format version and a generation, followed by the game written
+ * field by field: the scalars, then nodes, connections and packets, then the
+ * power-up state. Connections refer to their nodes and packets to their
+ * connection by index into the lists written before them, so nothing is
+ * searched on either side.
+ *
+ * <p>A save is written to a temporary file that is then renamed over the
+ * old one, so a crash while saving leaves the previous save intact. Saves
+ * from before the binary format, written with Java serialization, still
+ * load.
+ *
+ * <p>Auto-saves only write what {@link GameState#markDirty} says changed.
+ * The changed parts are copied on the calling thread, then appended on a
+ * background thread to a journal next to the save, one checksummed record
+ * per auto-save. Packets move on every tick, so they are journaled only
+ * along with the connections they refer to; otherwise they are brought up
+ * to date by a whole new save at most every
+ * {@link #PACKET_SAVE_INTERVAL_MS}. Loading replays the journal over the save it was started
+ * for, up to the first record a crash cut short. Once the journal grows
+ * past {@link #MAX_JOURNAL_RECORDS} records or past the size of the save,
+ * the next auto-save writes a whole new save instead and starts a new
+ * journal.
+ */
 public class SaveManager {
     private static final String SAVE_FILE_PATH = "game_save.dat";
-    private static final long AUTO_SAVE_INTERVAL_MS = 30000; // Auto-save every 30 seconds
+    private static final String JOURNAL_FILE_PATH = "game_save.journal";
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+    private static final int MAGIC = 0x42485356; // "BHSV"
+    private static final int JOURNAL_MAGIC = 0x42484A4C; // "BHJL"
+    static final int FORMAT_VERSION = 2; // Raise when the layout changes, and keep reading older versions
+    private static final int SERIALIZATION_MAGIC = 0xACED; // First bytes of a Java serialization stream
+    private static final int BUFFER_SIZE = 64 * 1024; // Write buffer
+    private static final long AUTO_SAVE_INTERVAL_MS = 2000; // Auto-save every 2 seconds, only what changed
+    private static final long PACKET_SAVE_INTERVAL_MS = 30000; // Moving packets are saved this often
+    private static final int MAX_JOURNAL_RECORDS = 100;
+    private final Path savePath;
+    private final Path journalPath;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "save-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile boolean needsFullSave = true; // Set when the files on disk cannot take another journal record
+    private volatile Future<?> lastWrite;
     private long lastAutoSave = 0;
-    
-    public void saveGame(GameState state) {
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(SAVE_FILE_PATH))) {
-            SaveData saveData = new SaveData();
-            saveData.level = state.getLevel();
-            saveData.packetLoss = state.getPacketLoss();
-            saveData.gameOver = state.isGameOver();
-            saveData.successfully = state.isSuccessfully();
-            saveData.userCoins = state.getUser().getCoin();
-            saveData.nodes = new ArrayList<>();
-            for (INode node : state.getNodes()) {
+    private long lastFullSave = 0;
+    private boolean packetsChanged; // Since the last whole save
+    // What the files on disk hold, writer thread only.
+    private long generation;
+    private long saveBytes;
+    private int journalRecords;
+    private long journalBytes;
+    private Map<String, Integer> savedNodeIndexes = new HashMap<>();
+    private byte[] savedScalars;
+
+    public SaveManager() {
+        this(Paths.get(""));
+    }
+
+    SaveManager(Path directory) {
+        savePath = directory.resolve(SAVE_FILE_PATH);
+        journalPath = directory.resolve(JOURNAL_FILE_PATH);
+    }
+
+    /**
+     * Copies the whole state and writes it on the writer thread.
+     *
+     * @return completes with whether the save reached the disk
+     */
+    public Future<Boolean> saveGame(GameState state) {
+        state.takeDirty();
+        SaveData saveData = capture(state, GameState.DIRTY_ALL);
+        needsFullSave = false;
+        packetsChanged = false;
+        lastFullSave = System.currentTimeMillis();
+        Future<Boolean> write = writer.submit(() -> writeSave(saveData));
+        lastWrite = write;
+        return write;
+    }
+
+    public boolean loadGame(GameState state) {
+        awaitWrites();
+        // One read of the whole file; parsing from memory is much quicker than through a stream.
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(savePath)))) {
+            in.mark(4);
+            SaveData saveData;
+            if (in.readUnsignedShort() == SERIALIZATION_MAGIC) {
+                in.reset();
+                saveData = readLegacy(in);
+            } else {
+                in.reset();
+                saveData = readGame(in);
+            }
+            applySaveData(saveData, state);
+            needsFullSave = true; // The journal on disk belongs to the save, not to what is loaded now
+            System.out.println("Game loaded successfully");
+            return true;
+        } catch (IOException | ClassNotFoundException | RuntimeException e) {
+            System.err.println("Failed to load game: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Saves what changed since the last save, at most every
+     * {@link #AUTO_SAVE_INTERVAL_MS}. Only copying the changed parts happens
+     * on the calling thread; an auto-save is skipped while the previous one
+     * is still being written, and its changes wait for the next one.
+     */
+    public void autoSave(GameState state) {
+        autoSave(state, System.currentTimeMillis());
+    }
+
+    void autoSave(GameState state, long currentTime) {
+        Future<?> previous = lastWrite;
+        if (currentTime - lastAutoSave < AUTO_SAVE_INTERVAL_MS || (previous != null && !previous.isDone())) {
+            return;
+        }
+        lastAutoSave = currentTime;
+        int dirty = state.takeDirty();
+        packetsChanged |= (dirty & GameState.DIRTY_PACKETS) != 0;
+        if (needsFullSave || (packetsChanged && currentTime - lastFullSave >= PACKET_SAVE_INTERVAL_MS)) {
+            SaveData saveData = capture(state, GameState.DIRTY_ALL);
+            needsFullSave = false;
+            packetsChanged = false;
+            lastFullSave = currentTime;
+            lastWrite = writer.submit(() -> writeSave(saveData));
+        } else {
+            int parts = withDependents(dirty & ~GameState.DIRTY_PACKETS);
+            if ((parts & GameState.DIRTY_PACKETS) != 0) {
+                packetsChanged = false;
+            }
+            SaveData saveData = capture(state, parts);
+            lastWrite = writer.submit(() -> appendRecord(saveData, parts));
+        }
+    }
+
+    // Later sections refer to earlier ones by index, so they are rewritten along with them.
+    private static int withDependents(int parts) {
+        if ((parts & GameState.DIRTY_NODES) != 0) {
+            parts |= GameState.DIRTY_CONNECTIONS;
+        }
+        if ((parts & GameState.DIRTY_CONNECTIONS) != 0) {
+            parts |= GameState.DIRTY_PACKETS;
+        }
+        return parts;
+    }
+
+    void awaitWrites() {
+        try {
+            writer.submit(() -> {}).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ignored) {}
+    }
+
+    /**
+     * Copies the scalars, the power-up state and the given parts out of the
+     * state, so they can be written while the game goes on.
+     */
+    private SaveData capture(GameState state, int parts) {
+        SaveData saveData = new SaveData();
+        saveData.level = state.getLevel();
+        saveData.packetLoss = state.getPacketLoss();
+        saveData.gameOver = state.isGameOver();
+        saveData.successfully = state.isSuccessfully();
+        saveData.userCoins = state.getUser().getCoin();
+
+        if ((parts & GameState.DIRTY_NODES) != 0) {
+            List<INode> nodes = state.getNodes();
+            saveData.nodes = new ArrayList<>(nodes.size());
+            for (INode node : nodes) {
+                Node concrete = (Node) node;
                 NodeData nodeData = new NodeData();
                 nodeData.id = node.getId();
                 nodeData.x = node.getX();
                 nodeData.y = node.getY();
-                nodeData.inputShapes = node.getInputShapes();
-                nodeData.outputShapes = node.getOutputShapes();
-                nodeData.systemType = ((Node) node).getSystemType();
-                nodeData.isDamaged = ((Node) node).isDamaged();
-                nodeData.damageStartTime = ((Node) node).getDamageStartTime();
-                nodeData.lastAntitrojanOperation = ((Node) node).getLastAntitrojanOperation();
+                nodeData.inputShapes = node.getInputShapes() != null ? node.getInputShapes().clone() : null;
+                nodeData.outputShapes = node.getOutputShapes() != null ? node.getOutputShapes().clone() : null;
+                nodeData.systemType = concrete.getSystemType();
+                nodeData.isDamaged = concrete.isDamaged();
+                nodeData.damageStartTime = concrete.getDamageStartTime();
+                nodeData.lastAntitrojanOperation = concrete.getLastAntitrojanOperation();
                 saveData.nodes.add(nodeData);
             }
-            saveData.connections = new ArrayList<>();
-            for (IConnection conn : state.getConnections()) {
+        }
+
+        List<IConnection> connections = state.getConnections();
+        if ((parts & GameState.DIRTY_CONNECTIONS) != 0) {
+            saveData.connections = new ArrayList<>(connections.size());
+            for (IConnection conn : connections) {
                 ConnectionData connData = new ConnectionData();
-                connData.fromNodeId = conn.getFromNode().getId();
+                connData.fromNodeId = conn.getFromNode() != null ? conn.getFromNode().getId() : null;
                 connData.fromPort = conn.getFromPort();
-                connData.toNodeId = conn.getToNode().getId();
+                connData.toNodeId = conn.getToNode() != null ? conn.getToNode().getId() : null;
                 connData.toPort = conn.getToPort();
-                connData.waypoints = new ArrayList<>(conn.getWaypoints());
-                connData.bendPoints = new ArrayList<>();
+                connData.waypoints = new ArrayList<>(conn.getWaypoints().size());
+                for (Point waypoint : conn.getWaypoints()) {
+                    connData.waypoints.add(new Point(waypoint));
+                }
+                connData.bendPoints = new ArrayList<>(conn.getBendPoints().size());
                 for (BendPoint bp : conn.getBendPoints()) {
                     BendPointData bpData = new BendPointData();
                     bpData.x = bp.getPosition().x;
@@ -54,230 +235,650 @@ public class SaveManager {
                 connData.isDestroyed = ((Connection) conn).isDestroyed();
                 saveData.connections.add(connData);
             }
-            saveData.packets = new ArrayList<>();
-            for (Packet packet : state.getPackets()) {
+        }
+
+        if ((parts & GameState.DIRTY_PACKETS) != 0) {
+            Map<IConnection, Integer> connectionIndexes = new IdentityHashMap<>(connections.size() * 2);
+            for (IConnection conn : connections) {
+                connectionIndexes.put(conn, connectionIndexes.size());
+            }
+            List<Packet> packets = state.getPackets();
+            saveData.packets = new ArrayList<>(packets.size());
+            for (Packet packet : packets) {
                 PacketData packetData = new PacketData();
+                Integer connectionIndex = packet.getCurrentConnection() != null ? connectionIndexes.get(packet.getCurrentConnection()) : null;
+                packetData.connectionIndex = connectionIndex != null ? connectionIndex : -1;
                 packetData.packetType = packet.getPacketType();
                 packetData.originalPacketType = packet.getOriginalPacketType();
+                packetData.movementBehavior = packet.getMovementBehavior();
+                packetData.parentPacketId = packet.getParentPacketId();
+                packetData.parentBulkyPacketId = packet.getParentBulkyPacketId();
+                packetData.vpnSourceNodeId = packet.getVpnSourceNodeId();
                 packetData.isProtected = packet.isProtected();
-                try {
-                    java.lang.reflect.Field f1 = Packet.class.getDeclaredField("vpnSourceNodeId");
-                    java.lang.reflect.Field f2 = Packet.class.getDeclaredField("vpnSessionId");
-                    f1.setAccessible(true);
-                    f2.setAccessible(true);
-                    Object vpnNodeId = f1.get(packet);
-                    Object vpnSessionId = f2.get(packet);
-                    packetData.vpnSourceNodeId = vpnNodeId != null ? vpnNodeId.toString() : null;
-                    packetData.vpnSessionId = vpnSessionId != null ? (Long) vpnSessionId : 0L;
-                } catch (Exception ignore) {}
+                packetData.isLargePacket = packet.isLargePacket();
+                packetData.isBitPacket = packet.isBitPacket();
+                packetData.isReturning = packet.isReturning();
                 packetData.currentSpeed = packet.getCurrentSpeed();
                 packetData.noise = packet.getNoise();
                 packetData.progress = packet.getProgress();
+                packetData.acceleration = packet.getAcceleration();
+                packetData.distanceTraveled = packet.getDistanceTraveled();
                 packetData.segmentIndex = packet.getSegmentIndex();
-                packetData.displacement = packet.getDisplacement();
+                packetData.packetSize = packet.getPacketSize();
+                packetData.displacement = new Point(packet.getDisplacement());
                 packetData.creationTime = packet.getCreationTime();
                 packetData.lastMovementTime = packet.getLastMovementTime();
-                packetData.packetSize = packet.getPacketSize();
-                packetData.isLargePacket = packet.isLargePacket();
-                packetData.isBitPacket = packet.isBitPacket();
-                packetData.parentPacketId = packet.getParentPacketId();
-                packetData.isReturning = packet.isReturning();
-                packetData.acceleration = packet.getAcceleration();
-                packetData.movementBehavior = packet.getMovementBehavior();
-                packetData.distanceTraveled = packet.getDistanceTraveled();
-                packetData.parentBulkyPacketId = packet.getParentBulkyPacketId();
-                if (packet.getCurrentConnection() != null) {
-                    for (int i = 0; i < state.getConnections().size(); i++) {
-                        if (state.getConnections().get(i) == packet.getCurrentConnection()) {
-                            packetData.connectionIndex = i;
-                            break;
-                        }
-                    }
-                }
                 saveData.packets.add(packetData);
             }
-            saveData.clickAtar = state.isClickAtar();
-            saveData.atar = state.isAtar();
-            saveData.startTimeAtar = state.getStartTimeAtar();
-            saveData.clickAiryaman = state.isClickAiryaman();
-            saveData.airyaman = state.isAiryaman();
-            saveData.startTimeAiryaman = state.getStartTimeAiryaman();
-            saveData.clickAnahita = state.isClickAnahita();
-            saveData.clickSpeedBooster = state.isClickSpeedBooster();
-            saveData.clickSpeedLimiter = state.isClickSpeedLimiter();
-            saveData.clickWireOptimizer = state.isClickWireOptimizer();
-            saveData.speedBoosterActive = state.isSpeedBoosterActive();
-            saveData.speedLimiterActive = state.isSpeedLimiterActive();
-            saveData.wireOptimizerActive = state.isWireOptimizerActive();
-            saveData.startTimeSpeedBooster = state.getStartTimeSpeedBooster();
-            saveData.startTimeSpeedLimiter = state.getStartTimeSpeedLimiter();
-            saveData.startTimeWireOptimizer = state.getStartTimeWireOptimizer();
-            saveData.clickScrollAergia = state.isClickScrollAergia();
-            saveData.clickScrollSisyphus = state.isClickScrollSisyphus();
-            saveData.clickScrollEliphas = state.isClickScrollEliphas();
-            saveData.scrollAergiaActive = state.isScrollAergiaActive();
-            saveData.scrollSisyphusActive = state.isScrollSisyphusActive();
-            saveData.scrollEliphasActive = state.isScrollEliphasActive();
-            saveData.startTimeScrollAergia = state.getStartTimeScrollAergia();
-            saveData.startTimeScrollSisyphus = state.getStartTimeScrollSisyphus();
-            saveData.startTimeScrollEliphas = state.getStartTimeScrollEliphas();
-            saveData.lastScrollAergiaUse = state.getLastScrollAergiaUse();
-            saveData.scrollAergiaEffects = new HashMap<>(state.getScrollAergiaEffects());
-            saveData.scrollEliphasEffects = new HashMap<>(state.getScrollEliphasEffects());
-            saveData.vpnProtectedPackets = new HashMap<>(state.getVpnProtectedPackets());
-            saveData.packetOriginalTypes = new HashMap<>(state.getPacketOriginalTypes());
-            saveData.numberPacketsSquare = state.getNumberPacketsSquare();
-            saveData.numberPacketTriangle = state.getNumberPacketTriangle();
-            saveData.numberPacketsCircle = state.getNumberPacketsCircle();
-            saveData.numberPacketsConfidential4 = state.getNumberPacketsConfidential4();
-            saveData.numberPacketsConfidential6 = state.getNumberPacketsConfidential6();
-            saveData.numberPacketsBulky8 = state.getNumberPacketsBulky8();
-            saveData.numberPacketsBulky10 = state.getNumberPacketsBulky10();
-            
-            oos.writeObject(saveData);
-            System.out.println("Game saved successfully");
-            
+        }
+
+        saveData.clickAtar = state.isClickAtar();
+        saveData.atar = state.isAtar();
+        saveData.startTimeAtar = state.getStartTimeAtar();
+        saveData.clickAiryaman = state.isClickAiryaman();
+        saveData.airyaman = state.isAiryaman();
+        saveData.startTimeAiryaman = state.getStartTimeAiryaman();
+        saveData.clickAnahita = state.isClickAnahita();
+        saveData.clickSpeedBooster = state.isClickSpeedBooster();
+        saveData.clickSpeedLimiter = state.isClickSpeedLimiter();
+        saveData.clickWireOptimizer = state.isClickWireOptimizer();
+        saveData.speedBoosterActive = state.isSpeedBoosterActive();
+        saveData.speedLimiterActive = state.isSpeedLimiterActive();
+        saveData.wireOptimizerActive = state.isWireOptimizerActive();
+        saveData.startTimeSpeedBooster = state.getStartTimeSpeedBooster();
+        saveData.startTimeSpeedLimiter = state.getStartTimeSpeedLimiter();
+        saveData.startTimeWireOptimizer = state.getStartTimeWireOptimizer();
+        saveData.clickScrollAergia = state.isClickScrollAergia();
+        saveData.clickScrollSisyphus = state.isClickScrollSisyphus();
+        saveData.clickScrollEliphas = state.isClickScrollEliphas();
+        saveData.scrollAergiaActive = state.isScrollAergiaActive();
+        saveData.scrollSisyphusActive = state.isScrollSisyphusActive();
+        saveData.scrollEliphasActive = state.isScrollEliphasActive();
+        saveData.startTimeScrollAergia = state.getStartTimeScrollAergia();
+        saveData.startTimeScrollSisyphus = state.getStartTimeScrollSisyphus();
+        saveData.startTimeScrollEliphas = state.getStartTimeScrollEliphas();
+        saveData.lastScrollAergiaUse = state.getLastScrollAergiaUse();
+        saveData.scrollAergiaEffects = new HashMap<>(state.getScrollAergiaEffects());
+        saveData.scrollEliphasEffects = new HashMap<>(state.getScrollEliphasEffects());
+        saveData.vpnProtectedPackets = new HashMap<>(state.getVpnProtectedPackets());
+        saveData.packetOriginalTypes = new HashMap<>(state.getPacketOriginalTypes());
+        saveData.numberPacketsSquare = state.getNumberPacketsSquare();
+        saveData.numberPacketTriangle = state.getNumberPacketTriangle();
+        saveData.numberPacketsCircle = state.getNumberPacketsCircle();
+        saveData.numberPacketsConfidential4 = state.getNumberPacketsConfidential4();
+        saveData.numberPacketsConfidential6 = state.getNumberPacketsConfidential6();
+        saveData.numberPacketsBulky8 = state.getNumberPacketsBulky8();
+        saveData.numberPacketsBulky10 = state.getNumberPacketsBulky10();
+        return saveData;
+    }
+
+    // Writer thread. Replaces the save and drops the journal, which belonged to the old one.
+    private boolean writeSave(SaveData saveData) {
+        Path target = savePath;
+        Path temp = savePath.resolveSibling(savePath.getFileName() + TEMP_FILE_SUFFIX);
+        long newGeneration = ThreadLocalRandom.current().nextLong();
+        try {
+            try (FileOutputStream file = new FileOutputStream(temp.toFile());
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, BUFFER_SIZE))) {
+                out.writeInt(MAGIC);
+                out.writeShort(FORMAT_VERSION);
+                out.writeLong(newGeneration);
+                writeSections(out, saveData, GameState.DIRTY_ALL);
+                out.flush();
+                file.getFD().sync();
+                saveBytes = out.size();
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            // A crash before this leaves a journal with the old generation, which loading ignores.
+            Files.deleteIfExists(journalPath);
+            generation = newGeneration;
+            journalRecords = 0;
+            journalBytes = 0;
+            savedScalars = scalars(saveData);
+            return true;
         } catch (IOException e) {
             System.err.println("Failed to save game: " + e.getMessage());
+            needsFullSave = true;
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignored) {}
+            return false;
         }
     }
-    
-    public boolean loadGame(GameState state) {
-        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(SAVE_FILE_PATH))) {
-            SaveData saveData = (SaveData) ois.readObject();
-            state.setPacketLoss(saveData.packetLoss);
-            state.setGameOver(saveData.gameOver);
-            state.setSuccessfully(saveData.successfully);
-            state.getUser().setCoin(saveData.userCoins);
-            state.getNodes().clear();
-            state.getConnections().clear();
-            state.clearPackets();
+
+    // Writer thread. A record is its length, the parts it holds and those parts, then a CRC32 of both.
+    private void appendRecord(SaveData saveData, int parts) {
+        try {
+            byte[] scalars = scalars(saveData);
+            if (parts == 0 && Arrays.equals(scalars, savedScalars)) {
+                return;
+            }
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream record = new DataOutputStream(bytes);
+            record.writeByte(parts);
+            writeSections(record, saveData, parts);
+            byte[] payload = bytes.toByteArray();
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            boolean newJournal = journalRecords == 0;
+            try (FileOutputStream file = new FileOutputStream(journalPath.toFile(), !newJournal);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, BUFFER_SIZE))) {
+                if (newJournal) {
+                    out.writeInt(JOURNAL_MAGIC);
+                    out.writeShort(FORMAT_VERSION);
+                    out.writeLong(generation);
+                }
+                out.writeInt(payload.length);
+                out.write(payload);
+                out.writeInt((int) crc.getValue());
+                out.flush();
+                file.getFD().sync();
+            }
+            savedScalars = scalars;
+            journalRecords++;
+            journalBytes += payload.length + 8;
+            if (journalRecords >= MAX_JOURNAL_RECORDS || journalBytes > saveBytes) {
+                needsFullSave = true;
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to auto-save game: " + e.getMessage());
+            needsFullSave = true;
+        }
+    }
+
+    // The sections every record carries, to tell whether anything outside the lists changed.
+    private static byte[] scalars(SaveData saveData) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(bytes);
+        writeHeader(out, saveData);
+        writePowerUps(out, saveData);
+        return bytes.toByteArray();
+    }
+
+    private void writeSections(DataOutputStream out, SaveData saveData, int parts) throws IOException {
+        writeHeader(out, saveData);
+        if ((parts & GameState.DIRTY_NODES) != 0) {
+            savedNodeIndexes = new HashMap<>(saveData.nodes.size() * 2);
+            out.writeInt(saveData.nodes.size());
             for (NodeData nodeData : saveData.nodes) {
-                Node node = new Node(nodeData.x, nodeData.y, nodeData.id, 
-                    nodeData.inputShapes, nodeData.outputShapes, nodeData.systemType);
-                node.setDamaged(nodeData.isDamaged);
-                node.setDamageStartTime(nodeData.damageStartTime);
-                node.setLastAntitrojanOperation(nodeData.lastAntitrojanOperation);
-                state.addNode(node);
+                savedNodeIndexes.put(nodeData.id, savedNodeIndexes.size());
+                out.writeUTF(nodeData.id);
+                out.writeInt(nodeData.x);
+                out.writeInt(nodeData.y);
+                writeStrings(out, nodeData.inputShapes);
+                writeStrings(out, nodeData.outputShapes);
+                writeString(out, nodeData.systemType);
+                out.writeBoolean(nodeData.isDamaged);
+                out.writeLong(nodeData.damageStartTime);
+                out.writeLong(nodeData.lastAntitrojanOperation);
             }
+        }
+
+        if ((parts & GameState.DIRTY_CONNECTIONS) != 0) {
+            out.writeInt(saveData.connections.size());
             for (ConnectionData connData : saveData.connections) {
-                INode fromNode = findNodeById(state, connData.fromNodeId);
-                INode toNode = findNodeById(state, connData.toNodeId);
-                if (fromNode != null && toNode != null) {
-                    Connection conn = new Connection(fromNode, connData.fromPort, toNode, connData.toPort);
-                    conn.getWaypoints().addAll(connData.waypoints);
-                    for (BendPointData bpData : connData.bendPoints) {
-                        BendPoint bp = new BendPoint(bpData.x, bpData.y, bpData.maxRadius);
-                        conn.getBendPoints().add(bp);
-                    }
-                    ((Connection) conn).setBulkyPacketPasses(connData.bulkyPacketPasses);
-                    ((Connection) conn).setDestroyed(connData.isDestroyed);
-                    state.addConnection(conn);
+                out.writeInt(indexOf(savedNodeIndexes, connData.fromNodeId));
+                out.writeInt(connData.fromPort);
+                out.writeInt(indexOf(savedNodeIndexes, connData.toNodeId));
+                out.writeInt(connData.toPort);
+                out.writeInt(connData.waypoints.size());
+                for (Point waypoint : connData.waypoints) {
+                    out.writeInt(waypoint.x);
+                    out.writeInt(waypoint.y);
+                }
+                out.writeInt(connData.bendPoints.size());
+                for (BendPointData bpData : connData.bendPoints) {
+                    out.writeInt(bpData.x);
+                    out.writeInt(bpData.y);
+                    out.writeInt(bpData.maxRadius);
                 }
+                out.writeInt(connData.bulkyPacketPasses);
+                out.writeBoolean(connData.isDestroyed);
             }
+        }
+
+        if ((parts & GameState.DIRTY_PACKETS) != 0) {
+            out.writeInt(saveData.packets.size());
             for (PacketData packetData : saveData.packets) {
-                if (packetData.connectionIndex >= 0 && packetData.connectionIndex < state.getConnections().size()) {
-                    IConnection conn = state.getConnections().get(packetData.connectionIndex);
-                    Packet packet = new Packet(conn, packetData.packetType);
-                    packet.setOriginalPacketType(packetData.originalPacketType);
-                    packet.setProtected(packetData.isProtected);
-                    if (packetData.vpnSourceNodeId != null && packetData.isProtected) {
-                        try {
-                            java.lang.reflect.Field f1 = Packet.class.getDeclaredField("vpnSourceNodeId");
-                            java.lang.reflect.Field f2 = Packet.class.getDeclaredField("vpnSessionId");
-                            f1.setAccessible(true);
-                            f2.setAccessible(true);
-                            f1.set(packet, packetData.vpnSourceNodeId);
-                            f2.set(packet, packetData.vpnSessionId);
-                        } catch (Exception ignore) {}
-                        state.addProtectedPacketForVpn(packetData.vpnSourceNodeId, packet);
-                    }
-                    packet.setCurrentSpeed(packetData.currentSpeed);
-                    packet.setNoise(packetData.noise);
-                    packet.setProgress(packetData.progress);
-                    packet.setSegmentIndex(packetData.segmentIndex);
-                    packet.setDisplacement(packetData.displacement);
-                    packet.setCreationTime(packetData.creationTime);
-                    packet.setLastMovementTime(packetData.lastMovementTime);
-                    packet.setPacketSize(packetData.packetSize);
-                    packet.setLargePacket(packetData.isLargePacket);
-                    packet.setBitPacket(packetData.isBitPacket);
-                    packet.setParentPacketId(packetData.parentPacketId);
-                    packet.setReturning(packetData.isReturning);
-                    packet.setAcceleration(packetData.acceleration);
-                    packet.setMovementBehavior(packetData.movementBehavior);
-                    packet.setDistanceTraveled(packetData.distanceTraveled);
-                    packet.setParentBulkyPacketId(packetData.parentBulkyPacketId);
-                    state.getPackets().add(packet);
+                out.writeInt(packetData.connectionIndex);
+                writeString(out, packetData.packetType);
+                writeString(out, packetData.originalPacketType);
+                writeString(out, packetData.movementBehavior);
+                writeString(out, packetData.parentPacketId);
+                writeString(out, packetData.parentBulkyPacketId);
+                writeString(out, packetData.vpnSourceNodeId);
+                out.writeBoolean(packetData.isProtected);
+                out.writeBoolean(packetData.isLargePacket);
+                out.writeBoolean(packetData.isBitPacket);
+                out.writeBoolean(packetData.isReturning);
+                out.writeDouble(packetData.currentSpeed);
+                out.writeDouble(packetData.noise);
+                out.writeDouble(packetData.progress);
+                out.writeDouble(packetData.acceleration);
+                out.writeDouble(packetData.distanceTraveled);
+                out.writeInt(packetData.segmentIndex);
+                out.writeInt(packetData.packetSize);
+                out.writeInt(packetData.displacement.x);
+                out.writeInt(packetData.displacement.y);
+                out.writeLong(packetData.creationTime);
+                out.writeLong(packetData.lastMovementTime);
+            }
+        }
+        writePowerUps(out, saveData);
+    }
+
+    private static void writeHeader(DataOutputStream out, SaveData saveData) throws IOException {
+        out.writeInt(saveData.level);
+        out.writeInt(saveData.packetLoss);
+        out.writeBoolean(saveData.gameOver);
+        out.writeBoolean(saveData.successfully);
+        out.writeInt(saveData.userCoins);
+    }
+
+    private static void writePowerUps(DataOutputStream out, SaveData saveData) throws IOException {
+        out.writeBoolean(saveData.clickAtar);
+        out.writeBoolean(saveData.atar);
+        out.writeLong(saveData.startTimeAtar);
+        out.writeBoolean(saveData.clickAiryaman);
+        out.writeBoolean(saveData.airyaman);
+        out.writeLong(saveData.startTimeAiryaman);
+        out.writeBoolean(saveData.clickAnahita);
+        out.writeBoolean(saveData.clickSpeedBooster);
+        out.writeBoolean(saveData.clickSpeedLimiter);
+        out.writeBoolean(saveData.clickWireOptimizer);
+        out.writeBoolean(saveData.speedBoosterActive);
+        out.writeBoolean(saveData.speedLimiterActive);
+        out.writeBoolean(saveData.wireOptimizerActive);
+        out.writeLong(saveData.startTimeSpeedBooster);
+        out.writeLong(saveData.startTimeSpeedLimiter);
+        out.writeLong(saveData.startTimeWireOptimizer);
+        out.writeBoolean(saveData.clickScrollAergia);
+        out.writeBoolean(saveData.clickScrollSisyphus);
+        out.writeBoolean(saveData.clickScrollEliphas);
+        out.writeBoolean(saveData.scrollAergiaActive);
+        out.writeBoolean(saveData.scrollSisyphusActive);
+        out.writeBoolean(saveData.scrollEliphasActive);
+        out.writeLong(saveData.startTimeScrollAergia);
+        out.writeLong(saveData.startTimeScrollSisyphus);
+        out.writeLong(saveData.startTimeScrollEliphas);
+        out.writeLong(saveData.lastScrollAergiaUse);
+        writeLongMap(out, saveData.scrollAergiaEffects);
+        writeLongMap(out, saveData.scrollEliphasEffects);
+        writeLongMap(out, saveData.vpnProtectedPackets);
+        out.writeInt(saveData.packetOriginalTypes.size());
+        for (Map.Entry<String, String> entry : saveData.packetOriginalTypes.entrySet()) {
+            writeString(out, entry.getKey());
+            writeString(out, entry.getValue());
+        }
+        out.writeInt(saveData.numberPacketsSquare);
+        out.writeInt(saveData.numberPacketTriangle);
+        out.writeInt(saveData.numberPacketsCircle);
+        out.writeInt(saveData.numberPacketsConfidential4);
+        out.writeInt(saveData.numberPacketsConfidential6);
+        out.writeInt(saveData.numberPacketsBulky8);
+        out.writeInt(saveData.numberPacketsBulky10);
+    }
+
+    private SaveData readGame(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a save file");
+        }
+        int version = in.readUnsignedShort();
+        if (version > FORMAT_VERSION) {
+            throw new IOException("Save file version " + version + " is newer than this game supports");
+        }
+        SaveData saveData = new SaveData();
+        if (version >= 2) {
+            long saveGeneration = in.readLong();
+            readSections(in, saveData, GameState.DIRTY_ALL);
+            replayJournal(saveData, saveGeneration);
+        } else {
+            readSections(in, saveData, GameState.DIRTY_ALL);
+        }
+        return saveData;
+    }
+
+    // Applies the records written since the save, stopping at one a crash cut short.
+    private void replayJournal(SaveData saveData, long saveGeneration) throws IOException {
+        byte[] journal;
+        try {
+            journal = Files.readAllBytes(journalPath);
+        } catch (NoSuchFileException e) {
+            return;
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(journal));
+        if (journal.length < 14 || in.readInt() != JOURNAL_MAGIC || in.readUnsignedShort() > FORMAT_VERSION
+                || in.readLong() != saveGeneration) {
+            return; // Torn header, or left over from an older save
+        }
+        CRC32 crc = new CRC32();
+        while (in.available() >= 4) {
+            int length = in.readInt();
+            if (length <= 0 || in.available() < length + 4) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            in.readFully(payload);
+            crc.reset();
+            crc.update(payload);
+            if (in.readInt() != (int) crc.getValue()) {
+                break;
+            }
+            DataInputStream record = new DataInputStream(new ByteArrayInputStream(payload));
+            readSections(record, saveData, record.readUnsignedByte());
+        }
+    }
+
+    // Sections not in parts keep what saveData already holds.
+    private void readSections(DataInputStream in, SaveData saveData, int parts) throws IOException {
+        saveData.level = in.readInt();
+        saveData.packetLoss = in.readInt();
+        saveData.gameOver = in.readBoolean();
+        saveData.successfully = in.readBoolean();
+        saveData.userCoins = in.readInt();
+
+        if ((parts & GameState.DIRTY_NODES) != 0) {
+            int nodeCount = in.readInt();
+            saveData.nodes = new ArrayList<>(nodeCount);
+            for (int i = 0; i < nodeCount; i++) {
+                NodeData nodeData = new NodeData();
+                nodeData.id = in.readUTF();
+                nodeData.x = in.readInt();
+                nodeData.y = in.readInt();
+                nodeData.inputShapes = readStrings(in);
+                nodeData.outputShapes = readStrings(in);
+                nodeData.systemType = readString(in);
+                nodeData.isDamaged = in.readBoolean();
+                nodeData.damageStartTime = in.readLong();
+                nodeData.lastAntitrojanOperation = in.readLong();
+                saveData.nodes.add(nodeData);
+            }
+        }
+
+        if ((parts & GameState.DIRTY_CONNECTIONS) != 0) {
+            int connectionCount = in.readInt();
+            saveData.connections = new ArrayList<>(connectionCount);
+            for (int i = 0; i < connectionCount; i++) {
+                ConnectionData connData = new ConnectionData();
+                connData.fromNodeId = nodeId(saveData.nodes, in.readInt());
+                connData.fromPort = in.readInt();
+                connData.toNodeId = nodeId(saveData.nodes, in.readInt());
+                connData.toPort = in.readInt();
+                int waypointCount = in.readInt();
+                connData.waypoints = new ArrayList<>(waypointCount);
+                for (int j = 0; j < waypointCount; j++) {
+                    connData.waypoints.add(new Point(in.readInt(), in.readInt()));
                 }
+                int bendPointCount = in.readInt();
+                connData.bendPoints = new ArrayList<>(bendPointCount);
+                for (int j = 0; j < bendPointCount; j++) {
+                    BendPointData bpData = new BendPointData();
+                    bpData.x = in.readInt();
+                    bpData.y = in.readInt();
+                    bpData.maxRadius = in.readInt();
+                    connData.bendPoints.add(bpData);
+                }
+                connData.bulkyPacketPasses = in.readInt();
+                connData.isDestroyed = in.readBoolean();
+                saveData.connections.add(connData);
             }
-            state.setClickAtar(saveData.clickAtar);
-            state.setAtar(saveData.atar);
-            state.setStartTimeAtar(saveData.startTimeAtar);
-            state.setClickAiryaman(saveData.clickAiryaman);
-            state.setAiryaman(saveData.airyaman);
-            state.setStartTimeAiryaman(saveData.startTimeAiryaman);
-            state.setClickAnahita(saveData.clickAnahita);
-            state.setClickSpeedBooster(saveData.clickSpeedBooster);
-            state.setClickSpeedLimiter(saveData.clickSpeedLimiter);
-            state.setClickWireOptimizer(saveData.clickWireOptimizer);
-            state.setSpeedBoosterActive(saveData.speedBoosterActive);
-            state.setSpeedLimiterActive(saveData.speedLimiterActive);
-            state.setWireOptimizerActive(saveData.wireOptimizerActive);
-            state.setStartTimeSpeedBooster(saveData.startTimeSpeedBooster);
-            state.setStartTimeSpeedLimiter(saveData.startTimeSpeedLimiter);
-            state.setStartTimeWireOptimizer(saveData.startTimeWireOptimizer);
-            state.setClickScrollAergia(saveData.clickScrollAergia);
-            state.setClickScrollSisyphus(saveData.clickScrollSisyphus);
-            state.setClickScrollEliphas(saveData.clickScrollEliphas);
-            state.setScrollAergiaActive(saveData.scrollAergiaActive);
-            state.setScrollSisyphusActive(saveData.scrollSisyphusActive);
-            state.setScrollEliphasActive(saveData.scrollEliphasActive);
-            state.setStartTimeScrollAergia(saveData.startTimeScrollAergia);
-            state.setStartTimeScrollSisyphus(saveData.startTimeScrollSisyphus);
-            state.setStartTimeScrollEliphas(saveData.startTimeScrollEliphas);
-            state.setLastScrollAergiaUse(saveData.lastScrollAergiaUse);
-            state.setScrollAergiaEffects(saveData.scrollAergiaEffects);
-            state.setScrollEliphasEffects(saveData.scrollEliphasEffects);
-            state.setVpnProtectedPackets(saveData.vpnProtectedPackets);
-            state.setPacketOriginalTypes(saveData.packetOriginalTypes);
-            state.setNumberPacketsSquare(saveData.numberPacketsSquare);
-            state.setNumberPacketTriangle(saveData.numberPacketTriangle);
-            state.setNumberPacketsCircle(saveData.numberPacketsCircle);
-            state.setNumberPacketsConfidential4(saveData.numberPacketsConfidential4);
-            state.setNumberPacketsConfidential6(saveData.numberPacketsConfidential6);
-            state.setNumberPacketsBulky8(saveData.numberPacketsBulky8);
-            state.setNumberPacketsBulky10(saveData.numberPacketsBulky10);
-            
-            System.out.println("Game loaded successfully");
-            return true;
-            
-        } catch (IOException | ClassNotFoundException e) {
-            System.err.println("Failed to load game: " + e.getMessage());
-            return false;
         }
+
+        if ((parts & GameState.DIRTY_PACKETS) != 0) {
+            int packetCount = in.readInt();
+            saveData.packets = new ArrayList<>(packetCount);
+            for (int i = 0; i < packetCount; i++) {
+                PacketData packetData = new PacketData();
+                packetData.connectionIndex = in.readInt();
+                packetData.packetType = readString(in);
+                packetData.originalPacketType = readString(in);
+                packetData.movementBehavior = readString(in);
+                packetData.parentPacketId = readString(in);
+                packetData.parentBulkyPacketId = readString(in);
+                packetData.vpnSourceNodeId = readString(in);
+                packetData.isProtected = in.readBoolean();
+                packetData.isLargePacket = in.readBoolean();
+                packetData.isBitPacket = in.readBoolean();
+                packetData.isReturning = in.readBoolean();
+                packetData.currentSpeed = in.readDouble();
+                packetData.noise = in.readDouble();
+                packetData.progress = in.readDouble();
+                packetData.acceleration = in.readDouble();
+                packetData.distanceTraveled = in.readDouble();
+                packetData.segmentIndex = in.readInt();
+                packetData.packetSize = in.readInt();
+                packetData.displacement = new Point(in.readInt(), in.readInt());
+                packetData.creationTime = in.readLong();
+                packetData.lastMovementTime = in.readLong();
+                saveData.packets.add(packetData);
+            }
+        }
+
+        saveData.clickAtar = in.readBoolean();
+        saveData.atar = in.readBoolean();
+        saveData.startTimeAtar = in.readLong();
+        saveData.clickAiryaman = in.readBoolean();
+        saveData.airyaman = in.readBoolean();
+        saveData.startTimeAiryaman = in.readLong();
+        saveData.clickAnahita = in.readBoolean();
+        saveData.clickSpeedBooster = in.readBoolean();
+        saveData.clickSpeedLimiter = in.readBoolean();
+        saveData.clickWireOptimizer = in.readBoolean();
+        saveData.speedBoosterActive = in.readBoolean();
+        saveData.speedLimiterActive = in.readBoolean();
+        saveData.wireOptimizerActive = in.readBoolean();
+        saveData.startTimeSpeedBooster = in.readLong();
+        saveData.startTimeSpeedLimiter = in.readLong();
+        saveData.startTimeWireOptimizer = in.readLong();
+        saveData.clickScrollAergia = in.readBoolean();
+        saveData.clickScrollSisyphus = in.readBoolean();
+        saveData.clickScrollEliphas = in.readBoolean();
+        saveData.scrollAergiaActive = in.readBoolean();
+        saveData.scrollSisyphusActive = in.readBoolean();
+        saveData.scrollEliphasActive = in.readBoolean();
+        saveData.startTimeScrollAergia = in.readLong();
+        saveData.startTimeScrollSisyphus = in.readLong();
+        saveData.startTimeScrollEliphas = in.readLong();
+        saveData.lastScrollAergiaUse = in.readLong();
+        saveData.scrollAergiaEffects = readLongMap(in);
+        saveData.scrollEliphasEffects = readLongMap(in);
+        saveData.vpnProtectedPackets = readLongMap(in);
+        int originalTypeCount = in.readInt();
+        saveData.packetOriginalTypes = new HashMap<>(originalTypeCount * 2);
+        for (int i = 0; i < originalTypeCount; i++) {
+            saveData.packetOriginalTypes.put(readString(in), readString(in));
+        }
+        saveData.numberPacketsSquare = in.readInt();
+        saveData.numberPacketTriangle = in.readInt();
+        saveData.numberPacketsCircle = in.readInt();
+        saveData.numberPacketsConfidential4 = in.readInt();
+        saveData.numberPacketsConfidential6 = in.readInt();
+        saveData.numberPacketsBulky8 = in.readInt();
+        saveData.numberPacketsBulky10 = in.readInt();
     }
-    
-    public void autoSave(GameState state) {
-        long currentTime = System.currentTimeMillis();
-        if (currentTime - lastAutoSave >= AUTO_SAVE_INTERVAL_MS) {
-            saveGame(state);
-            lastAutoSave = currentTime;
+
+    // Saves from before FORMAT_VERSION 1.
+    private SaveData readLegacy(InputStream in) throws IOException, ClassNotFoundException {
+        return (SaveData) new ObjectInputStream(in).readObject();
+    }
+
+    private void applySaveData(SaveData saveData, GameState state) {
+        state.setPacketLoss(saveData.packetLoss);
+        state.setGameOver(saveData.gameOver);
+        state.setSuccessfully(saveData.successfully);
+        state.getUser().setCoin(saveData.userCoins);
+        state.getNodes().clear();
+        state.clearConnections();
+        state.clearPackets();
+        Map<String, INode> nodesById = new HashMap<>(saveData.nodes.size() * 2);
+        for (NodeData nodeData : saveData.nodes) {
+            Node node = new Node(nodeData.x, nodeData.y, nodeData.id, 
+                nodeData.inputShapes, nodeData.outputShapes, nodeData.systemType);
+            node.setDamaged(nodeData.isDamaged);
+            node.setDamageStartTime(nodeData.damageStartTime);
+            node.setLastAntitrojanOperation(nodeData.lastAntitrojanOperation);
+            state.addNode(node);
+            nodesById.put(nodeData.id, node);
         }
+        // Saved connection index to the restored connection, null where a node was missing.
+        IConnection[] restored = new IConnection[saveData.connections.size()];
+        for (int i = 0; i < restored.length; i++) {
+            ConnectionData connData = saveData.connections.get(i);
+            INode fromNode = connData.fromNodeId != null ? nodesById.get(connData.fromNodeId) : null;
+            INode toNode = connData.toNodeId != null ? nodesById.get(connData.toNodeId) : null;
+            if (fromNode != null && toNode != null) {
+                Connection conn = new Connection(fromNode, connData.fromPort, toNode, connData.toPort);
+                conn.getWaypoints().addAll(connData.waypoints);
+                for (BendPointData bpData : connData.bendPoints) {
+                    BendPoint bp = new BendPoint(bpData.x, bpData.y, bpData.maxRadius);
+                    conn.getBendPoints().add(bp);
+                }
+                conn.setBulkyPacketPasses(connData.bulkyPacketPasses);
+                conn.setDestroyed(connData.isDestroyed);
+                state.addConnection(conn);
+                restored[i] = conn;
+            }
+        }
+        for (PacketData packetData : saveData.packets) {
+            if (packetData.connectionIndex >= 0 && packetData.connectionIndex < restored.length
+                    && restored[packetData.connectionIndex] != null) {
+                PacketKind kind = PacketKind.fromTypeName(packetData.packetType);
+                if (kind == null) {
+                    continue;
+                }
+                Packet packet = new Packet(restored[packetData.connectionIndex], kind);
+                packet.setOriginalPacketType(packetData.originalPacketType);
+                packet.setProtected(packetData.isProtected);
+                if (packetData.vpnSourceNodeId != null && packetData.isProtected) {
+                    packet.setVpnSourceNodeId(packetData.vpnSourceNodeId);
+                    state.addProtectedPacketForVpn(packetData.vpnSourceNodeId, packet);
+                }
+                packet.setCurrentSpeed(packetData.currentSpeed);
+                packet.setNoise(packetData.noise);
+                packet.setProgress(packetData.progress);
+                packet.setSegmentIndex(packetData.segmentIndex);
+                packet.setDisplacement(packetData.displacement);
+                packet.setCreationTime(packetData.creationTime);
+                packet.setLastMovementTime(packetData.lastMovementTime);
+                packet.setPacketSize(packetData.packetSize);
+                packet.setLargePacket(packetData.isLargePacket);
+                packet.setBitPacket(packetData.isBitPacket);
+                packet.setParentPacketId(packetData.parentPacketId);
+                packet.setReturning(packetData.isReturning);
+                packet.setAcceleration(packetData.acceleration);
+                packet.setMovementBehavior(packetData.movementBehavior);
+                packet.setDistanceTraveled(packetData.distanceTraveled);
+                packet.setParentBulkyPacketId(packetData.parentBulkyPacketId);
+                state.getPackets().add(packet);
+            }
+        }
+        state.setClickAtar(saveData.clickAtar);
+        state.setAtar(saveData.atar);
+        state.setStartTimeAtar(saveData.startTimeAtar);
+        state.setClickAiryaman(saveData.clickAiryaman);
+        state.setAiryaman(saveData.airyaman);
+        state.setStartTimeAiryaman(saveData.startTimeAiryaman);
+        state.setClickAnahita(saveData.clickAnahita);
+        state.setClickSpeedBooster(saveData.clickSpeedBooster);
+        state.setClickSpeedLimiter(saveData.clickSpeedLimiter);
+        state.setClickWireOptimizer(saveData.clickWireOptimizer);
+        state.setSpeedBoosterActive(saveData.speedBoosterActive);
+        state.setSpeedLimiterActive(saveData.speedLimiterActive);
+        state.setWireOptimizerActive(saveData.wireOptimizerActive);
+        state.setStartTimeSpeedBooster(saveData.startTimeSpeedBooster);
+        state.setStartTimeSpeedLimiter(saveData.startTimeSpeedLimiter);
+        state.setStartTimeWireOptimizer(saveData.startTimeWireOptimizer);
+        state.setClickScrollAergia(saveData.clickScrollAergia);
+        state.setClickScrollSisyphus(saveData.clickScrollSisyphus);
+        state.setClickScrollEliphas(saveData.clickScrollEliphas);
+        state.setScrollAergiaActive(saveData.scrollAergiaActive);
+        state.setScrollSisyphusActive(saveData.scrollSisyphusActive);
+        state.setScrollEliphasActive(saveData.scrollEliphasActive);
+        state.setStartTimeScrollAergia(saveData.startTimeScrollAergia);
+        state.setStartTimeScrollSisyphus(saveData.startTimeScrollSisyphus);
+        state.setStartTimeScrollEliphas(saveData.startTimeScrollEliphas);
+        state.setLastScrollAergiaUse(saveData.lastScrollAergiaUse);
+        state.setScrollAergiaEffects(saveData.scrollAergiaEffects);
+        state.setScrollEliphasEffects(saveData.scrollEliphasEffects);
+        state.setVpnProtectedPackets(saveData.vpnProtectedPackets);
+        state.setPacketOriginalTypes(saveData.packetOriginalTypes);
+        state.setNumberPacketsSquare(saveData.numberPacketsSquare);
+        state.setNumberPacketTriangle(saveData.numberPacketTriangle);
+        state.setNumberPacketsCircle(saveData.numberPacketsCircle);
+        state.setNumberPacketsConfidential4(saveData.numberPacketsConfidential4);
+        state.setNumberPacketsConfidential6(saveData.numberPacketsConfidential6);
+        state.setNumberPacketsBulky8(saveData.numberPacketsBulky8);
+        state.setNumberPacketsBulky10(saveData.numberPacketsBulky10);
+
     }
     
     public boolean hasSaveFile() {
-        return new File(SAVE_FILE_PATH).exists();
+        return Files.exists(savePath);
     }
-    
-    private INode findNodeById(GameState state, String id) {
-        for (INode node : state.getNodes()) {
-            if (node.getId().equals(id)) {
-                return node;
+
+    private static int indexOf(Map<String, Integer> nodeIndexes, String nodeId) {
+        Integer index = nodeId != null ? nodeIndexes.get(nodeId) : null;
+        return index != null ? index : -1;
+    }
+
+    private static String nodeId(List<NodeData> nodes, int index) {
+        return index >= 0 && index < nodes.size() ? nodes.get(index).id : null;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeStrings(DataOutputStream out, String[] values) throws IOException {
+        out.writeInt(values != null ? values.length : -1);
+        if (values != null) {
+            for (String value : values) {
+                writeString(out, value);
             }
         }
-        return null;
     }
+
+    private static String[] readStrings(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        String[] values = new String[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = readString(in);
+        }
+        return values;
+    }
+
+    private static void writeLongMap(DataOutputStream out, Map<String, Long> map) throws IOException {
+        out.writeInt(map.size());
+        for (Map.Entry<String, Long> entry : map.entrySet()) {
+            writeString(out, entry.getKey());
+            out.writeLong(entry.getValue() != null ? entry.getValue() : 0L);
+        }
+    }
+
+    private static Map<String, Long> readLongMap(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        Map<String, Long> map = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            map.put(readString(in), in.readLong());
+        }
+        return map;
+    }
+
+    // Also the shape of legacy saves, so the serialized classes must not change.
     private static class SaveData implements Serializable {
         private static final long serialVersionUID = 1L;
         int level;
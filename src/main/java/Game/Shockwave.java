@@ -13,7 +13,7 @@ public class Shockwave {
         this.radius = 0.0;
         this.startTime = virtualTime;
         this.lifespan = GameConfig.SHOCKWAVE_LIFESPAN_MS;
-        System.out.println("Shockwave created at (" + position.x + ", " + position.y + ") at time " + virtualTime);
+        SimulationEvents.position(SimulationEvent.Type.SHOCKWAVE_CREATED, position.x, position.y, 0, 0, virtualTime);
     }
 
     public void update(long virtualTime) {
@@ -50,22 +50,30 @@ public class Shockwave {
     }
 
     public Point getDisplacement(Point packetPos) {
-        double distance = Math.hypot(packetPos.x - position.x, packetPos.y - position.y);
+        Point displacement = new Point();
+        getDisplacement(packetPos.x, packetPos.y, displacement);
+        return displacement;
+    }
+
+    /**
+     * Writes the displacement of a packet at (x, y) into {@code out}.
+     */
+    public void getDisplacement(int x, int y, Point out) {
+        double distance = Math.hypot(x - position.x, y - position.y);
         if (distance > radius) {
-            return new Point(0, 0);
+            out.setLocation(0, 0);
+            return;
         }
         double strength = GameConfig.SHOCKWAVE_FORCE / (distance * distance + 0.1);
-        double dx = (packetPos.x - position.x) * strength;
-        double dy = (packetPos.y - position.y) * strength;
+        double dx = (x - position.x) * strength;
+        double dy = (y - position.y) * strength;
         double magnitude = Math.hypot(dx, dy);
         if (magnitude > GameConfig.MAX_DISPLACEMENT) {
             dx = dx * GameConfig.MAX_DISPLACEMENT / magnitude;
             dy = dy * GameConfig.MAX_DISPLACEMENT / magnitude;
         }
-        Point displacement = new Point((int) dx, (int) dy);
-        System.out.println("Shockwave at (" + position.x + ", " + position.y + ") displaces packet at (" +
-                packetPos.x + ", " + packetPos.y + ") by (" + displacement.x + ", " + displacement.y +
-                "), distance: " + String.format("%.2f", distance));
-        return displacement;
+        out.x = (int) dx;
+        out.y = (int) dy;
+        SimulationEvents.position(SimulationEvent.Type.SHOCKWAVE_DISPLACED, x, y, out.x, out.y, distance);
     }
 }
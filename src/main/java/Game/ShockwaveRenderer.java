@@ -3,12 +3,13 @@ package Game;
 import java.awt.*;
 
 class ShockwaveRenderer {
-    public void render(Graphics g, Shockwave shockwave) {
-        Point pos = shockwave.getPosition();
+    public void render(Graphics g, SimulationSnapshot.ShockwaveState shockwave) {
+        int x = shockwave.getX();
+        int y = shockwave.getY();
         double radius = shockwave.getRadius();
         float alpha = (float) (0.5 * (1.0 - radius / GameConfig.SHOCKWAVE_MAX_RADIUS));
         g.setColor(new Color(1.0f, 1.0f, 1.0f, Math.max(0.0f, Math.min(1.0f, alpha))));
         int diameter = (int) (radius * 2);
-        g.fillOval(pos.x - (int) radius, pos.y - (int) radius, diameter, diameter);
+        g.fillOval(x - (int) radius, y - (int) radius, diameter, diameter);
     }
 }
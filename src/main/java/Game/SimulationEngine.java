@@ -0,0 +1,280 @@
+package Game;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Advances a {@link GameState} in fixed {@link GameConfig#ANIMATION_TICK_MS}
+ * steps on its own thread, independent of Swing.
+ *
+ * <p>While the engine is running its thread owns the game state; other threads
+ * change it through {@link #execute(Runnable)} and read it through
+ * {@link #getSnapshot()}. Once stopped, the caller owns the state again.
+ */
+public class SimulationEngine {
+    public enum Pacing {
+        REAL_TIME,
+        AS_FAST_AS_POSSIBLE
+    }
+
+    public interface Listener {
+        /** Called on the engine thread after every tick. */
+        void onTick(SimulationEngine engine);
+
+        /** Called on the engine thread once the level is lost or won. */
+        void onFinished(SimulationEngine engine);
+    }
+
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(GameConfig.ANIMATION_TICK_MS);
+    private static final int MAX_CATCH_UP_TICKS = 5;
+
+    private final GameState state;
+    private final IPacketManager packetManager;
+    private final Pacing pacing;
+    private final Queue<Runnable> commands = new ConcurrentLinkedQueue<>();
+    private final Object commandLock = new Object(); // Guards queueing against the engine stopping
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private volatile Thread thread;
+    private volatile boolean running;
+    private volatile SimulationSnapshot snapshot;
+    private long tickCount;
+
+    public SimulationEngine(GameState state, IPacketManager packetManager) {
+        this(state, packetManager, Pacing.REAL_TIME);
+    }
+
+    public SimulationEngine(GameState state, IPacketManager packetManager, Pacing pacing) {
+        this.state = state;
+        this.packetManager = packetManager;
+        this.pacing = pacing;
+        this.snapshot = SimulationSnapshot.capture(state, 0);
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        Thread previous = thread;
+        if (previous != null && previous != Thread.currentThread()) {
+            try {
+                previous.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        running = true;
+        thread = new Thread(this::run, "simulation-engine");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops the engine and waits for the current tick to finish. Commands that
+     * were queued but not yet run are executed on the calling thread.
+     */
+    public void stop() {
+        Thread engineThread;
+        synchronized (this) {
+            halt();
+            engineThread = thread;
+        }
+        if (engineThread == null || engineThread == Thread.currentThread()) {
+            return;
+        }
+        LockSupport.unpark(engineThread);
+        try {
+            engineThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        synchronized (this) {
+            if (thread == engineThread) {
+                thread = null;
+            }
+        }
+        runPendingCommands();
+        publishSnapshot();
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Runs the command between ticks on the engine thread, or immediately if
+     * the engine is stopped.
+     */
+    public void execute(Runnable command) {
+        synchronized (commandLock) {
+            if (running) {
+                commands.add(command);
+                return;
+            }
+        }
+        command.run();
+    }
+
+    /**
+     * Runs the task between ticks and waits for its result.
+     */
+    public <T> T call(Callable<T> task) throws Exception {
+        if (!running || Thread.currentThread() == thread) {
+            return task.call();
+        }
+        FutureTask<T> future = new FutureTask<>(task);
+        execute(future);
+        return future.get();
+    }
+
+    public void stepForward() {
+        stop();
+        packetManager.stepForward();
+        state.markDirty(GameState.DIRTY_PACKETS);
+        tickCount++;
+        publishSnapshot();
+    }
+
+    public void stepBackward() {
+        stop();
+        packetManager.stepBackward();
+        state.markDirty(GameState.DIRTY_PACKETS);
+        publishSnapshot();
+    }
+
+    /**
+     * Runs up to {@code maxTicks} ticks on the calling thread as fast as
+     * possible, stopping early when the level is lost or won.
+     *
+     * @return the number of ticks that were run
+     */
+    public int runTicks(int maxTicks) {
+        if (running) {
+            throw new IllegalStateException("Engine is already running");
+        }
+        int ticks = 0;
+        while (ticks < maxTicks && !isFinished()) {
+            tick();
+            ticks++;
+        }
+        publishSnapshot();
+        return ticks;
+    }
+
+    /**
+     * Returns the snapshot published after the latest tick. While the engine
+     * is stopped the caller owns the state, so a fresh one is taken instead.
+     */
+    public SimulationSnapshot getSnapshot() {
+        Thread engineThread = thread;
+        if (!running && (engineThread == null || !engineThread.isAlive())) {
+            publishSnapshot();
+        }
+        return snapshot;
+    }
+
+    public long getTickCount() {
+        return tickCount;
+    }
+
+    public GameState getState() {
+        return state;
+    }
+
+    public Pacing getPacing() {
+        return pacing;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    private void run() {
+        long nextTick = System.nanoTime();
+        while (running) {
+            runPendingCommands();
+            if (isFinished()) {
+                halt();
+                publishSnapshot();
+                for (Listener listener : listeners) {
+                    listener.onFinished(this);
+                }
+                break;
+            }
+            try {
+                tick();
+            } catch (RuntimeException e) {
+                GameLogger.logError("SimulationEngine", "Tick " + tickCount + " failed", e);
+                halt();
+                break;
+            }
+            if (pacing == Pacing.REAL_TIME) {
+                publishSnapshot();
+                for (Listener listener : listeners) {
+                    listener.onTick(this);
+                }
+                nextTick = waitForNextTick(nextTick);
+            }
+        }
+        runPendingCommands();
+        if (pacing == Pacing.AS_FAST_AS_POSSIBLE) {
+            publishSnapshot();
+        }
+    }
+
+    private long waitForNextTick(long nextTick) {
+        nextTick += TICK_NANOS;
+        long now = System.nanoTime();
+        if (now - nextTick > MAX_CATCH_UP_TICKS * TICK_NANOS) {
+            return now;
+        }
+        long remaining;
+        while (running && (remaining = nextTick - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(this, remaining);
+        }
+        return nextTick;
+    }
+
+    private void tick() {
+        packetManager.stepForward();
+        state.markDirty(GameState.DIRTY_PACKETS);
+        tickCount++;
+    }
+
+    private boolean isFinished() {
+        return state.isGameOver() || state.isSuccessfully();
+    }
+
+    // Once this returns nothing more is queued, so the drain that follows it runs every command.
+    private void halt() {
+        synchronized (commandLock) {
+            running = false;
+        }
+    }
+
+    private void runPendingCommands() {
+        Runnable command;
+        while ((command = commands.poll()) != null) {
+            try {
+                command.run();
+            } catch (RuntimeException e) {
+                GameLogger.logError("SimulationEngine", "Command failed", e);
+            }
+        }
+    }
+
+    private void publishSnapshot() {
+        snapshot = SimulationSnapshot.capture(state, tickCount);
+    }
+}
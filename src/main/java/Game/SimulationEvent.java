@@ -0,0 +1,179 @@
+package Game;
+
+/**
+ * One simulation event. Instances are reused by {@link SimulationEvents}, so a
+ * sink must copy whatever it needs before {@code onEvent} returns.
+ */
+public final class SimulationEvent {
+    public enum Type {
+        PACKET_CREATED("Packet created"),
+        PACKET_MOVED("Packet moving"),
+        PACKET_ARRIVED("Packet reached node"),
+        PACKET_DELIVERED("Packet delivered"),
+        PACKET_TRANSITIONED("Packet transitioned"),
+        PACKET_REMOVED("Packet removed"),
+        PACKET_DROPPED("Packet dropped, no valid connection"),
+        PACKET_TIMED_OUT("Packet timed out on wire"),
+        PACKET_RETURNING("Packet returning"),
+        PACKET_LOST("Packet counted as loss"),
+        PACKET_SPED_UP("Packet entered from incompatible port"),
+        PACKET_PASSED_SYSTEM("Packet passed through system"),
+        PACKET_DISTRIBUTED("Packet distributed into bit packets"),
+        BIT_PACKET_CREATED("Bit packet created"),
+        BIT_PACKETS_MERGED("Bit packets merged"),
+        PACKET_DESTROYED("Packet destroyed by spy system"),
+        PACKET_UNAFFECTED("Packet unaffected by system"),
+        PACKET_TELEPORTED("Packet teleported between spy systems"),
+        PACKET_NOISE_ADDED("Noise added to packet"),
+        PACKET_CONVERTED_TO_TROJAN("Packet converted to trojan"),
+        PACKET_REVERTED("Packet reverted to original type"),
+        PACKET_PROTECTED("Packet protected by VPN system"),
+        PROTECTED_BEHAVIOR_CHOSEN("Protected packet movement behavior chosen"),
+        FEEDBACK_PACKET_GENERATED("Feedback counter-packet generated"),
+        VPN_PACKET_GENERATED("VPN system generated packet"),
+        SYSTEM_DAMAGED("System damaged by high-speed packet"),
+        SYSTEM_CLEARED("Bulky packet cleared system"),
+        SYSTEM_PORTS_RANDOMIZED("Bulky packet randomized ports"),
+        PACKETS_RESET("Packets and shockwaves reset"),
+        SHOCKWAVE_CREATED("Shockwave created"),
+        SHOCKWAVE_DISPLACED("Shockwave displaced packet"),
+        CONNECTION_REJECTED("Invalid connection"),
+        WIRE_DESTROYED("Wire destroyed by bulky packets"),
+        VALIDATION_FAILED("Validation failed"),
+        VALIDATION_SUCCEEDED("Validation succeeded");
+
+        private final String description;
+
+        Type(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    private Type type;
+    private Packet packet;
+    private PacketKind kind;
+    private String nodeId;
+    private String targetId;
+    private String detail;
+    private int x;
+    private int y;
+    private int dx;
+    private int dy;
+    private double value;
+    private int count;
+
+    SimulationEvent() {
+    }
+
+    void set(Type type, Packet packet, PacketKind kind, String nodeId, String targetId, String detail,
+             int x, int y, int dx, int dy, double value, int count) {
+        this.type = type;
+        this.packet = packet;
+        this.kind = kind;
+        this.nodeId = nodeId;
+        this.targetId = targetId;
+        this.detail = detail;
+        this.x = x;
+        this.y = y;
+        this.dx = dx;
+        this.dy = dy;
+        this.value = value;
+        this.count = count;
+    }
+
+    void clear() {
+        set(null, null, null, null, null, null, 0, 0, 0, 0, 0, 0);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return the packet the event is about, or null if there is none or the
+     * event was replayed from a buffer
+     */
+    public Packet getPacket() {
+        return packet;
+    }
+
+    public PacketKind getKind() {
+        return kind;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public String getTargetId() {
+        return targetId;
+    }
+
+    public String getDetail() {
+        return detail;
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    public int getDx() {
+        return dx;
+    }
+
+    public int getDy() {
+        return dy;
+    }
+
+    public double getValue() {
+        return value;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Builds a one-line description of the event. Only sinks that actually
+     * write text should call this.
+     */
+    public String describe() {
+        StringBuilder sb = new StringBuilder(96).append(type.getDescription());
+        if (kind != null) {
+            sb.append(" - Type: ").append(kind.getTypeName());
+        }
+        if (nodeId != null) {
+            sb.append(", Node: ").append(nodeId);
+        }
+        if (targetId != null) {
+            sb.append(", Target: ").append(targetId);
+        }
+        sb.append(", Position: (").append(x).append(", ").append(y).append(')');
+        if (dx != 0 || dy != 0) {
+            sb.append(", Offset: (").append(dx).append(", ").append(dy).append(')');
+        }
+        if (value != 0) {
+            sb.append(", Value: ").append(value);
+        }
+        if (count != 0) {
+            sb.append(", Count: ").append(count);
+        }
+        if (detail != null) {
+            sb.append(", Detail: ").append(detail);
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return type == null ? "SimulationEvent[empty]" : describe();
+    }
+}
@@ -0,0 +1,13 @@
+package Game;
+
+/**
+ * Receives simulation events on the thread that raised them. The event object
+ * is reused after {@link #onEvent} returns and sinks must not raise events of
+ * their own from inside it.
+ */
+public interface SimulationEventSink {
+    /** Ignores every event; registering it leaves the bus disabled. */
+    SimulationEventSink NO_OP = event -> { };
+
+    void onEvent(SimulationEvent event);
+}
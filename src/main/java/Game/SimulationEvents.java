@@ -0,0 +1,123 @@
+package Game;
+
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+
+/**
+ * Static event bus for the simulation. With no sink registered every raise
+ * method returns after a single volatile read, so call sites pass values they
+ * already have instead of building messages.
+ *
+ * <p>A {@link Slf4jEventSink} is registered at startup when the
+ * {@code simulation} logger has debug enabled.
+ */
+public final class SimulationEvents {
+    private static final SimulationEventSink[] NO_SINKS = new SimulationEventSink[0];
+    private static final ThreadLocal<SimulationEvent> EVENTS = ThreadLocal.withInitial(SimulationEvent::new);
+    private static volatile SimulationEventSink[] sinks = NO_SINKS;
+
+    static {
+        if (LoggerFactory.getLogger(Slf4jEventSink.LOGGER_NAME).isDebugEnabled()) {
+            addSink(new Slf4jEventSink());
+        }
+    }
+
+    private SimulationEvents() {
+    }
+
+    public static synchronized void addSink(SimulationEventSink sink) {
+        if (sink == null || sink == SimulationEventSink.NO_OP) {
+            return;
+        }
+        SimulationEventSink[] current = sinks;
+        SimulationEventSink[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = sink;
+        sinks = updated;
+    }
+
+    public static synchronized void removeSink(SimulationEventSink sink) {
+        SimulationEventSink[] current = sinks;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == sink) {
+                SimulationEventSink[] updated = new SimulationEventSink[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, i);
+                System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                sinks = updated;
+                return;
+            }
+        }
+    }
+
+    public static synchronized void clearSinks() {
+        sinks = NO_SINKS;
+    }
+
+    /**
+     * Call sites that would have to compute something just for the event
+     * should check this first.
+     */
+    public static boolean isEnabled() {
+        return sinks.length > 0;
+    }
+
+    public static void packet(SimulationEvent.Type type, Packet packet, String nodeId) {
+        packet(type, packet, nodeId, null, 0, 0);
+    }
+
+    public static void packet(SimulationEvent.Type type, Packet packet, String nodeId, String targetId) {
+        packet(type, packet, nodeId, targetId, 0, 0);
+    }
+
+    public static void packet(SimulationEvent.Type type, Packet packet, String nodeId, String targetId,
+                              double value, int count) {
+        SimulationEventSink[] current = sinks;
+        if (current.length == 0) {
+            return;
+        }
+        dispatch(current, type, packet, packet.getKind(), nodeId, targetId, null,
+                packet.getX(), packet.getY(), 0, 0, value, count);
+    }
+
+    public static void system(SimulationEvent.Type type, String nodeId, String detail) {
+        system(type, nodeId, detail, 0, 0);
+    }
+
+    public static void system(SimulationEvent.Type type, String nodeId, String detail, double value, int count) {
+        SimulationEventSink[] current = sinks;
+        if (current.length == 0) {
+            return;
+        }
+        dispatch(current, type, null, null, nodeId, null, detail, 0, 0, 0, 0, value, count);
+    }
+
+    public static void wire(SimulationEvent.Type type, String fromNodeId, String toNodeId, int count) {
+        SimulationEventSink[] current = sinks;
+        if (current.length == 0) {
+            return;
+        }
+        dispatch(current, type, null, null, fromNodeId, toNodeId, null, 0, 0, 0, 0, 0, count);
+    }
+
+    public static void position(SimulationEvent.Type type, int x, int y, int dx, int dy, double value) {
+        SimulationEventSink[] current = sinks;
+        if (current.length == 0) {
+            return;
+        }
+        dispatch(current, type, null, null, null, null, null, x, y, dx, dy, value, 0);
+    }
+
+    private static void dispatch(SimulationEventSink[] current, SimulationEvent.Type type, Packet packet,
+                                 PacketKind kind, String nodeId, String targetId, String detail,
+                                 int x, int y, int dx, int dy, double value, int count) {
+        SimulationEvent event = EVENTS.get();
+        event.set(type, packet, kind, nodeId, targetId, detail, x, y, dx, dy, value, count);
+        try {
+            for (SimulationEventSink sink : current) {
+                sink.onEvent(event);
+            }
+        } finally {
+            event.clear();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package Game;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable view of the simulation after a tick. The engine publishes one of
+ * these per tick so renderers never touch live {@link Packet} state.
+ */
+public final class SimulationSnapshot {
+    private final long tick;
+    private final List<PacketState> packets;
+    private final List<ShockwaveState> shockwaves;
+    private final int packetLoss;
+    private final boolean gameOver;
+    private final boolean successfully;
+
+    private SimulationSnapshot(long tick, List<PacketState> packets, List<ShockwaveState> shockwaves,
+                               int packetLoss, boolean gameOver, boolean successfully) {
+        this.tick = tick;
+        this.packets = Collections.unmodifiableList(packets);
+        this.shockwaves = Collections.unmodifiableList(shockwaves);
+        this.packetLoss = packetLoss;
+        this.gameOver = gameOver;
+        this.successfully = successfully;
+    }
+
+    static SimulationSnapshot capture(GameState state, long tick) {
+        List<PacketState> packets = new ArrayList<>(state.getPackets().size());
+        Point position = new Point();
+        for (Packet packet : state.getPackets()) {
+            packet.getPosition(position);
+            packets.add(new PacketState(packet, position));
+        }
+        List<ShockwaveState> shockwaves = new ArrayList<>(state.getShockwaves().size());
+        for (Shockwave shockwave : state.getShockwaves()) {
+            shockwaves.add(new ShockwaveState(shockwave));
+        }
+        return new SimulationSnapshot(tick, packets, shockwaves, state.getPacketLoss(),
+                state.isGameOver(), state.isSuccessfully());
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    public List<PacketState> getPackets() {
+        return packets;
+    }
+
+    public List<ShockwaveState> getShockwaves() {
+        return shockwaves;
+    }
+
+    public int getPacketLoss() {
+        return packetLoss;
+    }
+
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    public boolean isSuccessfully() {
+        return successfully;
+    }
+
+    public static final class PacketState {
+        private final int x;
+        private final int y;
+        private final PacketKind kind;
+        private final double currentSpeed;
+        private final String playerId;
+        private final Color playerColor;
+        private final String parentBulkyPacketId;
+
+        private PacketState(Packet packet, Point position) {
+            this.x = position.x;
+            this.y = position.y;
+            this.kind = packet.getKind();
+            this.currentSpeed = packet.getCurrentSpeed();
+            this.playerId = packet.getPlayerId();
+            this.playerColor = packet.getPlayerColor();
+            this.parentBulkyPacketId = packet.getParentBulkyPacketId();
+        }
+
+        public int getX() {
+            return x;
+        }
+
+        public int getY() {
+            return y;
+        }
+
+        public PacketKind getKind() {
+            return kind;
+        }
+
+        public String getPacketType() {
+            return kind.getTypeName();
+        }
+
+        public double getCurrentSpeed() {
+            return currentSpeed;
+        }
+
+        public String getPlayerId() {
+            return playerId;
+        }
+
+        public Color getPlayerColor() {
+            return playerColor;
+        }
+
+        public String getParentBulkyPacketId() {
+            return parentBulkyPacketId;
+        }
+    }
+
+    public static final class ShockwaveState {
+        private final int x;
+        private final int y;
+        private final double radius;
+
+        private ShockwaveState(Shockwave shockwave) {
+            this.x = shockwave.getX();
+            this.y = shockwave.getY();
+            this.radius = shockwave.getRadius();
+        }
+
+        public int getX() {
+            return x;
+        }
+
+        public int getY() {
+            return y;
+        }
+
+        public double getRadius() {
+            return radius;
+        }
+    }
+}
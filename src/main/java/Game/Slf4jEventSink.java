@@ -0,0 +1,36 @@
+package Game;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes simulation events to the {@code simulation} logger at debug level.
+ * Periodic movement samples go through {@link GameLogger#logPacketMovement}.
+ */
+public class Slf4jEventSink implements SimulationEventSink {
+    static final String LOGGER_NAME = "simulation";
+
+    private final Logger logger;
+
+    public Slf4jEventSink() {
+        this(LoggerFactory.getLogger(LOGGER_NAME));
+    }
+
+    public Slf4jEventSink(Logger logger) {
+        this.logger = logger;
+    }
+
+    @Override
+    public void onEvent(SimulationEvent event) {
+        if (event.getType() == SimulationEvent.Type.PACKET_MOVED) {
+            Packet packet = event.getPacket();
+            GameLogger.logPacketMovement(String.valueOf(packet), String.valueOf(event.getKind()),
+                    event.getX(), event.getY(), event.getValue(),
+                    packet != null ? String.valueOf(packet.getCurrentConnection()) : event.getNodeId());
+            return;
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug(event.describe());
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package Game;
+
+import java.awt.*;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Uniform grid broad phase over packet positions. The grid is rebuilt from
+ * {@link Packet#getPosition(Point)}, or straight from the position arrays of a
+ * {@link PacketStore}, once per tick and answers radius queries by
+ * visiting only the cells that overlap the query circle.
+ */
+class SpatialHashGrid {
+    private final double cellSize;
+    private int size;
+    private int[] xs = new int[16];
+    private int[] ys = new int[16];
+    private int[] next = new int[16];
+    private long[] cellKeys = new long[32];
+    private int[] cellHeads = new int[32];
+    private boolean[] cellUsed = new boolean[32];
+    private int[] results = new int[16];
+    private int resultCount;
+    private final Point positionHolder = new Point();
+
+    SpatialHashGrid(double cellSize) {
+        this.cellSize = cellSize;
+    }
+
+    void rebuild(List<Packet> packets) {
+        size = packets.size();
+        ensureItemCapacity(size);
+        ensureCellCapacity(size);
+        Arrays.fill(cellUsed, false);
+        PacketStore store = packets instanceof PacketStore ? (PacketStore) packets : null;
+        if (store != null) {
+            store.refreshPositions();
+        }
+        for (int i = 0; i < size; i++) {
+            if (store != null) {
+                xs[i] = store.getX(i);
+                ys[i] = store.getY(i);
+            } else {
+                packets.get(i).getPosition(positionHolder);
+                xs[i] = positionHolder.x;
+                ys[i] = positionHolder.y;
+            }
+            long key = cellKey(cellOf(xs[i]), cellOf(ys[i]));
+            int slot = findSlot(key);
+            if (!cellUsed[slot]) {
+                cellUsed[slot] = true;
+                cellKeys[slot] = key;
+                cellHeads[slot] = -1;
+            }
+            next[i] = cellHeads[slot];
+            cellHeads[slot] = i;
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    int getX(int index) {
+        return xs[index];
+    }
+
+    int getY(int index) {
+        return ys[index];
+    }
+
+    /**
+     * Collects the indices greater than {@code minIndex} whose position lies
+     * within {@code radius} of (x, y), in ascending order.
+     *
+     * @return the number of indices available through {@link #getResult(int)}
+     */
+    int queryRadius(int x, int y, double radius, int minIndex) {
+        resultCount = 0;
+        int minCellX = cellOf(x - radius);
+        int maxCellX = cellOf(x + radius);
+        int minCellY = cellOf(y - radius);
+        int maxCellY = cellOf(y + radius);
+        for (int cx = minCellX; cx <= maxCellX; cx++) {
+            for (int cy = minCellY; cy <= maxCellY; cy++) {
+                int slot = findSlot(cellKey(cx, cy));
+                if (!cellUsed[slot]) {
+                    continue;
+                }
+                for (int i = cellHeads[slot]; i != -1; i = next[i]) {
+                    if (i > minIndex && Point.distance(x, y, xs[i], ys[i]) <= radius) {
+                        addResult(i);
+                    }
+                }
+            }
+        }
+        Arrays.sort(results, 0, resultCount);
+        return resultCount;
+    }
+
+    int getResult(int k) {
+        return results[k];
+    }
+
+    private void addResult(int index) {
+        if (resultCount == results.length) {
+            results = Arrays.copyOf(results, resultCount * 2);
+        }
+        results[resultCount++] = index;
+    }
+
+    private int cellOf(double coordinate) {
+        return (int) Math.floor(coordinate / cellSize);
+    }
+
+    private static long cellKey(int cx, int cy) {
+        return ((long) cx << 32) | (cy & 0xffffffffL);
+    }
+
+    private int findSlot(long key) {
+        int mask = cellKeys.length - 1;
+        long h = key * 0x9E3779B97F4A7C15L;
+        int slot = (int) (h ^ (h >>> 32)) & mask;
+        while (cellUsed[slot] && cellKeys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void ensureItemCapacity(int count) {
+        if (count > xs.length) {
+            int capacity = Math.max(count, xs.length * 2);
+            xs = new int[capacity];
+            ys = new int[capacity];
+            next = new int[capacity];
+        }
+    }
+
+    private void ensureCellCapacity(int count) {
+        int required = Integer.highestOneBit(Math.max(count, 8) * 2) * 2;
+        if (required > cellKeys.length) {
+            cellKeys = new long[required];
+            cellHeads = new int[required];
+            cellUsed = new boolean[required];
+        }
+    }
+}
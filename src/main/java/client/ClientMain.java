@@ -26,6 +26,12 @@ public class ClientMain {
     public Socket socket;
     private BufferedReader reader;
     private PrintWriter writer;
+    private OutputStream output;
+    private BinaryMessageFormat.Writer binaryWriter;
+    private boolean binaryRequested;
+    private volatile SnapshotDeltaEncoder outgoingState = new SnapshotDeltaEncoder();
+    // Streams of other players' states, keyed by player id.
+    private final Map<String, SnapshotDeltaDecoder> incomingStates = new ConcurrentHashMap<>();
     private final AtomicBoolean connected = new AtomicBoolean(false);
     private final AtomicBoolean isRunning = new AtomicBoolean(false);
     private final ExecutorService networkExecutor = Executors.newCachedThreadPool();
@@ -72,6 +78,7 @@ public class ClientMain {
 
             reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
             writer = new PrintWriter(socket.getOutputStream(), true);
+            resetConnectionState();
 
             networkManager = new NetworkManager(this);
             networkExecutor.submit(networkManager);
@@ -121,8 +128,12 @@ public class ClientMain {
     public synchronized void sendMessage(NetworkMessage message) {
         if (connected.get() && writer != null) {
             try {
-                writer.println(message.toJson());
-                writer.flush();
+                if (binaryWriter != null) {
+                    binaryWriter.writeFrame(message, output);
+                } else {
+                    writer.println(message.toJson());
+                    writer.flush();
+                }
             } catch (Exception e) {
                 System.err.println("Error sending message: " + e.getMessage());
                 disconnect();
@@ -130,7 +141,7 @@ public class ClientMain {
         } else {
             if (message.getType() == NetworkMessage.MessageType.GAME_RESULT) {
                 try {
-                    GameStateData data = GameStateData.fromJson(message.getData());
+                    GameStateData data = message.getGameState();
                     offlineGameManager.saveGameResult(data);
                 } catch (Exception ex) {
                     System.err.println("Failed to save game result offline: " + ex.getMessage());
@@ -143,16 +154,14 @@ public class ClientMain {
 
     public void sendGameState(GameStateData gameState) {
         if (connected.get()) {
-            String gameStateJson = gameState.toJson();
-            sendMessage(new NetworkMessage(NetworkMessage.MessageType.GAME_STATE, gameStateJson, clientId));
+            sendMessage(new NetworkMessage(NetworkMessage.MessageType.STATE_DELTA, outgoingState.encode(gameState), clientId));
         } else {
             offlineGameManager.saveGameResult(gameState);
         }
     }
     public void sendGameResult(GameStateData gameState) {
         if (connected.get()) {
-            String gameStateJson = gameState.toJson();
-            sendMessage(new NetworkMessage(NetworkMessage.MessageType.GAME_RESULT, gameStateJson, clientId));
+            sendMessage(new NetworkMessage(NetworkMessage.MessageType.GAME_RESULT, gameState, clientId));
             requestLeaderboard();
         } else {
             System.out.println("Offline mode: game result saved locally only.");
@@ -164,7 +173,14 @@ public class ClientMain {
 
 
     public void requestLeaderboard() {
-        sendMessage(new NetworkMessage(NetworkMessage.MessageType.LEADERBOARD, "", clientId));
+        requestLeaderboard("");
+    }
+
+    /**
+     * Asks for a level's page or a player's rank, see {@link LeaderboardQuery}.
+     */
+    public void requestLeaderboard(String query) {
+        sendMessage(new NetworkMessage(NetworkMessage.MessageType.LEADERBOARD, query, clientId));
     }
 
     public void disconnect() {
@@ -206,6 +222,8 @@ public class ClientMain {
             case CREATE_GAME -> handleCreateGame(message);
             case JOIN_GAME -> handleJoinGame(message);
             case PLAYER_READY -> handlePlayerReady(message);
+            case STATE_DELTA -> handleStateDelta(message);
+            case STATE_ACK -> handleStateAck(message);
             default -> System.out.println("Unknown message type: " + message.getType());
         }
     }
@@ -242,11 +260,49 @@ public class ClientMain {
     }
 
     private void handleConnect(NetworkMessage message) {
+        boolean binaryOffered = WireProtocol.BINARY.equals(message.getProtocol());
+        if (binaryOffered && binaryRequested) {
+            networkManager.useBinaryProtocol();
+            System.out.println("Using binary protocol");
+            return;
+        }
         System.out.println("Connected to server: " + message.getData());
         this.clientId = message.getClientId();
         if (window != null) {
             window.setNetworkConnected(true, serverHost + ":" + serverPort, clientId);
         }
+        if (binaryOffered && WireProtocol.isBinaryEnabled()) {
+            requestBinaryProtocol();
+        }
+    }
+
+    /**
+     * Asks the server for the binary protocol and writes binary from now on.
+     * The server switches as soon as it reads the request, so nothing sent
+     * after it may be JSON.
+     */
+    private synchronized void requestBinaryProtocol() {
+        NetworkMessage request = new NetworkMessage(NetworkMessage.MessageType.CONNECT, "binary", clientId);
+        request.setProtocol(WireProtocol.BINARY);
+        writer.println(request.toJson());
+        writer.flush();
+        try {
+            output = new BufferedOutputStream(socket.getOutputStream());
+        } catch (IOException e) {
+            System.err.println("Error switching to binary protocol: " + e.getMessage());
+            disconnect();
+            return;
+        }
+        binaryWriter = new BinaryMessageFormat.Writer();
+        binaryRequested = true;
+    }
+
+    private synchronized void resetConnectionState() {
+        output = null;
+        binaryWriter = null;
+        binaryRequested = false;
+        outgoingState = new SnapshotDeltaEncoder();
+        incomingStates.clear();
     }
 
     private void handleDisconnect(NetworkMessage message) {
@@ -256,20 +312,53 @@ public class ClientMain {
 
     private void handleGameState(NetworkMessage message) {
         try {
-            GameStateData gameState = GameStateData.fromJson(message.getData());
+            GameStateData gameState = message.getGameState();
             System.out.println("Received game state update from " + message.getClientId());
             if (window != null) {
-                window.updateRemoteGameState(gameState);
+                window.updateRemoteGameState(message.getClientId(), gameState);
             }
         } catch (Exception e) {
             System.err.println("Error processing game state: " + e.getMessage());
         }
     }
 
+    private void handleStateDelta(NetworkMessage message) {
+        try {
+            GameStateDelta delta = message.getStateDelta();
+            String sourceId = message.getClientId();
+            GameStateData gameState = incomingStates
+                    .computeIfAbsent(sourceId, id -> new SnapshotDeltaDecoder())
+                    .apply(delta);
+            if (gameState == null) {
+                return;
+            }
+            sendMessage(new NetworkMessage(NetworkMessage.MessageType.STATE_ACK,
+                    String.valueOf(delta.getSequence()), sourceId));
+            if (window != null) {
+                window.updateRemoteGameState(sourceId, gameState);
+            }
+        } catch (Exception e) {
+            System.err.println("Error processing game state: " + e.getMessage());
+        }
+    }
+
+    private void handleStateAck(NetworkMessage message) {
+        if (message.getClientId() != null && message.getClientId().equals(clientId)) {
+            outgoingState.acknowledge(Long.parseLong(message.getData()));
+        }
+    }
+
     private void handleUserInput(NetworkMessage message) {
         System.out.println("Received user input from " + message.getClientId() + ": " + message.getData());
     }
     private void handleLeaderboard(NetworkMessage message) {
+        LeaderboardQuery ranked = LeaderboardQuery.parse(message.getData());
+        if (ranked != null && ranked.getKind() == LeaderboardQuery.Kind.RANKED) {
+            if (window != null) {
+                window.getLeaderboardPanel().showRank(ranked.getUsername(), ranked.getRank());
+            }
+            return;
+        }
         try {
             LeaderboardEntry[] leaderboard = new Gson().fromJson(message.getData(), LeaderboardEntry[].class);
             System.out.println("Received leaderboard update with " + leaderboard.length + " entries");
@@ -350,6 +439,7 @@ public class ClientMain {
 
             reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
             writer = new PrintWriter(socket.getOutputStream(), true);
+            resetConnectionState();
 
             if (networkManager != null) networkManager.stop();
             networkManager = new NetworkManager(this);
@@ -0,0 +1,85 @@
+package client;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of round-trip times in microseconds. Buckets are
+ * log-linear: exact below 32us, then 16 buckets per power of two, so every
+ * reported percentile is within about 6% of the measured value.
+ *
+ * <p>Any thread may record; {@link #drainInto} moves the counts out for the
+ * reporter.
+ */
+class LatencyHistogram {
+    private static final int LINEAR = 32; // Values below this get a bucket each
+    private static final int SUB_BUCKETS = 16; // Buckets per power of two above LINEAR
+    private static final int MAX_MAGNITUDE = 36; // About 19 hours, anything longer is clamped
+    static final int BUCKETS = LINEAR + (MAX_MAGNITUDE - 4) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    void record(long micros) {
+        counts.incrementAndGet(bucket(micros));
+    }
+
+    /**
+     * Adds the counts recorded since the last drain to {@code total} and
+     * {@code interval}, and resets them.
+     */
+    void drainInto(long[] total, long[] interval) {
+        for (int i = 0; i < BUCKETS; i++) {
+            long count = counts.getAndSet(i, 0);
+            total[i] += count;
+            interval[i] = count;
+        }
+    }
+
+    static long count(long[] buckets) {
+        long count = 0;
+        for (long bucket : buckets) {
+            count += bucket;
+        }
+        return count;
+    }
+
+    /**
+     * The upper bound of the bucket holding the given percentile, or 0 if
+     * nothing was recorded.
+     */
+    static long percentile(long[] buckets, double percentile) {
+        long count = count(buckets);
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(count * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets[i];
+            if (seen >= rank) {
+                return upperBound(i);
+            }
+        }
+        return upperBound(BUCKETS - 1);
+    }
+
+    private static int bucket(long micros) {
+        if (micros < LINEAR) {
+            return (int) Math.max(0, micros);
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(micros);
+        if (magnitude >= MAX_MAGNITUDE) {
+            return BUCKETS - 1;
+        }
+        int shift = magnitude - 4;
+        return LINEAR + (magnitude - 5) * SUB_BUCKETS + (int) (micros >> shift) - SUB_BUCKETS;
+    }
+
+    private static long upperBound(int bucket) {
+        if (bucket < LINEAR) {
+            return bucket;
+        }
+        int magnitude = 5 + (bucket - LINEAR) / SUB_BUCKETS;
+        long sub = SUB_BUCKETS + (bucket - LINEAR) % SUB_BUCKETS;
+        return ((sub + 1) << (magnitude - 4)) - 1;
+    }
+}
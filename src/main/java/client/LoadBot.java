@@ -0,0 +1,340 @@
+package client;
+
+import Game.AmmunitionType;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.LineBasedFrameDecoder;
+import io.netty.handler.codec.string.StringDecoder;
+import io.netty.handler.codec.string.StringEncoder;
+import io.netty.util.CharsetUtil;
+import network.GameStateData;
+import network.GameStateDelta;
+import network.MatchInput;
+import network.NetworkMessage;
+import network.SnapshotDeltaEncoder;
+import network.WireProtocol;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One headless player for {@link LoadGenerator}. It goes through the same
+ * steps as a player in {@link ClientMain}: connect, create or join a game,
+ * send a snapshot and ready up, then keep sending state updates, match
+ * inputs, results, leaderboard requests and heartbeats.
+ *
+ * <p>Bots come in pairs. The host creates the game and hands its id to the
+ * guest, which joins it. Every request the server answers is timed from
+ * write to answer. All of a bot's state is only touched on its channel's
+ * event loop, except for the game offered by the host.
+ *
+ * <p>Bots stay on the JSON protocol and acknowledge other players' deltas
+ * without decoding them, so the generator's own cost per message stays
+ * small.
+ */
+class LoadBot extends SimpleChannelInboundHandler<NetworkMessage> {
+    private static final int MATCH_LEVEL = 1; // Same level the lobby starts matches on
+
+    private final int index;
+    private final LoadBot guest; // Set for hosts
+    private final LoadGenerator.Settings settings;
+    private final LoadGenerator.Stats stats;
+    private final Map<NetworkMessage.MessageType, ArrayDeque<Long>> pending = new EnumMap<>(NetworkMessage.MessageType.class);
+    private final Map<Long, Long> pendingStates = new HashMap<>(); // Delta sequence to send time
+    private final SnapshotDeltaEncoder outgoingState = new SnapshotDeltaEncoder();
+    private final List<ScheduledFuture<?>> timers = new ArrayList<>();
+    private volatile Channel channel;
+    private volatile String offeredGame;
+    private volatile boolean stopping;
+    private long connectStarted;
+    private String clientId;
+    private String slot;
+    private long levelStartTime;
+    private int coins;
+    private boolean joined;
+    private boolean playing;
+
+    LoadBot(int index, LoadBot guest, LoadGenerator.Settings settings, LoadGenerator.Stats stats) {
+        this.index = index;
+        this.guest = guest;
+        this.settings = settings;
+        this.stats = stats;
+    }
+
+    void connect(EventLoopGroup group) {
+        connectStarted = System.nanoTime();
+        new Bootstrap()
+                .group(group)
+                .channel(NioSocketChannel.class)
+                .option(ChannelOption.TCP_NODELAY, true)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) settings.timeoutMs)
+                .handler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel channel) {
+                        ChannelPipeline pipeline = channel.pipeline();
+                        pipeline.addLast(new LineBasedFrameDecoder(WireProtocol.MAX_FRAME_LENGTH));
+                        pipeline.addLast(new StringDecoder(CharsetUtil.UTF_8));
+                        pipeline.addLast(new StringEncoder(CharsetUtil.UTF_8));
+                        pipeline.addLast(LoadGenerator.CODEC);
+                        pipeline.addLast(LoadBot.this);
+                    }
+                })
+                .connect(settings.host, settings.port)
+                .addListener(future -> {
+                    if (!future.isSuccess()) {
+                        stats.connectFailures.increment();
+                    }
+                });
+    }
+
+    /**
+     * Sends a goodbye and closes the connection. May be called from any
+     * thread.
+     */
+    void stop() {
+        stopping = true;
+        Channel current = channel;
+        if (current != null) {
+            current.eventLoop().execute(() -> {
+                if (clientId != null) {
+                    send(new NetworkMessage(NetworkMessage.MessageType.DISCONNECT, "Goodbye", clientId));
+                }
+                current.close();
+            });
+        }
+    }
+
+    /**
+     * Called by the host once its game exists. May be called from any thread.
+     */
+    void offerGame(String gameId) {
+        offeredGame = gameId;
+        Channel current = channel;
+        if (current != null) {
+            current.eventLoop().execute(this::joinOfferedGame);
+        }
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) {
+        channel = ctx.channel();
+        stats.connected.incrementAndGet();
+        ctx.fireChannelActive();
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) {
+        stats.connected.decrementAndGet();
+        if (!stopping) {
+            stats.disconnects.increment();
+        }
+        for (ScheduledFuture<?> timer : timers) {
+            timer.cancel(false);
+        }
+        timers.clear();
+        ctx.fireChannelInactive();
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+        stats.errors.increment();
+        ctx.close();
+    }
+
+    @Override
+    protected void channelRead0(ChannelHandlerContext ctx, NetworkMessage message) {
+        stats.received.increment();
+        String sender = message.getClientId();
+        boolean own = clientId != null && clientId.equals(sender);
+        switch (message.getType()) {
+            case CONNECT:
+                if (clientId == null) {
+                    clientId = sender;
+                    stats.record(NetworkMessage.MessageType.CONNECT, System.nanoTime() - connectStarted);
+                    onConnected();
+                }
+                break;
+            case CREATE_GAME:
+                complete(NetworkMessage.MessageType.CREATE_GAME);
+                slot = "player1";
+                if (guest != null) {
+                    guest.offerGame(message.getData());
+                }
+                break;
+            case JOIN_GAME:
+                if (own) {
+                    complete(NetworkMessage.MessageType.JOIN_GAME);
+                    slot = "player2";
+                } else {
+                    startPlaying(); // Sent by the server once both players are in
+                }
+                break;
+            case STATE_ACK:
+                if (own) {
+                    long sequence = Long.parseLong(message.getData());
+                    Long sentAt = pendingStates.remove(sequence);
+                    if (sentAt != null) {
+                        stats.record(NetworkMessage.MessageType.STATE_DELTA, System.nanoTime() - sentAt);
+                    }
+                    outgoingState.acknowledge(sequence);
+                }
+                break;
+            case STATE_DELTA:
+                GameStateDelta delta = message.getStateDelta();
+                if (delta != null) {
+                    send(new NetworkMessage(NetworkMessage.MessageType.STATE_ACK,
+                            String.valueOf(delta.getSequence()), sender));
+                }
+                break;
+            case HEARTBEAT:
+                if ("pong".equals(message.getData())) {
+                    complete(NetworkMessage.MessageType.HEARTBEAT);
+                }
+                break;
+            case LEADERBOARD:
+                if (own) {
+                    complete(NetworkMessage.MessageType.LEADERBOARD);
+                }
+                break;
+            case GAME_RESULT:
+                stats.matchResults.increment();
+                break;
+            case ERROR:
+                stats.errors.increment();
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void onConnected() {
+        every(settings.heartbeatMs, () -> {
+            expireRequests();
+            request(NetworkMessage.MessageType.HEARTBEAT, "ping");
+        });
+        every(settings.leaderboardMs, () -> request(NetworkMessage.MessageType.LEADERBOARD, ""));
+        every(settings.resultMs, this::sendResult);
+        if (index % 2 == 0) {
+            request(NetworkMessage.MessageType.CREATE_GAME, "");
+        } else {
+            joinOfferedGame();
+        }
+    }
+
+    private void joinOfferedGame() {
+        if (clientId == null || joined || offeredGame == null) {
+            return;
+        }
+        joined = true;
+        request(NetworkMessage.MessageType.JOIN_GAME, offeredGame);
+    }
+
+    // Same order as MultiplayerGamePanel: the server builds the match from the snapshot sent before ready.
+    private void startPlaying() {
+        if (playing) {
+            return;
+        }
+        playing = true;
+        levelStartTime = System.currentTimeMillis();
+        sendState();
+        send(new NetworkMessage(NetworkMessage.MessageType.PLAYER_READY, "ready", clientId));
+        every(settings.stateMs, this::sendState);
+        every(settings.inputMs, this::sendInput);
+    }
+
+    private void sendState() {
+        coins++;
+        GameStateDelta delta = outgoingState.encode(snapshot());
+        pendingStates.put(delta.getSequence(), System.nanoTime());
+        send(new NetworkMessage(NetworkMessage.MessageType.STATE_DELTA, delta, clientId));
+    }
+
+    private void sendInput() {
+        if (slot != null) {
+            AmmunitionType[] ammunition = AmmunitionType.values();
+            String data = MatchInput.fire(slot + "_system1", ammunition[ThreadLocalRandom.current().nextInt(ammunition.length)]);
+            send(new NetworkMessage(NetworkMessage.MessageType.USER_INPUT, data, clientId));
+        }
+    }
+
+    private void sendResult() {
+        GameStateData result = snapshot();
+        result.setSuccessfully(true);
+        send(new NetworkMessage(NetworkMessage.MessageType.GAME_RESULT, result, clientId));
+    }
+
+    // A new object every time, the delta encoder keeps the snapshots it sent.
+    private GameStateData snapshot() {
+        GameStateData snapshot = new GameStateData();
+        snapshot.setLevel(MATCH_LEVEL);
+        snapshot.setUsername("bot_" + index);
+        snapshot.setLevelStartTime(levelStartTime > 0 ? levelStartTime : System.currentTimeMillis());
+        snapshot.setCoins(coins);
+        return snapshot;
+    }
+
+    private void request(NetworkMessage.MessageType type, String data) {
+        pending.computeIfAbsent(type, t -> new ArrayDeque<>()).add(System.nanoTime());
+        send(new NetworkMessage(type, data, clientId));
+    }
+
+    // The server answers each kind of request in order, so the oldest one is the one answered.
+    private void complete(NetworkMessage.MessageType type) {
+        ArrayDeque<Long> sent = pending.get(type);
+        Long sentAt = sent != null ? sent.poll() : null;
+        if (sentAt != null) {
+            stats.record(type, System.nanoTime() - sentAt);
+        }
+    }
+
+    // Requests the server never answered count as timeouts rather than latency.
+    private void expireRequests() {
+        long oldest = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(settings.timeoutMs);
+        for (ArrayDeque<Long> sent : pending.values()) {
+            while (!sent.isEmpty() && sent.peek() < oldest) {
+                sent.poll();
+                stats.timeouts.increment();
+            }
+        }
+        Iterator<Long> sentAt = pendingStates.values().iterator();
+        while (sentAt.hasNext()) {
+            if (sentAt.next() < oldest) {
+                sentAt.remove();
+                stats.timeouts.increment();
+            }
+        }
+    }
+
+    private void send(NetworkMessage message) {
+        Channel current = channel;
+        if (current != null && current.isActive()) {
+            current.writeAndFlush(message);
+            stats.sent.increment();
+        }
+    }
+
+    // Timers start at a random point of their period so bots started together do not send together.
+    private void every(long periodMs, Runnable task) {
+        if (periodMs <= 0) {
+            return;
+        }
+        long initialDelay = ThreadLocalRandom.current().nextLong(periodMs) + 1;
+        timers.add(channel.eventLoop().scheduleAtFixedRate(task, initialDelay, periodMs, TimeUnit.MILLISECONDS));
+    }
+}
@@ -0,0 +1,234 @@
+package client;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import network.NetworkMessage;
+import network.NetworkMessageCodec;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Headless load test for {@code ServerMain}. Starts a number of
+ * {@link LoadBot}s against a running server, paired up into matches, and
+ * prints throughput, round-trip percentiles and error counts while they run.
+ *
+ * <p>Settings are given as {@code name=value} arguments, see
+ * {@link Settings}. For example
+ * {@code bots=2000 rampUp=30 duration=120 state=500}. Thousands of bots on
+ * one machine need a raised open file limit on both sides.
+ */
+public class LoadGenerator {
+    static final NetworkMessageCodec CODEC = new NetworkMessageCodec();
+    // Requests whose answers are timed, in report order.
+    private static final NetworkMessage.MessageType[] TIMED = {
+            NetworkMessage.MessageType.CONNECT,
+            NetworkMessage.MessageType.CREATE_GAME,
+            NetworkMessage.MessageType.JOIN_GAME,
+            NetworkMessage.MessageType.STATE_DELTA,
+            NetworkMessage.MessageType.LEADERBOARD,
+            NetworkMessage.MessageType.HEARTBEAT
+    };
+
+    private final Settings settings;
+    private final Stats stats = new Stats();
+    private final List<LoadBot> bots = new ArrayList<>();
+    private final ScheduledExecutorService runner = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "load-runner");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final long[] lastCounts = new long[3];
+    private long startedAt;
+    private long lastReportAt;
+
+    public LoadGenerator(Settings settings) {
+        this.settings = settings;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        Settings settings = Settings.parse(args);
+        System.out.println("Load test: " + settings);
+        new LoadGenerator(settings).run();
+    }
+
+    public void run() throws InterruptedException {
+        EventLoopGroup group = new NioEventLoopGroup();
+        try {
+            // Bots are created guest first so each host can be handed its guest.
+            for (int i = 0; i < settings.bots; i += 2) {
+                LoadBot guest = i + 1 < settings.bots ? new LoadBot(i + 1, null, settings, stats) : null;
+                bots.add(new LoadBot(i, guest, settings, stats));
+                if (guest != null) {
+                    bots.add(guest);
+                }
+            }
+            startedAt = System.nanoTime();
+            lastReportAt = startedAt;
+            long rampNanos = TimeUnit.SECONDS.toNanos(settings.rampUpSeconds);
+            for (int i = 0; i < bots.size(); i++) {
+                LoadBot bot = bots.get(i);
+                runner.schedule(() -> bot.connect(group), rampNanos * i / bots.size(), TimeUnit.NANOSECONDS);
+            }
+            runner.scheduleAtFixedRate(this::report, settings.reportSeconds, settings.reportSeconds, TimeUnit.SECONDS);
+
+            Thread.sleep(TimeUnit.SECONDS.toMillis(settings.durationSeconds));
+            runner.shutdownNow();
+            for (LoadBot bot : bots) {
+                bot.stop();
+            }
+            Thread.sleep(settings.timeoutMs);
+            report();
+            printSummary();
+        } finally {
+            runner.shutdownNow();
+            group.shutdownGracefully();
+        }
+    }
+
+    private synchronized void report() {
+        long now = System.nanoTime();
+        double seconds = Math.max(1e-3, (now - lastReportAt) / 1e9);
+        lastReportAt = now;
+        long[] interval = new long[LatencyHistogram.BUCKETS];
+        long[] all = new long[LatencyHistogram.BUCKETS];
+        for (NetworkMessage.MessageType type : TIMED) {
+            stats.histograms.get(type).drainInto(stats.totals.get(type), interval);
+            for (int i = 0; i < interval.length; i++) {
+                all[i] += interval[i];
+            }
+        }
+        long sent = stats.sent.sum();
+        long received = stats.received.sum();
+        long failures = stats.failures();
+        System.out.printf("[%4ds] %d/%d connected | sent %.0f/s received %.0f/s | rtt p50 %s p99 %s | failures %d%n",
+                TimeUnit.NANOSECONDS.toSeconds(now - startedAt), stats.connected.get(), bots.size(),
+                (sent - lastCounts[0]) / seconds, (received - lastCounts[1]) / seconds,
+                millis(LatencyHistogram.percentile(all, 50)), millis(LatencyHistogram.percentile(all, 99)),
+                failures - lastCounts[2]);
+        lastCounts[0] = sent;
+        lastCounts[1] = received;
+        lastCounts[2] = failures;
+    }
+
+    private void printSummary() {
+        double seconds = (System.nanoTime() - startedAt) / 1e9;
+        long sent = stats.sent.sum();
+        long received = stats.received.sum();
+        System.out.println();
+        System.out.printf("%d bots, %.0fs: sent %d (%.0f/s), received %d (%.0f/s), %d match results%n",
+                bots.size(), seconds, sent, sent / seconds, received, received / seconds, stats.matchResults.sum());
+        System.out.printf("%-12s %10s %10s %10s %10s%n", "round trip", "count", "p50", "p99", "p99.9");
+        long answered = 0;
+        for (NetworkMessage.MessageType type : TIMED) {
+            long[] buckets = stats.totals.get(type);
+            long count = LatencyHistogram.count(buckets);
+            answered += count;
+            System.out.printf("%-12s %10d %10s %10s %10s%n", type, count,
+                    millis(LatencyHistogram.percentile(buckets, 50)),
+                    millis(LatencyHistogram.percentile(buckets, 99)),
+                    millis(LatencyHistogram.percentile(buckets, 99.9)));
+        }
+        long failures = stats.failures();
+        System.out.printf("Failures: %d connect, %d dropped connections, %d timeouts, %d errors (%.3f%% of %d requests)%n",
+                stats.connectFailures.sum(), stats.disconnects.sum(), stats.timeouts.sum(), stats.errors.sum(),
+                100.0 * failures / Math.max(1, answered + failures), answered + failures);
+    }
+
+    private static String millis(long micros) {
+        return String.format("%.2fms", micros / 1000.0);
+    }
+
+    /**
+     * What the bots do and how often. Periods are in milliseconds; a period
+     * of 0 turns that traffic off.
+     */
+    public static final class Settings {
+        String host = "localhost";
+        int port = 8888;
+        int bots = 100;
+        long rampUpSeconds = 10; // Time over which the bots connect
+        long durationSeconds = 60;
+        long reportSeconds = 5;
+        long stateMs = 1000; // State updates while in a match, MultiplayerGamePanel sends one a second
+        long inputMs = 1000; // Fire commands while in a match
+        long heartbeatMs = 10000; // Same as ClientMain
+        long leaderboardMs = 30000;
+        long resultMs = 60000;
+        long timeoutMs = 5000; // Unanswered requests count as failures after this long
+
+        static Settings parse(String[] args) {
+            Settings settings = new Settings();
+            for (String arg : args) {
+                int split = arg.indexOf('=');
+                if (split <= 0) {
+                    throw new IllegalArgumentException("Expected name=value, got " + arg);
+                }
+                String name = arg.substring(0, split);
+                String value = arg.substring(split + 1);
+                switch (name) {
+                    case "host" -> settings.host = value;
+                    case "port" -> settings.port = Integer.parseInt(value);
+                    case "bots" -> settings.bots = Integer.parseInt(value);
+                    case "rampUp" -> settings.rampUpSeconds = Long.parseLong(value);
+                    case "duration" -> settings.durationSeconds = Long.parseLong(value);
+                    case "report" -> settings.reportSeconds = Long.parseLong(value);
+                    case "state" -> settings.stateMs = Long.parseLong(value);
+                    case "input" -> settings.inputMs = Long.parseLong(value);
+                    case "heartbeat" -> settings.heartbeatMs = Long.parseLong(value);
+                    case "leaderboard" -> settings.leaderboardMs = Long.parseLong(value);
+                    case "result" -> settings.resultMs = Long.parseLong(value);
+                    case "timeout" -> settings.timeoutMs = Long.parseLong(value);
+                    default -> throw new IllegalArgumentException("Unknown setting " + name);
+                }
+            }
+            return settings;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d bots on %s:%d, ramp-up %ds, run %ds, periods: state %dms input %dms heartbeat %dms "
+                            + "leaderboard %dms result %dms",
+                    bots, host, port, rampUpSeconds, durationSeconds, stateMs, inputMs, heartbeatMs,
+                    leaderboardMs, resultMs);
+        }
+    }
+
+    /**
+     * Counters shared by every bot.
+     */
+    static final class Stats {
+        final LongAdder sent = new LongAdder();
+        final LongAdder received = new LongAdder();
+        final LongAdder errors = new LongAdder(); // ERROR messages and broken frames
+        final LongAdder timeouts = new LongAdder();
+        final LongAdder connectFailures = new LongAdder();
+        final LongAdder disconnects = new LongAdder(); // Connections the server closed
+        final LongAdder matchResults = new LongAdder();
+        final AtomicInteger connected = new AtomicInteger();
+        private final Map<NetworkMessage.MessageType, LatencyHistogram> histograms = new EnumMap<>(NetworkMessage.MessageType.class);
+        private final Map<NetworkMessage.MessageType, long[]> totals = new EnumMap<>(NetworkMessage.MessageType.class); // Reporter only
+
+        Stats() {
+            for (NetworkMessage.MessageType type : TIMED) {
+                histograms.put(type, new LatencyHistogram());
+                totals.put(type, new long[LatencyHistogram.BUCKETS]);
+            }
+        }
+
+        void record(NetworkMessage.MessageType type, long nanos) {
+            histograms.get(type).record(TimeUnit.NANOSECONDS.toMicros(nanos));
+        }
+
+        long failures() {
+            return errors.sum() + timeouts.sum() + connectFailures.sum() + disconnects.sum();
+        }
+    }
+}
@@ -1,28 +1,50 @@
 package client;
 
+import network.BinaryMessageFormat;
 import network.NetworkMessage;
+import network.WireProtocol;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 
 public class NetworkManager implements Runnable {
     private final ClientMain client;
-    private final BufferedReader reader;
+    private final InputStream input;
+    private final ByteArrayOutputStream line = new ByteArrayOutputStream(256);
     private final AtomicBoolean running = new AtomicBoolean(true);
+    // Set on this thread when the server acknowledges the binary protocol.
+    private BinaryMessageFormat.Reader binaryReader;
 
     public NetworkManager(ClientMain client) throws IOException {
         this.client = client;
-        this.reader = new BufferedReader(new InputStreamReader(client.socket.getInputStream()));
+        this.input = new BufferedInputStream(client.socket.getInputStream());
     }
 
     @Override
     public void run() {
         try {
-            String inputLine;
-            while (running.get() && (inputLine = reader.readLine()) != null) {
+            while (running.get()) {
+                NetworkMessage message;
+                if (binaryReader != null) {
+                    message = binaryReader.readFrame(input);
+                    if (message == null) {
+                        break;
+                    }
+                } else {
+                    String inputLine = readLine();
+                    if (inputLine == null) {
+                        break;
+                    }
+                    try {
+                        message = NetworkMessage.fromJson(inputLine);
+                    } catch (Exception e) {
+                        System.err.println("Error processing incoming message: " + e.getMessage());
+                        continue;
+                    }
+                }
                 try {
-                    NetworkMessage message = NetworkMessage.fromJson(inputLine);
                     client.handleMessage(message);
                 } catch (Exception e) {
                     System.err.println("Error processing incoming message: " + e.getMessage());
@@ -36,10 +58,36 @@ public class NetworkManager implements Runnable {
         }
     }
 
+    /**
+     * Reads binary frames from now on. Only called from this thread, while
+     * handling the server's acknowledgement.
+     */
+    void useBinaryProtocol() {
+        binaryReader = new BinaryMessageFormat.Reader();
+    }
+
+    // Reads bytes rather than chars so nothing past the line is buffered when the protocol switches.
+    private String readLine() throws IOException {
+        line.reset();
+        int b;
+        while ((b = input.read()) != '\n') {
+            if (b < 0) {
+                return line.size() > 0 ? line.toString(StandardCharsets.UTF_8) : null;
+            }
+            if (line.size() >= WireProtocol.MAX_FRAME_LENGTH) {
+                throw new IOException("Line too long");
+            }
+            line.write(b);
+        }
+        int length = line.size();
+        String text = line.toString(StandardCharsets.UTF_8);
+        return length > 0 && text.endsWith("\r") ? text.substring(0, text.length() - 1) : text;
+    }
+
     public void stop() {
         running.set(false);
         try {
-            reader.close();
+            input.close();
         } catch (IOException ignored) {}
     }
 }
@@ -0,0 +1,73 @@
+package network;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.ByteToMessageCodec;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.handler.codec.TooLongFrameException;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Frames and encodes {@link NetworkMessage}s with {@link BinaryMessageFormat}.
+ * Holds the symbol tables of one connection, so every channel needs its own
+ * instance. A frame that cannot be decoded closes the channel, because the
+ * tables can no longer be trusted to match the other end.
+ */
+public class BinaryMessageCodec extends ByteToMessageCodec<NetworkMessage> {
+    private final BinaryMessageFormat.Writer writer = new BinaryMessageFormat.Writer();
+    private final BinaryMessageFormat.Reader reader = new BinaryMessageFormat.Reader();
+
+    public BinaryMessageCodec() {
+        super(NetworkMessage.class);
+    }
+
+    // Oversized messages fail here without touching the symbol table, see Writer#writeFrame.
+    @Override
+    protected void encode(ChannelHandlerContext ctx, NetworkMessage message, ByteBuf out) throws IOException {
+        writer.writeFrame(message, new ByteBufOutputStream(out));
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws IOException {
+        in.markReaderIndex();
+        int length = 0;
+        for (int shift = 0; ; shift += 7) {
+            if (!in.isReadable()) {
+                in.resetReaderIndex();
+                return;
+            }
+            if (shift > 28) {
+                ctx.close();
+                throw new CorruptedFrameException("Malformed frame length");
+            }
+            byte b = in.readByte();
+            length |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                break;
+            }
+        }
+        if (length < 0 || length > WireProtocol.MAX_FRAME_LENGTH) {
+            ctx.close();
+            throw new TooLongFrameException("Frame too large: " + length + " bytes");
+        }
+        if (in.readableBytes() < length) {
+            in.resetReaderIndex();
+            return;
+        }
+        int end = in.readerIndex() + length;
+        try {
+            out.add(reader.read(new ByteBufInputStream(in, length)));
+            if (in.readerIndex() != end) {
+                throw new IOException("Trailing bytes in frame");
+            }
+        } catch (IOException | RuntimeException e) {
+            in.readerIndex(end);
+            ctx.close();
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,687 @@
+package network;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary encoding of {@link NetworkMessage}. A frame is a varint length
+ * followed by the message: a version byte, the message type, the header
+ * strings, the timestamp and the payload. A {@link GameStateData} payload is
+ * written field by field rather than as a JSON string.
+ *
+ * <p>Ids, types and map keys are written as symbols. The first time a string
+ * is sent it goes out in full and both ends add it to their table; after that
+ * only its index is sent. Tables are per direction of one connection, so a
+ * {@link Writer} and the {@link Reader} at the other end must see the same
+ * frames in the same order.
+ *
+ * <p>A standalone frame, see {@link #encodeStandaloneFrame}, sends every
+ * string in full and leaves both tables alone, so the same bytes can go out
+ * on any number of connections.
+ *
+ * <p>Property values come back as Boolean, Long, Double, String, List or Map.
+ */
+public final class BinaryMessageFormat {
+    public static final int VERSION = 2;
+    private static final int STANDALONE = 0x80; // Version byte flag of frames that bypass the symbol tables
+    static final int MAX_SYMBOLS = 4096; // Strings remembered per direction of a connection
+    static final int MAX_SYMBOL_LENGTH = 256; // Longer strings are always sent in full
+    private static final int MAX_DEPTH = 32; // Nesting limit for property values
+
+    private static final int PAYLOAD_NONE = 0;
+    private static final int PAYLOAD_TEXT = 1;
+    private static final int PAYLOAD_GAME_STATE = 2;
+    private static final int PAYLOAD_STATE_DELTA = 3;
+
+    private static final int VALUE_NULL = 0;
+    private static final int VALUE_FALSE = 1;
+    private static final int VALUE_TRUE = 2;
+    private static final int VALUE_LONG = 3;
+    private static final int VALUE_DOUBLE = 4;
+    private static final int VALUE_STRING = 5;
+    private static final int VALUE_LIST = 6;
+    private static final int VALUE_MAP = 7;
+
+    private static final NetworkMessage.MessageType[] TYPES = NetworkMessage.MessageType.values();
+
+    private BinaryMessageFormat() {
+    }
+
+    /**
+     * Encodes the message as one length-prefixed frame that any connection's
+     * {@link Reader} can decode, whatever its symbol table holds.
+     */
+    public static byte[] encodeStandaloneFrame(NetworkMessage message) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        new Writer(true).writeFrame(message, out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Encodes messages for one direction of a connection. Not thread-safe.
+     */
+    public static final class Writer {
+        private final Map<String, Integer> symbols = new HashMap<>();
+        private final List<String> defined = new ArrayList<>(); // Symbols in index order, to forget the newest
+        private final boolean standalone;
+        private final ByteArrayOutputStream frame = new ByteArrayOutputStream(256);
+        private final DataOutputStream frameOut = new DataOutputStream(frame);
+        private final byte[] header = new byte[5];
+
+        public Writer() {
+            this(false);
+        }
+
+        private Writer(boolean standalone) {
+            this.standalone = standalone;
+        }
+
+        /**
+         * Writes the message without a length prefix. If writing fails, the
+         * symbols it defined are forgotten again, since the other end never
+         * sees them.
+         */
+        public void write(NetworkMessage message, DataOutput out) throws IOException {
+            int mark = defined.size();
+            try {
+                writeMessage(message, out);
+            } catch (IOException | RuntimeException e) {
+                forgetSymbols(mark);
+                throw e;
+            }
+        }
+
+        /**
+         * Writes the message as one length-prefixed frame and flushes the
+         * stream. A message over {@link WireProtocol#MAX_FRAME_LENGTH} is not
+         * written and leaves the symbol table as it was.
+         */
+        public void writeFrame(NetworkMessage message, OutputStream out) throws IOException {
+            int mark = defined.size();
+            frame.reset();
+            write(message, frameOut);
+            frameOut.flush();
+            if (frame.size() > WireProtocol.MAX_FRAME_LENGTH) {
+                forgetSymbols(mark);
+                throw new IOException("Message too large: " + frame.size() + " bytes");
+            }
+            int length = frame.size();
+            int n = 0;
+            while ((length & ~0x7F) != 0) {
+                header[n++] = (byte) ((length & 0x7F) | 0x80);
+                length >>>= 7;
+            }
+            header[n++] = (byte) length;
+            out.write(header, 0, n);
+            frame.writeTo(out);
+            out.flush();
+        }
+
+        private void forgetSymbols(int count) {
+            while (defined.size() > count) {
+                symbols.remove(defined.remove(defined.size() - 1));
+            }
+        }
+
+        private void writeMessage(NetworkMessage message, DataOutput out) throws IOException {
+            out.writeByte(standalone ? VERSION | STANDALONE : VERSION);
+            writeVarInt(out, message.getType().ordinal());
+            writeSymbol(out, message.getClientId());
+            writeVarLong(out, message.getTimestamp());
+            writeSymbol(out, message.getSessionId());
+            writeSymbol(out, message.getProtocol());
+            if (message.hasGameStatePayload()) {
+                GameStateData state = message.getGameState();
+                if (state instanceof GameStateDelta) {
+                    out.writeByte(PAYLOAD_STATE_DELTA);
+                    writeGameState(out, state);
+                    writeDeltaFields(out, (GameStateDelta) state);
+                } else {
+                    out.writeByte(PAYLOAD_GAME_STATE);
+                    writeGameState(out, state);
+                }
+            } else if (message.getData() != null) {
+                out.writeByte(PAYLOAD_TEXT);
+                writeText(out, message.getData());
+            } else {
+                out.writeByte(PAYLOAD_NONE);
+            }
+        }
+
+        private void writeGameState(DataOutput out, GameStateData state) throws IOException {
+            writeSignedVarInt(out, state.getLevel());
+            out.writeByte((state.isGameOver() ? 1 : 0) | (state.isSuccessfully() ? 2 : 0));
+            writeSignedVarInt(out, state.getPacketLoss());
+            writeSignedVarLong(out, state.getLevelStartTime());
+            writeSymbol(out, state.getUsername());
+            writeSignedVarInt(out, state.getCoins());
+            writeSignedVarInt(out, state.getMaxLevelPass());
+            writeSignedVarInt(out, state.getNumberPacketsSquare());
+            writeSignedVarInt(out, state.getNumberPacketTriangle());
+            writeSignedVarInt(out, state.getNumberPacketsCircle());
+            writeSignedVarInt(out, state.getNumberPacketsConfidential4());
+            writeSignedVarInt(out, state.getNumberPacketsConfidential6());
+            writeSignedVarInt(out, state.getNumberPacketsBulky8());
+            writeSignedVarInt(out, state.getNumberPacketsBulky10());
+
+            List<GameStateData.NodeData> nodes = state.getNodes();
+            writeCount(out, nodes);
+            if (nodes != null) {
+                for (GameStateData.NodeData node : nodes) {
+                    writeSymbol(out, node.getId());
+                    out.writeDouble(node.getX());
+                    out.writeDouble(node.getY());
+                    writeSymbol(out, node.getType());
+                    writeProperties(out, node.getProperties());
+                }
+            }
+
+            List<GameStateData.ConnectionData> connections = state.getConnections();
+            writeCount(out, connections);
+            if (connections != null) {
+                for (GameStateData.ConnectionData connection : connections) {
+                    writeSymbol(out, connection.getId());
+                    writeSymbol(out, connection.getFromNodeId());
+                    writeSymbol(out, connection.getToNodeId());
+                    List<GameStateData.BendPointData> bendPoints = connection.getBendPoints();
+                    writeCount(out, bendPoints);
+                    if (bendPoints != null) {
+                        for (GameStateData.BendPointData bendPoint : bendPoints) {
+                            out.writeDouble(bendPoint.getX());
+                            out.writeDouble(bendPoint.getY());
+                        }
+                    }
+                    writeProperties(out, connection.getProperties());
+                }
+            }
+
+            List<GameStateData.PacketData> packets = state.getPackets();
+            writeCount(out, packets);
+            if (packets != null) {
+                for (GameStateData.PacketData packet : packets) {
+                    writeSymbol(out, packet.getId());
+                    out.writeDouble(packet.getX());
+                    out.writeDouble(packet.getY());
+                    writeSymbol(out, packet.getType());
+                    out.writeDouble(packet.getProgress());
+                    writeSymbol(out, packet.getConnectionId());
+                    writeProperties(out, packet.getProperties());
+                }
+            }
+
+            List<GameStateData.ShockwaveData> shockwaves = state.getShockwaves();
+            writeCount(out, shockwaves);
+            if (shockwaves != null) {
+                for (GameStateData.ShockwaveData shockwave : shockwaves) {
+                    writeSymbol(out, shockwave.getId());
+                    out.writeDouble(shockwave.getX());
+                    out.writeDouble(shockwave.getY());
+                    out.writeDouble(shockwave.getRadius());
+                    writeSignedVarLong(out, shockwave.getTimestamp());
+                    writeProperties(out, shockwave.getProperties());
+                }
+            }
+
+            writeProperties(out, state.getPowerUpStates());
+            writeProperties(out, state.getPowerUpTimers());
+        }
+
+        private void writeDeltaFields(DataOutput out, GameStateDelta delta) throws IOException {
+            writeVarLong(out, delta.getSequence());
+            writeVarLong(out, delta.getBaseSequence());
+            writeSymbols(out, delta.getRemovedNodeIds());
+            writeSymbols(out, delta.getRemovedConnectionIds());
+            writeSymbols(out, delta.getRemovedPacketIds());
+            writeSymbols(out, delta.getRemovedShockwaveIds());
+        }
+
+        private void writeSymbols(DataOutput out, List<String> values) throws IOException {
+            writeCount(out, values);
+            if (values != null) {
+                for (String value : values) {
+                    writeSymbol(out, value);
+                }
+            }
+        }
+
+        private void writeProperties(DataOutput out, Map<String, ?> properties) throws IOException {
+            writeVarInt(out, properties == null ? 0 : properties.size() + 1);
+            if (properties != null) {
+                for (Map.Entry<String, ?> entry : properties.entrySet()) {
+                    writeSymbol(out, entry.getKey());
+                    writeValue(out, entry.getValue());
+                }
+            }
+        }
+
+        private void writeValue(DataOutput out, Object value) throws IOException {
+            if (value == null) {
+                out.writeByte(VALUE_NULL);
+            } else if (value instanceof Boolean) {
+                out.writeByte((Boolean) value ? VALUE_TRUE : VALUE_FALSE);
+            } else if (value instanceof Long || value instanceof Integer
+                    || value instanceof Short || value instanceof Byte) {
+                out.writeByte(VALUE_LONG);
+                writeSignedVarLong(out, ((Number) value).longValue());
+            } else if (value instanceof Number) {
+                out.writeByte(VALUE_DOUBLE);
+                out.writeDouble(((Number) value).doubleValue());
+            } else if (value instanceof Collection) {
+                Collection<?> values = (Collection<?>) value;
+                out.writeByte(VALUE_LIST);
+                writeVarInt(out, values.size());
+                for (Object element : values) {
+                    writeValue(out, element);
+                }
+            } else if (value instanceof Map) {
+                Map<?, ?> map = (Map<?, ?>) value;
+                out.writeByte(VALUE_MAP);
+                writeVarInt(out, map.size());
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    writeSymbol(out, String.valueOf(entry.getKey()));
+                    writeValue(out, entry.getValue());
+                }
+            } else {
+                out.writeByte(VALUE_STRING);
+                writeSymbol(out, value.toString());
+            }
+        }
+
+        private void writeSymbol(DataOutput out, String value) throws IOException {
+            if (value == null) {
+                writeVarInt(out, 0);
+                return;
+            }
+            Integer index = standalone ? null : symbols.get(value);
+            if (index != null) {
+                writeVarInt(out, (index << 1) | 1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(out, (bytes.length + 1) << 1);
+            out.write(bytes);
+            if (!standalone && isRemembered(symbols.size(), value)) {
+                symbols.put(value, symbols.size());
+                defined.add(value);
+            }
+        }
+    }
+
+    /**
+     * Decodes messages for one direction of a connection. Not thread-safe.
+     */
+    public static final class Reader {
+        private final List<String> symbols = new ArrayList<>();
+        private byte[] buffer = new byte[256];
+        private boolean standalone; // Whether the frame being read bypasses the table
+
+        /**
+         * Reads one message written by {@link Writer#write}.
+         */
+        public NetworkMessage read(DataInput in) throws IOException {
+            int version = in.readUnsignedByte();
+            standalone = (version & STANDALONE) != 0;
+            if ((version & ~STANDALONE) != VERSION) {
+                throw new IOException("Unsupported binary protocol version " + version);
+            }
+            int typeIndex = readVarInt(in);
+            if (typeIndex >= TYPES.length) {
+                throw new IOException("Unknown message type " + typeIndex);
+            }
+            String clientId = readSymbol(in);
+            NetworkMessage message = new NetworkMessage(TYPES[typeIndex], (String) null, clientId);
+            message.setTimestamp(readVarLong(in));
+            message.setSessionId(readSymbol(in));
+            message.setProtocol(readSymbol(in));
+            int payload = in.readUnsignedByte();
+            if (payload == PAYLOAD_TEXT) {
+                message.setData(readText(in));
+            } else if (payload == PAYLOAD_GAME_STATE) {
+                message.setGameState(readGameState(in, new GameStateData()));
+            } else if (payload == PAYLOAD_STATE_DELTA) {
+                GameStateDelta delta = readGameState(in, new GameStateDelta());
+                delta.setSequence(readVarLong(in));
+                delta.setBaseSequence(readVarLong(in));
+                delta.setRemovedNodeIds(readSymbols(in));
+                delta.setRemovedConnectionIds(readSymbols(in));
+                delta.setRemovedPacketIds(readSymbols(in));
+                delta.setRemovedShockwaveIds(readSymbols(in));
+                message.setGameState(delta);
+            } else if (payload != PAYLOAD_NONE) {
+                throw new IOException("Unknown payload " + payload);
+            }
+            return message;
+        }
+
+        /**
+         * Reads one length-prefixed frame.
+         *
+         * @return the message, or null if the stream ended between frames
+         */
+        public NetworkMessage readFrame(InputStream in) throws IOException {
+            int first = in.read();
+            if (first < 0) {
+                return null;
+            }
+            int length = first & 0x7F;
+            for (int shift = 7; (first & 0x80) != 0; shift += 7) {
+                if (shift > 28) {
+                    throw new IOException("Malformed frame length");
+                }
+                first = in.read();
+                if (first < 0) {
+                    throw new EOFException();
+                }
+                length |= (first & 0x7F) << shift;
+            }
+            if (length < 0 || length > WireProtocol.MAX_FRAME_LENGTH) {
+                throw new IOException("Frame too large: " + length + " bytes");
+            }
+            if (buffer.length < length) {
+                buffer = new byte[Math.max(length, buffer.length * 2)];
+            }
+            new DataInputStream(in).readFully(buffer, 0, length);
+            ByteArrayInputStream body = new ByteArrayInputStream(buffer, 0, length);
+            NetworkMessage message = read(new DataInputStream(body));
+            if (body.available() != 0) {
+                throw new IOException("Trailing bytes in frame");
+            }
+            return message;
+        }
+
+        private List<String> readSymbols(DataInput in) throws IOException {
+            int count = readVarInt(in);
+            if (count == 0) {
+                return null;
+            }
+            List<String> values = newList(count - 1);
+            for (int i = 1; i < count; i++) {
+                values.add(readSymbol(in));
+            }
+            return values;
+        }
+
+        private <T extends GameStateData> T readGameState(DataInput in, T state) throws IOException {
+            state.setLevel(readSignedVarInt(in));
+            int flags = in.readUnsignedByte();
+            state.setGameOver((flags & 1) != 0);
+            state.setSuccessfully((flags & 2) != 0);
+            state.setPacketLoss(readSignedVarInt(in));
+            state.setLevelStartTime(readSignedVarLong(in));
+            state.setUsername(readSymbol(in));
+            state.setCoins(readSignedVarInt(in));
+            state.setMaxLevelPass(readSignedVarInt(in));
+            state.setNumberPacketsSquare(readSignedVarInt(in));
+            state.setNumberPacketTriangle(readSignedVarInt(in));
+            state.setNumberPacketsCircle(readSignedVarInt(in));
+            state.setNumberPacketsConfidential4(readSignedVarInt(in));
+            state.setNumberPacketsConfidential6(readSignedVarInt(in));
+            state.setNumberPacketsBulky8(readSignedVarInt(in));
+            state.setNumberPacketsBulky10(readSignedVarInt(in));
+
+            int count = readVarInt(in);
+            if (count > 0) {
+                List<GameStateData.NodeData> nodes = newList(count - 1);
+                for (int i = 1; i < count; i++) {
+                    GameStateData.NodeData node = new GameStateData.NodeData();
+                    node.setId(readSymbol(in));
+                    node.setX(in.readDouble());
+                    node.setY(in.readDouble());
+                    node.setType(readSymbol(in));
+                    node.setProperties(readProperties(in));
+                    nodes.add(node);
+                }
+                state.setNodes(nodes);
+            }
+
+            count = readVarInt(in);
+            if (count > 0) {
+                List<GameStateData.ConnectionData> connections = newList(count - 1);
+                for (int i = 1; i < count; i++) {
+                    GameStateData.ConnectionData connection = new GameStateData.ConnectionData();
+                    connection.setId(readSymbol(in));
+                    connection.setFromNodeId(readSymbol(in));
+                    connection.setToNodeId(readSymbol(in));
+                    int bendCount = readVarInt(in);
+                    if (bendCount > 0) {
+                        List<GameStateData.BendPointData> bendPoints = newList(bendCount - 1);
+                        for (int j = 1; j < bendCount; j++) {
+                            bendPoints.add(new GameStateData.BendPointData(in.readDouble(), in.readDouble()));
+                        }
+                        connection.setBendPoints(bendPoints);
+                    }
+                    connection.setProperties(readProperties(in));
+                    connections.add(connection);
+                }
+                state.setConnections(connections);
+            }
+
+            count = readVarInt(in);
+            if (count > 0) {
+                List<GameStateData.PacketData> packets = newList(count - 1);
+                for (int i = 1; i < count; i++) {
+                    GameStateData.PacketData packet = new GameStateData.PacketData();
+                    packet.setId(readSymbol(in));
+                    packet.setX(in.readDouble());
+                    packet.setY(in.readDouble());
+                    packet.setType(readSymbol(in));
+                    packet.setProgress(in.readDouble());
+                    packet.setConnectionId(readSymbol(in));
+                    packet.setProperties(readProperties(in));
+                    packets.add(packet);
+                }
+                state.setPackets(packets);
+            }
+
+            count = readVarInt(in);
+            if (count > 0) {
+                List<GameStateData.ShockwaveData> shockwaves = newList(count - 1);
+                for (int i = 1; i < count; i++) {
+                    GameStateData.ShockwaveData shockwave = new GameStateData.ShockwaveData();
+                    shockwave.setId(readSymbol(in));
+                    shockwave.setX(in.readDouble());
+                    shockwave.setY(in.readDouble());
+                    shockwave.setRadius(in.readDouble());
+                    shockwave.setTimestamp(readSignedVarLong(in));
+                    shockwave.setProperties(readProperties(in));
+                    shockwaves.add(shockwave);
+                }
+                state.setShockwaves(shockwaves);
+            }
+
+            state.setPowerUpStates(readTypedProperties(in, Boolean.class));
+            state.setPowerUpTimers(readTypedProperties(in, Long.class));
+            return state;
+        }
+
+        private Map<String, Object> readProperties(DataInput in) throws IOException {
+            int count = readVarInt(in);
+            if (count == 0) {
+                return null;
+            }
+            Map<String, Object> properties = new LinkedHashMap<>();
+            for (int i = 1; i < count; i++) {
+                properties.put(readSymbol(in), readValue(in, 0));
+            }
+            return properties;
+        }
+
+        private <T> Map<String, T> readTypedProperties(DataInput in, Class<T> type) throws IOException {
+            Map<String, Object> properties = readProperties(in);
+            if (properties == null) {
+                return null;
+            }
+            Map<String, T> typed = new LinkedHashMap<>();
+            for (Map.Entry<String, Object> entry : properties.entrySet()) {
+                Object value = entry.getValue();
+                if (value != null && !type.isInstance(value)) {
+                    throw new IOException("Expected " + type.getSimpleName() + " for " + entry.getKey());
+                }
+                typed.put(entry.getKey(), type.cast(value));
+            }
+            return typed;
+        }
+
+        private Object readValue(DataInput in, int depth) throws IOException {
+            if (depth > MAX_DEPTH) {
+                throw new IOException("Property values nested too deeply");
+            }
+            int tag = in.readUnsignedByte();
+            switch (tag) {
+                case VALUE_NULL:
+                    return null;
+                case VALUE_FALSE:
+                    return Boolean.FALSE;
+                case VALUE_TRUE:
+                    return Boolean.TRUE;
+                case VALUE_LONG:
+                    return readSignedVarLong(in);
+                case VALUE_DOUBLE:
+                    return in.readDouble();
+                case VALUE_STRING:
+                    return readSymbol(in);
+                case VALUE_LIST: {
+                    int size = readVarInt(in);
+                    List<Object> values = newList(size);
+                    for (int i = 0; i < size; i++) {
+                        values.add(readValue(in, depth + 1));
+                    }
+                    return values;
+                }
+                case VALUE_MAP: {
+                    int size = readVarInt(in);
+                    Map<String, Object> map = new LinkedHashMap<>();
+                    for (int i = 0; i < size; i++) {
+                        map.put(readSymbol(in), readValue(in, depth + 1));
+                    }
+                    return map;
+                }
+                default:
+                    throw new IOException("Unknown value tag " + tag);
+            }
+        }
+
+        private String readSymbol(DataInput in) throws IOException {
+            int header = readVarInt(in);
+            if (header == 0) {
+                return null;
+            }
+            if ((header & 1) != 0) {
+                int index = header >>> 1;
+                if (standalone || index >= symbols.size()) {
+                    throw new IOException("Unknown symbol " + index);
+                }
+                return symbols.get(index);
+            }
+            String value = readBytes(in, (header >>> 1) - 1);
+            if (!standalone && isRemembered(symbols.size(), value)) {
+                symbols.add(value);
+            }
+            return value;
+        }
+    }
+
+    private static boolean isRemembered(int tableSize, String value) {
+        return tableSize < MAX_SYMBOLS && value.length() <= MAX_SYMBOL_LENGTH;
+    }
+
+    private static <T> List<T> newList(int size) {
+        return new ArrayList<>(Math.max(0, Math.min(size, 1024)));
+    }
+
+    private static void writeText(DataOutput out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readText(DataInput in) throws IOException {
+        return readBytes(in, readVarInt(in));
+    }
+
+    private static String readBytes(DataInput in, int length) throws IOException {
+        if (length < 0 || length > WireProtocol.MAX_FRAME_LENGTH) {
+            throw new IOException("String too long: " + length + " bytes");
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeVarInt(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static void writeVarLong(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static void writeSignedVarInt(DataOutput out, int value) throws IOException {
+        writeVarInt(out, (value << 1) ^ (value >> 31));
+    }
+
+    private static void writeSignedVarLong(DataOutput out, long value) throws IOException {
+        writeVarLong(out, (value << 1) ^ (value >> 63));
+    }
+
+    private static void writeCount(DataOutput out, List<?> list) throws IOException {
+        writeVarInt(out, list == null ? 0 : list.size() + 1);
+    }
+
+    private static int readVarInt(DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    private static long readVarLong(DataInput in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    private static int readSignedVarInt(DataInput in) throws IOException {
+        int value = readVarInt(in);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static long readSignedVarLong(DataInput in) throws IOException {
+        long value = readVarLong(in);
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -1,5 +1,7 @@
 package network;
 
+import com.google.gson.ExclusionStrategy;
+import com.google.gson.FieldAttributes;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import java.io.*;
@@ -16,14 +18,57 @@ public class DataIntegrityValidator {
     private static final String USER_DATA_DIR = "user_data";
     private static final String GAME_DATA_DIR = "game_data";
     private static final String DIV_SALT = "BlueprintHell_DIV_2024";
+    private static final int MAX_CACHED_USERS = 10000;
+    private static final long MAX_CACHED_WEIGHT = 200000; // Cached users plus their game history entries
     
-    private final Map<String, UserData> userDataCache = new ConcurrentHashMap<>();
+    private final UserDataCache userDataCache = new UserDataCache(MAX_CACHED_USERS, MAX_CACHED_WEIGHT, this::writeUserFile);
     private final Map<String, GameData> gameDataCache = new ConcurrentHashMap<>();
+    private final UserProgressStore progressStore; // Null if it could not be opened, then progress goes to the JSON files
     private final Gson gson;
     
     public DataIntegrityValidator() {
-        this.gson = new GsonBuilder().setPrettyPrinting().create();
         initializeDirectories();
+        this.progressStore = openProgressStore();
+        GsonBuilder builder = new GsonBuilder().setPrettyPrinting();
+        if (progressStore != null) {
+            // The history is in the progress store; older files that still have it are read once and imported.
+            builder.addSerializationExclusionStrategy(new ExclusionStrategy() {
+                @Override
+                public boolean shouldSkipField(FieldAttributes field) {
+                    return field.getDeclaringClass() == UserData.class && field.getName().equals("gameHistory");
+                }
+
+                @Override
+                public boolean shouldSkipClass(Class<?> clazz) {
+                    return false;
+                }
+            });
+        }
+        this.gson = builder.create();
+    }
+
+    private UserProgressStore openProgressStore() {
+        try {
+            return UserProgressStore.open(Paths.get(USER_DATA_DIR));
+        } catch (IOException e) {
+            System.err.println("Failed to open user progress store: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Writes users still waiting to be written, makes recorded progress
+     * durable and closes the progress store.
+     */
+    public void close() {
+        userDataCache.close();
+        if (progressStore != null) {
+            try {
+                progressStore.close();
+            } catch (IOException e) {
+                System.err.println("Failed to close user progress store: " + e.getMessage());
+            }
+        }
     }
     
     private void initializeDirectories() {
@@ -57,9 +102,13 @@ public class DataIntegrityValidator {
     }
 
     public String getMacAddressFromConnection(java.net.Socket socket) {
+        return getMacAddressFromConnection((java.net.InetSocketAddress) socket.getRemoteSocketAddress());
+    }
+
+    public String getMacAddressFromConnection(java.net.InetSocketAddress address) {
         try {
             // Try to get MAC address from the connected client
-            String clientInfo = socket.getInetAddress().getHostAddress() + ":" + socket.getPort();
+            String clientInfo = address.getAddress().getHostAddress() + ":" + address.getPort();
             return "CLIENT_" + clientInfo.hashCode();
         } catch (Exception e) {
             System.err.println("Failed to get MAC address from connection: " + e.getMessage());
@@ -68,27 +117,87 @@ public class DataIntegrityValidator {
     }
 
     public UserData getUserData(String macAddress) {
-        if (userDataCache.containsKey(macAddress)) {
-            return userDataCache.get(macAddress);
+        UserData cached = userDataCache.get(macAddress);
+        if (cached != null) {
+            return cached;
         }
         
         UserData userData = loadUserDataFromFile(macAddress);
-        if (userData == null) {
+        if (userData != null) {
+            if (progressStore != null && !restoreProgress(userData)) {
+                importProgress(userData);
+            }
+        } else {
             userData = new UserData(macAddress);
-            saveUserData(userData);
+            if (progressStore != null && restoreProgress(userData)) {
+                // The file was lost or not written yet; rebuild it from the store.
+                userDataCache.put(userData);
+                userDataCache.markDirty(userData);
+            } else {
+                saveUserData(userData);
+            }
         }
         
-        userDataCache.put(macAddress, userData);
+        userDataCache.put(userData);
         return userData;
     }
-    
 
+    /**
+     * Sets the user's totals and history from the progress store, which has
+     * the latest of both.
+     *
+     * @return false if the store has not seen the user yet
+     */
+    private boolean restoreProgress(UserData userData) {
+        String macAddress = userData.getMacAddress();
+        UserProgressStore.Summary summary = progressStore.summary(macAddress);
+        if (summary == null) {
+            return false;
+        }
+        userData.setCoins(summary.coins);
+        userData.setMaxLevelPass(summary.maxLevelPass);
+        userData.setTotalXP(summary.totalXP);
+        userData.setGameHistory(progressStore.recentResults(macAddress, UserData.HISTORY_LIMIT));
+        return true;
+    }
+
+    // Users from before the store are imported from their file once.
+    private void importProgress(UserData userData) {
+        try {
+            progressStore.importUser(userData.getMacAddress(), userData.getCoins(), userData.getMaxLevelPass(),
+                    userData.getTotalXP(), userData.getGameHistory());
+        } catch (IOException e) {
+            System.err.println("Failed to import user progress: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Caches the user and queues their file to be written behind. Totals go
+     * to the progress store right away, so they stay in order with results.
+     */
     public void saveUserData(UserData userData) {
+        if (progressStore != null) {
+            try {
+                progressStore.appendTotals(userData.getMacAddress(), userData.getCoins(),
+                        userData.getMaxLevelPass(), userData.getTotalXP());
+            } catch (IOException e) {
+                System.err.println("Failed to save user data: " + e.getMessage());
+            }
+        }
+        userDataCache.put(userData);
+        userDataCache.markDirty(userData);
+    }
+
+    public UserDataCache.Stats getUserCacheStats() {
+        return userDataCache.getStats();
+    }
+
+    // Write-behind target of the user cache.
+    private void writeUserFile(UserData userData) {
         try {
             String filename = USER_DATA_DIR + "/" + sanitizeMacAddress(userData.getMacAddress()) + ".json";
             String json = gson.toJson(userData);
             Files.write(Paths.get(filename), json.getBytes());
-            userDataCache.put(userData.getMacAddress(), userData);
         } catch (IOException e) {
             System.err.println("Failed to save user data: " + e.getMessage());
         }
@@ -185,9 +294,20 @@ public class DataIntegrityValidator {
         
         userData.addGameResult(resultData);
         
-        userData.addXP(calculateXP(resultData));
+        int xp = calculateXP(resultData);
+        userData.addXP(xp);
         
-        saveUserData(userData);
+        // One append to the progress log instead of rewriting the user's file.
+        if (progressStore != null) {
+            try {
+                progressStore.appendResult(macAddress, resultData, xp);
+            } catch (IOException e) {
+                System.err.println("Failed to record game result: " + e.getMessage());
+            }
+            userDataCache.put(userData); // Reweighs the user for their longer history
+        } else {
+            saveUserData(userData);
+        }
     }
 
     private int calculateXP(GameResultData data) {
@@ -239,6 +359,7 @@ public class DataIntegrityValidator {
     }
 
     public static class UserData {
+        static final int HISTORY_LIMIT = 100; // Latest results kept
         private String macAddress;
         private String username;
         private int coins;
@@ -298,7 +419,7 @@ public class DataIntegrityValidator {
         
         public void addGameResult(GameResultData result) {
             this.gameHistory.add(result);
-            if (this.gameHistory.size() > 100) {
+            if (this.gameHistory.size() > HISTORY_LIMIT) {
                 this.gameHistory.remove(0);
             }
         }
@@ -5,6 +5,8 @@ import controller.User;
 import java.util.*;
 
 public class GameStateConverter {
+    public static final String PACKET_SEGMENT = "segment"; // Packet property: index of the path segment it is on
+    public static final String PACKET_SPEED = "speed"; // Packet property: progress per simulation tick
 
     public static GameStateData toNetworkData(GameState gameState) {
         GameStateData data = new GameStateData();
@@ -66,7 +68,7 @@ public class GameStateConverter {
             packetData.setId(packet.getId());
             packetData.setX(packet.getX());
             packetData.setY(packet.getY());
-            packetData.setType(packet.getClass().getSimpleName());
+            packetData.setType(packet.getPacketType());
             packetData.setProgress(packet.getProgress());
             packetData.setConnectionId(packet.getConnection() != null ? packet.getConnection().getId() : null);
             packetData.setProperties(extractPacketProperties(packet));
@@ -129,8 +131,76 @@ public class GameStateConverter {
         gameState.setNumberPacketsBulky8(data.getNumberPacketsBulky8());
         gameState.setNumberPacketsBulky10(data.getNumberPacketsBulky10());
 
+        restoreNetwork(gameState, data);
         return gameState;
     }
+
+    /**
+     * Recreates the level's nodes at the positions in the data and the wiring
+     * between them. Packets are not restored.
+     */
+    private static void restoreNetwork(GameState gameState, GameStateData data) {
+        LevelConfig.LevelData level = LevelConfig.getLevel(data.getLevel());
+        if (level == null) {
+            return;
+        }
+        Map<String, GameStateData.NodeData> positions = new HashMap<>();
+        if (data.getNodes() != null) {
+            for (GameStateData.NodeData nodeData : data.getNodes()) {
+                positions.put(nodeData.getId(), nodeData);
+            }
+        }
+        Map<String, INode> nodes = new HashMap<>();
+        for (LevelConfig.NodeConfig config : level.getNodes()) {
+            GameStateData.NodeData nodeData = positions.get(config.getId());
+            int x = nodeData != null ? (int) Math.round(nodeData.getX()) : config.getX();
+            int y = nodeData != null ? (int) Math.round(nodeData.getY()) : config.getY();
+            INode node = NodeFactory.createNodeWithShapes(config.getId(), x, y,
+                    config.getOutputShapes(), config.getInputShapes(), config.getSystemType());
+            gameState.addNode(node);
+            nodes.put(node.getId(), node);
+        }
+        if (data.getConnections() == null) {
+            return;
+        }
+        for (GameStateData.ConnectionData connectionData : data.getConnections()) {
+            INode from = nodes.get(connectionData.getFromNodeId());
+            INode to = nodes.get(connectionData.getToNodeId());
+            int[] ports = parsePorts(connectionData);
+            if (from == null || to == null || ports == null
+                    || ports[0] >= from.getOutputShapes().length || ports[1] >= to.getInputShapes().length) {
+                continue;
+            }
+            IConnection connection = NodeFactory.createConnection(from, ports[0], to, ports[1]);
+            if (connectionData.getBendPoints() != null) {
+                for (GameStateData.BendPointData bendPoint : connectionData.getBendPoints()) {
+                    connection.addBendPoint((int) Math.round(bendPoint.getX()), (int) Math.round(bendPoint.getY()));
+                }
+            }
+            gameState.addConnection(connection);
+            to.getConnectedInputs().add(ports[1]);
+        }
+    }
+
+    // Connection ids end in "_<fromPort>_<toPort>", see Connection.getId().
+    private static int[] parsePorts(GameStateData.ConnectionData connectionData) {
+        String prefix = connectionData.getFromNodeId() + "_" + connectionData.getToNodeId() + "_";
+        String id = connectionData.getId();
+        if (id == null || !id.startsWith(prefix)) {
+            return null;
+        }
+        String[] ports = id.substring(prefix.length()).split("_");
+        if (ports.length != 2) {
+            return null;
+        }
+        try {
+            int fromPort = Integer.parseInt(ports[0]);
+            int toPort = Integer.parseInt(ports[1]);
+            return fromPort < 0 || toPort < 0 ? null : new int[]{fromPort, toPort};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
     
     private static Map<String, Object> extractNodeProperties(INode node) {
         Map<String, Object> properties = new HashMap<>();
@@ -144,6 +214,8 @@ public class GameStateConverter {
     
     private static Map<String, Object> extractPacketProperties(Packet packet) {
         Map<String, Object> properties = new HashMap<>();
+        properties.put(PACKET_SEGMENT, packet.getSegmentIndex());
+        properties.put(PACKET_SPEED, packet.getCurrentSpeed());
         return properties;
     }
     
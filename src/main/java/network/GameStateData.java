@@ -4,9 +4,12 @@ import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 
 public class GameStateData {
+    static final Gson GSON = new GsonBuilder().create();
+
     private int level;
     private boolean gameOver;
     private boolean successfully;
@@ -101,13 +104,11 @@ public class GameStateData {
     public void setPowerUpTimers(Map<String, Long> powerUpTimers) { this.powerUpTimers = powerUpTimers; }
 
     public String toJson() {
-        Gson gson = new GsonBuilder().create();
-        return gson.toJson(this);
+        return GSON.toJson(this);
     }
 
     public static GameStateData fromJson(String json) {
-        Gson gson = new GsonBuilder().create();
-        return gson.fromJson(json, GameStateData.class);
+        return GSON.fromJson(json, GameStateData.class);
     }
     
     public static class NodeData {
@@ -132,6 +133,19 @@ public class GameStateData {
         
         public Map<String, Object> getProperties() { return properties; }
         public void setProperties(Map<String, Object> properties) { this.properties = properties; }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof NodeData)) return false;
+            NodeData other = (NodeData) o;
+            return Double.compare(x, other.x) == 0 && Double.compare(y, other.y) == 0
+                    && Objects.equals(id, other.id) && Objects.equals(type, other.type)
+                    && Objects.equals(properties, other.properties);
+        }
+
+        @Override
+        public int hashCode() { return Objects.hash(id, x, y, type); }
     }
     
     public static class ConnectionData {
@@ -157,6 +171,19 @@ public class GameStateData {
         
         public Map<String, Object> getProperties() { return properties; }
         public void setProperties(Map<String, Object> properties) { this.properties = properties; }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof ConnectionData)) return false;
+            ConnectionData other = (ConnectionData) o;
+            return Objects.equals(id, other.id) && Objects.equals(fromNodeId, other.fromNodeId)
+                    && Objects.equals(toNodeId, other.toNodeId) && Objects.equals(bendPoints, other.bendPoints)
+                    && Objects.equals(properties, other.properties);
+        }
+
+        @Override
+        public int hashCode() { return Objects.hash(id, fromNodeId, toNodeId); }
     }
     
     public static class BendPointData {
@@ -174,6 +201,17 @@ public class GameStateData {
         
         public double getY() { return y; }
         public void setY(double y) { this.y = y; }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof BendPointData)) return false;
+            BendPointData other = (BendPointData) o;
+            return Double.compare(x, other.x) == 0 && Double.compare(y, other.y) == 0;
+        }
+
+        @Override
+        public int hashCode() { return Objects.hash(x, y); }
     }
     
     public static class PacketData {
@@ -206,6 +244,21 @@ public class GameStateData {
         
         public Map<String, Object> getProperties() { return properties; }
         public void setProperties(Map<String, Object> properties) { this.properties = properties; }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof PacketData)) return false;
+            PacketData other = (PacketData) o;
+            return Double.compare(x, other.x) == 0 && Double.compare(y, other.y) == 0
+                    && Double.compare(progress, other.progress) == 0
+                    && Objects.equals(id, other.id) && Objects.equals(type, other.type)
+                    && Objects.equals(connectionId, other.connectionId)
+                    && Objects.equals(properties, other.properties);
+        }
+
+        @Override
+        public int hashCode() { return Objects.hash(id, x, y, progress); }
     }
     
     public static class ShockwaveData {
@@ -234,5 +287,18 @@ public class GameStateData {
         
         public Map<String, Object> getProperties() { return properties; }
         public void setProperties(Map<String, Object> properties) { this.properties = properties; }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof ShockwaveData)) return false;
+            ShockwaveData other = (ShockwaveData) o;
+            return Double.compare(x, other.x) == 0 && Double.compare(y, other.y) == 0
+                    && Double.compare(radius, other.radius) == 0 && timestamp == other.timestamp
+                    && Objects.equals(id, other.id) && Objects.equals(properties, other.properties);
+        }
+
+        @Override
+        public int hashCode() { return Objects.hash(id, x, y, radius, timestamp); }
     }
 }
@@ -0,0 +1,238 @@
+package network;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * The changes between two game state snapshots. The scalar fields always hold
+ * the new values; the entity lists only hold entities that were added or
+ * changed, keyed by id, and the removed id lists name the ones that are gone.
+ * Power-up maps are null when they did not change.
+ *
+ * <p>A keyframe has no base and carries the whole snapshot.
+ */
+public class GameStateDelta extends GameStateData {
+    public static final int HISTORY = 32; // Snapshots each side keeps to diff against
+    public static final int KEYFRAME_INTERVAL = 30; // A full snapshot is sent at least this often
+
+    private long sequence;
+    private long baseSequence; // 0 for a keyframe
+    private List<String> removedNodeIds;
+    private List<String> removedConnectionIds;
+    private List<String> removedPacketIds;
+    private List<String> removedShockwaveIds;
+
+    public GameStateDelta() {}
+
+    public long getSequence() { return sequence; }
+    public void setSequence(long sequence) { this.sequence = sequence; }
+
+    public long getBaseSequence() { return baseSequence; }
+    public void setBaseSequence(long baseSequence) { this.baseSequence = baseSequence; }
+
+    public boolean isKeyframe() { return baseSequence == 0; }
+
+    public List<String> getRemovedNodeIds() { return removedNodeIds; }
+    public void setRemovedNodeIds(List<String> removedNodeIds) { this.removedNodeIds = removedNodeIds; }
+
+    public List<String> getRemovedConnectionIds() { return removedConnectionIds; }
+    public void setRemovedConnectionIds(List<String> removedConnectionIds) { this.removedConnectionIds = removedConnectionIds; }
+
+    public List<String> getRemovedPacketIds() { return removedPacketIds; }
+    public void setRemovedPacketIds(List<String> removedPacketIds) { this.removedPacketIds = removedPacketIds; }
+
+    public List<String> getRemovedShockwaveIds() { return removedShockwaveIds; }
+    public void setRemovedShockwaveIds(List<String> removedShockwaveIds) { this.removedShockwaveIds = removedShockwaveIds; }
+
+    public static GameStateDelta fromJson(String json) {
+        return GSON.fromJson(json, GameStateDelta.class);
+    }
+
+    /**
+     * A delta carrying the whole snapshot.
+     */
+    public static GameStateDelta keyframe(GameStateData snapshot, long sequence) {
+        GameStateDelta delta = new GameStateDelta();
+        delta.sequence = sequence;
+        copyScalars(snapshot, delta);
+        delta.setNodes(snapshot.getNodes());
+        delta.setConnections(snapshot.getConnections());
+        delta.setPackets(snapshot.getPackets());
+        delta.setShockwaves(snapshot.getShockwaves());
+        delta.setPowerUpStates(snapshot.getPowerUpStates());
+        delta.setPowerUpTimers(snapshot.getPowerUpTimers());
+        return delta;
+    }
+
+    /**
+     * The changes that turn {@code base} into {@code snapshot}.
+     */
+    public static GameStateDelta between(GameStateData base, long baseSequence, GameStateData snapshot, long sequence) {
+        GameStateDelta delta = new GameStateDelta();
+        delta.sequence = sequence;
+        delta.baseSequence = baseSequence;
+        copyScalars(snapshot, delta);
+        delta.setNodes(changed(base.getNodes(), snapshot.getNodes(), NodeData::getId));
+        delta.removedNodeIds = removed(base.getNodes(), snapshot.getNodes(), NodeData::getId);
+        delta.setConnections(changed(base.getConnections(), snapshot.getConnections(), ConnectionData::getId));
+        delta.removedConnectionIds = removed(base.getConnections(), snapshot.getConnections(), ConnectionData::getId);
+        delta.setPackets(changed(base.getPackets(), snapshot.getPackets(), PacketData::getId));
+        delta.removedPacketIds = removed(base.getPackets(), snapshot.getPackets(), PacketData::getId);
+        delta.setShockwaves(changed(base.getShockwaves(), snapshot.getShockwaves(), ShockwaveData::getId));
+        delta.removedShockwaveIds = removed(base.getShockwaves(), snapshot.getShockwaves(), ShockwaveData::getId);
+        if (!Objects.equals(base.getPowerUpStates(), snapshot.getPowerUpStates())) {
+            delta.setPowerUpStates(snapshot.getPowerUpStates());
+        }
+        if (!Objects.equals(base.getPowerUpTimers(), snapshot.getPowerUpTimers())) {
+            delta.setPowerUpTimers(snapshot.getPowerUpTimers());
+        }
+        return delta;
+    }
+
+    /**
+     * Builds the new snapshot from the base it was taken against. The base
+     * is left untouched; unchanged entities are shared with it.
+     */
+    public GameStateData applyTo(GameStateData base) {
+        if (isKeyframe()) {
+            GameStateData snapshot = new GameStateData();
+            copyScalars(this, snapshot);
+            snapshot.setNodes(getNodes());
+            snapshot.setConnections(getConnections());
+            snapshot.setPackets(getPackets());
+            snapshot.setShockwaves(getShockwaves());
+            snapshot.setPowerUpStates(getPowerUpStates());
+            snapshot.setPowerUpTimers(getPowerUpTimers());
+            return snapshot;
+        }
+        GameStateData snapshot = new GameStateData();
+        copyScalars(this, snapshot);
+        snapshot.setNodes(merge(base.getNodes(), getNodes(), removedNodeIds, NodeData::getId));
+        snapshot.setConnections(merge(base.getConnections(), getConnections(), removedConnectionIds, ConnectionData::getId));
+        snapshot.setPackets(merge(base.getPackets(), getPackets(), removedPacketIds, PacketData::getId));
+        snapshot.setShockwaves(merge(base.getShockwaves(), getShockwaves(), removedShockwaveIds, ShockwaveData::getId));
+        snapshot.setPowerUpStates(getPowerUpStates() != null ? getPowerUpStates() : base.getPowerUpStates());
+        snapshot.setPowerUpTimers(getPowerUpTimers() != null ? getPowerUpTimers() : base.getPowerUpTimers());
+        return snapshot;
+    }
+
+    /**
+     * Number of entities and removals this delta carries.
+     */
+    public int getChangeCount() {
+        return size(getNodes()) + size(getConnections()) + size(getPackets()) + size(getShockwaves())
+                + size(removedNodeIds) + size(removedConnectionIds) + size(removedPacketIds) + size(removedShockwaveIds);
+    }
+
+    private static void copyScalars(GameStateData from, GameStateData to) {
+        to.setLevel(from.getLevel());
+        to.setGameOver(from.isGameOver());
+        to.setSuccessfully(from.isSuccessfully());
+        to.setPacketLoss(from.getPacketLoss());
+        to.setLevelStartTime(from.getLevelStartTime());
+        to.setUsername(from.getUsername());
+        to.setCoins(from.getCoins());
+        to.setMaxLevelPass(from.getMaxLevelPass());
+        to.setNumberPacketsSquare(from.getNumberPacketsSquare());
+        to.setNumberPacketTriangle(from.getNumberPacketTriangle());
+        to.setNumberPacketsCircle(from.getNumberPacketsCircle());
+        to.setNumberPacketsConfidential4(from.getNumberPacketsConfidential4());
+        to.setNumberPacketsConfidential6(from.getNumberPacketsConfidential6());
+        to.setNumberPacketsBulky8(from.getNumberPacketsBulky8());
+        to.setNumberPacketsBulky10(from.getNumberPacketsBulky10());
+    }
+
+    private static <T> List<T> changed(List<T> base, List<T> current, Function<T, String> idOf) {
+        if (current == null || current.isEmpty()) {
+            return null;
+        }
+        Map<String, T> previous = index(base, idOf);
+        List<T> changed = new ArrayList<>();
+        for (T entity : current) {
+            String id = idOf.apply(entity);
+            if (id == null || !entity.equals(previous.get(id))) {
+                changed.add(entity);
+            }
+        }
+        return changed.isEmpty() ? null : changed;
+    }
+
+    private static <T> List<String> removed(List<T> base, List<T> current, Function<T, String> idOf) {
+        if (base == null || base.isEmpty()) {
+            return null;
+        }
+        Set<String> present = new HashSet<>();
+        if (current != null) {
+            for (T entity : current) {
+                present.add(idOf.apply(entity));
+            }
+        }
+        List<String> removed = new ArrayList<>();
+        for (T entity : base) {
+            String id = idOf.apply(entity);
+            if (id != null && !present.contains(id)) {
+                removed.add(id);
+            }
+        }
+        return removed.isEmpty() ? null : removed;
+    }
+
+    private static <T> List<T> merge(List<T> base, List<T> changed, List<String> removed, Function<T, String> idOf) {
+        if (base == null && changed == null) {
+            return null;
+        }
+        Map<String, T> merged = new LinkedHashMap<>();
+        if (base != null) {
+            for (T entity : base) {
+                String id = idOf.apply(entity);
+                if (id != null) {
+                    merged.put(id, entity);
+                }
+            }
+        }
+        if (removed != null) {
+            for (String id : removed) {
+                merged.remove(id);
+            }
+        }
+        List<T> anonymous = new ArrayList<>();
+        if (changed != null) {
+            for (T entity : changed) {
+                String id = idOf.apply(entity);
+                if (id != null) {
+                    merged.put(id, entity);
+                } else {
+                    anonymous.add(entity);
+                }
+            }
+        }
+        List<T> result = new ArrayList<>(merged.values());
+        result.addAll(anonymous);
+        return result;
+    }
+
+    private static <T> Map<String, T> index(List<T> entities, Function<T, String> idOf) {
+        if (entities == null) {
+            return Map.of();
+        }
+        Map<String, T> index = new HashMap<>(entities.size() * 2);
+        for (T entity : entities) {
+            String id = idOf.apply(entity);
+            if (id != null) {
+                index.put(id, entity);
+            }
+        }
+        return index;
+    }
+
+    private static int size(List<?> list) {
+        return list == null ? 0 : list.size();
+    }
+}
@@ -0,0 +1,381 @@
+package network;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Leaderboard ordered by level, highest first, then by completion time,
+ * fastest first. Entries sit in a treap whose nodes count their subtree, so
+ * adding, removing, finding an entry's rank and finding the entry at a rank
+ * all take O(log n). Entries of one level are a contiguous run of the global
+ * order, so a level's board is read from the same tree.
+ *
+ * <p>A player keeps one entry per level, their fastest. Entries older than
+ * the maximum age drop off as they come due, in timestamp order, and past
+ * the capacity the lowest entry is dropped.
+ *
+ * <p>Safe for concurrent use: queries share a read lock, changes take the
+ * write lock.
+ */
+public class Leaderboard {
+    private final int capacity;
+    private final long maxAgeMs; // 0 keeps entries forever
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, TreeMap<Integer, Node>> byPlayer = new HashMap<>(); // Player to level to entry
+    private final PriorityQueue<Node> byAge = new PriorityQueue<>(
+            (a, b) -> Long.compare(a.entry.getTimestamp(), b.entry.getTimestamp()));
+    private Node root;
+    private long sequence; // Orders entries that tie on level and time
+    private volatile long nextExpiry = Long.MAX_VALUE;
+
+    public Leaderboard(int capacity, long maxAgeMs) {
+        this.capacity = capacity;
+        this.maxAgeMs = maxAgeMs;
+    }
+
+    /**
+     * Adds the entry unless the player already has an entry for the level
+     * that is at least as fast, which it then replaces.
+     *
+     * @return whether the entry is on the board
+     */
+    public boolean add(LeaderboardEntry entry) {
+        lock.writeLock().lock();
+        try {
+            long now = System.currentTimeMillis();
+            expire(now);
+            if (isExpired(entry, now)) {
+                return false;
+            }
+            String username = String.valueOf(entry.getUsername());
+            TreeMap<Integer, Node> levels = byPlayer.get(username);
+            Node existing = levels != null ? levels.get(entry.getLevel()) : null;
+            if (existing != null) {
+                if (existing.entry.getCompletionTime() <= entry.getCompletionTime()) {
+                    return false;
+                }
+                remove(existing);
+            }
+            Node node = new Node(entry, sequence++);
+            root = insert(root, node);
+            byPlayer.computeIfAbsent(username, name -> new TreeMap<>()).put(entry.getLevel(), node);
+            if (maxAgeMs > 0) {
+                byAge.add(node);
+                nextExpiry = byAge.peek().entry.getTimestamp() + maxAgeMs;
+            }
+            while (size(root) > capacity) {
+                remove(select(root, size(root) - 1));
+            }
+            return !node.removed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Entries from {@code offset} on in board order, at most {@code count}.
+     */
+    public List<LeaderboardEntry> page(int offset, int count) {
+        expireIfDue();
+        lock.readLock().lock();
+        try {
+            return collect(offset, Math.min(size(root), offset + count));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<LeaderboardEntry> top(int count) {
+        return page(0, count);
+    }
+
+    /**
+     * A page of one level's board, {@code offset} counted from the fastest
+     * entry of that level.
+     */
+    public List<LeaderboardEntry> levelPage(int level, int offset, int count) {
+        expireIfDue();
+        lock.readLock().lock();
+        try {
+            int start = countAbove(level);
+            int end = countAbove(level - 1);
+            return collect(Math.min(end, start + offset), Math.min(end, start + offset + count));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The board position of the player's best entry, starting at 1, or -1
+     * if they have none.
+     */
+    public int rankOf(String username) {
+        expireIfDue();
+        lock.readLock().lock();
+        try {
+            TreeMap<Integer, Node> levels = byPlayer.get(String.valueOf(username));
+            return levels != null && !levels.isEmpty() ? rank(levels.lastEntry().getValue()) + 1 : -1;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The player's position on one level's board, starting at 1, or -1 if
+     * they have no entry for it.
+     */
+    public int rankOf(String username, int level) {
+        expireIfDue();
+        lock.readLock().lock();
+        try {
+            TreeMap<Integer, Node> levels = byPlayer.get(String.valueOf(username));
+            Node node = levels != null ? levels.get(level) : null;
+            return node != null ? rank(node) - countAbove(level) + 1 : -1;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        expireIfDue();
+        lock.readLock().lock();
+        try {
+            return size(root);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            root = null;
+            byPlayer.clear();
+            byAge.clear();
+            nextExpiry = Long.MAX_VALUE;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void expireIfDue() {
+        long now = System.currentTimeMillis();
+        if (now < nextExpiry) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            expire(now);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Write lock held. Entries already replaced or dropped are skipped as they come up.
+    private void expire(long now) {
+        Node oldest;
+        while ((oldest = byAge.peek()) != null && (oldest.removed || isExpired(oldest.entry, now))) {
+            byAge.poll();
+            if (!oldest.removed) {
+                remove(oldest);
+            }
+        }
+        // Dropped entries would otherwise wait for their age in the queue.
+        if (byAge.size() > 2 * size(root) + 64) {
+            byAge.removeIf(node -> node.removed);
+        }
+        nextExpiry = oldest != null ? oldest.entry.getTimestamp() + maxAgeMs : Long.MAX_VALUE;
+    }
+
+    private boolean isExpired(LeaderboardEntry entry, long now) {
+        return maxAgeMs > 0 && now - entry.getTimestamp() > maxAgeMs;
+    }
+
+    // Write lock held.
+    private void remove(Node node) {
+        root = delete(root, node);
+        node.removed = true;
+        String username = String.valueOf(node.entry.getUsername());
+        TreeMap<Integer, Node> levels = byPlayer.get(username);
+        if (levels != null && levels.get(node.entry.getLevel()) == node) {
+            levels.remove(node.entry.getLevel());
+            if (levels.isEmpty()) {
+                byPlayer.remove(username);
+            }
+        }
+    }
+
+    private List<LeaderboardEntry> collect(int from, int to) {
+        List<LeaderboardEntry> entries = new ArrayList<>(Math.max(0, to - from));
+        if (from < to) {
+            collect(root, from, to, 0, entries);
+        }
+        return entries;
+    }
+
+    // In-order walk that only descends into subtrees overlapping [from, to).
+    private static void collect(Node node, int from, int to, int offset, List<LeaderboardEntry> out) {
+        if (node == null || offset >= to || offset + node.size <= from) {
+            return;
+        }
+        int index = offset + size(node.left);
+        collect(node.left, from, to, offset, out);
+        if (index >= from && index < to) {
+            out.add(node.entry);
+        }
+        collect(node.right, from, to, index + 1, out);
+    }
+
+    // Board order: level descending, then completion time, then arrival.
+    private static int compare(Node a, Node b) {
+        int order = Integer.compare(b.entry.getLevel(), a.entry.getLevel());
+        if (order == 0) {
+            order = Long.compare(a.entry.getCompletionTime(), b.entry.getCompletionTime());
+        }
+        return order != 0 ? order : Long.compare(a.sequence, b.sequence);
+    }
+
+    private static int size(Node node) {
+        return node != null ? node.size : 0;
+    }
+
+    private static Node insert(Node node, Node added) {
+        if (node == null) {
+            return added;
+        }
+        if (compare(added, node) < 0) {
+            node.left = insert(node.left, added);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, added);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+        node.update();
+        return node;
+    }
+
+    private static Node delete(Node node, Node removed) {
+        if (node == null) {
+            return null;
+        }
+        if (node == removed) {
+            return merge(node.left, node.right);
+        }
+        if (compare(removed, node) < 0) {
+            node.left = delete(node.left, removed);
+        } else {
+            node.right = delete(node.right, removed);
+        }
+        node.update();
+        return node;
+    }
+
+    // Joins two treaps where every node of left comes before every node of right.
+    private static Node merge(Node left, Node right) {
+        if (left == null || right == null) {
+            return left != null ? left : right;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            left.update();
+            return left;
+        }
+        right.left = merge(left, right.left);
+        right.update();
+        return right;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        left.right = node;
+        node.update();
+        return left;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        right.left = node;
+        node.update();
+        return right;
+    }
+
+    // Number of entries before the node.
+    private int rank(Node target) {
+        int rank = 0;
+        Node node = root;
+        while (node != null) {
+            int order = compare(target, node);
+            if (order == 0) {
+                return rank + size(node.left);
+            }
+            if (order < 0) {
+                node = node.left;
+            } else {
+                rank += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return rank;
+    }
+
+    private static Node select(Node node, int index) {
+        while (node != null) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index == leftSize) {
+                return node;
+            } else {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+        return null;
+    }
+
+    // Number of entries with a level above the given one.
+    private int countAbove(int level) {
+        int count = 0;
+        Node node = root;
+        while (node != null) {
+            if (node.entry.getLevel() > level) {
+                count += size(node.left) + 1;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return count;
+    }
+
+    private static final class Node {
+        final LeaderboardEntry entry;
+        final long sequence;
+        final int priority = ThreadLocalRandom.current().nextInt();
+        Node left;
+        Node right;
+        int size = 1;
+        boolean removed;
+
+        Node(LeaderboardEntry entry, long sequence) {
+            this.entry = entry;
+            this.sequence = sequence;
+        }
+
+        void update() {
+            size = 1 + Leaderboard.size(left) + Leaderboard.size(right);
+        }
+    }
+}
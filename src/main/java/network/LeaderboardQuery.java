@@ -0,0 +1,89 @@
+package network;
+
+/**
+ * LEADERBOARD request data other than the plain top of the board, which is
+ * asked for with empty data. {@code level:<level>:<offset>} asks for a page of
+ * one level's board, answered with the entries as usual, and
+ * {@code rank:<username>} for a player's position, answered with
+ * {@code ranked:<rank>:<username>}. A rank of -1 means the player is not on
+ * the board.
+ */
+public final class LeaderboardQuery {
+    public enum Kind { LEVEL_PAGE, RANK, RANKED }
+
+    private static final String LEVEL = "level";
+    private static final String RANK = "rank";
+    private static final String RANKED = "ranked";
+
+    private final Kind kind;
+    private final int level;
+    private final int offset;
+    private final String username;
+    private final int rank;
+
+    private LeaderboardQuery(Kind kind, int level, int offset, String username, int rank) {
+        this.kind = kind;
+        this.level = level;
+        this.offset = offset;
+        this.username = username;
+        this.rank = rank;
+    }
+
+    public static String levelPage(int level, int offset) {
+        return LEVEL + ":" + level + ":" + offset;
+    }
+
+    public static String rank(String username) {
+        return RANK + ":" + username;
+    }
+
+    public static String ranked(String username, int rank) {
+        return RANKED + ":" + rank + ":" + username;
+    }
+
+    /**
+     * @return the query, or null if the data is not one, as for a plain
+     *         request or a list of entries
+     */
+    public static LeaderboardQuery parse(String data) {
+        if (data == null) {
+            return null;
+        }
+        int first = data.indexOf(':');
+        if (first <= 0) {
+            return null;
+        }
+        String kind = data.substring(0, first);
+        String rest = data.substring(first + 1);
+        try {
+            switch (kind) {
+                case LEVEL: {
+                    int split = rest.indexOf(':');
+                    int offset = split < 0 ? 0 : Integer.parseInt(rest.substring(split + 1));
+                    int level = Integer.parseInt(split < 0 ? rest : rest.substring(0, split));
+                    return offset >= 0 ? new LeaderboardQuery(Kind.LEVEL_PAGE, level, offset, null, -1) : null;
+                }
+                case RANK:
+                    return rest.isEmpty() ? null : new LeaderboardQuery(Kind.RANK, 0, 0, rest, -1);
+                case RANKED: {
+                    int split = rest.indexOf(':');
+                    if (split <= 0) {
+                        return null;
+                    }
+                    return new LeaderboardQuery(Kind.RANKED, 0, 0, rest.substring(split + 1),
+                            Integer.parseInt(rest.substring(0, split)));
+                }
+                default:
+                    return null;
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public Kind getKind() { return kind; }
+    public int getLevel() { return level; }
+    public int getOffset() { return offset; }
+    public String getUsername() { return username; }
+    public int getRank() { return rank; }
+}
@@ -0,0 +1,45 @@
+package network;
+
+import Game.AmmunitionType;
+
+/**
+ * Player commands sent as USER_INPUT data to a server-simulated match.
+ * A fire command reads {@code fire:<systemId>:<ammunition>}.
+ */
+public final class MatchInput {
+    private static final String FIRE = "fire";
+
+    private final String systemId;
+    private final AmmunitionType ammunition;
+
+    private MatchInput(String systemId, AmmunitionType ammunition) {
+        this.systemId = systemId;
+        this.ammunition = ammunition;
+    }
+
+    public static String fire(String systemId, AmmunitionType ammunition) {
+        return FIRE + ":" + systemId + ":" + ammunition.name();
+    }
+
+    /**
+     * @return the command, or null if the data is not a match input
+     */
+    public static MatchInput parse(String data) {
+        if (data == null) {
+            return null;
+        }
+        int first = data.indexOf(':');
+        int last = data.lastIndexOf(':');
+        if (first <= 0 || last <= first || !FIRE.equals(data.substring(0, first))) {
+            return null;
+        }
+        try {
+            return new MatchInput(data.substring(first + 1, last), AmmunitionType.valueOf(data.substring(last + 1)));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    public String getSystemId() { return systemId; }
+    public AmmunitionType getAmmunition() { return ammunition; }
+}
@@ -9,6 +9,7 @@ import java.awt.*;
 import java.util.*;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -20,6 +21,7 @@ public class MultiplayerGameState {
     private static final int WRATH_PENIA_SPEED_DURATION_MS = 10000; // 10 seconds
     private final String gameId;
     private final Map<String, PlayerData> players;
+    private final List<String> playerOrder = new CopyOnWriteArrayList<>();
     private final AtomicBoolean gameStarted;
     private final AtomicBoolean networkSetupPhase;
     private final AtomicLong gameStartTime;
@@ -69,6 +71,7 @@ public class MultiplayerGameState {
 
         PlayerData player = new PlayerData(playerId, macAddress);
         players.put(playerId, player);
+        playerOrder.add(playerId);
         if (players.size() == 2){
             ready = true;
         }
@@ -185,6 +188,42 @@ public class MultiplayerGameState {
         return new HashMap<>(players);
     }
 
+    /**
+     * Player ids in the order they joined; the first is "player1" in the
+     * controllable systems, the second "player2". The list is a read-only
+     * view, iterating it does not copy.
+     */
+    public List<String> getPlayerIds() {
+        return Collections.unmodifiableList(playerOrder);
+    }
+
+    /**
+     * Adds the reference and uncontrollable systems both players start with.
+     */
+    public void createDefaultSystems() {
+        addControllableSystem(new ControllableReferenceSystem(
+            "player1_system1", 100, 200, "player1", "player2"));
+        addControllableSystem(new ControllableReferenceSystem(
+            "player1_system2", 200, 300, "player1", "player2"));
+        addControllableSystem(new ControllableReferenceSystem(
+            "player2_system1", 600, 200, "player2", "player1"));
+        addControllableSystem(new ControllableReferenceSystem(
+            "player2_system2", 700, 300, "player2", "player1"));
+
+        addUncontrollableSystem("player1", new Node(150, 150, "player1_uncontrollable1",
+            new String[]{"square", "triangle"}, new String[]{"square", "triangle"},
+            GameConfig.UNCONTROLLABLE_SYSTEM_TYPE));
+        addUncontrollableSystem("player1", new Node(250, 250, "player1_uncontrollable2",
+            new String[]{"circle"}, new String[]{"circle"},
+            GameConfig.UNCONTROLLABLE_SYSTEM_TYPE));
+        addUncontrollableSystem("player2", new Node(650, 150, "player2_uncontrollable1",
+            new String[]{"confidential_4", "confidential_6"}, new String[]{"confidential_4", "confidential_6"},
+            GameConfig.UNCONTROLLABLE_SYSTEM_TYPE));
+        addUncontrollableSystem("player2", new Node(750, 250, "player2_uncontrollable2",
+            new String[]{"bulky_8", "bulky_10"}, new String[]{"bulky_8", "bulky_10"},
+            GameConfig.UNCONTROLLABLE_SYSTEM_TYPE));
+    }
+
     public Color getPlayerColor(String playerId) {
         return playerColors.getOrDefault(playerId, Color.BLACK);
     }
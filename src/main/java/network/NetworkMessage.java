@@ -22,14 +22,21 @@ public class NetworkMessage {
         WRATH_EFFECT,      // Wrath effect application
         GAME_LIST,         // List of available games
         PLAYER_CONNECTION, // Player connection data
-        PACKET_UPDATE      // Packet state update
+        PACKET_UPDATE,     // Packet state update
+        STATE_DELTA,       // Game state changes since an acknowledged snapshot
+        STATE_ACK          // Acknowledges a rebuilt game state snapshot
     }
     
+    private static final Gson GSON = new GsonBuilder().create();
+
     private MessageType type;
     private String data;
     private String clientId;
     private long timestamp;
     private String sessionId;
+    private String protocol;
+    // Structured payload; only turned into JSON when the data string is needed.
+    private transient GameStateData gameState;
 
     public NetworkMessage(MessageType type, String data, String clientId) {
         this.type = type;
@@ -37,25 +44,73 @@ public class NetworkMessage {
         this.clientId = clientId;
         this.timestamp = System.currentTimeMillis();
     }
+
+    public NetworkMessage(MessageType type, GameStateData gameState, String clientId) {
+        this(type, (String) null, clientId);
+        this.gameState = gameState;
+    }
     
 
     public MessageType getType() { return type; }
     public void setType(MessageType type) { this.type = type; }
     
-    public String getData() { return data; }
-    public void setData(String data) { this.data = data; }
+    public String getData() {
+        if (data == null && gameState != null) {
+            data = gameState.toJson();
+        }
+        return data;
+    }
+    public void setData(String data) {
+        this.data = data;
+        this.gameState = null;
+    }
+
+    /**
+     * The game state carried by this message, parsed from the data string if
+     * it arrived as JSON.
+     */
+    public GameStateData getGameState() {
+        if (gameState == null && data != null) {
+            gameState = type == MessageType.STATE_DELTA ? GameStateDelta.fromJson(data) : GameStateData.fromJson(data);
+        }
+        return gameState;
+    }
+
+    /**
+     * The delta carried by a STATE_DELTA message, or null for other messages.
+     */
+    public GameStateDelta getStateDelta() {
+        GameStateData state = getGameState();
+        return state instanceof GameStateDelta ? (GameStateDelta) state : null;
+    }
+    public void setGameState(GameStateData gameState) {
+        this.gameState = gameState;
+        this.data = null;
+    }
+
+    /** True if the payload is a structured game state, which binary connections send as is. */
+    public boolean hasGameStatePayload() { return gameState != null; }
     
     public String getClientId() { return clientId; }
     public void setClientId(String clientId) { this.clientId = clientId; }
 
+    public long getTimestamp() { return timestamp; }
+    public void setTimestamp(long timestamp) { this.timestamp = timestamp; }
+
+    public String getSessionId() { return sessionId; }
+    public void setSessionId(String sessionId) { this.sessionId = sessionId; }
+
+    /** Wire protocol advertised or requested by a CONNECT message, see {@link WireProtocol}. */
+    public String getProtocol() { return protocol; }
+    public void setProtocol(String protocol) { this.protocol = protocol; }
+
     public String toJson() {
-        Gson gson = new GsonBuilder().create();
-        return gson.toJson(this);
+        getData();
+        return GSON.toJson(this);
     }
 
     public static NetworkMessage fromJson(String json) {
-        Gson gson = new GsonBuilder().create();
-        return gson.fromJson(json, NetworkMessage.class);
+        return GSON.fromJson(json, NetworkMessage.class);
     }
     
     @Override
@@ -0,0 +1,38 @@
+package network;
+
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.DecoderException;
+import io.netty.handler.codec.MessageToMessageCodec;
+
+import java.util.List;
+
+/**
+ * Turns line frames into {@link NetworkMessage}s and back. Each message is one
+ * line of JSON, the same format the blocking client reads and writes, so it
+ * sits behind a line frame decoder and the string codecs.
+ */
+@ChannelHandler.Sharable
+public class NetworkMessageCodec extends MessageToMessageCodec<String, NetworkMessage> {
+    @Override
+    protected void encode(ChannelHandlerContext ctx, NetworkMessage message, List<Object> out) {
+        out.add(message.toJson() + "\n");
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, String frame, List<Object> out) {
+        if (frame.isEmpty()) {
+            return;
+        }
+        NetworkMessage message;
+        try {
+            message = NetworkMessage.fromJson(frame);
+        } catch (RuntimeException e) {
+            throw new DecoderException("Invalid message format", e);
+        }
+        if (message == null || message.getType() == null) {
+            throw new DecoderException("Invalid message format");
+        }
+        out.add(message);
+    }
+}
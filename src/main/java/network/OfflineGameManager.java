@@ -11,8 +11,9 @@ import java.util.concurrent.CopyOnWriteArrayList;
 public class OfflineGameManager {
     private static final String OFFLINE_DATA_FILE = "offline_games.dat";
     private static final String LEADERBOARD_FILE = "local_leaderboard.dat";
+    private static final int LEADERBOARD_SIZE = 100;
 
-    private final List<LeaderboardEntry> localLeaderboard = new CopyOnWriteArrayList<>();
+    private final Leaderboard localLeaderboard = new Leaderboard(LEADERBOARD_SIZE, 0);
     private final List<GameStateData> pendingGames = new CopyOnWriteArrayList<>();
     private final Gson gson = new GsonBuilder().create();
 
@@ -36,16 +37,6 @@ public class OfflineGameManager {
 
             // Add to local leaderboard
             localLeaderboard.add(entry);
-            localLeaderboard.sort((a, b) -> {
-                int levelCompare = Integer.compare(b.getLevel(), a.getLevel());
-                if (levelCompare != 0) return levelCompare;
-                return Long.compare(a.getCompletionTime(), b.getCompletionTime());
-            });
-
-            // Keep only top 100 entries
-            if (localLeaderboard.size() > 100) {
-                localLeaderboard.subList(100, localLeaderboard.size()).clear();
-            }
 
             // Save to file
             saveOfflineData();
@@ -57,7 +48,7 @@ public class OfflineGameManager {
     }
 
     public List<LeaderboardEntry> getLocalLeaderboard() {
-        return new ArrayList<>(localLeaderboard);
+        return localLeaderboard.top(LEADERBOARD_SIZE);
     }
 
     public List<GameStateData> getPendingGames() {
@@ -70,31 +61,9 @@ public class OfflineGameManager {
     }
 
     public void updateLeaderboard(List<LeaderboardEntry> serverLeaderboard) {
-        // Merge server leaderboard with local leaderboard
-        Map<String, LeaderboardEntry> entryMap = new HashMap<>();
-
-        for (LeaderboardEntry entry : localLeaderboard) {
-            entryMap.put(entry.getUsername() + "_" + entry.getLevel(), entry);
-        }
-
+        // The board keeps each player's fastest time per level
         for (LeaderboardEntry entry : serverLeaderboard) {
-            String key = entry.getUsername() + "_" + entry.getLevel();
-            LeaderboardEntry existing = entryMap.get(key);
-            if (existing == null || entry.getCompletionTime() < existing.getCompletionTime()) {
-                entryMap.put(key, entry);
-            }
-        }
-
-        localLeaderboard.clear();
-        localLeaderboard.addAll(entryMap.values());
-        localLeaderboard.sort((a, b) -> {
-            int levelCompare = Integer.compare(b.getLevel(), a.getLevel());
-            if (levelCompare != 0) return levelCompare;
-            return Long.compare(a.getCompletionTime(), b.getCompletionTime());
-        });
-
-        if (localLeaderboard.size() > 100) {
-            localLeaderboard.subList(100, localLeaderboard.size()).clear();
+            localLeaderboard.add(entry);
         }
 
         saveOfflineData();
@@ -117,7 +86,9 @@ public class OfflineGameManager {
                 String leaderboardJson = Files.readString(leaderboardPath);
                 LeaderboardEntry[] entries = gson.fromJson(leaderboardJson, LeaderboardEntry[].class);
                 if (entries != null) {
-                    localLeaderboard.addAll(Arrays.asList(entries));
+                    for (LeaderboardEntry entry : entries) {
+                        localLeaderboard.add(entry);
+                    }
                 }
             }
 
@@ -140,7 +111,7 @@ public class OfflineGameManager {
     private void saveOfflineData() {
         try {
             Path leaderboardPath = Paths.get(LEADERBOARD_FILE);
-            String leaderboardJson = gson.toJson(localLeaderboard.toArray(new LeaderboardEntry[0]));
+            String leaderboardJson = gson.toJson(localLeaderboard.top(LEADERBOARD_SIZE).toArray(new LeaderboardEntry[0]));
             Files.writeString(leaderboardPath, leaderboardJson);
 
             Path gamesPath = Paths.get(OFFLINE_DATA_FILE);
@@ -0,0 +1,40 @@
+package network;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Receiving side of one game state stream. Keeps the last
+ * {@link GameStateDelta#HISTORY} rebuilt snapshots so deltas against any of
+ * them can be applied.
+ */
+public class SnapshotDeltaDecoder {
+    private final Map<Long, GameStateData> history = new LinkedHashMap<>(16, 0.75f, false) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, GameStateData> eldest) {
+            return size() > GameStateDelta.HISTORY;
+        }
+    };
+    private long latestSequence;
+
+    /**
+     * @return the rebuilt snapshot, or null if the delta is stale or its base
+     *         is no longer known; the next keyframe recovers the stream
+     */
+    public synchronized GameStateData apply(GameStateDelta delta) {
+        if (delta.getSequence() <= latestSequence) {
+            return null;
+        }
+        GameStateData base = null;
+        if (!delta.isKeyframe()) {
+            base = history.get(delta.getBaseSequence());
+            if (base == null) {
+                return null;
+            }
+        }
+        GameStateData snapshot = delta.applyTo(base);
+        history.put(delta.getSequence(), snapshot);
+        latestSequence = delta.getSequence();
+        return snapshot;
+    }
+}
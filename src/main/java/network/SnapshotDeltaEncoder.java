@@ -0,0 +1,64 @@
+package network;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Sending side of one game state stream. Each snapshot is sent as a delta
+ * against the newest snapshot the peer acknowledged, or as a keyframe when
+ * there is none, the acknowledged one is too old, or
+ * {@link GameStateDelta#KEYFRAME_INTERVAL} snapshots have passed since the
+ * last keyframe.
+ *
+ * <p>Snapshots are kept until acknowledged, so callers must not change a
+ * snapshot after passing it in.
+ */
+public class SnapshotDeltaEncoder {
+    private final Map<Long, GameStateData> unacknowledged = new LinkedHashMap<>();
+    private GameStateData acknowledged;
+    private long acknowledgedSequence;
+    private long sequence;
+    private long lastKeyframe;
+
+    public synchronized GameStateDelta encode(GameStateData snapshot) {
+        long next = ++sequence;
+        boolean keyframe = acknowledged == null
+                || next - acknowledgedSequence >= GameStateDelta.HISTORY
+                || next - lastKeyframe >= GameStateDelta.KEYFRAME_INTERVAL;
+        GameStateDelta delta;
+        if (keyframe) {
+            delta = GameStateDelta.keyframe(snapshot, next);
+            lastKeyframe = next;
+        } else {
+            delta = GameStateDelta.between(acknowledged, acknowledgedSequence, snapshot, next);
+        }
+        unacknowledged.put(next, snapshot);
+        if (unacknowledged.size() > GameStateDelta.HISTORY) {
+            Iterator<Long> oldest = unacknowledged.keySet().iterator();
+            oldest.next();
+            oldest.remove();
+        }
+        return delta;
+    }
+
+    /**
+     * Records that the peer rebuilt the snapshot with this sequence number.
+     */
+    public synchronized void acknowledge(long acknowledgedSequence) {
+        if (acknowledgedSequence <= this.acknowledgedSequence) {
+            return;
+        }
+        GameStateData snapshot = unacknowledged.get(acknowledgedSequence);
+        if (snapshot == null) {
+            return;
+        }
+        acknowledged = snapshot;
+        this.acknowledgedSequence = acknowledgedSequence;
+        unacknowledged.keySet().removeIf(sent -> sent <= acknowledgedSequence);
+    }
+
+    public synchronized long getAcknowledgedSequence() {
+        return acknowledgedSequence;
+    }
+}
@@ -0,0 +1,229 @@
+package network;
+
+import Game.GameState;
+import Game.IConnection;
+import controller.User;
+
+import java.awt.Point;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Smooths another player's packets between the snapshots received for them.
+ * Packets are drawn a little in the past, between the two snapshots around
+ * that moment. When no newer snapshot has arrived yet, packets keep moving
+ * along their wire at the speed they last had.
+ *
+ * <p>The delay follows the measured arrival interval, so the server can send
+ * less often without the client being retuned. Snapshots are pushed from the
+ * network thread and sampled from the paint thread.
+ */
+public class SnapshotInterpolator {
+    private static final int BUFFERED_SNAPSHOTS = 8;
+    private static final long TICK_MS = 16; // Simulation step the packet speeds are given in
+    private static final double DELAY_INTERVALS = 1.5; // Render delay in arrival intervals
+    private static final long MIN_DELAY_MS = 50;
+    private static final long MAX_DELAY_MS = 1500;
+    private static final long MAX_EXTRAPOLATION_MS = 500; // Packets stop after this long without news
+    private static final double INTERVAL_WEIGHT = 0.2; // Weight of the newest arrival interval
+
+    private final Deque<Frame> frames = new ArrayDeque<>();
+    private final Point point = new Point();
+    private double averageInterval = -1;
+    private List<GameStateData.ConnectionData> wiring;
+    private Map<String, IConnection> connections = new HashMap<>();
+
+    /**
+     * Adds a snapshot that arrived at {@code receivedAt} milliseconds.
+     */
+    public synchronized void push(GameStateData snapshot, long receivedAt) {
+        Frame newest = frames.peekLast();
+        if (newest != null) {
+            long interval = receivedAt - newest.time;
+            averageInterval = averageInterval < 0 ? interval : averageInterval + INTERVAL_WEIGHT * (interval - averageInterval);
+        }
+        if (!Objects.equals(wiring, snapshot.getConnections())) {
+            rebuildWiring(snapshot);
+        }
+        frames.addLast(new Frame(snapshot, receivedAt));
+        while (frames.size() > BUFFERED_SNAPSHOTS) {
+            frames.removeFirst();
+        }
+    }
+
+    public synchronized GameStateData getLatest() {
+        Frame newest = frames.peekLast();
+        return newest != null ? newest.snapshot : null;
+    }
+
+    public synchronized void clear() {
+        frames.clear();
+        averageInterval = -1;
+        wiring = null;
+        connections = new HashMap<>();
+    }
+
+    /**
+     * How far behind the newest snapshot packets are drawn.
+     */
+    public synchronized long getDelay() {
+        if (averageInterval < 0) {
+            return MIN_DELAY_MS;
+        }
+        return Math.max(MIN_DELAY_MS, Math.min(MAX_DELAY_MS, (long) (averageInterval * DELAY_INTERVALS)));
+    }
+
+    /**
+     * The packets as they should be drawn at {@code now}, with x and y set
+     * to the smoothed positions.
+     */
+    public synchronized List<GameStateData.PacketData> sample(long now) {
+        List<GameStateData.PacketData> packets = new ArrayList<>();
+        if (frames.isEmpty()) {
+            return packets;
+        }
+        long renderTime = now - getDelay();
+        Frame before = null;
+        Frame after = null;
+        Iterator<Frame> iterator = frames.iterator();
+        while (iterator.hasNext()) {
+            Frame frame = iterator.next();
+            if (frame.time <= renderTime) {
+                before = frame;
+            } else {
+                after = frame;
+                break;
+            }
+        }
+
+        if (before == null) {
+            // Older than anything buffered, hold the oldest snapshot.
+            packets.addAll(after.packets.values());
+        } else if (after == null) {
+            long ahead = Math.min(renderTime - before.time, MAX_EXTRAPOLATION_MS);
+            for (GameStateData.PacketData packet : before.packets.values()) {
+                packets.add(extrapolate(packet, ahead));
+            }
+        } else {
+            double t = (double) (renderTime - before.time) / (after.time - before.time);
+            for (GameStateData.PacketData to : after.packets.values()) {
+                GameStateData.PacketData from = before.packets.get(to.getId());
+                packets.add(from != null ? interpolate(from, to, t) : to);
+            }
+        }
+        return packets;
+    }
+
+    // Packets still on the same wire are blended by distance along it, so they follow its bends.
+    private GameStateData.PacketData interpolate(GameStateData.PacketData from, GameStateData.PacketData to, double t) {
+        GameStateData.PacketData packet = copy(to);
+        IConnection connection = to.getConnectionId() != null ? connections.get(to.getConnectionId()) : null;
+        Number fromSegment = property(from, GameStateConverter.PACKET_SEGMENT);
+        Number toSegment = property(to, GameStateConverter.PACKET_SEGMENT);
+        if (connection == null || fromSegment == null || toSegment == null
+                || !to.getConnectionId().equals(from.getConnectionId())
+                || !isOnPath(connection, fromSegment.intValue()) || !isOnPath(connection, toSegment.intValue())) {
+            packet.setX(from.getX() + (to.getX() - from.getX()) * t);
+            packet.setY(from.getY() + (to.getY() - from.getY()) * t);
+            return packet;
+        }
+        connection.getPointOnPath(fromSegment.intValue(), from.getProgress(), point);
+        double fromOffsetX = from.getX() - point.x;
+        double fromOffsetY = from.getY() - point.y;
+        connection.getPointOnPath(toSegment.intValue(), to.getProgress(), point);
+        double toOffsetX = to.getX() - point.x;
+        double toOffsetY = to.getY() - point.y;
+
+        double fromDistance = connection.getDistanceAt(fromSegment.intValue(), from.getProgress());
+        double toDistance = connection.getDistanceAt(toSegment.intValue(), to.getProgress());
+        connection.getPointAtDistance(fromDistance + (toDistance - fromDistance) * t, point);
+        packet.setX(point.x + fromOffsetX + (toOffsetX - fromOffsetX) * t);
+        packet.setY(point.y + fromOffsetY + (toOffsetY - fromOffsetY) * t);
+        return packet;
+    }
+
+    private static boolean isOnPath(IConnection connection, int segment) {
+        return segment >= 0 && segment <= connection.getPathPointCount() - 2;
+    }
+
+    // Advances the packet along its wire the way Packet.updateForward does, one segment at a time.
+    private GameStateData.PacketData extrapolate(GameStateData.PacketData packet, long aheadMs) {
+        IConnection connection = packet.getConnectionId() != null ? connections.get(packet.getConnectionId()) : null;
+        Number segmentValue = property(packet, GameStateConverter.PACKET_SEGMENT);
+        Number speedValue = property(packet, GameStateConverter.PACKET_SPEED);
+        if (connection == null || segmentValue == null || speedValue == null || aheadMs <= 0) {
+            return packet;
+        }
+        int lastSegment = connection.getPathPointCount() - 2;
+        int segment = segmentValue.intValue();
+        if (segment < 0 || segment > lastSegment) {
+            return packet;
+        }
+        // Keep the packet's offset from its wire, e.g. from shockwaves.
+        connection.getPointOnPath(segment, packet.getProgress(), point);
+        double offsetX = packet.getX() - point.x;
+        double offsetY = packet.getY() - point.y;
+
+        double progress = packet.getProgress() + speedValue.doubleValue() * aheadMs / TICK_MS;
+        while (progress >= 1.0 && segment < lastSegment) {
+            progress -= 1.0;
+            segment++;
+        }
+        connection.getPointOnPath(segment, Math.max(0.0, Math.min(1.0, progress)), point);
+
+        GameStateData.PacketData moved = copy(packet);
+        moved.setX(point.x + offsetX);
+        moved.setY(point.y + offsetY);
+        return moved;
+    }
+
+    private void rebuildWiring(GameStateData snapshot) {
+        wiring = snapshot.getConnections();
+        connections = new HashMap<>();
+        GameState state = GameStateConverter.fromNetworkData(snapshot, new User(String.valueOf(snapshot.getUsername())));
+        for (IConnection connection : state.getConnections()) {
+            connections.put(connection.getId(), connection);
+        }
+    }
+
+    private static Number property(GameStateData.PacketData packet, String name) {
+        Object value = packet.getProperties() != null ? packet.getProperties().get(name) : null;
+        return value instanceof Number ? (Number) value : null;
+    }
+
+    private static GameStateData.PacketData copy(GameStateData.PacketData packet) {
+        GameStateData.PacketData copy = new GameStateData.PacketData();
+        copy.setId(packet.getId());
+        copy.setX(packet.getX());
+        copy.setY(packet.getY());
+        copy.setType(packet.getType());
+        copy.setProgress(packet.getProgress());
+        copy.setConnectionId(packet.getConnectionId());
+        copy.setProperties(packet.getProperties());
+        return copy;
+    }
+
+    private static final class Frame {
+        final GameStateData snapshot;
+        final long time;
+        final Map<String, GameStateData.PacketData> packets = new HashMap<>();
+
+        Frame(GameStateData snapshot, long time) {
+            this.snapshot = snapshot;
+            this.time = time;
+            if (snapshot.getPackets() != null) {
+                for (GameStateData.PacketData packet : snapshot.getPackets()) {
+                    if (packet.getId() != null) {
+                        packets.put(packet.getId(), packet);
+                    }
+                }
+            }
+        }
+    }
+}
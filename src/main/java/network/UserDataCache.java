@@ -0,0 +1,207 @@
+package network;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Least-recently-used cache of {@link DataIntegrityValidator.UserData},
+ * bounded both by entry count and by weight, where a user weighs one plus
+ * the length of their game history. The least recently used users are
+ * evicted once either bound is passed, so memory stays flat however many
+ * players have ever connected.
+ *
+ * <p>Changed users are written behind: {@link #markDirty} only queues the
+ * user, and a writer thread hands each queued user to the writer once per
+ * {@link #WRITE_BEHIND_MS}, however often they changed in between. A queued
+ * user stays reachable until written, so evicting it loses nothing and
+ * reading it back never sees an older file.
+ */
+public class UserDataCache {
+    private static final long WRITE_BEHIND_MS = 5000;
+
+    private final int maxEntries;
+    private final long maxWeight;
+    private final Consumer<DataIntegrityValidator.UserData> writer;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true); // Access order, guarded by itself
+    private final Map<String, DataIntegrityValidator.UserData> dirty = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService writeBehind = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "user-data-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder writes = new LongAdder();
+    private final AtomicBoolean flushQueued = new AtomicBoolean();
+    private long weight; // Guarded by entries
+
+    UserDataCache(int maxEntries, long maxWeight, Consumer<DataIntegrityValidator.UserData> writer) {
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+        this.writer = writer;
+        writeBehind.scheduleWithFixedDelay(this::flush, WRITE_BEHIND_MS, WRITE_BEHIND_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * The cached user, or null on a miss. A user evicted while still
+     * waiting to be written is cached again and counts as a hit.
+     */
+    DataIntegrityValidator.UserData get(String macAddress) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(macAddress);
+        }
+        if (entry != null) {
+            hits.increment();
+            return entry.userData;
+        }
+        DataIntegrityValidator.UserData pending = dirty.get(macAddress);
+        if (pending != null) {
+            hits.increment();
+            put(pending);
+            return pending;
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Caches the user, or updates their weight if already cached, and
+     * evicts until both bounds hold again.
+     */
+    void put(DataIntegrityValidator.UserData userData) {
+        Entry entry = new Entry(userData);
+        synchronized (entries) {
+            Entry previous = entries.put(userData.getMacAddress(), entry);
+            weight += entry.weight - (previous != null ? previous.weight : 0);
+            Iterator<Entry> eldest = entries.values().iterator();
+            while ((entries.size() > maxEntries || weight > maxWeight) && entries.size() > 1) {
+                Entry evicted = eldest.next();
+                eldest.remove();
+                weight -= evicted.weight;
+                evictions.increment();
+            }
+        }
+    }
+
+    /**
+     * Queues the user to be written by the next write-behind pass. A queue
+     * as long as the cache is written straight away instead of waiting, and
+     * past twice that the caller writes the user itself, so the queue stays
+     * bounded too.
+     */
+    void markDirty(DataIntegrityValidator.UserData userData) {
+        String macAddress = userData.getMacAddress();
+        dirty.put(macAddress, userData);
+        if (dirty.size() > 2 * maxEntries) {
+            write(macAddress, userData);
+        } else if (dirty.size() >= maxEntries && !flushQueued.getAndSet(true)) {
+            try {
+                writeBehind.execute(this::flush);
+            } catch (RejectedExecutionException e) {
+                flushQueued.set(false); // Closing, close() writes the rest
+            }
+        }
+    }
+
+    /**
+     * Writes every queued user now. Runs on the writer thread, and once more
+     * on {@link #close}.
+     */
+    void flush() {
+        flushQueued.set(false);
+        for (Map.Entry<String, DataIntegrityValidator.UserData> queued : dirty.entrySet()) {
+            write(queued.getKey(), queued.getValue());
+        }
+    }
+
+    private void write(String macAddress, DataIntegrityValidator.UserData userData) {
+        // Removed first, so a change made while writing queues the user again.
+        if (dirty.remove(macAddress, userData)) {
+            try {
+                writer.accept(userData);
+                writes.increment();
+            } catch (RuntimeException e) {
+                System.err.println("Failed to write user data: " + e.getMessage());
+                dirty.putIfAbsent(macAddress, userData); // Retried on the next pass
+            }
+        }
+    }
+
+    void close() {
+        writeBehind.shutdown();
+        try {
+            writeBehind.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    public Stats getStats() {
+        synchronized (entries) {
+            return new Stats(entries.size(), weight, hits.sum(), misses.sum(), evictions.sum(), dirty.size(), writes.sum());
+        }
+    }
+
+    private static final class Entry {
+        final DataIntegrityValidator.UserData userData;
+        final int weight;
+
+        Entry(DataIntegrityValidator.UserData userData) {
+            this.userData = userData;
+            List<?> history = userData.getGameHistory();
+            this.weight = 1 + (history != null ? history.size() : 0);
+        }
+    }
+
+    public static final class Stats {
+        private final int entries;
+        private final long weight;
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final int queuedWrites;
+        private final long writes;
+
+        Stats(int entries, long weight, long hits, long misses, long evictions, int queuedWrites, long writes) {
+            this.entries = entries;
+            this.weight = weight;
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.queuedWrites = queuedWrites;
+            this.writes = writes;
+        }
+
+        public int getEntries() { return entries; }
+        public long getWeight() { return weight; }
+        public long getHits() { return hits; }
+        public long getMisses() { return misses; }
+        public long getEvictions() { return evictions; }
+        public int getQueuedWrites() { return queuedWrites; }
+        public long getWrites() { return writes; }
+
+        public double getHitRate() {
+            long requests = hits + misses;
+            return requests > 0 ? (double) hits / requests : 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("user cache: %d users, weight %d, hit rate %.1f%% (%d hits, %d misses), %d evictions, %d queued writes, %d written",
+                    entries, weight, getHitRate() * 100, hits, misses, evictions, queuedWrites, writes);
+        }
+    }
+}
@@ -0,0 +1,408 @@
+package network;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Server-side record of user progress. Game results go into an append-only
+ * log that is memory-mapped, so an append is a copy into the mapping. Each
+ * user's totals, and where their latest result is, are kept in memory as a
+ * small summary.
+ *
+ * <p>Appends become durable in groups: a flusher thread forces whatever was
+ * appended in the last {@link #FLUSH_INTERVAL_MS} to disk with one call.
+ * Appended records are in the page cache as soon as the append returns, so
+ * only a machine crash can lose that last interval.
+ *
+ * <p>The summaries are checkpointed to an index file along with the log
+ * position they cover. Opening the store loads the index and replays the log
+ * after that position, up to the first record a crash cut short. A user's
+ * results are chained from newest to oldest through the log, so their recent
+ * history is read straight from the mapping.
+ */
+class UserProgressStore implements Closeable {
+    private static final String LOG_FILE = "progress.log";
+    private static final String INDEX_FILE = "progress.index";
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+    private static final int LOG_MAGIC = 0x4248504C; // "BHPL"
+    private static final int INDEX_MAGIC = 0x42485049; // "BHPI"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8; // Magic and version
+    private static final int RECORD_HEADER_SIZE = 8; // Length and CRC32 of the record body
+    private static final byte RESULT = 1; // A game result, added to the totals
+    private static final byte TOTALS = 2; // Totals set outright
+    private static final byte HISTORY = 3; // A game result from before the store, already in the totals
+    private static final int INITIAL_CAPACITY = 1 << 20; // Doubled whenever the log outgrows it
+    private static final long FLUSH_INTERVAL_MS = 50;
+    private static final int CHECKPOINT_RECORDS = 10000; // Appends between index checkpoints
+
+    private final Path directory;
+    private final FileChannel channel;
+    private final Map<String, Summary> summaries = new ConcurrentHashMap<>();
+    private final ByteArrayOutputStream recordBytes = new ByteArrayOutputStream(128);
+    private final DataOutputStream record = new DataOutputStream(recordBytes);
+    private final CRC32 appendCrc = new CRC32();
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "progress-flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile MappedByteBuffer log;
+    private int position; // End of the last whole record, guarded by this
+    private int sinceCheckpoint; // Guarded by this
+    private int flushedPosition; // Flusher thread only
+
+    private UserProgressStore(Path directory, FileChannel channel) {
+        this.directory = directory;
+        this.channel = channel;
+    }
+
+    static UserProgressStore open(Path directory) throws IOException {
+        FileChannel channel = FileChannel.open(directory.resolve(LOG_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        UserProgressStore store = new UserProgressStore(directory, channel);
+        try {
+            store.recover();
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        store.flusher.scheduleWithFixedDelay(store::flush, FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        return store;
+    }
+
+    private void recover() throws IOException {
+        long size = channel.size();
+        log = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(size, INITIAL_CAPACITY));
+        if (size == 0) {
+            log.putInt(0, LOG_MAGIC);
+            log.putInt(4, VERSION);
+        } else if (log.getInt(0) != LOG_MAGIC) {
+            throw new IOException("Not a progress log");
+        } else if (log.getInt(4) > VERSION) {
+            throw new IOException("Progress log version " + log.getInt(4) + " is newer than this server supports");
+        }
+        position = readIndex();
+        int replayed = 0;
+        byte[] body;
+        while ((body = readRecord(position)) != null) {
+            apply(body, position);
+            position += RECORD_HEADER_SIZE + body.length;
+            replayed++;
+        }
+        flushedPosition = position;
+        sinceCheckpoint = replayed;
+        System.out.println("User progress: " + summaries.size() + " users, replayed " + replayed + " log records");
+    }
+
+    /**
+     * The totals of a user, or null if the store has nothing for them yet.
+     */
+    Summary summary(String macAddress) {
+        return summaries.get(macAddress);
+    }
+
+    /**
+     * Up to {@code limit} of the user's latest results, oldest first.
+     */
+    List<DataIntegrityValidator.GameResultData> recentResults(String macAddress, int limit) {
+        Summary summary = summaries.get(macAddress);
+        ArrayDeque<DataIntegrityValidator.GameResultData> results = new ArrayDeque<>();
+        int offset = summary != null ? summary.lastResult : -1;
+        try {
+            while (offset >= 0 && results.size() < limit) {
+                byte[] body = readRecord(offset);
+                if (body == null) {
+                    break;
+                }
+                DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+                in.readByte();
+                in.readUTF();
+                offset = in.readInt();
+                results.addFirst(readResult(in));
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to read game history: " + e.getMessage());
+        }
+        return new ArrayList<>(results);
+    }
+
+    synchronized void appendResult(String macAddress, DataIntegrityValidator.GameResultData result, int xp) throws IOException {
+        appendResult(RESULT, macAddress, result, xp);
+    }
+
+    synchronized void appendTotals(String macAddress, int coins, int maxLevelPass, int totalXP) throws IOException {
+        recordBytes.reset();
+        record.writeByte(TOTALS);
+        record.writeUTF(macAddress);
+        record.writeInt(coins);
+        record.writeInt(maxLevelPass);
+        record.writeInt(totalXP);
+        append();
+        Summary current = summaries.getOrDefault(macAddress, Summary.EMPTY);
+        summaries.put(macAddress, current.withTotals(coins, maxLevelPass, totalXP));
+    }
+
+    /**
+     * Brings in a user whose progress predates the store. The totals go
+     * first, so a crash part way through loses history but never miscounts.
+     */
+    synchronized void importUser(String macAddress, int coins, int maxLevelPass, int totalXP,
+                                 List<DataIntegrityValidator.GameResultData> history) throws IOException {
+        appendTotals(macAddress, coins, maxLevelPass, totalXP);
+        if (history != null) {
+            for (DataIntegrityValidator.GameResultData result : history) {
+                appendResult(HISTORY, macAddress, result, 0);
+            }
+        }
+    }
+
+    private void appendResult(byte kind, String macAddress, DataIntegrityValidator.GameResultData result, int xp) throws IOException {
+        Summary current = summaries.getOrDefault(macAddress, Summary.EMPTY);
+        recordBytes.reset();
+        record.writeByte(kind);
+        record.writeUTF(macAddress);
+        record.writeInt(current.lastResult);
+        record.writeInt(result.getLevel());
+        record.writeLong(result.getCompletionTime());
+        record.writeInt(result.getPacketLoss());
+        record.writeInt(result.getCoinsEarned());
+        record.writeLong(result.getTimestamp());
+        record.writeBoolean(result.getDataHash() != null);
+        if (result.getDataHash() != null) {
+            record.writeUTF(result.getDataHash());
+        }
+        record.writeInt(xp);
+        int offset = append();
+        summaries.put(macAddress, kind == RESULT ? current.withResult(result, xp, offset) : current.withHistory(offset));
+    }
+
+    // Writes the record in recordBytes at the end of the log and returns its offset.
+    private int append() throws IOException {
+        byte[] body = recordBytes.toByteArray();
+        int offset = position;
+        long end = (long) offset + RECORD_HEADER_SIZE + body.length;
+        MappedByteBuffer mapped = log;
+        if (end > mapped.capacity()) {
+            long capacity = Math.max(end, 2L * mapped.capacity());
+            if (capacity > Integer.MAX_VALUE) {
+                capacity = end;
+            }
+            if (capacity > Integer.MAX_VALUE) {
+                throw new IOException("Progress log is full");
+            }
+            mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+            log = mapped;
+        }
+        appendCrc.reset();
+        appendCrc.update(body);
+        mapped.putInt(offset + 4, (int) appendCrc.getValue());
+        mapped.put(offset + RECORD_HEADER_SIZE, body);
+        mapped.putInt(offset, body.length);
+        position = (int) end;
+        sinceCheckpoint++;
+        return offset;
+    }
+
+    // The body of the record at offset, or null past the end of the log or at a torn record.
+    private byte[] readRecord(int offset) {
+        MappedByteBuffer mapped = log;
+        if (offset < HEADER_SIZE || offset > mapped.capacity() - RECORD_HEADER_SIZE) {
+            return null;
+        }
+        int length = mapped.getInt(offset);
+        if (length <= 0 || length > mapped.capacity() - offset - RECORD_HEADER_SIZE) {
+            return null;
+        }
+        byte[] body = new byte[length];
+        mapped.get(offset + RECORD_HEADER_SIZE, body);
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        return (int) crc.getValue() == mapped.getInt(offset + 4) ? body : null;
+    }
+
+    private void apply(byte[] body, int offset) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+        byte kind = in.readByte();
+        String macAddress = in.readUTF();
+        Summary current = summaries.getOrDefault(macAddress, Summary.EMPTY);
+        if (kind == TOTALS) {
+            summaries.put(macAddress, current.withTotals(in.readInt(), in.readInt(), in.readInt()));
+        } else if (kind == RESULT || kind == HISTORY) {
+            in.readInt(); // Previous result, only needed for history
+            DataIntegrityValidator.GameResultData result = readResult(in);
+            int xp = in.readInt();
+            summaries.put(macAddress, kind == RESULT ? current.withResult(result, xp, offset) : current.withHistory(offset));
+        } else {
+            throw new IOException("Unknown progress record " + kind + " at " + offset);
+        }
+    }
+
+    private static DataIntegrityValidator.GameResultData readResult(DataInputStream in) throws IOException {
+        DataIntegrityValidator.GameResultData result = new DataIntegrityValidator.GameResultData(
+                in.readInt(), in.readLong(), in.readInt(), in.readInt());
+        result.setTimestamp(in.readLong());
+        result.setDataHash(in.readBoolean() ? in.readUTF() : null);
+        return result;
+    }
+
+    private void flush() {
+        try {
+            flush(false);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Failed to flush user progress: " + e.getMessage());
+        }
+    }
+
+    // Forces everything appended so far, then checkpoints the summaries if enough was appended since the last one.
+    private void flush(boolean checkpoint) throws IOException {
+        MappedByteBuffer mapped;
+        int end;
+        Map<String, Summary> snapshot = null;
+        synchronized (this) {
+            mapped = log;
+            end = position;
+            if (checkpoint || sinceCheckpoint >= CHECKPOINT_RECORDS) {
+                snapshot = new HashMap<>(summaries);
+                sinceCheckpoint = 0;
+            }
+        }
+        if (end > flushedPosition) {
+            mapped.force(flushedPosition, end - flushedPosition);
+            flushedPosition = end;
+        }
+        if (snapshot != null) {
+            writeIndex(snapshot, end);
+        }
+    }
+
+    private void writeIndex(Map<String, Summary> snapshot, int covered) throws IOException {
+        Path target = directory.resolve(INDEX_FILE);
+        Path temp = directory.resolve(INDEX_FILE + TEMP_FILE_SUFFIX);
+        try (FileOutputStream file = new FileOutputStream(temp.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+            out.writeInt(INDEX_MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(covered);
+            out.writeInt(snapshot.size());
+            for (Map.Entry<String, Summary> entry : snapshot.entrySet()) {
+                Summary summary = entry.getValue();
+                out.writeUTF(entry.getKey());
+                out.writeInt(summary.coins);
+                out.writeInt(summary.maxLevelPass);
+                out.writeInt(summary.totalXP);
+                out.writeInt(summary.games);
+                out.writeInt(summary.lastResult);
+            }
+            out.flush();
+            file.getFD().sync();
+        }
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    // Loads the last checkpoint and returns the log position it covers; without one the whole log is replayed.
+    private int readIndex() {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(directory.resolve(INDEX_FILE))))) {
+            if (in.readInt() != INDEX_MAGIC || in.readInt() > VERSION) {
+                throw new IOException("Not a progress index");
+            }
+            int covered = in.readInt();
+            if (covered < HEADER_SIZE || covered > log.capacity()) {
+                throw new IOException("Progress index is ahead of the log");
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String macAddress = in.readUTF();
+                summaries.put(macAddress, new Summary(in.readInt(), in.readInt(), in.readInt(), in.readInt(), in.readInt()));
+            }
+            return covered;
+        } catch (NoSuchFileException e) {
+            return HEADER_SIZE;
+        } catch (IOException e) {
+            System.err.println("Ignoring progress index, replaying the whole log: " + e.getMessage());
+            summaries.clear();
+            return HEADER_SIZE;
+        }
+    }
+
+    /**
+     * Stops the flusher, forces the log and writes a final checkpoint.
+     */
+    @Override
+    public void close() throws IOException {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            flush(true);
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * A user's totals as of their latest record.
+     */
+    static final class Summary {
+        static final Summary EMPTY = new Summary(0, 0, 0, 0, -1);
+
+        final int coins;
+        final int maxLevelPass;
+        final int totalXP;
+        final int games;
+        final int lastResult; // Log offset of the latest result, -1 if none
+
+        Summary(int coins, int maxLevelPass, int totalXP, int games, int lastResult) {
+            this.coins = coins;
+            this.maxLevelPass = maxLevelPass;
+            this.totalXP = totalXP;
+            this.games = games;
+            this.lastResult = lastResult;
+        }
+
+        // Same arithmetic as DataIntegrityValidator.updateUserProgress.
+        Summary withResult(DataIntegrityValidator.GameResultData result, int xp, int offset) {
+            return new Summary(coins + result.getCoinsEarned(), Math.max(maxLevelPass, result.getLevel()),
+                    totalXP + xp, games + 1, offset);
+        }
+
+        Summary withHistory(int offset) {
+            return new Summary(coins, maxLevelPass, totalXP, games + 1, offset);
+        }
+
+        Summary withTotals(int coins, int maxLevelPass, int totalXP) {
+            return new Summary(coins, maxLevelPass, totalXP, games, lastResult);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package network;
+
+/**
+ * Names of the wire formats a connection can use. Every connection starts with
+ * newline-delimited JSON. The server advertises {@link #BINARY} in its CONNECT
+ * greeting; a client that wants it answers with a CONNECT carrying the same
+ * name and writes binary from then on. The server switches both directions
+ * when it reads that CONNECT and acknowledges it with a last JSON CONNECT.
+ *
+ * <p>Start either side with {@code -Dblueprint.protocol=json} to keep the
+ * connection on JSON for debugging.
+ */
+public final class WireProtocol {
+    public static final String JSON = "json";
+    public static final String BINARY = "binary/" + BinaryMessageFormat.VERSION;
+    public static final int MAX_FRAME_LENGTH = 4 * 1024 * 1024; // Largest accepted frame or line in bytes
+
+    private static final String PROTOCOL_PROPERTY = "blueprint.protocol";
+
+    private WireProtocol() {
+    }
+
+    /**
+     * @return true unless binary was turned off with the system property
+     */
+    public static boolean isBinaryEnabled() {
+        return !JSON.equalsIgnoreCase(System.getProperty(PROTOCOL_PROPERTY));
+    }
+}
@@ -0,0 +1,77 @@
+package server;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import network.BinaryMessageFormat;
+import network.NetworkMessage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A message encoded once for every client it is broadcast to. Each wire
+ * format is encoded the first time a channel using it asks for it; every
+ * channel then writes a duplicate of the same buffer.
+ *
+ * <p>The frame is reference counted. The broadcaster holds the first
+ * reference, every queued recipient one more; the buffers are released when
+ * the last reference goes.
+ */
+final class BroadcastFrame {
+    private final NetworkMessage message;
+    private final AtomicInteger references = new AtomicInteger(1);
+    private ByteBuf json; // Guarded by this
+    private ByteBuf binary; // Guarded by this
+
+    BroadcastFrame(NetworkMessage message) {
+        this.message = message;
+    }
+
+    NetworkMessage getMessage() {
+        return message;
+    }
+
+    BroadcastFrame retain() {
+        references.incrementAndGet();
+        return this;
+    }
+
+    void release() {
+        if (references.decrementAndGet() == 0) {
+            synchronized (this) {
+                if (json != null) {
+                    json.release();
+                    json = null;
+                }
+                if (binary != null) {
+                    binary.release();
+                    binary = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * The encoded message for a channel using the given format. The caller
+     * owns the returned buffer and hands it to the channel, which releases it
+     * once written.
+     */
+    synchronized ByteBuf retainedFrame(boolean binaryChannel) {
+        if (binaryChannel) {
+            if (binary == null) {
+                try {
+                    binary = Unpooled.wrappedBuffer(BinaryMessageFormat.encodeStandaloneFrame(message));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return binary.retainedDuplicate();
+        }
+        if (json == null) {
+            json = Unpooled.wrappedBuffer((message.toJson() + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+        return json.retainedDuplicate();
+    }
+}
@@ -0,0 +1,66 @@
+package server;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.codec.DecoderException;
+import network.NetworkMessage;
+
+/**
+ * Last handler of a client pipeline. Registers the channel with the server
+ * when it becomes active and hands every decoded message to the channel's
+ * {@link ClientHandler}.
+ */
+class ClientChannelHandler extends SimpleChannelInboundHandler<NetworkMessage> {
+    private final ServerMain server;
+    private ClientHandler client;
+
+    ClientChannelHandler(ServerMain server) {
+        this.server = server;
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) {
+        client = server.registerClient(ctx.channel());
+        if (client == null) {
+            ctx.close();
+            return;
+        }
+        client.onConnected();
+        ctx.fireChannelActive();
+    }
+
+    @Override
+    protected void channelRead0(ChannelHandlerContext ctx, NetworkMessage message) {
+        if (client != null) {
+            client.onMessage(message);
+        }
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) {
+        if (client != null) {
+            client.disconnect();
+        }
+        ctx.fireChannelInactive();
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) {
+        if (client != null && ctx.channel().isWritable()) {
+            client.onWritable();
+        }
+        ctx.fireChannelWritabilityChanged();
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+        String clientId = client != null ? client.getClientId() : String.valueOf(ctx.channel().remoteAddress());
+        if (cause instanceof DecoderException && client != null) {
+            System.err.println("Error processing message from " + clientId + ": " + cause.getMessage());
+            client.sendError("Invalid message format");
+            return;
+        }
+        System.err.println("Error handling client " + clientId + ": " + cause.getMessage());
+        ctx.close();
+    }
+}
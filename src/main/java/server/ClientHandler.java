@@ -1,53 +1,64 @@
 package server;
 
+import io.netty.channel.Channel;
 import network.GameStateData;
+import network.GameStateDelta;
 import network.LeaderboardEntry;
+import network.LeaderboardQuery;
 import network.NetworkMessage;
-import java.io.*;
-import java.net.Socket;
+import network.SnapshotDeltaDecoder;
+import network.SnapshotDeltaEncoder;
+import network.WireProtocol;
+import java.net.InetSocketAddress;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 
 
-public class ClientHandler implements Runnable {
+/**
+ * Server-side session of one client. {@link ClientChannelHandler} feeds it the
+ * decoded messages of its channel; replies are written back through the same
+ * channel.
+ */
+public class ClientHandler {
     private final String clientId;
-    private final Socket socket;
+    private final Channel channel;
+    private static final OutboundQueue.SlowConsumerPolicy SLOW_CONSUMER_POLICY =
+            OutboundQueue.SlowConsumerPolicy.fromSystemProperty();
     private final ServerMain server;
-    private final BufferedReader reader;
-    private final PrintWriter writer;
+    private final OutboundQueue outbound;
     private final AtomicBoolean connected = new AtomicBoolean(true);
     private final AtomicLong lastHeartbeat = new AtomicLong(System.currentTimeMillis());
+    private final SnapshotDeltaDecoder incomingState = new SnapshotDeltaDecoder();
+    private volatile GameStateData latestGameState; // Last snapshot this client sent, seeds its match
+    // One stream per player whose state is relayed to this client, keyed by that player's id.
+    private final Map<String, SnapshotDeltaEncoder> outgoingStates = new ConcurrentHashMap<>();
 
-    public ClientHandler(String clientId, Socket socket, ServerMain server) throws IOException {
+    public ClientHandler(String clientId, Channel channel, ServerMain server) {
         this.clientId = clientId;
-        this.socket = socket;
+        this.channel = channel;
         this.server = server;
-        this.reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-        this.writer = new PrintWriter(socket.getOutputStream(), true);
+        this.outbound = new OutboundQueue(channel, SLOW_CONSUMER_POLICY, this::onSlowConsumer);
     }
-    
-    @Override
-    public void run() {
+
+    void onConnected() {
+        NetworkMessage greeting = new NetworkMessage(NetworkMessage.MessageType.CONNECT, "Connected to server", clientId);
+        if (WireProtocol.isBinaryEnabled()) {
+            greeting.setProtocol(WireProtocol.BINARY);
+        }
+        sendMessage(greeting);
+    }
+
+    void onMessage(NetworkMessage message) {
+        // Any traffic counts as a sign of life; the heartbeat wheel reads this.
+        lastHeartbeat.set(System.currentTimeMillis());
         try {
-            sendMessage(new NetworkMessage(NetworkMessage.MessageType.CONNECT, "Connected to server", clientId));
-            
-            String inputLine;
-            while (connected.get() && (inputLine = reader.readLine()) != null) {
-                try {
-                    NetworkMessage message = NetworkMessage.fromJson(inputLine);
-                    handleMessage(message);
-                } catch (Exception e) {
-                    System.err.println("Error processing message from " + clientId + ": " + e.getMessage());
-                    sendError("Invalid message format");
-                }
-            }
-        } catch (IOException e) {
-            if (connected.get()) {
-                System.err.println("Error handling client " + clientId + ": " + e.getMessage());
-            }
-        } finally {
-            disconnect();
+            handleMessage(message);
+        } catch (Exception e) {
+            System.err.println("Error processing message from " + clientId + ": " + e.getMessage());
+            sendError("Invalid message format");
         }
     }
     
@@ -98,6 +109,12 @@ public class ClientHandler implements Runnable {
             case PACKET_UPDATE:
                 handlePacketUpdate(message);
                 break;
+            case STATE_DELTA:
+                handleStateDelta(message);
+                break;
+            case STATE_ACK:
+                handleStateAck(message);
+                break;
             default:
                 System.out.println("Unknown message type from " + clientId + ": " + message.getType());
         }
@@ -120,18 +137,28 @@ public class ClientHandler implements Runnable {
     }
     
     private void handleUserInput(NetworkMessage message) {
+        lastHeartbeat.set(System.currentTimeMillis());
+        if (server.handleMatchInput(clientId, message.getData())) {
+            return;
+        }
         message.setClientId(clientId);
         server.broadcastMessage(message, clientId);
-        lastHeartbeat.set(System.currentTimeMillis());
     }
     
     private void handleLeaderboardRequest(NetworkMessage message) {
-        List<LeaderboardEntry> leaderboard = server.getLeaderboard();
-        String leaderboardJson = new com.google.gson.Gson().toJson(leaderboard);
+        LeaderboardQuery query = LeaderboardQuery.parse(message.getData());
+        String data;
+        if (query != null && query.getKind() == LeaderboardQuery.Kind.RANK) {
+            data = LeaderboardQuery.ranked(query.getUsername(), server.getLeaderboardRank(query.getUsername()));
+        } else if (query != null && query.getKind() == LeaderboardQuery.Kind.LEVEL_PAGE) {
+            data = new com.google.gson.Gson().toJson(server.getLevelLeaderboard(query.getLevel(), query.getOffset()));
+        } else {
+            data = new com.google.gson.Gson().toJson(server.getLeaderboard());
+        }
         
         NetworkMessage response = new NetworkMessage(
             NetworkMessage.MessageType.LEADERBOARD, 
-            leaderboardJson, 
+            data, 
             clientId
         );
         sendMessage(response);
@@ -139,10 +166,10 @@ public class ClientHandler implements Runnable {
     }
 
     private void handleGameResult(NetworkMessage message) {
-        System.out.println("Received GAME_RESULT from " + clientId + ": " + message.getData());
+        System.out.println("Received GAME_RESULT from " + clientId + ": " + message);
 
         try {
-            GameStateData gameState = GameStateData.fromJson(message.getData());
+            GameStateData gameState = message.getGameState();
 
             LeaderboardEntry entry = new LeaderboardEntry(
                     gameState.getUsername(),
@@ -241,6 +268,44 @@ public class ClientHandler implements Runnable {
         lastHeartbeat.set(System.currentTimeMillis());
     }
     
+    private void handleStateDelta(NetworkMessage message) {
+        GameStateDelta delta = message.getStateDelta();
+        GameStateData snapshot = delta != null ? incomingState.apply(delta) : null;
+        if (snapshot == null) {
+            return;
+        }
+        latestGameState = snapshot;
+        sendMessage(new NetworkMessage(NetworkMessage.MessageType.STATE_ACK,
+                String.valueOf(delta.getSequence()), clientId));
+        server.relayGameState(clientId, snapshot);
+    }
+
+    // The message's client id names the player whose stream is acknowledged.
+    private void handleStateAck(NetworkMessage message) {
+        SnapshotDeltaEncoder encoder = outgoingStates.get(message.getClientId());
+        if (encoder != null) {
+            encoder.acknowledge(Long.parseLong(message.getData()));
+        }
+    }
+
+    /**
+     * Sends another player's snapshot to this client as a delta against the
+     * last one this client acknowledged for that player.
+     */
+    public void sendGameState(String sourceClientId, GameStateData snapshot) {
+        SnapshotDeltaEncoder encoder = outgoingStates.computeIfAbsent(sourceClientId, id -> new SnapshotDeltaEncoder());
+        GameStateDelta delta = encoder.encode(snapshot);
+        sendMessage(new NetworkMessage(NetworkMessage.MessageType.STATE_DELTA, delta, sourceClientId));
+    }
+
+    public void forgetGameState(String sourceClientId) {
+        outgoingStates.remove(sourceClientId);
+    }
+
+    public GameStateData getLatestGameState() {
+        return latestGameState;
+    }
+
     private int calculateXP(GameStateData gameState) {
         int baseXP = gameState.getLevel() * 100;
         int packetBonus = (gameState.getNumberPacketsSquare() + gameState.getNumberPacketTriangle() + 
@@ -251,17 +316,35 @@ public class ClientHandler implements Runnable {
         return Math.max(0, baseXP + packetBonus + timeBonus - lossPenalty);
     }
     
+    /**
+     * Queues the message for this client and returns without waiting for
+     * the socket.
+     */
     public void sendMessage(NetworkMessage message) {
-        if (connected.get()) {
-            try {
-                writer.println(message.toJson());
-                writer.flush();
-            } catch (Exception e) {
-                System.err.println("Error sending message to " + clientId + ": " + e.getMessage());
-                disconnect();
-            }
+        if (connected.get() && channel.isActive()) {
+            outbound.offer(message);
+        }
+    }
+
+    /**
+     * Queues a broadcast for this client. The frame's bytes are shared with
+     * every other recipient.
+     */
+    void sendFrame(BroadcastFrame frame) {
+        if (connected.get() && channel.isActive()) {
+            outbound.offer(frame.retain());
         }
     }
+
+    void onWritable() {
+        outbound.onWritable();
+    }
+
+    private void onSlowConsumer() {
+        System.err.println("Client " + clientId + " is not keeping up (" + OutboundQueue.MAX_PENDING
+                + " messages queued, " + outbound.getDroppedCount() + " dropped), disconnecting");
+        disconnect();
+    }
     
     public void sendHeartbeat() {
         sendMessage(new NetworkMessage(NetworkMessage.MessageType.HEARTBEAT, "ping", "server"));
@@ -273,12 +356,9 @@ public class ClientHandler implements Runnable {
     
     public void disconnect() {
         if (connected.compareAndSet(true, false)) {
-            try {
-                server.removeClient(clientId);
-                socket.close();
-            } catch (IOException e) {
-                System.err.println("Error closing socket for " + clientId + ": " + e.getMessage());
-            }
+            server.removeClient(clientId);
+            channel.close();
+            outbound.clear();
         }
     }
     
@@ -286,9 +366,17 @@ public class ClientHandler implements Runnable {
         return lastHeartbeat.get();
     }
 
+    boolean isConnected() {
+        return connected.get();
+    }
+
     
-    public Socket getSocket() {
-        return socket;
+    public InetSocketAddress getRemoteAddress() {
+        return (InetSocketAddress) channel.remoteAddress();
+    }
+
+    public String getClientId() {
+        return clientId;
     }
 
 
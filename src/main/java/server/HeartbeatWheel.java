@@ -0,0 +1,117 @@
+package server;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Hashed timing wheel that watches clients for silence. Each client sits in
+ * the slot of its next deadline, so a tick only looks at the clients due in
+ * that slot, however many are connected.
+ *
+ * <p>Traffic from a client only updates its last heartbeat time; the wheel
+ * notices when the deadline comes up and moves the client to its new
+ * deadline without pinging it. A client is pinged once it has been quiet for
+ * the ping interval and disconnected once quiet for the timeout. First
+ * deadlines are spread over one interval, so clients that connected
+ * together are not pinged together.
+ *
+ * <p>{@link #add} may be called from any thread; {@link #advance} runs on a
+ * single thread.
+ */
+class HeartbeatWheel {
+    static final long TICK_MS = 100;
+    private static final int SLOTS = 512; // One turn covers 51.2 seconds
+
+    private final long pingInterval;
+    private final long timeout;
+    private final List<ArrayDeque<Entry>> slots = new ArrayList<>(SLOTS);
+    private final Queue<ClientHandler> added = new ConcurrentLinkedQueue<>();
+    private long currentTick = -1; // Last tick processed, advance() thread only
+    private int size;
+
+    HeartbeatWheel(long pingInterval, long timeout) {
+        this.pingInterval = pingInterval;
+        this.timeout = timeout;
+        for (int i = 0; i < SLOTS; i++) {
+            slots.add(new ArrayDeque<>());
+        }
+    }
+
+    void add(ClientHandler client) {
+        added.add(client);
+    }
+
+    /**
+     * Number of clients on the wheel, as of the last tick.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Processes every tick up to {@code now}, catching up on ticks the
+     * executor ran late for.
+     */
+    void advance(long now) {
+        long tick = now / TICK_MS;
+        if (currentTick < 0) {
+            currentTick = tick - 1;
+        }
+        ClientHandler client;
+        while ((client = added.poll()) != null) {
+            schedule(client, now + ThreadLocalRandom.current().nextLong(pingInterval));
+            size++;
+        }
+        while (currentTick < tick) {
+            currentTick++;
+            expire(slots.get((int) (currentTick % SLOTS)), now);
+        }
+    }
+
+    private void expire(ArrayDeque<Entry> slot, long now) {
+        for (int i = slot.size(); i > 0; i--) {
+            Entry entry = slot.poll();
+            if (entry.deadlineTick > currentTick) {
+                slot.add(entry); // Due in a later turn of the wheel
+                continue;
+            }
+            ClientHandler client = entry.client;
+            if (!client.isConnected()) {
+                size--;
+                continue;
+            }
+            long lastHeartbeat = client.getLastHeartbeat();
+            long idle = now - lastHeartbeat;
+            if (idle >= timeout) {
+                System.out.println("Client " + client.getClientId() + " timed out, removing...");
+                client.disconnect();
+                size--;
+            } else if (idle >= pingInterval) {
+                client.sendHeartbeat();
+                schedule(client, Math.min(now + pingInterval, lastHeartbeat + timeout));
+            } else {
+                schedule(client, lastHeartbeat + pingInterval);
+            }
+        }
+    }
+
+    private void schedule(ClientHandler client, long deadline) {
+        // Never into the slot being expired, or it would be seen again this tick.
+        long deadlineTick = Math.max(currentTick + 1, deadline / TICK_MS);
+        slots.get((int) (deadlineTick % SLOTS)).add(new Entry(client, deadlineTick));
+    }
+
+    private static final class Entry {
+        final ClientHandler client;
+        final long deadlineTick;
+
+        Entry(ClientHandler client, long deadlineTick) {
+            this.client = client;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+}
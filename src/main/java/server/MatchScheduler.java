@@ -0,0 +1,187 @@
+package server;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ticks every running match on a fixed set of single-threaded shards. A match
+ * belongs to exactly one shard at a time and is only ever ticked by that
+ * shard's thread, so its game states need no locks.
+ *
+ * <p>New matches go to the shard with the fewest matches, since their cost
+ * is not known yet. Every {@link #REBALANCE_EVERY_TICKS} ticks a shard whose
+ * ticks take clearly longer than the quickest shard's hands a match over
+ * between two ticks; the hand-over goes
+ * through the target's executor, which orders the two threads' accesses.
+ */
+class MatchScheduler {
+    static final long TICK_MS = 16; // Same step as the client's SimulationEngine
+    private static final int REBALANCE_EVERY_TICKS = 62; // About once a second
+    private static final double REBALANCE_RATIO = 1.5; // Load gap before a shard sheds a match
+    private static final double EWMA_WEIGHT = 0.1; // Weight of the newest sample in the averages
+
+    private final Shard[] shards;
+
+    MatchScheduler(int shardCount) {
+        shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(i);
+        }
+        for (Shard shard : shards) {
+            shard.executor.scheduleAtFixedRate(shard::tick, TICK_MS, TICK_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Hands the match to the least loaded shard; it is ticked from the next
+     * tick of that shard until it finishes or is stopped.
+     */
+    void schedule(MatchSimulation match) {
+        Shard target = shards[0];
+        for (Shard shard : shards) {
+            if (shard.size.get() < target.size.get()) {
+                target = shard;
+            }
+        }
+        Shard chosen = target;
+        chosen.size.incrementAndGet();
+        chosen.executor.execute(() -> chosen.matches.add(match));
+    }
+
+    void shutdown() {
+        for (Shard shard : shards) {
+            shard.executor.shutdownNow();
+        }
+    }
+
+    List<ShardStats> getStats() {
+        List<ShardStats> stats = new ArrayList<>(shards.length);
+        for (Shard shard : shards) {
+            stats.add(new ShardStats(shard.index, shard.size.get(), shard.lastTickNanos,
+                    (long) shard.averageTickNanos, shard.maxTickNanos, shard.overruns));
+        }
+        return stats;
+    }
+
+    private Shard quickest() {
+        Shard quickest = shards[0];
+        for (Shard shard : shards) {
+            if (shard.averageTickNanos < quickest.averageTickNanos) {
+                quickest = shard;
+            }
+        }
+        return quickest;
+    }
+
+    private final class Shard {
+        final int index;
+        final ScheduledExecutorService executor;
+        final List<MatchSimulation> matches = new ArrayList<>(); // Shard thread only
+        final AtomicInteger size = new AtomicInteger();
+        volatile long lastTickNanos;
+        volatile double averageTickNanos;
+        volatile long maxTickNanos;
+        volatile long overruns; // Ticks that took longer than TICK_MS
+        long tickCount;
+
+        Shard(int index) {
+            this.index = index;
+            this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "match-shard-" + index);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        void tick() {
+            long start = System.nanoTime();
+            Iterator<MatchSimulation> iterator = matches.iterator();
+            while (iterator.hasNext()) {
+                MatchSimulation match = iterator.next();
+                long matchStart = System.nanoTime();
+                boolean running = match.step();
+                match.costNanos += (long) (EWMA_WEIGHT * (System.nanoTime() - matchStart - match.costNanos));
+                if (!running) {
+                    iterator.remove();
+                    size.decrementAndGet();
+                }
+            }
+            long elapsed = System.nanoTime() - start;
+            lastTickNanos = elapsed;
+            averageTickNanos += EWMA_WEIGHT * (elapsed - averageTickNanos);
+            if (elapsed > maxTickNanos) {
+                maxTickNanos = elapsed;
+            }
+            if (elapsed > TimeUnit.MILLISECONDS.toNanos(TICK_MS)) {
+                overruns++;
+            }
+            if (++tickCount % REBALANCE_EVERY_TICKS == 0) {
+                rebalance();
+            }
+        }
+
+        /**
+         * Moves the match whose cost best halves the gap to the quickest
+         * shard, if this shard is clearly the slower one.
+         */
+        private void rebalance() {
+            Shard target = quickest();
+            if (target == this || matches.size() < 2 || averageTickNanos < REBALANCE_RATIO * target.averageTickNanos) {
+                return;
+            }
+            double gap = (averageTickNanos - target.averageTickNanos) / 2;
+            MatchSimulation best = null;
+            for (MatchSimulation match : matches) {
+                if (match.costNanos < gap * 2
+                        && (best == null || Math.abs(gap - match.costNanos) < Math.abs(gap - best.costNanos))) {
+                    best = match;
+                }
+            }
+            if (best == null) {
+                return;
+            }
+            MatchSimulation moved = best;
+            matches.remove(moved);
+            size.decrementAndGet();
+            averageTickNanos = Math.max(0, averageTickNanos - moved.costNanos);
+            target.size.incrementAndGet();
+            target.executor.execute(() -> target.matches.add(moved));
+        }
+    }
+
+    static final class ShardStats {
+        private final int shard;
+        private final int matches;
+        private final long lastTickNanos;
+        private final long averageTickNanos;
+        private final long maxTickNanos;
+        private final long overruns;
+
+        ShardStats(int shard, int matches, long lastTickNanos, long averageTickNanos, long maxTickNanos, long overruns) {
+            this.shard = shard;
+            this.matches = matches;
+            this.lastTickNanos = lastTickNanos;
+            this.averageTickNanos = averageTickNanos;
+            this.maxTickNanos = maxTickNanos;
+            this.overruns = overruns;
+        }
+
+        public int getShard() { return shard; }
+        public int getMatches() { return matches; }
+        public long getLastTickNanos() { return lastTickNanos; }
+        public long getAverageTickNanos() { return averageTickNanos; }
+        public long getMaxTickNanos() { return maxTickNanos; }
+        public long getOverruns() { return overruns; }
+
+        @Override
+        public String toString() {
+            return String.format("shard %d: %d matches, tick last %.2fms avg %.2fms max %.2fms, %d overruns",
+                    shard, matches, lastTickNanos / 1e6, averageTickNanos / 1e6, maxTickNanos / 1e6, overruns);
+        }
+    }
+}
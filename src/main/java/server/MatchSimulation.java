@@ -0,0 +1,184 @@
+package server;
+
+import Game.GameState;
+import Game.PacketManager;
+import Game.SimulationEngine;
+import controller.User;
+import network.GameStateConverter;
+import network.GameStateData;
+import network.MatchInput;
+import network.MultiplayerGameState;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * The authoritative simulation of one started match. Each player's network is
+ * rebuilt from the snapshot they sent before readying up and advanced here;
+ * clients only send {@link MatchInput} commands and receive both states back
+ * as deltas.
+ *
+ * <p>{@link MatchScheduler} calls {@link #step()} from the one shard thread
+ * that owns the match, so its game states are never touched concurrently.
+ */
+class MatchSimulation {
+    static final int MATCH_LEVEL = 1; // Level every match is played on, see MultiplayerLobbyPanel
+    private static final int BROADCAST_EVERY_TICKS = 6; // About 10 state updates a second
+    private static final int SYSTEMS_UPDATE_EVERY_TICKS = 62; // About once a second, like the client timer
+
+    private final String gameId;
+    private final MultiplayerGameState match;
+    private final ServerMain server;
+    // Client id to the slot ("player1"/"player2") the controllable systems are owned by.
+    private final Map<String, String> slots = new LinkedHashMap<>();
+    private final Map<String, SimulationEngine> engines = new LinkedHashMap<>();
+    private final Queue<PlayerInput> inputs = new ConcurrentLinkedQueue<>();
+    private volatile boolean stopped;
+    private long tickCount;
+    long costNanos; // Average step time, kept by the owning shard
+
+    MatchSimulation(String gameId, MultiplayerGameState match, ServerMain server,
+                    Map<String, GameStateData> snapshots) {
+        this.gameId = gameId;
+        this.match = match;
+        this.server = server;
+
+        List<String> playerIds = match.getPlayerIds();
+        for (int i = 0; i < playerIds.size(); i++) {
+            String clientId = playerIds.get(i);
+            String slot = "player" + (i + 1);
+            GameStateData snapshot = snapshots.get(clientId);
+            if (snapshot == null) {
+                snapshot = new GameStateData();
+                snapshot.setLevel(MATCH_LEVEL);
+            }
+            GameState state = GameStateConverter.fromNetworkData(snapshot, new User(clientId));
+            state.setLevelStartTime(System.currentTimeMillis());
+            slots.put(clientId, slot);
+            engines.put(clientId, new SimulationEngine(state, new PacketManager(state)));
+            match.registerPlayerGameState(slot, state);
+        }
+        match.createDefaultSystems();
+    }
+
+    String getGameId() {
+        return gameId;
+    }
+
+    /**
+     * Ends the match on its shard's next tick, which announces the result.
+     * Safe to call from any thread.
+     */
+    void stop() {
+        stopped = true;
+    }
+
+    boolean hasPlayer(String clientId) {
+        return slots.containsKey(clientId);
+    }
+
+    /**
+     * Queues a player's command for the next tick.
+     *
+     * @return false if the data is not a match input
+     */
+    boolean submit(String clientId, String data) {
+        MatchInput input = MatchInput.parse(data);
+        if (input == null || !slots.containsKey(clientId)) {
+            return false;
+        }
+        inputs.add(new PlayerInput(clientId, input));
+        return true;
+    }
+
+    /**
+     * Runs one tick.
+     *
+     * @return false once the match is over and should not be ticked again
+     */
+    boolean step() {
+        if (stopped) {
+            server.onMatchFinished(gameId);
+            return false;
+        }
+        try {
+            return tick();
+        } catch (RuntimeException e) {
+            System.err.println("Match " + gameId + " tick " + tickCount + " failed: " + e.getMessage());
+            stopped = true;
+            server.onMatchFinished(gameId);
+            return false;
+        }
+    }
+
+    private boolean tick() {
+        PlayerInput pending;
+        while ((pending = inputs.poll()) != null) {
+            match.firePacketFromSystem(pending.input.getSystemId(), pending.input.getAmmunition(),
+                    slots.get(pending.clientId));
+        }
+        if (tickCount % SYSTEMS_UPDATE_EVERY_TICKS == 0) {
+            match.updateControllableSystems();
+        }
+
+        boolean finished = true;
+        for (SimulationEngine engine : engines.values()) {
+            if (engine.runTicks(1) > 0) {
+                finished = false;
+            }
+        }
+        tickCount++;
+
+        if (finished || tickCount % BROADCAST_EVERY_TICKS == 0) {
+            broadcastStates();
+        }
+        if (finished) {
+            stopped = true;
+            server.onMatchFinished(gameId);
+        }
+        return !finished;
+    }
+
+    private void broadcastStates() {
+        List<PlayerSnapshot> states = new ArrayList<>(engines.size());
+        for (Map.Entry<String, SimulationEngine> entry : engines.entrySet()) {
+            GameState state = entry.getValue().getState();
+            match.updatePacketCount(entry.getKey(), state.getPackets().size());
+            match.updatePacketLoss(entry.getKey(), state.getPacketLoss());
+            states.add(new PlayerSnapshot(entry.getKey(), GameStateConverter.toNetworkData(state)));
+        }
+        for (String clientId : slots.keySet()) {
+            ClientHandler client = server.getClient(clientId);
+            if (client == null) {
+                continue;
+            }
+            for (PlayerSnapshot state : states) {
+                client.sendGameState(state.clientId, state.snapshot);
+            }
+        }
+    }
+
+    private static final class PlayerInput {
+        final String clientId;
+        final MatchInput input;
+
+        PlayerInput(String clientId, MatchInput input) {
+            this.clientId = clientId;
+            this.input = input;
+        }
+    }
+
+    private static final class PlayerSnapshot {
+        final String clientId;
+        final GameStateData snapshot;
+
+        PlayerSnapshot(String clientId, GameStateData snapshot) {
+            this.clientId = clientId;
+            this.snapshot = snapshot;
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package server;
+
+import io.netty.channel.Channel;
+import network.NetworkMessage;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Bounded queue of messages waiting to be written to one client. Senders
+ * only enqueue, so a broadcast costs the same however slow the receivers
+ * are. The channel's event loop drains the queue while the socket is
+ * writable and flushes once per batch.
+ *
+ * <p>Broadcasts are queued as a shared {@link BroadcastFrame}, so the queue
+ * owns one reference to each frame it holds and releases it when the frame
+ * is written, replaced or dropped.
+ *
+ * <p>What happens when a client falls behind is decided by the
+ * {@link SlowConsumerPolicy}, set with {@code -Dblueprint.slowConsumer}.
+ */
+class OutboundQueue {
+    static final int MAX_PENDING = 256; // Messages queued per client before the policy applies
+    private static final String POLICY_PROPERTY = "blueprint.slowConsumer";
+
+    enum SlowConsumerPolicy {
+        /** A state update replaces the one still queued from the same player. */
+        COALESCE_LATEST,
+        /** A full queue drops its oldest state updates to make room. */
+        DROP_STALE_STATE,
+        /** A full queue disconnects the client. */
+        DISCONNECT;
+
+        static SlowConsumerPolicy fromSystemProperty() {
+            String value = System.getProperty(POLICY_PROPERTY);
+            if (value != null) {
+                try {
+                    return valueOf(value.trim().toUpperCase());
+                } catch (IllegalArgumentException e) {
+                    System.err.println("Unknown " + POLICY_PROPERTY + " '" + value + "', using " + COALESCE_LATEST);
+                }
+            }
+            return COALESCE_LATEST;
+        }
+    }
+
+    private final Channel channel;
+    private final SlowConsumerPolicy policy;
+    private final Runnable onOverflow;
+    private final ArrayDeque<Pending> queue = new ArrayDeque<>();
+    private final Map<String, Pending> queuedStates = new HashMap<>(); // COALESCE_LATEST only
+    private final AtomicBoolean drainScheduled = new AtomicBoolean(false);
+    private final Runnable drainTask = this::drain;
+    private long dropped;
+
+    OutboundQueue(Channel channel, SlowConsumerPolicy policy, Runnable onOverflow) {
+        this.channel = channel;
+        this.policy = policy;
+        this.onOverflow = onOverflow;
+    }
+
+    void offer(NetworkMessage message) {
+        offer(message, null);
+    }
+
+    /**
+     * Queues a broadcast, taking over one reference to the frame.
+     */
+    void offer(BroadcastFrame frame) {
+        offer(frame.getMessage(), frame);
+    }
+
+    private void offer(NetworkMessage message, BroadcastFrame frame) {
+        boolean overflow;
+        synchronized (queue) {
+            overflow = !enqueue(message, frame);
+        }
+        if (overflow) {
+            if (frame != null) {
+                frame.release();
+            }
+            onOverflow.run();
+            return;
+        }
+        scheduleDrain();
+    }
+
+    /**
+     * Drops everything still queued, once the client is gone.
+     */
+    void clear() {
+        synchronized (queue) {
+            for (Pending pending : queue) {
+                pending.release();
+            }
+            queue.clear();
+            queuedStates.clear();
+        }
+    }
+
+    /**
+     * Resumes writing after the channel became writable again.
+     */
+    void onWritable() {
+        scheduleDrain();
+    }
+
+    long getDroppedCount() {
+        synchronized (queue) {
+            return dropped;
+        }
+    }
+
+    // Called with the queue lock held. Returns false if the message cannot be queued.
+    private boolean enqueue(NetworkMessage message, BroadcastFrame frame) {
+        String stateKey = stateKey(message);
+        if (stateKey != null && policy == SlowConsumerPolicy.COALESCE_LATEST) {
+            Pending queued = queuedStates.get(stateKey);
+            if (queued != null) {
+                queued.release();
+                queued.message = message;
+                queued.frame = frame;
+                dropped++;
+                return true;
+            }
+        }
+        if (queue.size() >= MAX_PENDING && !(policy == SlowConsumerPolicy.DROP_STALE_STATE && dropOldestState())) {
+            return false;
+        }
+        Pending pending = new Pending(message, frame, stateKey);
+        queue.add(pending);
+        if (stateKey != null && policy == SlowConsumerPolicy.COALESCE_LATEST) {
+            queuedStates.put(stateKey, pending);
+        }
+        return true;
+    }
+
+    private boolean dropOldestState() {
+        Iterator<Pending> iterator = queue.iterator();
+        while (iterator.hasNext()) {
+            Pending pending = iterator.next();
+            if (pending.stateKey != null) {
+                pending.release();
+                iterator.remove();
+                dropped++;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void scheduleDrain() {
+        if (drainScheduled.compareAndSet(false, true)) {
+            channel.eventLoop().execute(drainTask);
+        }
+    }
+
+    // Runs on the channel's event loop.
+    private void drain() {
+        drainScheduled.set(false);
+        if (!channel.isActive()) {
+            clear();
+            return;
+        }
+        // The pipeline only changes on this thread, so this holds for the whole batch.
+        boolean binaryChannel = channel.pipeline().get(ProtocolNegotiator.BINARY_CODEC) != null;
+        int written = 0;
+        while (channel.isWritable()) {
+            Pending pending;
+            synchronized (queue) {
+                pending = queue.poll();
+                if (pending == null) {
+                    break;
+                }
+                if (pending.stateKey != null) {
+                    queuedStates.remove(pending.stateKey, pending);
+                }
+            }
+            Object message = pending.frame != null ? pending.takeFrame(binaryChannel) : pending.message;
+            channel.write(message).addListener(future -> {
+                if (!future.isSuccess()) {
+                    System.err.println("Error sending message: " + future.cause().getMessage());
+                    channel.close();
+                }
+            });
+            written++;
+        }
+        if (written > 0) {
+            channel.flush();
+        }
+    }
+
+    // State updates of the same player supersede each other; other messages never do.
+    private static String stateKey(NetworkMessage message) {
+        switch (message.getType()) {
+            case GAME_STATE:
+            case STATE_DELTA:
+                return message.getType() + ":" + message.getClientId();
+            default:
+                return null;
+        }
+    }
+
+    private static final class Pending {
+        NetworkMessage message;
+        BroadcastFrame frame; // Set for broadcasts
+        final String stateKey;
+
+        Pending(NetworkMessage message, BroadcastFrame frame, String stateKey) {
+            this.message = message;
+            this.frame = frame;
+            this.stateKey = stateKey;
+        }
+
+        // Trades the queue's reference to the frame for the encoded bytes.
+        Object takeFrame(boolean binaryChannel) {
+            try {
+                return frame.retainedFrame(binaryChannel);
+            } finally {
+                release();
+            }
+        }
+
+        void release() {
+            if (frame != null) {
+                frame.release();
+                frame = null;
+            }
+        }
+    }
+}
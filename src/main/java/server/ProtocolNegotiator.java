@@ -0,0 +1,49 @@
+package server;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelPipeline;
+import network.BinaryMessageCodec;
+import network.NetworkMessage;
+import network.WireProtocol;
+
+/**
+ * Watches for a CONNECT asking for {@link WireProtocol#BINARY} and swaps the
+ * JSON handlers for a {@link BinaryMessageCodec}. It runs on the channel's
+ * event loop, so the swap happens before the next frame is decoded and bytes
+ * the client sent after its request go straight to the binary codec.
+ */
+class ProtocolNegotiator extends ChannelInboundHandlerAdapter {
+    static final String FRAME_DECODER = "frameDecoder";
+    static final String STRING_DECODER = "stringDecoder";
+    static final String STRING_ENCODER = "stringEncoder";
+    static final String MESSAGE_CODEC = "messageCodec";
+    static final String BINARY_CODEC = "binaryCodec";
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        if (msg instanceof NetworkMessage && isBinaryRequest((NetworkMessage) msg)) {
+            NetworkMessage request = (NetworkMessage) msg;
+            NetworkMessage ack = new NetworkMessage(NetworkMessage.MessageType.CONNECT,
+                    "Binary protocol enabled", request.getClientId());
+            ack.setProtocol(WireProtocol.BINARY);
+            // Written through the JSON encoder; everything after it is binary.
+            ctx.writeAndFlush(ack);
+
+            ChannelPipeline pipeline = ctx.pipeline();
+            pipeline.addAfter(FRAME_DECODER, BINARY_CODEC, new BinaryMessageCodec());
+            pipeline.remove(MESSAGE_CODEC);
+            pipeline.remove(STRING_ENCODER);
+            pipeline.remove(STRING_DECODER);
+            pipeline.remove(FRAME_DECODER);
+            pipeline.remove(this);
+        }
+        ctx.fireChannelRead(msg);
+    }
+
+    private static boolean isBinaryRequest(NetworkMessage message) {
+        return message.getType() == NetworkMessage.MessageType.CONNECT
+                && WireProtocol.BINARY.equals(message.getProtocol())
+                && WireProtocol.isBinaryEnabled();
+    }
+}
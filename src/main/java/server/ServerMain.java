@@ -4,11 +4,25 @@ import com.google.gson.ExclusionStrategy;
 import com.google.gson.FieldAttributes;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.LineBasedFrameDecoder;
+import io.netty.handler.codec.string.StringDecoder;
+import io.netty.handler.codec.string.StringEncoder;
+import io.netty.util.CharsetUtil;
+import io.netty.util.concurrent.DefaultEventExecutorGroup;
+import io.netty.util.concurrent.EventExecutorGroup;
 import network.*;
 
 import javax.swing.*;
-import java.io.*;
-import java.net.*;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -16,18 +30,33 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 public class ServerMain {
     private static final int SERVER_PORT = 8888;
-    private static final int MAX_CLIENTS = 10;
-    private static final long HEARTBEAT_INTERVAL = 5000; // 5 seconds
+    private static final int MAX_CLIENTS = 10000;
+    private static final int WRITE_BUFFER_LOW = 32 * 1024; // Socket buffer level where queued messages resume
+    private static final int WRITE_BUFFER_HIGH = 128 * 1024; // Socket buffer level where a client stops being written
+    private static final int HANDLER_THREADS = 4; // Threads running handleMessage, off the I/O loops
+    private static final int MATCH_SHARDS = Runtime.getRuntime().availableProcessors(); // Single-threaded match tick shards
+    private static final long MATCH_STATS_INTERVAL = 60000; // 1 minute
+    private static final long HEARTBEAT_INTERVAL = 5000; // Silence before a client is pinged
     private static final long CLIENT_TIMEOUT = 30000; // 30 seconds
-    private ServerSocket serverSocket;
+    private static final int LEADERBOARD_SIZE = 100; // Entries sent to clients
+    private static final int LEADERBOARD_CAPACITY = 10000; // Entries kept for rank queries
+    private static final long LEADERBOARD_MAX_AGE = 24 * 60 * 60 * 1000; // 24 hours
+    private final NetworkMessageCodec messageCodec = new NetworkMessageCodec();
+    private EventLoopGroup bossGroup;
+    private EventLoopGroup workerGroup;
+    private EventExecutorGroup handlerGroup;
+    private Channel serverChannel;
     private final Map<String, ClientHandler> connectedClients = new ConcurrentHashMap<>();
-    private final List<LeaderboardEntry> leaderboard = new CopyOnWriteArrayList<>();
+    private final Leaderboard leaderboard = new Leaderboard(LEADERBOARD_CAPACITY, LEADERBOARD_MAX_AGE);
     private final AtomicBoolean isRunning = new AtomicBoolean(false);
-    private final ExecutorService clientExecutor = Executors.newCachedThreadPool();
     private final ScheduledExecutorService heartbeatExecutor = Executors.newScheduledThreadPool(1);
+    private final HeartbeatWheel heartbeatWheel = new HeartbeatWheel(HEARTBEAT_INTERVAL, CLIENT_TIMEOUT);
     private final AtomicInteger clientIdCounter = new AtomicInteger(0);
     private final Map<String, MultiplayerGameState> activeGames = new ConcurrentHashMap<>();
     private final Map<String, String> clientToGameMap = new ConcurrentHashMap<>();
+    private final Map<String, MatchSimulation> matches = new ConcurrentHashMap<>();
+    private final Set<String> startedGames = ConcurrentHashMap.newKeySet(); // Games whose match has been built
+    private MatchScheduler matchScheduler;
     private final AtomicInteger gameIdCounter = new AtomicInteger(0);
     private final DataIntegrityValidator dataValidator = new DataIntegrityValidator();
     private static DefaultListModel<String> gameListModel = new DefaultListModel<>();
@@ -35,12 +64,37 @@ public class ServerMain {
 
     public static void main(String[] args) {
         ServerMain server = new ServerMain();
+        // Ctrl-C and kill never return from start(), so queued user files and the progress checkpoint are written here.
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop, "server-shutdown"));
         server.start();
     }
 
+    /**
+     * Binds the server and blocks until it is stopped. Connections are served
+     * by Netty event loops; {@code handleMessage} runs on a small separate
+     * executor group so slow handlers never stall socket I/O.
+     */
     public void start() {
+        bossGroup = new NioEventLoopGroup(1);
+        workerGroup = new NioEventLoopGroup();
+        handlerGroup = new DefaultEventExecutorGroup(HANDLER_THREADS);
+        matchScheduler = new MatchScheduler(MATCH_SHARDS);
         try {
-            serverSocket = new ServerSocket(SERVER_PORT);
+            ServerBootstrap bootstrap = new ServerBootstrap()
+                    .group(bossGroup, workerGroup)
+                    .channel(NioServerSocketChannel.class)
+                    .option(ChannelOption.SO_BACKLOG, 1024)
+                    .childOption(ChannelOption.TCP_NODELAY, true)
+                    .childOption(ChannelOption.SO_KEEPALIVE, true)
+                    .childOption(ChannelOption.WRITE_BUFFER_WATER_MARK,
+                            new WriteBufferWaterMark(WRITE_BUFFER_LOW, WRITE_BUFFER_HIGH))
+                    .childHandler(new ChannelInitializer<SocketChannel>() {
+                        @Override
+                        protected void initChannel(SocketChannel channel) {
+                            initClientPipeline(channel.pipeline());
+                        }
+                    });
+            serverChannel = bootstrap.bind(SERVER_PORT).sync().channel();
             isRunning.set(true);
 
             System.out.println("Server started on port " + SERVER_PORT);
@@ -48,134 +102,192 @@ public class ServerMain {
 
             startHeartbeatService();
 
-            startLeaderboardCleanupService();
-            
-            while (isRunning.get()) {
-                try {
-                    Socket clientSocket = serverSocket.accept();
-                    if (connectedClients.size() >= MAX_CLIENTS) {
-                        System.out.println("Server full, rejecting connection from " + clientSocket.getInetAddress());
-                        clientSocket.close();
-                        continue;
-                    }
-
-                    String clientId = "client_" + clientIdCounter.incrementAndGet();
-                    ClientHandler clientHandler = new ClientHandler(clientId, clientSocket, this);
-                    connectedClients.put(clientId, clientHandler);
-                    clientExecutor.submit(clientHandler);
+            startMatchStatsService();
 
-                    System.out.println("Client connected: " + clientId + " from " + clientSocket.getInetAddress());
-                } catch (IOException e) {
-                    if (isRunning.get()) {
-                        System.err.println("Error accepting client connection: " + e.getMessage());
-                    }
-                }
-            }
-        } catch (IOException e) {
+            serverChannel.closeFuture().sync();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
             System.err.println("Error starting server: " + e.getMessage());
         } finally {
             stop();
         }
     }
+
+    private void initClientPipeline(ChannelPipeline pipeline) {
+        pipeline.addLast(ProtocolNegotiator.FRAME_DECODER, new LineBasedFrameDecoder(WireProtocol.MAX_FRAME_LENGTH));
+        pipeline.addLast(ProtocolNegotiator.STRING_DECODER, new StringDecoder(CharsetUtil.UTF_8));
+        pipeline.addLast(ProtocolNegotiator.STRING_ENCODER, new StringEncoder(CharsetUtil.UTF_8));
+        pipeline.addLast(ProtocolNegotiator.MESSAGE_CODEC, messageCodec);
+        pipeline.addLast("negotiator", new ProtocolNegotiator());
+        pipeline.addLast(handlerGroup, "client", new ClientChannelHandler(this));
+    }
+
+    /**
+     * Creates the session for a newly connected channel.
+     *
+     * @return the session, or null if the server is full
+     */
+    ClientHandler registerClient(Channel channel) {
+        if (connectedClients.size() >= MAX_CLIENTS) {
+            System.out.println("Server full, rejecting connection from " + channel.remoteAddress());
+            return null;
+        }
+        String clientId = "client_" + clientIdCounter.incrementAndGet();
+        ClientHandler clientHandler = new ClientHandler(clientId, channel, this);
+        connectedClients.put(clientId, clientHandler);
+        heartbeatWheel.add(clientHandler);
+        System.out.println("Client connected: " + clientId + " from " + channel.remoteAddress());
+        return clientHandler;
+    }
     
-    public void stop() {
-        isRunning.set(false);
+    // Synchronized because the shutdown hook and start() may both get here.
+    public synchronized void stop() {
+        if (!isRunning.getAndSet(false) && serverChannel == null) {
+            return;
+        }
 
         for (ClientHandler client : connectedClients.values()) {
             client.disconnect();
         }
         connectedClients.clear();
 
-        clientExecutor.shutdown();
         heartbeatExecutor.shutdown();
 
-        try {
-            if (serverSocket != null && !serverSocket.isClosed()) {
-                serverSocket.close();
-            }
-        } catch (IOException e) {
-            System.err.println("Error closing server socket: " + e.getMessage());
+        for (MatchSimulation match : matches.values()) {
+            match.stop();
+        }
+        matches.clear();
+        if (matchScheduler != null) {
+            matchScheduler.shutdown();
+        }
+
+        if (serverChannel != null) {
+            serverChannel.close();
+            serverChannel = null;
+        }
+        if (bossGroup != null) {
+            bossGroup.shutdownGracefully();
+            workerGroup.shutdownGracefully();
+            handlerGroup.shutdownGracefully();
         }
+        dataValidator.close();
         
         System.out.println("Server stopped");
     }
     
+    /**
+     * Advances the heartbeat wheel, which pings quiet clients and drops the
+     * ones that stay silent past the timeout.
+     */
     private void startHeartbeatService() {
         heartbeatExecutor.scheduleAtFixedRate(() -> {
             if (!isRunning.get()) return;
 
-            long currentTime = System.currentTimeMillis();
-            List<String> clientsToRemove = new ArrayList<>();
-
-            for (Map.Entry<String, ClientHandler> entry : connectedClients.entrySet()) {
-                ClientHandler client = entry.getValue();
-                if (currentTime - client.getLastHeartbeat() > CLIENT_TIMEOUT) {
-                    System.out.println("Client " + entry.getKey() + " timed out, removing...");
-                    clientsToRemove.add(entry.getKey());
-                    client.disconnect();
-                } else {
-                    client.sendHeartbeat();
-                }
-            }
-
-            for (String clientId : clientsToRemove) {
-                connectedClients.remove(clientId);
-            }
-        }, HEARTBEAT_INTERVAL, HEARTBEAT_INTERVAL, TimeUnit.MILLISECONDS);
+            heartbeatWheel.advance(System.currentTimeMillis());
+        }, HeartbeatWheel.TICK_MS, HeartbeatWheel.TICK_MS, TimeUnit.MILLISECONDS);
     }
     
-    private void startLeaderboardCleanupService() {
+    private void startMatchStatsService() {
         heartbeatExecutor.scheduleAtFixedRate(() -> {
-            if (!isRunning.get()) return;
-            
-            long currentTime = System.currentTimeMillis();
-            long maxAge = 24 * 60 * 60 * 1000; // 24 hours
-            
-            leaderboard.removeIf(entry -> currentTime - entry.getTimestamp() > maxAge);
-        }, 60 * 60 * 1000, 60 * 60 * 1000, TimeUnit.MILLISECONDS); // Run every hour
+            if (!isRunning.get() || matches.isEmpty()) return;
+
+            System.out.println(matches.size() + " matches running");
+            for (MatchScheduler.ShardStats stats : matchScheduler.getStats()) {
+                System.out.println("  " + stats);
+            }
+            System.out.println("  " + dataValidator.getUserCacheStats());
+        }, MATCH_STATS_INTERVAL, MATCH_STATS_INTERVAL, TimeUnit.MILLISECONDS);
     }
-    
+
     public void removeClient(String clientId) {
         ClientHandler client = connectedClients.remove(clientId);
         if (client != null) {
             System.out.println("Client disconnected: " + clientId);
+            String gameId = clientToGameMap.remove(clientId);
+            List<ClientHandler> others = gamePlayers(gameId, clientId);
+            for (ClientHandler other : others) {
+                other.forgetGameState(clientId);
+            }
+            MatchSimulation match = gameId != null ? matches.get(gameId) : null;
+            if (match != null) {
+                match.stop(); // Its shard finishes it, the game state is only touched there
+            } else if (gameId != null && others.isEmpty()) {
+                activeGames.remove(gameId); // Nobody is left to start it
+            }
+        }
+    }
+
+    ClientHandler getClient(String clientId) {
+        return connectedClients.get(clientId);
+    }
+
+    /**
+     * Passes a player's rebuilt snapshot on to the other players of their
+     * game, each as a delta against what that player last acknowledged.
+     */
+    public void relayGameState(String sourceClientId, GameStateData snapshot) {
+        if (findMatch(sourceClientId) != null) {
+            return; // The match's own simulation is authoritative
         }
+        for (ClientHandler other : gamePlayers(clientToGameMap.get(sourceClientId), sourceClientId)) {
+            other.sendGameState(sourceClientId, snapshot);
+        }
+    }
+
+    // Connected players of the game other than the given client, none if there is no such game.
+    private List<ClientHandler> gamePlayers(String gameId, String excludeClientId) {
+        MultiplayerGameState gameState = gameId != null ? activeGames.get(gameId) : null;
+        if (gameState == null) {
+            return Collections.emptyList();
+        }
+        List<ClientHandler> players = new ArrayList<>(2);
+        for (String playerId : gameState.getPlayerIds()) {
+            ClientHandler client = connectedClients.get(playerId);
+            if (client != null && !playerId.equals(excludeClientId)) {
+                players.add(client);
+            }
+        }
+        return players;
     }
     
+    /**
+     * Sends the message to every client. It is encoded once per wire format
+     * and the same bytes are written to every channel.
+     */
     public void broadcastMessage(NetworkMessage message) {
-        for (ClientHandler client : connectedClients.values()) {
-            client.sendMessage(message);
-        }
+        broadcastMessage(message, null);
     }
     
     public void broadcastMessage(NetworkMessage message, String excludeClientId) {
-        for (Map.Entry<String, ClientHandler> entry : connectedClients.entrySet()) {
-            if (!entry.getKey().equals(excludeClientId)) {
-                entry.getValue().sendMessage(message);
+        BroadcastFrame frame = new BroadcastFrame(message);
+        try {
+            for (Map.Entry<String, ClientHandler> entry : connectedClients.entrySet()) {
+                if (!entry.getKey().equals(excludeClientId)) {
+                    entry.getValue().sendFrame(frame);
+                }
             }
+        } finally {
+            frame.release();
         }
     }
     
     public void addLeaderboardEntry(LeaderboardEntry entry) {
-        System.out.println("Leaderboard before add: " + leaderboard.size());
-        System.out.println("Added entry: " + entry + ", leaderboard now: " + leaderboard.size());
-
-        leaderboard.add(entry);
-        leaderboard.sort((a, b) -> {
-            int levelCompare = Integer.compare(b.getLevel(), a.getLevel());
-            if (levelCompare != 0) return levelCompare;
-            return Long.compare(a.getCompletionTime(), b.getCompletionTime());
-        });
-        
-        if (leaderboard.size() > 100) {
-            leaderboard.subList(100, leaderboard.size()).clear();
+        if (leaderboard.add(entry)) {
+            System.out.println("Added leaderboard entry: " + entry + ", rank " + leaderboard.rankOf(entry.getUsername()));
         }
-        
-        System.out.println("Added leaderboard entry: " + entry);
     }
     
     public List<LeaderboardEntry> getLeaderboard() {
-        return new ArrayList<>(leaderboard);
+        return leaderboard.top(LEADERBOARD_SIZE);
+    }
+
+    public List<LeaderboardEntry> getLevelLeaderboard(int level, int offset) {
+        return leaderboard.levelPage(level, offset, LEADERBOARD_SIZE);
+    }
+
+    public int getLeaderboardRank(String username) {
+        return leaderboard.rankOf(username);
     }
 
 
@@ -185,7 +297,7 @@ public class ServerMain {
 
         ClientHandler client = connectedClients.get(clientId);
         if (client != null) {
-            String macAddress = dataValidator.getMacAddressFromConnection(client.getSocket());
+            String macAddress = dataValidator.getMacAddressFromConnection(client.getRemoteAddress());
             gameState.addPlayer(clientId, macAddress);
             activeGames.put(gameId, gameState);
             clientToGameMap.put(clientId, gameId);
@@ -203,7 +315,7 @@ public class ServerMain {
         if (gameState != null && gameState.getAllPlayers().size() < 2) {
             ClientHandler client = connectedClients.get(clientId);
             if (client != null) {
-                String macAddress = dataValidator.getMacAddressFromConnection(client.getSocket());
+                String macAddress = dataValidator.getMacAddressFromConnection(client.getRemoteAddress());
                 boolean success = gameState.addPlayer(clientId, macAddress);
                 if (success) {
                     clientToGameMap.put(clientId, gameId);
@@ -236,8 +348,72 @@ public class ServerMain {
                     clientId + ":" + ready,
                     clientId
                 ));
+
+                if (gameState.isGameStarted()) {
+                    startMatch(gameId, gameState);
+                }
+            }
+        }
+    }
+
+    /**
+     * Starts simulating a match from the snapshots its players sent before
+     * readying up. Does nothing if the game's match was already started, so
+     * a repeated PLAYER_READY never rebuilds the states a shard is ticking.
+     */
+    private void startMatch(String gameId, MultiplayerGameState gameState) {
+        if (!startedGames.add(gameId)) {
+            return;
+        }
+        Map<String, GameStateData> snapshots = new HashMap<>();
+        for (String playerId : gameState.getPlayerIds()) {
+            ClientHandler client = connectedClients.get(playerId);
+            if (client != null && client.getLatestGameState() != null) {
+                snapshots.put(playerId, client.getLatestGameState());
             }
         }
+        MatchSimulation match = new MatchSimulation(gameId, gameState, this, snapshots);
+        matches.put(gameId, match);
+        System.out.println("Match " + gameId + " started for " + gameState.getPlayerIds());
+        matchScheduler.schedule(match);
+    }
+
+    /**
+     * Queues a player's command for their match's next tick.
+     *
+     * @return false if the player is not in a running match or the data is
+     *         not a match input
+     */
+    public boolean handleMatchInput(String clientId, String data) {
+        MatchSimulation match = findMatch(clientId);
+        return match != null && match.submit(clientId, data);
+    }
+
+    /**
+     * Announces the result and retires the game, so it cannot be readied
+     * again. Called from the match's shard thread, which owns its game state.
+     */
+    void onMatchFinished(String gameId) {
+        if (matches.remove(gameId) == null) {
+            return;
+        }
+        startedGames.remove(gameId);
+        MultiplayerGameState gameState = activeGames.get(gameId);
+        MultiplayerGameState.GameResult gameResult = gameState != null ? gameState.getGameResult() : null;
+        if (gameResult != null) {
+            broadcastToGame(gameId, new NetworkMessage(
+                NetworkMessage.MessageType.GAME_RESULT,
+                new com.google.gson.Gson().toJson(gameResult),
+                "server"
+            ));
+        }
+        activeGames.remove(gameId);
+        System.out.println("Match " + gameId + " finished");
+    }
+
+    private MatchSimulation findMatch(String clientId) {
+        String gameId = clientToGameMap.get(clientId);
+        return gameId != null ? matches.get(gameId) : null;
     }
 
     public void handleGameStateUpdate(String clientId, GameStateData gameStateData) {
@@ -246,7 +422,7 @@ public class ServerMain {
             MultiplayerGameState gameState = activeGames.get(gameId);
             if (gameState != null) {
                 String macAddress = dataValidator.getMacAddressFromConnection(
-                    connectedClients.get(clientId).getSocket()
+                    connectedClients.get(clientId).getRemoteAddress()
                 );
 
                 DataIntegrityValidator.GameResultData resultData =
@@ -265,7 +441,7 @@ public class ServerMain {
 
                     broadcastToGame(gameId, new NetworkMessage(
                         NetworkMessage.MessageType.GAME_STATE,
-                        gameStateData.toJson(),
+                        gameStateData,
                         clientId
                     ), clientId);
                 } else {
@@ -283,45 +459,43 @@ public class ServerMain {
     public void handleGameResult(String clientId, GameStateData gameStateData) {
         String gameId = clientToGameMap.get(clientId);
         if (gameId != null) {
-            MultiplayerGameState gameState = activeGames.get(gameId);
-            if (gameState != null) {
-                // Validate and process game result
-                String macAddress = dataValidator.getMacAddressFromConnection(
-                    connectedClients.get(clientId).getSocket()
+            MultiplayerGameState gameState = activeGames.get(gameId); // Null once its match has finished
+            // Validate and process game result
+            String macAddress = dataValidator.getMacAddressFromConnection(
+                connectedClients.get(clientId).getRemoteAddress()
+            );
+
+            DataIntegrityValidator.GameResultData resultData =
+                new DataIntegrityValidator.GameResultData(
+                    gameStateData.getLevel(),
+                    System.currentTimeMillis() - gameStateData.getLevelStartTime(),
+                    gameStateData.getPacketLoss(),
+                    gameStateData.getCoins()
                 );
 
-                DataIntegrityValidator.GameResultData resultData =
-                    new DataIntegrityValidator.GameResultData(
-                        gameStateData.getLevel(),
-                        System.currentTimeMillis() - gameStateData.getLevelStartTime(),
-                        gameStateData.getPacketLoss(),
-                        gameStateData.getCoins()
-                    );
+            String dataHash = dataValidator.generateDataHash(resultData, macAddress);
+            resultData.setDataHash(dataHash);
 
-                String dataHash = dataValidator.generateDataHash(resultData, macAddress);
-                resultData.setDataHash(dataHash);
+            if (dataValidator.validateGameResult(macAddress, resultData)) {
+                dataValidator.updateUserProgress(macAddress, resultData);
 
-                if (dataValidator.validateGameResult(macAddress, resultData)) {
-                    dataValidator.updateUserProgress(macAddress, resultData);
+                LeaderboardEntry entry = new LeaderboardEntry(
+                    dataValidator.getUserData(macAddress).getUsername(),
+                    gameStateData.getLevel(),
+                    resultData.getCompletionTime(),
+                    gameStateData.getPacketLoss(), // XP
+                    gameStateData.getCoins() // Coins
+                );
+                addLeaderboardEntry(entry);
 
-                    LeaderboardEntry entry = new LeaderboardEntry(
-                        dataValidator.getUserData(macAddress).getUsername(),
-                        gameStateData.getLevel(),
-                        resultData.getCompletionTime(),
-                        gameStateData.getPacketLoss(), // XP
-                        gameStateData.getCoins() // Coins
-                    );
-                    addLeaderboardEntry(entry);
-
-                    if (gameState.isGameStarted()) {
-                        MultiplayerGameState.GameResult gameResult = gameState.getGameResult();
-                        if (gameResult != null) {
-                            broadcastToGame(gameId, new NetworkMessage(
-                                NetworkMessage.MessageType.GAME_RESULT,
-                                new com.google.gson.Gson().toJson(gameResult),
-                                clientId
-                            ));
-                        }
+                if (gameState != null && gameState.isGameStarted()) {
+                    MultiplayerGameState.GameResult gameResult = gameState.getGameResult();
+                    if (gameResult != null) {
+                        broadcastToGame(gameId, new NetworkMessage(
+                            NetworkMessage.MessageType.GAME_RESULT,
+                            new com.google.gson.Gson().toJson(gameResult),
+                            clientId
+                        ));
                     }
                 }
             }
@@ -330,28 +504,25 @@ public class ServerMain {
 
 
     private void broadcastToGame(String gameId, NetworkMessage message) {
-        MultiplayerGameState gameState = activeGames.get(gameId);
-        if (gameState != null) {
-            for (String playerId : gameState.getAllPlayers().keySet()) {
-                ClientHandler client = connectedClients.get(playerId);
-                if (client != null) {
-                    client.sendMessage(message);
-                }
-            }
-        }
+        broadcastToGame(gameId, message, null);
     }
 
 
     private void broadcastToGame(String gameId, NetworkMessage message, String excludeClientId) {
         MultiplayerGameState gameState = activeGames.get(gameId);
         if (gameState != null) {
-            for (String playerId : gameState.getAllPlayers().keySet()) {
-                if (!playerId.equals(excludeClientId)) {
-                    ClientHandler client = connectedClients.get(playerId);
-                    if (client != null) {
-                        client.sendMessage(message);
+            BroadcastFrame frame = new BroadcastFrame(message);
+            try {
+                for (String playerId : gameState.getPlayerIds()) {
+                    if (!playerId.equals(excludeClientId)) {
+                        ClientHandler client = connectedClients.get(playerId);
+                        if (client != null) {
+                            client.sendFrame(frame);
+                        }
                     }
                 }
+            } finally {
+                frame.release();
             }
         }
     }
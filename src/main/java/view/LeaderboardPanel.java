@@ -3,6 +3,7 @@ package view;
 import client.ClientMain;
 import controller.User;
 import network.LeaderboardEntry;
+import network.LeaderboardQuery;
 import network.OfflineGameManager;
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
@@ -19,6 +20,7 @@ public class LeaderboardPanel extends JPanel {
     private JButton refreshButton;
     private JButton backButton;
     private JLabel statusLabel;
+    private JLabel rankLabel;
     private JComboBox<String> levelFilter;
     private JComboBox<String> sortByCombo;
     private List<LeaderboardEntry> currentEntries = new ArrayList<>();
@@ -57,6 +59,7 @@ public class LeaderboardPanel extends JPanel {
 
         statusLabel = new JLabel("Loading leaderboard...");
         statusLabel.setHorizontalAlignment(SwingConstants.CENTER);
+        rankLabel = new JLabel(" ");
 
         levelFilter = new JComboBox<>(new String[]{
                 "All Levels", "Level 1", "Level 2", "Level 3", "Level 4", "Level 5"
@@ -83,6 +86,7 @@ public class LeaderboardPanel extends JPanel {
 
         JPanel bottomPanel = new JPanel(new BorderLayout());
         bottomPanel.add(statusLabel, BorderLayout.CENTER);
+        bottomPanel.add(rankLabel, BorderLayout.EAST);
 
         add(topPanel, BorderLayout.NORTH);
         add(scrollPane, BorderLayout.CENTER);
@@ -99,7 +103,13 @@ public class LeaderboardPanel extends JPanel {
             Window.getMainFrame().repaint();
         });
 
-        levelFilter.addActionListener((ActionEvent e) -> filterAndSort());
+        levelFilter.addActionListener((ActionEvent e) -> {
+            if (isOnline()) {
+                refreshLeaderboard(); // The server sends the whole level's board, not only its part of the top
+            } else {
+                filterAndSort();
+            }
+        });
         sortByCombo.addActionListener((ActionEvent e) -> filterAndSort());
     }
 
@@ -112,13 +122,37 @@ public class LeaderboardPanel extends JPanel {
 
     public void refreshLeaderboard() {
         statusLabel.setText("Refreshing leaderboard...");
-        if (isOnline && client != null && client.isConnected()) {
-            client.requestLeaderboard();
+        if (isOnline()) {
+            int level = selectedLevel();
+            client.requestLeaderboard(level > 0 ? LeaderboardQuery.levelPage(level, 0) : "");
+            if (user != null) {
+                client.requestLeaderboard(LeaderboardQuery.rank(user.getUsername()));
+            }
         } else {
             updateLeaderboard(offlineManager.getLocalLeaderboard());
         }
     }
 
+    /**
+     * Shows the player's position on the server's board.
+     */
+    public void showRank(String username, int rank) {
+        SwingUtilities.invokeLater(() -> rankLabel.setText(rank > 0 ? username + ": rank " + rank : username + ": not ranked"));
+    }
+
+    private boolean isOnline() {
+        return isOnline && client != null && client.isConnected();
+    }
+
+    // The level chosen in the filter, or 0 for all levels.
+    private int selectedLevel() {
+        String selected = (String) levelFilter.getSelectedItem();
+        if (selected == null || selected.equals("All Levels")) {
+            return 0;
+        }
+        return Integer.parseInt(selected.replace("Level ", "").trim());
+    }
+
     private void filterAndSort() {
         if (currentEntries == null || currentEntries.isEmpty()) {
             statusLabel.setText("No leaderboard data available");
@@ -128,9 +162,8 @@ public class LeaderboardPanel extends JPanel {
 
         List<LeaderboardEntry> filtered = new ArrayList<>(currentEntries);
 
-        String selectedLevel = (String) levelFilter.getSelectedItem();
-        if (selectedLevel != null && !selectedLevel.equals("All Levels")) {
-            int level = Integer.parseInt(selectedLevel.replace("Level ", "").trim());
+        int level = selectedLevel();
+        if (level > 0) {
             filtered = filtered.stream()
                     .filter(e -> e.getLevel() == level)
                     .collect(Collectors.toList());
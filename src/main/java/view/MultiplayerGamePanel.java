@@ -2,9 +2,12 @@ package view;
 
 import Game.*;
 import client.ClientMain;
+import network.GameStateConverter;
 import network.GameStateData;
+import network.MatchInput;
 import network.MultiplayerGameState;
 import network.NetworkMessage;
+import network.SnapshotInterpolator;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
@@ -15,13 +18,19 @@ import java.util.List;
 import java.util.Timer;
 import java.util.TimerTask;
 
-public class MultiplayerGamePanel extends GamePanel {
+public class MultiplayerGamePanel extends GamePanel implements Window.GamePanelSupported {
+    private static final int FRAME_MS = 16; // Repaints while the server runs the match
     private final MultiplayerGameState gameState;
     private final ClientMain client;
     private final String playerId;
     private final String opponentId;
     private final Timer gameTimer;
     private final Timer networkSetupTimer;
+    private final SnapshotInterpolator opponentView = new SnapshotInterpolator();
+    private final SnapshotInterpolator playerView = new SnapshotInterpolator(); // Our own board, as the server runs it
+    private volatile boolean serverSimulated; // Online match running, the local engine is stopped
+    private boolean matchStarted;
+    private final javax.swing.Timer frameTimer = new javax.swing.Timer(FRAME_MS, e -> repaint());
     private JLabel setupTimeLabel;
     private JLabel playerScoreLabel;
     private JLabel opponentScoreLabel;
@@ -82,6 +91,7 @@ public class MultiplayerGamePanel extends GamePanel {
                 readyButton.setEnabled(false);
                 // trigger start
                 gameState.startGame();
+                onMatchStarted();
             } else {
                 statusLabel.setText(readyPlayerId + " is ready. Waiting for opponent...");
                 statusLabel.setForeground(Color.ORANGE);
@@ -140,7 +150,7 @@ public class MultiplayerGamePanel extends GamePanel {
     }
     
     private void initializeControllableSystems() {
-        createControllableSystems();
+        gameState.createDefaultSystems();
         
         gameState.registerPlayerGameState(playerId, getState());
         
@@ -149,46 +159,6 @@ public class MultiplayerGamePanel extends GamePanel {
         infoPanel.add(temporalProgressButton);
     }
     
-    private void createControllableSystems() {
-        ControllableReferenceSystem player1System1 = new ControllableReferenceSystem(
-            "player1_system1", 100, 200, "player1", "player2");
-        ControllableReferenceSystem player1System2 = new ControllableReferenceSystem(
-            "player1_system2", 200, 300, "player1", "player2");
-        
-        ControllableReferenceSystem player2System1 = new ControllableReferenceSystem(
-            "player2_system1", 600, 200, "player2", "player1");
-        ControllableReferenceSystem player2System2 = new ControllableReferenceSystem(
-            "player2_system2", 700, 300, "player2", "player1");
-        
-        gameState.addControllableSystem(player1System1);
-        gameState.addControllableSystem(player1System2);
-        gameState.addControllableSystem(player2System1);
-        gameState.addControllableSystem(player2System2);
-        
-        createUncontrollableSystems();
-    }
-    
-    private void createUncontrollableSystems() {
-        Node player1Uncontrollable1 = new Node(150, 150, "player1_uncontrollable1",
-            new String[]{"square", "triangle"}, new String[]{"square", "triangle"}, 
-            GameConfig.UNCONTROLLABLE_SYSTEM_TYPE);
-        Node player1Uncontrollable2 = new Node(250, 250, "player1_uncontrollable2", 
-            new String[]{"circle"}, new String[]{"circle"}, 
-            GameConfig.UNCONTROLLABLE_SYSTEM_TYPE);
-        
-        Node player2Uncontrollable1 = new Node(650, 150, "player2_uncontrollable1",
-            new String[]{"confidential_4", "confidential_6"}, new String[]{"confidential_4", "confidential_6"}, 
-            GameConfig.UNCONTROLLABLE_SYSTEM_TYPE);
-        Node player2Uncontrollable2 = new Node(750, 250, "player2_uncontrollable2", 
-            new String[]{"bulky_8", "bulky_10"}, new String[]{"bulky_8", "bulky_10"}, 
-            GameConfig.UNCONTROLLABLE_SYSTEM_TYPE);
-        
-        gameState.addUncontrollableSystem("player1", player1Uncontrollable1);
-        gameState.addUncontrollableSystem("player1", player1Uncontrollable2);
-        gameState.addUncontrollableSystem("player2", player2Uncontrollable1);
-        gameState.addUncontrollableSystem("player2", player2Uncontrollable2);
-    }
-    
     private void activateTemporalProgress() {
         if (temporalProgressActive) return;
         
@@ -281,10 +251,33 @@ public class MultiplayerGamePanel extends GamePanel {
             gameState.setPlayerReady(playerId, true);
             if (gameState.allPlayersReady()) {
                 gameState.startGame();
-                startGameTimer();
+                onMatchStarted();
             }
         }
     }
+
+    /**
+     * Online, the server's simulation is the only timeline: the local engine
+     * stops and our own board is drawn from the states the server streams
+     * back, fire commands included.
+     */
+    private void onMatchStarted() {
+        if (matchStarted) {
+            return;
+        }
+        matchStarted = true;
+        if (onlineMod) {
+            serverSimulated = true;
+            getSimulationEngine().stop();
+            frameTimer.start(); // The stopped engine no longer repaints on its ticks
+        }
+        startGameTimer();
+    }
+
+    @Override
+    protected boolean isSimulatedLocally() {
+        return !serverSimulated;
+    }
     
     private void applyWrathEffects() {
         long extendedElapsed = System.currentTimeMillis() - networkSetupStartTime - 30000;
@@ -317,9 +310,11 @@ public class MultiplayerGamePanel extends GamePanel {
     }
     
     private void applySpeedMultiplier(double multiplier) {
-        for (Packet packet : getState().getPackets()) {
-            packet.setCurrentSpeed(packet.getCurrentSpeed() * multiplier);
-        }
+        getSimulationEngine().execute(() -> {
+            for (Packet packet : getState().getPackets()) {
+                packet.setCurrentSpeed(packet.getCurrentSpeed() * multiplier);
+            }
+        });
         System.out.println("Applying speed multiplier: " + multiplier);
     }
     
@@ -334,33 +329,67 @@ public class MultiplayerGamePanel extends GamePanel {
     
     private void updateGameState() {
         if (gameState.isGameStarted()) {
-            gameState.updateControllableSystems();
+            getSimulationEngine().execute(gameState::updateControllableSystems);
 
             updateScores();
-            
-            sendGameStateUpdate();
+
+            // Online matches are simulated by the server, which streams both states back.
+            if (!onlineMod) {
+                sendGameStateUpdate();
+            }
             
             checkGameEndConditions();
         }
     }
     
     private void updateScores() {
-        int playerScore = getState().getPackets().size() - getState().getPacketLoss();
-        int opponentScore = getOpponentScore();
-        
-        playerScoreLabel.setText("Your Score: " + playerScore);
+        int packets;
+        int packetLoss;
+        if (serverSimulated) {
+            GameStateData own = playerView.getLatest();
+            packets = packetCount(own);
+            packetLoss = own != null ? own.getPacketLoss() : 0;
+        } else {
+            SimulationSnapshot snapshot = getSimulationEngine().getSnapshot();
+            packets = snapshot.getPackets().size();
+            packetLoss = snapshot.getPacketLoss();
+        }
+        GameStateData opponent = opponentView.getLatest();
+        int opponentScore = opponent != null ? packetCount(opponent) - opponent.getPacketLoss() : 0;
+
+        playerScoreLabel.setText("Your Score: " + (packets - packetLoss));
         opponentScoreLabel.setText("Opponent Score: " + opponentScore);
         
-        gameState.updatePacketCount(playerId, getState().getPackets().size());
-        gameState.updatePacketLoss(playerId, getState().getPacketLoss());
+        gameState.updatePacketCount(playerId, packets);
+        gameState.updatePacketLoss(playerId, packetLoss);
     }
     
-    private int getOpponentScore() {
-        return 0;
+    private static int packetCount(GameStateData state) {
+        return state != null && state.getPackets() != null ? state.getPackets().size() : 0;
+    }
+
+    // The server streams both players' states; our own replaces the local engine once the match runs.
+    @Override
+    public void applyRemoteGameState(String sourcePlayerId, GameStateData state) {
+        if (state == null) {
+            return;
+        }
+        if (playerId.equals(sourcePlayerId)) {
+            playerView.push(state, System.currentTimeMillis());
+        } else {
+            opponentView.push(state, System.currentTimeMillis());
+        }
     }
     
+    // ClientMain only sends what changed since the opponent's last acknowledged snapshot.
     private void sendGameStateUpdate() {
-        GameStateData gameStateData = convertToGameStateData();
+        GameStateData gameStateData;
+        try {
+            gameStateData = getSimulationEngine().call(() -> GameStateConverter.toNetworkData(getState()));
+        } catch (Exception e) {
+            System.err.println("Error capturing game state: " + e.getMessage());
+            gameStateData = convertToGameStateData();
+        }
         client.sendGameState(gameStateData);
     }
     
@@ -380,7 +409,12 @@ public class MultiplayerGamePanel extends GamePanel {
     }
     
     private void checkGameEndConditions() {
-        if (getState().isGameOver() || getState().isSuccessfully()) {
+        if (serverSimulated) {
+            GameStateData own = playerView.getLatest();
+            if (own != null && (own.isGameOver() || own.isSuccessfully())) {
+                endGame();
+            }
+        } else if (getState().isGameOver() || getState().isSuccessfully()) {
             endGame();
         }
     }
@@ -388,6 +422,7 @@ public class MultiplayerGamePanel extends GamePanel {
     private void endGame() {
         gameTimer.cancel();
         networkSetupTimer.cancel();
+        frameTimer.stop();
         
         sendGameResult();
         
@@ -395,8 +430,8 @@ public class MultiplayerGamePanel extends GamePanel {
     }
     
     private void sendGameResult() {
-        GameStateData finalState = convertToGameStateData();
-        client.sendGameResult(finalState);
+        GameStateData finalState = serverSimulated ? playerView.getLatest() : null;
+        client.sendGameResult(finalState != null ? finalState : convertToGameStateData());
     }
     
     private void showGameOverScreen() {
@@ -423,6 +458,7 @@ public class MultiplayerGamePanel extends GamePanel {
 
         if (showOpponentNetwork) {
             drawOpponentNetwork(g);
+            drawOpponentPackets(g);
         }
 
         drawPlayerPackets(g);
@@ -446,20 +482,34 @@ public class MultiplayerGamePanel extends GamePanel {
         }
     }
     
+    // Online our packets are drawn below from the server's stream instead.
+    @Override
+    protected void drawPackets(Graphics g) {
+        if (!serverSimulated) {
+            super.drawPackets(g);
+        }
+    }
+
     private void drawPlayerPackets(Graphics g) {
         Color playerColor = gameState.getPlayerColor(playerId);
         Color opponentColor = gameState.getPlayerColor(opponentId);
         
-        for (Packet packet : getState().getPackets()) {
+        if (serverSimulated) {
+            g.setColor(playerColor);
+            for (GameStateData.PacketData packet : playerView.sample(System.currentTimeMillis())) {
+                g.fillOval((int) Math.round(packet.getX()) - 5, (int) Math.round(packet.getY()) - 5, 10, 10);
+            }
+            return;
+        }
+        for (SimulationSnapshot.PacketState packet : getSimulationEngine().getSnapshot().getPackets()) {
             Color packetColor = determinePacketColor(packet, playerColor, opponentColor);
             
             g.setColor(packetColor);
-            Point pos = packet.getPosition();
-            g.fillOval(pos.x - 5, pos.y - 5, 10, 10);
+            g.fillOval(packet.getX() - 5, packet.getY() - 5, 10, 10);
         }
     }
     
-    private Color determinePacketColor(Packet packet, Color playerColor, Color opponentColor) {
+    private Color determinePacketColor(SimulationSnapshot.PacketState packet, Color playerColor, Color opponentColor) {
 
         return playerColor;
     }
@@ -498,6 +548,13 @@ public class MultiplayerGamePanel extends GamePanel {
         g2d.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 1.0f));
     }
     
+    private void drawOpponentPackets(Graphics g) {
+        g.setColor(gameState.getPlayerColor(opponentId));
+        for (GameStateData.PacketData packet : opponentView.sample(System.currentTimeMillis())) {
+            g.fillOval((int) Math.round(packet.getX()) - 5, (int) Math.round(packet.getY()) - 5, 10, 10);
+        }
+    }
+    
     private void drawControllableSystems(Graphics g) {
         List<ControllableReferenceSystem> systems = gameState.getControllableSystemsForPlayer(playerId);
         for (ControllableReferenceSystem system : systems) {
@@ -590,7 +647,9 @@ public class MultiplayerGamePanel extends GamePanel {
                 readyButton.setText("Ready!");
                 readyButton.setBackground(Color.GREEN);
                 readyButton.setEnabled(false);
-                
+
+                // The server starts its simulation of the match from this network.
+                sendGameStateUpdate();
                 NetworkMessage message = new NetworkMessage(
                     NetworkMessage.MessageType.PLAYER_READY,
                     "ready",
@@ -624,6 +683,12 @@ public class MultiplayerGamePanel extends GamePanel {
                     currentAmmunitionPanel = new AmmunitionPanel(hoveredSystem, new AmmunitionPanel.AmmunitionSelectionListener() {
                         @Override
                         public void onAmmunitionSelected(AmmunitionType type, ControllableReferenceSystem system) {
+                            if (onlineMod && client.isConnected()) {
+                                client.sendMessage(new NetworkMessage(NetworkMessage.MessageType.USER_INPUT,
+                                        MatchInput.fire(system.getId(), type), playerId));
+                                currentAmmunitionPanel.updateAmmunitionStatuses();
+                                return;
+                            }
                             boolean success = gameState.firePacketFromSystem(system.getId(), type, playerId);
                             if (success) {
                                 System.out.println("Fired " + type.getDisplayName() + " from " + system.getId());
@@ -70,9 +70,9 @@ public class Window extends JFrame {
         return leaderboardPanel;
     }
 
-    public void updateRemoteGameState(network.GameStateData state) {
+    public void updateRemoteGameState(String playerId, network.GameStateData state) {
         if (getContentPane() instanceof GamePanelSupported) {
-            ((GamePanelSupported) getContentPane()).applyRemoteGameState(state);
+            ((GamePanelSupported) getContentPane()).applyRemoteGameState(playerId, state);
         } else {
             System.out.println("No active game panel to apply remote game state");
         }
@@ -95,6 +95,7 @@ public class Window extends JFrame {
     }
 
     public interface GamePanelSupported {
-        void applyRemoteGameState(network.GameStateData state);
+        /** Called on the network thread with the state of the given player. */
+        void applyRemoteGameState(String playerId, network.GameStateData state);
     }
 }
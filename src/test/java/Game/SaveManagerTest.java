@@ -0,0 +1,108 @@
+package Game;
+
+import controller.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SaveManagerTest {
+    private static final long SECOND = 1000;
+
+    @TempDir
+    Path directory;
+
+    private SaveManager saveManager;
+    private GameState state;
+    private long now;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        saveManager = new SaveManager(directory);
+        state = new GameState(1, new User("ann"));
+        Node source = new Node(100, 100, "source", new String[0], new String[] {"square"});
+        Node sink = new Node(400, 100, "sink", new String[] {"square"}, new String[0]);
+        state.addNode(source);
+        state.addNode(sink);
+        state.addConnection(new Connection(source, 0, sink, 0));
+        assertTrue(saveManager.saveGame(state).get());
+        now = System.currentTimeMillis();
+    }
+
+    private void autoSave(long afterMs) {
+        saveManager.autoSave(state, now + afterMs);
+        saveManager.awaitWrites();
+    }
+
+    private GameState load() {
+        GameState loaded = new GameState(1, new User("ann"));
+        assertTrue(new SaveManager(directory).loadGame(loaded));
+        return loaded;
+    }
+
+    private Path journal() {
+        return directory.resolve("game_save.journal");
+    }
+
+    @Test
+    void loadReplaysTheJournalOverTheSave() {
+        state.getNodes().get(1).setPosition(420, 140);
+        state.markDirty(GameState.DIRTY_NODES);
+        state.setPacketLoss(3);
+        autoSave(3 * SECOND);
+
+        assertTrue(Files.exists(journal()));
+        GameState loaded = load();
+        assertEquals(3, loaded.getPacketLoss());
+        assertEquals(420, loaded.getNodes().get(1).getX());
+        assertEquals(1, loaded.getConnections().size());
+    }
+
+    @Test
+    void journalOfAnOlderSaveIsIgnored() throws Exception {
+        state.setPacketLoss(3);
+        autoSave(3 * SECOND);
+        byte[] oldJournal = Files.readAllBytes(journal());
+        state.setPacketLoss(7);
+        assertTrue(saveManager.saveGame(state).get());
+        assertFalse(Files.exists(journal()));
+        Files.write(journal(), oldJournal);
+
+        assertEquals(7, load().getPacketLoss());
+    }
+
+    @Test
+    void tornLastRecordIsSkipped() throws IOException {
+        state.setPacketLoss(3);
+        autoSave(3 * SECOND);
+        state.setPacketLoss(4);
+        autoSave(6 * SECOND);
+        byte[] bytes = Files.readAllBytes(journal());
+        Files.write(journal(), Arrays.copyOf(bytes, bytes.length - 1));
+
+        assertEquals(3, load().getPacketLoss());
+    }
+
+    @Test
+    void movingPacketsWaitForTheNextWholeSave() throws IOException {
+        byte[] save = Files.readAllBytes(directory.resolve("game_save.dat"));
+        state.markDirty(GameState.DIRTY_PACKETS);
+        autoSave(3 * SECOND);
+
+        assertFalse(Files.exists(journal()));
+        assertTrue(Arrays.equals(save, Files.readAllBytes(directory.resolve("game_save.dat"))));
+
+        state.markDirty(GameState.DIRTY_PACKETS);
+        autoSave(31 * SECOND);
+
+        assertFalse(Arrays.equals(save, Files.readAllBytes(directory.resolve("game_save.dat"))));
+    }
+}
@@ -0,0 +1,175 @@
+package network;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BinaryMessageFormatTest {
+
+    private static byte[] frame(BinaryMessageFormat.Writer writer, NetworkMessage message) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.writeFrame(message, out);
+        return out.toByteArray();
+    }
+
+    private static NetworkMessage read(BinaryMessageFormat.Reader reader, byte[] frame) throws IOException {
+        InputStream in = new ByteArrayInputStream(frame);
+        NetworkMessage message = reader.readFrame(in);
+        assertEquals(-1, in.read());
+        return message;
+    }
+
+    private static NetworkMessage text(String clientId, String data) {
+        NetworkMessage message = new NetworkMessage(NetworkMessage.MessageType.LEADERBOARD, data, clientId);
+        message.setSessionId("session-1");
+        message.setProtocol(WireProtocol.BINARY);
+        return message;
+    }
+
+    private static GameStateData gameState() {
+        GameStateData state = new GameStateData();
+        state.setLevel(3);
+        state.setGameOver(true);
+        state.setPacketLoss(-2);
+        state.setUsername("ann");
+        state.setCoins(40);
+        GameStateData.NodeData node = new GameStateData.NodeData();
+        node.setId("n1");
+        node.setX(1.5);
+        node.setY(-2.25);
+        node.setType("SPY");
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("active", true);
+        properties.put("ports", 3L);
+        properties.put("speed", 0.75);
+        properties.put("label", "relay");
+        properties.put("queue", List.of("p1", "p2"));
+        properties.put("nested", Map.of("depth", 1L));
+        node.setProperties(properties);
+        state.setNodes(List.of(node));
+        GameStateData.PacketData packet = new GameStateData.PacketData();
+        packet.setId("p1");
+        packet.setType("SQUARE");
+        packet.setConnectionId("c1");
+        packet.setProgress(0.5);
+        state.setPackets(List.of(packet));
+        state.setPowerUpStates(Map.of("speed", true));
+        state.setPowerUpTimers(Map.of("speed", 1200L));
+        return state;
+    }
+
+    @Test
+    void roundTripsTextMessages() throws IOException {
+        NetworkMessage message = text("client-1", "rank:ann");
+        message.setTimestamp(1234567890123L);
+
+        NetworkMessage read = read(new BinaryMessageFormat.Reader(), frame(new BinaryMessageFormat.Writer(), message));
+
+        assertEquals(NetworkMessage.MessageType.LEADERBOARD, read.getType());
+        assertEquals("client-1", read.getClientId());
+        assertEquals("session-1", read.getSessionId());
+        assertEquals(WireProtocol.BINARY, read.getProtocol());
+        assertEquals(1234567890123L, read.getTimestamp());
+        assertEquals("rank:ann", read.getData());
+    }
+
+    @Test
+    void roundTripsGameStatesFieldByField() throws IOException {
+        GameStateData state = gameState();
+        NetworkMessage message = new NetworkMessage(NetworkMessage.MessageType.GAME_STATE, state, "client-1");
+
+        GameStateData read = read(new BinaryMessageFormat.Reader(), frame(new BinaryMessageFormat.Writer(), message))
+                .getGameState();
+
+        assertEquals(3, read.getLevel());
+        assertTrue(read.isGameOver());
+        assertEquals(-2, read.getPacketLoss());
+        assertEquals("ann", read.getUsername());
+        assertEquals(40, read.getCoins());
+        assertEquals(state.getNodes(), read.getNodes());
+        assertEquals(state.getPackets(), read.getPackets());
+        assertEquals(state.getPowerUpStates(), read.getPowerUpStates());
+        assertEquals(state.getPowerUpTimers(), read.getPowerUpTimers());
+    }
+
+    @Test
+    void roundTripsStateDeltas() throws IOException {
+        GameStateDelta delta = GameStateDelta.keyframe(gameState(), 9);
+        delta.setBaseSequence(7);
+        delta.setRemovedPacketIds(List.of("p0"));
+        NetworkMessage message = new NetworkMessage(NetworkMessage.MessageType.STATE_DELTA, delta, "client-1");
+
+        GameStateData read = read(new BinaryMessageFormat.Reader(), frame(new BinaryMessageFormat.Writer(), message))
+                .getGameState();
+
+        GameStateDelta readDelta = assertInstanceOf(GameStateDelta.class, read);
+        assertEquals(9, readDelta.getSequence());
+        assertEquals(7, readDelta.getBaseSequence());
+        assertEquals(List.of("p0"), readDelta.getRemovedPacketIds());
+        assertNull(readDelta.getRemovedNodeIds());
+        assertEquals(delta.getNodes(), readDelta.getNodes());
+    }
+
+    @Test
+    void repeatedStringsAreSentAsSymbols() throws IOException {
+        BinaryMessageFormat.Writer writer = new BinaryMessageFormat.Writer();
+        BinaryMessageFormat.Reader reader = new BinaryMessageFormat.Reader();
+        NetworkMessage message = new NetworkMessage(NetworkMessage.MessageType.GAME_STATE, gameState(), "client-1");
+
+        byte[] first = frame(writer, message);
+        byte[] second = frame(writer, message);
+
+        assertTrue(second.length < first.length);
+        assertEquals(message.getGameState().getNodes(), read(reader, first).getGameState().getNodes());
+        assertEquals(message.getGameState().getNodes(), read(reader, second).getGameState().getNodes());
+    }
+
+    @Test
+    void oversizedMessageLeavesTheSymbolTableUnchanged() throws IOException {
+        BinaryMessageFormat.Writer writer = new BinaryMessageFormat.Writer();
+        BinaryMessageFormat.Reader reader = new BinaryMessageFormat.Reader();
+        String huge = "x".repeat(WireProtocol.MAX_FRAME_LENGTH + 1);
+
+        assertThrows(IOException.class, () -> frame(writer, text("never-sent", huge)));
+        // The reader never saw the failed frame, so the id must go out in full again.
+        NetworkMessage read = read(reader, frame(writer, text("never-sent", "ok")));
+
+        assertEquals("never-sent", read.getClientId());
+        assertEquals("ok", read.getData());
+    }
+
+    @Test
+    void standaloneFramesBypassConnectionTables() throws IOException {
+        BinaryMessageFormat.Writer writer = new BinaryMessageFormat.Writer();
+        BinaryMessageFormat.Reader reader = new BinaryMessageFormat.Reader();
+        assertEquals("client-1", read(reader, frame(writer, text("client-1", "first"))).getClientId());
+
+        byte[] broadcast = BinaryMessageFormat.encodeStandaloneFrame(text("server", "hello"));
+        NetworkMessage fromFreshReader = read(new BinaryMessageFormat.Reader(), broadcast);
+        NetworkMessage fromUsedReader = read(reader, broadcast);
+        NetworkMessage next = read(reader, frame(writer, text("client-1", "second")));
+
+        assertEquals("server", fromFreshReader.getClientId());
+        assertEquals("hello", fromUsedReader.getData());
+        assertEquals("server", fromUsedReader.getClientId());
+        assertEquals("client-1", next.getClientId());
+        assertEquals("second", next.getData());
+    }
+
+    @Test
+    void readFrameReturnsNullAtEndOfStream() throws IOException {
+        assertNull(new BinaryMessageFormat.Reader().readFrame(new ByteArrayInputStream(new byte[0])));
+    }
+}
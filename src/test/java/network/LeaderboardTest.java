@@ -0,0 +1,157 @@
+package network;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LeaderboardTest {
+    private static final Comparator<LeaderboardEntry> BOARD_ORDER =
+            Comparator.comparingInt(LeaderboardEntry::getLevel).reversed()
+                    .thenComparingLong(LeaderboardEntry::getCompletionTime);
+
+    private static LeaderboardEntry entry(String username, int level, long completionTime) {
+        return new LeaderboardEntry(username, level, completionTime, 0, 0);
+    }
+
+    private static List<String> names(List<LeaderboardEntry> entries) {
+        List<String> names = new ArrayList<>();
+        for (LeaderboardEntry entry : entries) {
+            names.add(entry.getUsername());
+        }
+        return names;
+    }
+
+    @Test
+    void ordersByLevelThenCompletionTime() {
+        Leaderboard board = new Leaderboard(100, 0);
+        board.add(entry("slow", 2, 900));
+        board.add(entry("low", 1, 100));
+        board.add(entry("fast", 2, 300));
+        board.add(entry("high", 3, 5000));
+
+        assertEquals(List.of("high", "fast", "slow", "low"), names(board.top(10)));
+        assertEquals(List.of("fast", "slow"), names(board.page(1, 2)));
+        assertEquals(List.of(), board.page(4, 2));
+    }
+
+    @Test
+    void keepsOnlyEachPlayersFastestEntryPerLevel() {
+        Leaderboard board = new Leaderboard(100, 0);
+        assertTrue(board.add(entry("ann", 1, 500)));
+        assertFalse(board.add(entry("ann", 1, 700)));
+        assertFalse(board.add(entry("ann", 1, 500)));
+        assertTrue(board.add(entry("ann", 1, 200)));
+        assertTrue(board.add(entry("ann", 2, 900)));
+
+        assertEquals(2, board.size());
+        assertEquals(200, board.levelPage(1, 0, 10).get(0).getCompletionTime());
+    }
+
+    @Test
+    void levelPageIsCountedFromTheLevelsFastestEntry() {
+        Leaderboard board = new Leaderboard(100, 0);
+        for (int i = 0; i < 5; i++) {
+            board.add(entry("a" + i, 1, 100 + i));
+            board.add(entry("b" + i, 2, 100 + i));
+            board.add(entry("c" + i, 3, 100 + i));
+        }
+
+        assertEquals(List.of("b0", "b1", "b2"), names(board.levelPage(2, 0, 3)));
+        assertEquals(List.of("b3", "b4"), names(board.levelPage(2, 3, 3)));
+        assertEquals(List.of(), board.levelPage(2, 5, 3));
+        assertEquals(List.of(), board.levelPage(4, 0, 3));
+    }
+
+    @Test
+    void rankOfUsesThePlayersBestEntry() {
+        Leaderboard board = new Leaderboard(100, 0);
+        board.add(entry("ann", 1, 100));
+        board.add(entry("bob", 2, 300));
+        board.add(entry("cat", 2, 200));
+        board.add(entry("ann", 2, 400));
+
+        assertEquals(1, board.rankOf("cat"));
+        assertEquals(2, board.rankOf("bob"));
+        assertEquals(3, board.rankOf("ann"));
+        assertEquals(1, board.rankOf("ann", 1));
+        assertEquals(3, board.rankOf("ann", 2));
+        assertEquals(-1, board.rankOf("bob", 1));
+        assertEquals(-1, board.rankOf("nobody"));
+    }
+
+    @Test
+    void dropsTheLowestEntryPastCapacity() {
+        Leaderboard board = new Leaderboard(3, 0);
+        board.add(entry("a", 2, 100));
+        board.add(entry("b", 2, 200));
+        board.add(entry("c", 2, 300));
+        assertFalse(board.add(entry("d", 1, 50)));
+        assertTrue(board.add(entry("e", 3, 50)));
+
+        assertEquals(3, board.size());
+        assertEquals(List.of("e", "a", "b"), names(board.top(10)));
+        assertEquals(-1, board.rankOf("c"));
+    }
+
+    @Test
+    void expiresEntriesPastTheMaximumAge() throws InterruptedException {
+        Leaderboard board = new Leaderboard(100, 1000);
+        LeaderboardEntry stale = entry("stale", 1, 100);
+        stale.setTimestamp(System.currentTimeMillis() - 2000);
+        assertFalse(board.add(stale));
+
+        LeaderboardEntry aging = entry("aging", 1, 100);
+        aging.setTimestamp(System.currentTimeMillis() - 950);
+        assertTrue(board.add(aging));
+        assertTrue(board.add(entry("fresh", 1, 200)));
+        Thread.sleep(100);
+
+        assertEquals(List.of("fresh"), names(board.top(10)));
+        assertEquals(-1, board.rankOf("aging"));
+    }
+
+    @Test
+    void matchesASortedListUnderRandomChanges() {
+        Random random = new Random(42);
+        Leaderboard board = new Leaderboard(50, 0);
+        List<LeaderboardEntry> expected = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            LeaderboardEntry added = entry("p" + random.nextInt(40), 1 + random.nextInt(5), random.nextInt(10_000));
+            LeaderboardEntry existing = null;
+            for (LeaderboardEntry entry : expected) {
+                if (entry.getUsername().equals(added.getUsername()) && entry.getLevel() == added.getLevel()) {
+                    existing = entry;
+                }
+            }
+            if (existing == null || added.getCompletionTime() < existing.getCompletionTime()) {
+                expected.remove(existing);
+                expected.add(added);
+                // Stable sort keeps earlier arrivals first on ties, as the board does.
+                expected.sort(BOARD_ORDER);
+                while (expected.size() > 50) {
+                    expected.remove(expected.size() - 1);
+                }
+            }
+            board.add(added);
+        }
+
+        assertEquals(expected.size(), board.size());
+        assertEquals(expected, board.top(100));
+        for (int level = 1; level <= 5; level++) {
+            List<LeaderboardEntry> ofLevel = new ArrayList<>();
+            for (LeaderboardEntry entry : expected) {
+                if (entry.getLevel() == level) {
+                    ofLevel.add(entry);
+                }
+            }
+            assertEquals(ofLevel, board.levelPage(level, 0, 100));
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package network;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnapshotDeltaEncoderTest {
+
+    private static GameStateData.NodeData node(String id, double x, double y) {
+        GameStateData.NodeData node = new GameStateData.NodeData();
+        node.setId(id);
+        node.setX(x);
+        node.setY(y);
+        node.setType("SYSTEM");
+        return node;
+    }
+
+    private static GameStateData.PacketData packet(String id, double progress) {
+        GameStateData.PacketData packet = new GameStateData.PacketData();
+        packet.setId(id);
+        packet.setType("SQUARE");
+        packet.setConnectionId("c1");
+        packet.setProgress(progress);
+        packet.setX(progress * 100);
+        packet.setY(50);
+        return packet;
+    }
+
+    private static GameStateData snapshot(int coins, List<GameStateData.NodeData> nodes,
+                                          List<GameStateData.PacketData> packets) {
+        GameStateData snapshot = new GameStateData();
+        snapshot.setLevel(2);
+        snapshot.setUsername("ann");
+        snapshot.setCoins(coins);
+        snapshot.setNodes(nodes);
+        snapshot.setPackets(packets);
+        return snapshot;
+    }
+
+    // Rebuilt snapshots keep the base's entity order, so entities are compared by id.
+    private static <T> Map<String, T> byId(List<T> entities, Function<T, String> idOf) {
+        Map<String, T> index = new LinkedHashMap<>();
+        if (entities != null) {
+            for (T entity : entities) {
+                index.put(idOf.apply(entity), entity);
+            }
+        }
+        return index;
+    }
+
+    private static void assertSameState(GameStateData expected, GameStateData actual) {
+        assertNotNull(actual);
+        assertEquals(expected.getCoins(), actual.getCoins());
+        assertEquals(expected.getLevel(), actual.getLevel());
+        assertEquals(expected.getUsername(), actual.getUsername());
+        assertEquals(byId(expected.getNodes(), GameStateData.NodeData::getId),
+                byId(actual.getNodes(), GameStateData.NodeData::getId));
+        assertEquals(byId(expected.getPackets(), GameStateData.PacketData::getId),
+                byId(actual.getPackets(), GameStateData.PacketData::getId));
+        assertEquals(expected.getPowerUpStates(), actual.getPowerUpStates());
+    }
+
+    @Test
+    void deltaCarriesOnlyChangesAndRebuildsTheSnapshot() {
+        GameStateData base = snapshot(10,
+                List.of(node("n1", 0, 0), node("n2", 5, 5)),
+                List.of(packet("p1", 0.1), packet("p2", 0.5)));
+        GameStateData next = snapshot(12,
+                List.of(node("n1", 0, 0), node("n2", 5, 5)),
+                List.of(packet("p1", 0.2), packet("p3", 0.0)));
+
+        GameStateDelta delta = GameStateDelta.between(base, 1, next, 2);
+
+        assertNull(delta.getNodes());
+        assertNull(delta.getRemovedNodeIds());
+        assertEquals(List.of("p1", "p3"), new ArrayList<>(byId(delta.getPackets(), GameStateData.PacketData::getId).keySet()));
+        assertEquals(List.of("p2"), delta.getRemovedPacketIds());
+        assertEquals(3, delta.getChangeCount());
+        assertSameState(next, GameStateDelta.fromJson(delta.toJson()).applyTo(base));
+    }
+
+    @Test
+    void firstSnapshotIsAKeyframe() {
+        SnapshotDeltaEncoder encoder = new SnapshotDeltaEncoder();
+        GameStateData first = snapshot(1, List.of(node("n1", 0, 0)), List.of());
+
+        GameStateDelta delta = encoder.encode(first);
+
+        assertTrue(delta.isKeyframe());
+        assertSameState(first, new SnapshotDeltaDecoder().apply(delta));
+    }
+
+    @Test
+    void decoderIgnoresStaleDeltas() {
+        SnapshotDeltaEncoder encoder = new SnapshotDeltaEncoder();
+        SnapshotDeltaDecoder decoder = new SnapshotDeltaDecoder();
+        GameStateDelta first = encoder.encode(snapshot(1, List.of(), List.of()));
+        GameStateDelta second = encoder.encode(snapshot(2, List.of(), List.of()));
+
+        assertNotNull(decoder.apply(second));
+        assertNull(decoder.apply(first));
+    }
+
+    @Test
+    void streamRebuildsEverySnapshotDespiteLossAndLateAcknowledgements() {
+        Random random = new Random(7);
+        SnapshotDeltaEncoder encoder = new SnapshotDeltaEncoder();
+        SnapshotDeltaDecoder decoder = new SnapshotDeltaDecoder();
+        List<Long> pendingAcks = new ArrayList<>();
+        Map<String, Double> packets = new HashMap<>();
+        int nextPacket = 0;
+        int keyframes = 0;
+        int delivered = 0;
+
+        for (int tick = 0; tick < 500; tick++) {
+            if (random.nextInt(3) == 0) {
+                packets.put("p" + nextPacket++, 0.0);
+            }
+            packets.replaceAll((id, progress) -> progress + 0.05);
+            packets.values().removeIf(progress -> progress >= 1.0);
+            List<GameStateData.PacketData> packetList = new ArrayList<>();
+            packets.forEach((id, progress) -> packetList.add(packet(id, progress)));
+            List<GameStateData.NodeData> nodes = List.of(
+                    node("n1", 0, 0), node("n2", tick / 100, 0), node("n3", 10, 10));
+            GameStateData state = snapshot(tick / 10, nodes, packetList);
+            state.setPowerUpStates(Map.of("speed", tick / 50 % 2 == 0));
+
+            GameStateDelta delta = encoder.encode(state);
+            if (delta.isKeyframe()) {
+                keyframes++;
+            }
+            if (random.nextInt(10) == 0) {
+                continue; // Lost on the way
+            }
+            GameStateData rebuilt = decoder.apply(GameStateDelta.fromJson(delta.toJson()));
+            assertSameState(state, rebuilt);
+            delivered++;
+            pendingAcks.add(delta.getSequence());
+            // Acknowledgements arrive a few ticks late and some never arrive.
+            if (pendingAcks.size() > 3) {
+                long ack = pendingAcks.remove(0);
+                if (random.nextInt(5) != 0) {
+                    encoder.acknowledge(ack);
+                }
+            }
+        }
+
+        assertTrue(delivered > 400);
+        // The periodic keyframes, the ones sent before the first acknowledgement, and a few to recover.
+        assertTrue(keyframes < 500 / GameStateDelta.KEYFRAME_INTERVAL + 10);
+    }
+}
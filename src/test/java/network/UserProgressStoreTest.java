@@ -0,0 +1,144 @@
+package network;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class UserProgressStoreTest {
+    private static final String USER = "CLIENT_1";
+
+    @TempDir
+    Path directory;
+
+    private static DataIntegrityValidator.GameResultData result(int level, int coins) {
+        DataIntegrityValidator.GameResultData result = new DataIntegrityValidator.GameResultData(level, 5000, 0, coins);
+        result.setDataHash("hash-" + level);
+        return result;
+    }
+
+    private static List<Integer> levels(List<DataIntegrityValidator.GameResultData> results) {
+        List<Integer> levels = new ArrayList<>();
+        for (DataIntegrityValidator.GameResultData result : results) {
+            levels.add(result.getLevel());
+        }
+        return levels;
+    }
+
+    private static void append(Path directory, int... levels) throws IOException {
+        try (UserProgressStore store = UserProgressStore.open(directory)) {
+            for (int level : levels) {
+                store.appendResult(USER, result(level, 10), 100);
+            }
+        }
+    }
+
+    // Log position the checkpoint covers, which after a clean close is the end of the log.
+    private int checkpointedEnd() throws IOException {
+        return ByteBuffer.wrap(Files.readAllBytes(directory.resolve("progress.index"))).getInt(8);
+    }
+
+    private void flipByte(int offset) throws IOException {
+        try (RandomAccessFile log = new RandomAccessFile(directory.resolve("progress.log").toFile(), "rw")) {
+            log.seek(offset);
+            int value = log.read();
+            log.seek(offset);
+            log.write(value ^ 0xFF);
+        }
+    }
+
+    @Test
+    void reopenedStoreHasTotalsAndHistory() throws IOException {
+        try (UserProgressStore store = UserProgressStore.open(directory)) {
+            assertNull(store.summary(USER));
+            store.appendTotals(USER, 50, 1, 200);
+            store.appendResult(USER, result(2, 10), 100);
+            store.appendResult(USER, result(3, 20), 150);
+        }
+
+        try (UserProgressStore store = UserProgressStore.open(directory)) {
+            UserProgressStore.Summary summary = store.summary(USER);
+            assertEquals(80, summary.coins);
+            assertEquals(3, summary.maxLevelPass);
+            assertEquals(450, summary.totalXP);
+            assertEquals(2, summary.games);
+            List<DataIntegrityValidator.GameResultData> history = store.recentResults(USER, 10);
+            assertEquals(List.of(2, 3), levels(history));
+            assertEquals("hash-3", history.get(1).getDataHash());
+            assertEquals(List.of(3), levels(store.recentResults(USER, 1)));
+        }
+    }
+
+    @Test
+    void tornLastRecordIsDroppedAndOverwritten() throws IOException {
+        append(directory, 1, 2, 3);
+        int end = checkpointedEnd();
+        Files.delete(directory.resolve("progress.index"));
+        flipByte(end - 1);
+
+        try (UserProgressStore store = UserProgressStore.open(directory)) {
+            assertEquals(2, store.summary(USER).games);
+            assertEquals(20, store.summary(USER).coins);
+            store.appendResult(USER, result(4, 10), 100);
+        }
+
+        try (UserProgressStore store = UserProgressStore.open(directory)) {
+            assertEquals(3, store.summary(USER).games);
+            assertEquals(List.of(1, 2, 4), levels(store.recentResults(USER, 10)));
+        }
+    }
+
+    @Test
+    void replaysOnlyTheLogAfterTheCheckpoint() throws IOException {
+        append(directory, 1);
+        int firstEnd = checkpointedEnd();
+        byte[] firstIndex = Files.readAllBytes(directory.resolve("progress.index"));
+        append(directory, 2);
+        // As if the process died before checkpointing the second append.
+        Files.write(directory.resolve("progress.index"), firstIndex);
+        // Damage the checkpointed record; only its history read should notice.
+        flipByte(firstEnd - 1);
+
+        try (UserProgressStore store = UserProgressStore.open(directory)) {
+            UserProgressStore.Summary summary = store.summary(USER);
+            assertEquals(2, summary.games);
+            assertEquals(20, summary.coins);
+            assertEquals(2, summary.maxLevelPass);
+            assertEquals(List.of(2), levels(store.recentResults(USER, 10)));
+        }
+    }
+
+    @Test
+    void unreadableCheckpointFallsBackToAFullReplay() throws IOException {
+        append(directory, 1, 2);
+        Files.write(directory.resolve("progress.index"), new byte[] {1, 2, 3});
+
+        try (UserProgressStore store = UserProgressStore.open(directory)) {
+            assertEquals(2, store.summary(USER).games);
+            assertEquals(List.of(1, 2), levels(store.recentResults(USER, 10)));
+        }
+    }
+
+    @Test
+    void importedHistoryDoesNotCountTwice() throws IOException {
+        try (UserProgressStore store = UserProgressStore.open(directory)) {
+            store.importUser(USER, 30, 2, 300, List.of(result(1, 10), result(2, 20)));
+        }
+
+        try (UserProgressStore store = UserProgressStore.open(directory)) {
+            UserProgressStore.Summary summary = store.summary(USER);
+            assertEquals(30, summary.coins);
+            assertEquals(300, summary.totalXP);
+            assertEquals(List.of(1, 2), levels(store.recentResults(USER, 10)));
+        }
+    }
+}